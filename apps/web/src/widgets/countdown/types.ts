@@ -5,4 +5,5 @@ export type CountdownData = {
     ongoing: boolean;
     tentative?: boolean;
     verified?: boolean;
+    error?: string | null;
 };
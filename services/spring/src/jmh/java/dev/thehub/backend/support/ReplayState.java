@@ -0,0 +1,38 @@
+package dev.thehub.backend.support;
+
+import java.io.IOException;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state running a {@link FixtureReplayServer} over the test fixtures
+ * for one trial, once per configured latency.
+ */
+@State(Scope.Benchmark)
+public class ReplayState {
+
+    /** Delay the stand-in adds to every response. */
+    @Param({"0", "25"})
+    public long latencyMs;
+
+    private FixtureReplayServer server;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        server = FixtureReplayServer.start(0, FixtureReplayServer.classpathFixtures(), latencyMs, 0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        server.close();
+    }
+
+    /** Base URL of the running server, without trailing slash. */
+    public String url() {
+        return server.url();
+    }
+}
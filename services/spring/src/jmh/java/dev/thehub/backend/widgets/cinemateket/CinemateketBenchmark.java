@@ -0,0 +1,76 @@
+package dev.thehub.backend.widgets.cinemateket;
+
+import dev.thehub.backend.support.FixtureReplayServer;
+import dev.thehub.backend.support.ReplayState;
+import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Cinemateket program parsing over the recorded program page, compared with
+ * the parser it replaced, plus the full two-request scrape against the replay
+ * server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CinemateketBenchmark {
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final String SITE = "https://cinemateket-trondheim.no";
+
+    private String html;
+    private Document doc;
+
+    @Setup
+    public void load() throws IOException {
+        html = Files.readString(FixtureReplayServer.classpathFixtures().resolve("cinemateket/program.html"));
+        doc = Jsoup.parse(html, SITE + "/program/");
+    }
+
+    @Benchmark
+    public List<FilmShowingDto> parse() {
+        return CinemateketProgramParser.parse(doc, TODAY, SITE);
+    }
+
+    @Benchmark
+    public List<FilmShowingDto> parseLegacy() {
+        return new LegacyCinemateketParser(TODAY, SITE).parseShowings(doc);
+    }
+
+    /** Includes building the DOM, as the service does for every scrape. */
+    @Benchmark
+    public List<FilmShowingDto> parseHtml() {
+        return CinemateketProgramParser.parse(Jsoup.parse(html), TODAY, SITE);
+    }
+
+    /**
+     * Home page, program page and parse. Dominated by the service's fixed pause
+     * between the two requests.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 10)
+    public List<FilmShowingDto> fetch(ReplayState replay) {
+        return new CinemateketService(new RestTemplate(), replay.url() + "/cinemateket").fetchShowings(null);
+    }
+}
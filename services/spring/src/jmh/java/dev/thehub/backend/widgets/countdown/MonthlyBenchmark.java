@@ -0,0 +1,64 @@
+package dev.thehub.backend.widgets.countdown;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Next-occurrence evaluation of monthly rules: the compiled rule, compiling it
+ * on every call, and the iterative evaluation it replaced.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MonthlyBenchmark {
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /** "dom" = dayOfMonth, "last-friday" = byWeekday FR with bySetPos -1. */
+    @Param({"dom", "last-friday"})
+    public String rule;
+
+    private ObjectNode settings;
+    private Monthly compiled;
+    private final Instant now = ZonedDateTime.parse("2026-10-30T20:00:00+01:00[Europe/Oslo]").toInstant();
+
+    @Setup
+    public void compile() {
+        settings = switch (rule) {
+            case "dom" -> JSON.createObjectNode().put("time", "09:30").put("dayOfMonth", 31);
+            default -> JSON.createObjectNode().put("time", "18:00").put("byWeekday", "FR").put("bySetPos", -1);
+        };
+        compiled = Monthly.compile(settings);
+    }
+
+    @Benchmark
+    public String compiledRule() {
+        return compiled.nextOccurrenceIso(now);
+    }
+
+    @Benchmark
+    public String compileAndEvaluate() {
+        return Monthly.compile(settings).nextOccurrenceIso(now);
+    }
+
+    @Benchmark
+    public String legacy() {
+        return LegacyMonthly.nextOccurrenceIso(now, settings);
+    }
+}
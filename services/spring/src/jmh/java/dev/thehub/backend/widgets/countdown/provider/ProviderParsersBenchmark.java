@@ -0,0 +1,84 @@
+package dev.thehub.backend.widgets.countdown.provider;
+
+import dev.thehub.backend.support.FixtureReplayServer;
+import dev.thehub.backend.support.ReplayState;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Trippel-Trumf and DNB Supertilbud page parsing over recorded pages, plus the
+ * providers' fetch-and-parse paths against the replay server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProviderParsersBenchmark {
+    private static final int YEAR = 2026;
+
+    private final RestTemplate http = new RestTemplate();
+    private final Instant now = Instant.parse("2026-10-19T10:00:00Z");
+    private String overview;
+    private String bonusjegeren;
+    private String dnb;
+
+    @Setup
+    public void load() throws IOException {
+        Path fixtures = FixtureReplayServer.classpathFixtures();
+        overview = Files.readString(fixtures.resolve("trippel-trumf.html"));
+        bonusjegeren = Files.readString(fixtures.resolve("bonusjegeren.html"));
+        dnb = Files.readString(fixtures.resolve("dnb-supertilbud.html"));
+    }
+
+    @Benchmark
+    public List<?> trippelOverviewTable() {
+        return TrippelTrumfProvider.parseOverviewTable(overview, YEAR);
+    }
+
+    @Benchmark
+    public Set<LocalDate> trippelBonusjegeren() {
+        return TrippelTrumfProvider.parseBonusjegeren(bonusjegeren, YEAR);
+    }
+
+    @Benchmark
+    public List<?> dnbWindows() {
+        return DNBSupertilbudProvider.parseWindows(dnb, YEAR);
+    }
+
+    /**
+     * Both Trippel-Trumf pages fetched and merged; a fresh provider per call so
+     * its short in-process cache does not absorb the fetches.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Optional<Instant> trippelFetch(ReplayState replay) {
+        return new TrippelTrumfProvider(http, replay.url() + "/trippel-trumf/", replay.url() + "/bonusjegeren/")
+                .next(now);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Optional<Instant> dnbFetch(ReplayState replay) {
+        return new DNBSupertilbudProvider(http, replay.url() + "/dnb-supertilbud/").next(now);
+    }
+}
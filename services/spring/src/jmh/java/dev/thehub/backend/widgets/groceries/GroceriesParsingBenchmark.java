@@ -0,0 +1,126 @@
+package dev.thehub.backend.widgets.groceries;
+
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
+import dev.thehub.backend.support.FixtureReplayServer;
+import dev.thehub.backend.support.ReplayState;
+import dev.thehub.backend.widgets.groceries.dto.DealDto;
+import dev.thehub.backend.widgets.groceries.dto.GeminiDealDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Etilbudsavis NDJSON search response and Gemini generateContent response
+ * parsing over recorded payloads, plus the search and enrichment calls against
+ * the replay server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroceriesParsingBenchmark {
+
+    private String search;
+    private String generateContent;
+    private GroceriesService groceries;
+    private GeminiGroceryEnricher gemini;
+
+    @Setup
+    public void load() throws IOException {
+        Path fixtures = FixtureReplayServer.classpathFixtures();
+        search = Files.readString(fixtures.resolve("etilbudsavis/search.ndjson"));
+        generateContent = Files.readString(fixtures.resolve("gemini/generate-content.json"));
+        groceries = groceries("http://127.0.0.1:9");
+        gemini = gemini("http://127.0.0.1:9");
+    }
+
+    /** Services pointed at the replay server, with deals to enrich. */
+    @State(Scope.Benchmark)
+    public static class Upstreams {
+        GroceriesService groceries;
+        GeminiGroceryEnricher gemini;
+        List<DealDto> deals;
+
+        @Setup
+        public void connect(ReplayState replay) throws IOException {
+            groceries = groceries(replay.url() + "/etilbudsavis");
+            gemini = gemini(replay.url() + "/gemini");
+            deals = groceries.regionOffers("melk", 0, 50).deals();
+        }
+    }
+
+    /** NDJSON lines to offer maps to deals, as every upstream search does. */
+    @Benchmark
+    public List<DealDto> mapDeals() throws IOException {
+        List<Map<String, Object>> data = groceries.offerMaps(search);
+        List<DealDto> out = new ArrayList<>(data.size());
+        for (Map<String, Object> m : data) {
+            DealDto d = groceries.toDeal(m);
+            if (d != null)
+                out.add(d);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public List<GeminiDealDecision> geminiDecisions() throws IOException {
+        return gemini.parseDecisions(generateContent);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<DealDto> searchFetch(Upstreams upstreams) throws IOException {
+        return upstreams.groceries.regionOffers("melk", 0, 50).deals();
+    }
+
+    /** Prompt building, the generateContent call and response parsing. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<GeminiDealDecision> geminiFetch(Upstreams upstreams) {
+        return upstreams.gemini.filterAndEnrich("melk", upstreams.deals);
+    }
+
+    /** A service configured like the default region; field injection is set by hand. */
+    private static GroceriesService groceries(String baseUrl) {
+        var registry = new SimpleMeterRegistry();
+        var svc = new GroceriesService(new RestTemplate(), registry, ObservationRegistry.NOOP, null,
+                new ConcurrencyLimits(new MockEnvironment(), registry), new LocalOfferIndex(120), null);
+        ReflectionTestUtils.setField(svc, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(svc, "defaultCity", "Trondheim");
+        ReflectionTestUtils.setField(svc, "defaultLat", 63.4306);
+        ReflectionTestUtils.setField(svc, "defaultLon", 10.4037);
+        ReflectionTestUtils.setField(svc, "countryCode", "NO");
+        ReflectionTestUtils.setField(svc, "userAgent", "TheHub/1.0 (benchmark)");
+        return svc;
+    }
+
+    private static GeminiGroceryEnricher gemini(String baseUrl) {
+        var enricher = new GeminiGroceryEnricher(new RestTemplate(), Runnable::run, ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(enricher, "enabled", true);
+        ReflectionTestUtils.setField(enricher, "apiKey", "benchmark");
+        ReflectionTestUtils.setField(enricher, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(enricher, "model", "gemini-2.5-flash");
+        return enricher;
+    }
+}
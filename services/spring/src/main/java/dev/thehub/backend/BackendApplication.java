@@ -1,5 +1,7 @@
 package dev.thehub.backend;
 
+import dev.thehub.backend.common.tracing.ContextPropagatingTaskDecorator;
+import io.micrometer.observation.ObservationRegistry;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadPoolExecutor;
 import org.springframework.boot.SpringApplication;
@@ -16,13 +18,14 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 public class BackendApplication {
 
     @Bean(name = "groceryEnrichmentExecutor")
-    Executor groceryEnrichmentExecutor() {
+    Executor groceryEnrichmentExecutor(ObservationRegistry observations) {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(2);
         executor.setMaxPoolSize(4);
         executor.setQueueCapacity(500);
         executor.setThreadNamePrefix("grocery-enrich-");
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator(observations));
         executor.initialize();
         return executor;
     }
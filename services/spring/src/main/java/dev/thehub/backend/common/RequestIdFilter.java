@@ -1,14 +1,18 @@
 package dev.thehub.backend.common;
 
+import io.micrometer.common.KeyValue;
 import jakarta.servlet.*;
 import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.UUID;
 import org.slf4j.MDC;
+import org.springframework.web.filter.ServerHttpObservationFilter;
 
 public class RequestIdFilter implements Filter {
     private static final String HEADER = "X-Request-ID";
-    private static final String MDC_KEY = "requestId";
+    public static final String MDC_KEY = "requestId";
+    /** Tag carrying the request id on the request's server observation (span). */
+    public static final String KEY_VALUE = "request.id";
 
     @Override
     public void doFilter(ServletRequest req, ServletResponse res, FilterChain chain)
@@ -19,9 +23,12 @@ public class RequestIdFilter implements Filter {
             if (rid == null || rid.isBlank())
                 rid = UUID.randomUUID().toString();
             MDC.put(MDC_KEY, rid);
+            var requestId = rid;
+            ServerHttpObservationFilter.findObservationContext(request)
+                    .ifPresent(c -> c.addHighCardinalityKeyValue(KeyValue.of(KEY_VALUE, requestId)));
             chain.doFilter(req, res);
         } finally {
             MDC.remove(MDC_KEY);
         }
     }
-}
\ No newline at end of file
+}
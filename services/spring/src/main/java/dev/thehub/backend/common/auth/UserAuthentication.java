@@ -0,0 +1,43 @@
+package dev.thehub.backend.common.auth;
+
+import java.util.Collection;
+import java.util.UUID;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * {@link JwtAuthenticationToken} that also carries the user id parsed from the
+ * {@code sub} claim, so controllers don't parse it on every request.
+ */
+public class UserAuthentication extends JwtAuthenticationToken {
+
+    private static final long serialVersionUID = 1L;
+
+    private final UUID userId;
+
+    public UserAuthentication(Jwt jwt, Collection<? extends GrantedAuthority> authorities, String name, UUID userId) {
+        super(jwt, authorities, name);
+        this.userId = userId;
+    }
+
+    /** The Supabase user id, or null if {@code sub} is not a UUID. */
+    public UUID getUserId() {
+        return userId;
+    }
+
+    /**
+     * User id of an authenticated request.
+     *
+     * @param auth
+     *            JWT authentication
+     * @return the {@code sub} claim as UUID
+     * @throws IllegalArgumentException
+     *             if {@code sub} is not a UUID
+     */
+    public static UUID userId(JwtAuthenticationToken auth) {
+        if (auth instanceof UserAuthentication u && u.userId != null)
+            return u.userId;
+        return UUID.fromString(auth.getToken().getClaimAsString("sub"));
+    }
+}
@@ -0,0 +1,111 @@
+package dev.thehub.backend.common.auth;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.BearerTokenAuthenticationToken;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationProvider;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+/**
+ * Resource-server {@link AuthenticationManager} that remembers verified tokens.
+ * <p>
+ * A dashboard fires many parallel widget requests with the same bearer token.
+ * The first one is decoded, HMAC-verified and mapped to authorities by the
+ * regular {@link JwtAuthenticationProvider}; the result (JWT, authorities, user
+ * id) is then cached under the SHA-256 digest of the token until the token's
+ * {@code exp}, and later requests only hash the token and build a fresh
+ * {@link UserAuthentication} from the entry. Tokens without {@code exp} and
+ * failed verifications are never cached.
+ */
+@Component
+public class VerifiedJwtCache implements AuthenticationManager {
+
+    private record Entry(Jwt jwt, Collection<GrantedAuthority> authorities, String name, UUID userId,
+            Instant expiresAt) {
+    }
+
+    private final JwtAuthenticationProvider provider;
+    private final int maxEntries;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public VerifiedJwtCache(JwtDecoder decoder, JwtAuthenticationConverter converter,
+            @Value("${auth.jwt-cache.max-entries:10000}") int maxEntries) {
+        this.provider = new JwtAuthenticationProvider(decoder);
+        this.provider.setJwtAuthenticationConverter(converter);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        var bearer = (BearerTokenAuthenticationToken) authentication;
+        String key = digest(bearer.getToken());
+        Instant now = Instant.now();
+
+        Entry e = entries.get(key);
+        if (e != null && now.isBefore(e.expiresAt()))
+            return toAuthentication(e, bearer);
+        if (e != null)
+            entries.remove(key, e);
+
+        var verified = (JwtAuthenticationToken) provider.authenticate(bearer);
+        Jwt jwt = verified.getToken();
+        var entry = new Entry(jwt, verified.getAuthorities(), verified.getName(), parseUuid(jwt.getSubject()),
+                jwt.getExpiresAt());
+        if (entry.expiresAt() != null && now.isBefore(entry.expiresAt())) {
+            if (entries.size() >= maxEntries)
+                evict(now);
+            entries.put(key, entry);
+        }
+        return toAuthentication(entry, bearer);
+    }
+
+    /** Number of cached tokens. */
+    public int size() {
+        return entries.size();
+    }
+
+    private static UserAuthentication toAuthentication(Entry e, BearerTokenAuthenticationToken bearer) {
+        var auth = new UserAuthentication(e.jwt(), e.authorities(), e.name(), e.userId());
+        auth.setDetails(bearer.getDetails());
+        return auth;
+    }
+
+    /** Drops expired entries, and everything if the cache is still full. */
+    private void evict(Instant now) {
+        entries.values().removeIf(e -> !now.isBefore(e.expiresAt()));
+        if (entries.size() >= maxEntries)
+            entries.clear();
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(d);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static UUID parseUuid(String s) {
+        try {
+            return s != null ? UUID.fromString(s) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package dev.thehub.backend.common.cache;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Application event telling in-process caches that rows of a table changed,
+ * possibly on another replica or through a direct database write.
+ * <p>
+ * Published by {@link CacheInvalidationListener}. Caches subscribe with
+ * {@code @EventListener} and drop what the event describes. When the keys are
+ * null (truncate, or {@link #RESYNC} after the listener reconnected and may
+ * have missed notifications), everything derived from the table must go.
+ *
+ * @param table
+ *            table name, or {@link #ALL_TABLES} for a resync
+ * @param op
+ *            INSERT, UPDATE, DELETE, TRUNCATE or {@link #RESYNC}
+ * @param at
+ *            database time at which the trigger fired, before commit (null for a
+ *            resync)
+ * @param userId
+ *            owner of the changed user_widgets row, else null
+ * @param instanceId
+ *            instance id of the changed user_widgets row, else null
+ */
+public record CacheInvalidationEvent(String table, String op, Instant at, UUID userId, UUID instanceId) {
+
+    public static final String ALL_TABLES = "*";
+    public static final String RESYNC = "RESYNC";
+
+    static CacheInvalidationEvent resync() {
+        return new CacheInvalidationEvent(ALL_TABLES, RESYNC, null, null, null);
+    }
+
+    /**
+     * Whether this event concerns the given table (a resync concerns all).
+     */
+    public boolean affects(String tableName) {
+        return ALL_TABLES.equals(table) || tableName.equals(table);
+    }
+
+    /**
+     * Whether the event carries no row keys and the whole table must be treated
+     * as changed.
+     */
+    public boolean isWholeTable() {
+        return RESYNC.equals(op) || "TRUNCATE".equals(op);
+    }
+}
@@ -0,0 +1,179 @@
+package dev.thehub.backend.common.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens for Postgres {@code NOTIFY cache_invalidation} messages (see the
+ * {@code cache_invalidation_notify} migration) and republishes them as
+ * {@link CacheInvalidationEvent}s.
+ * <p>
+ * Uses its own JDBC connection outside the Hikari pool, since a listening
+ * connection is held for the lifetime of the app. The URL must reach Postgres
+ * directly or through a session-mode pooler; transaction-mode poolers drop
+ * LISTEN registrations. After a lost connection it reconnects with backoff and
+ * publishes a resync event, because notifications sent meanwhile are lost.
+ * <p>
+ * Metrics: {@code thehub.cache.invalidation.lag} (trigger-to-receive delay:
+ * the payload is stamped when the trigger fires, before commit, so the timer
+ * includes the rest of the writing transaction),
+ * {@code thehub.cache.invalidation.events}, {@code .reconnects} and the
+ * {@code .connected} gauge.
+ */
+@Component
+public class CacheInvalidationListener implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationListener.class);
+
+    static final String CHANNEL = "cache_invalidation";
+    private static final int POLL_MILLIS = 10_000;
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final ApplicationEventPublisher events;
+    private final ObjectMapper json;
+    private final MeterRegistry metrics;
+    private final boolean enabled;
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final Timer lag;
+    private final Counter reconnects;
+    private final AtomicInteger connected = new AtomicInteger();
+
+    private volatile boolean running;
+    private volatile Thread worker;
+
+    public CacheInvalidationListener(ApplicationEventPublisher events, ObjectMapper json, MeterRegistry metrics,
+            @Value("${cache.invalidation.enabled:true}") boolean enabled,
+            @Value("${cache.invalidation.url:${spring.datasource.url:}}") String url,
+            @Value("${cache.invalidation.username:${spring.datasource.username:}}") String username,
+            @Value("${cache.invalidation.password:${spring.datasource.password:}}") String password) {
+        this.events = events;
+        this.json = json;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.lag = Timer.builder("thehub.cache.invalidation.lag")
+                .description("Delay between the invalidation trigger firing and this node receiving the notification")
+                .publishPercentileHistogram().register(metrics);
+        this.reconnects = Counter.builder("thehub.cache.invalidation.reconnects").register(metrics);
+        metrics.gauge("thehub.cache.invalidation.connected", connected);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || url == null || !url.startsWith("jdbc:postgresql:")) {
+            log.info("Cache invalidation listener disabled enabled={} postgres={}", enabled,
+                    url != null && url.startsWith("jdbc:postgresql:"));
+            return;
+        }
+        running = true;
+        worker = Thread.ofPlatform().daemon().name("cache-invalidation-listener").start(this::loop);
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        Thread t = worker;
+        if (t != null)
+            t.interrupt();
+    }
+
+    private void loop() {
+        Duration backoff = Duration.ofSeconds(1);
+        boolean firstConnect = true;
+        while (running) {
+            try (Connection con = DriverManager.getConnection(url, username, password)) {
+                PGConnection pg = con.unwrap(PGConnection.class);
+                try (Statement st = con.createStatement()) {
+                    st.execute("LISTEN " + CHANNEL);
+                }
+                connected.set(1);
+                backoff = Duration.ofSeconds(1);
+                log.info("Cache invalidation listener connected channel={}", CHANNEL);
+                if (!firstConnect)
+                    events.publishEvent(CacheInvalidationEvent.resync());
+                firstConnect = false;
+
+                while (running) {
+                    PGNotification[] batch = pg.getNotifications(POLL_MILLIS);
+                    if (batch == null)
+                        continue;
+                    for (PGNotification n : batch)
+                        dispatch(n.getParameter());
+                }
+            } catch (SQLException e) {
+                if (!running)
+                    break;
+                reconnects.increment();
+                log.warn("Cache invalidation listener lost connection, retrying in {}s: {}", backoff.toSeconds(),
+                        e.toString());
+            } finally {
+                connected.set(0);
+            }
+
+            try {
+                Thread.sleep(backoff.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            backoff = backoff.multipliedBy(2).compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : backoff.multipliedBy(2);
+        }
+        log.info("Cache invalidation listener stopped");
+    }
+
+    private void dispatch(String payload) {
+        CacheInvalidationEvent event;
+        try {
+            JsonNode p = json.readTree(payload);
+            Instant at = p.hasNonNull("at") ? Instant.ofEpochMilli(p.get("at").asLong()) : null;
+            event = new CacheInvalidationEvent(p.path("table").asText(), p.path("op").asText(), at,
+                    uuidOrNull(p, "userId"), uuidOrNull(p, "instanceId"));
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation payload={}", payload);
+            return;
+        }
+
+        if (event.at() != null) {
+            Duration d = Duration.between(event.at(), Instant.now());
+            lag.record(d.isNegative() ? Duration.ZERO : d);
+        }
+        metrics.counter("thehub.cache.invalidation.events", "table", event.table()).increment();
+        if (log.isDebugEnabled())
+            log.debug("Cache invalidation table={} op={} payload={}", event.table(), event.op(), payload);
+
+        try {
+            events.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Cache invalidation handler failed table={} op={}", event.table(), event.op(), e);
+        }
+    }
+
+    private static UUID uuidOrNull(JsonNode n, String k) {
+        return n.hasNonNull(k) ? UUID.fromString(n.get(k).asText()) : null;
+    }
+}
@@ -0,0 +1,159 @@
+package dev.thehub.backend.common.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+/**
+ * Per-upstream read timeouts derived from observed latency.
+ * <p>
+ * Used both as the RestTemplates' request factory, which routes each request to
+ * the JDK HttpClient of its upstream ({@link Upstreams#of}), and as an
+ * interceptor that records how long each call took until the response headers
+ * arrived. From the last 256 calls of an upstream the read timeout is 3 x p99,
+ * within the upstream's read floor and ceiling. The connect timeout is fixed
+ * per upstream: request latency says nothing about how long a TCP/TLS connect
+ * may take, and the HttpClient (with its connection pool) is built once per
+ * upstream and never replaced.
+ * <p>
+ * Calls that fail (including timeouts) count with the time they took, so an
+ * upstream that slows down pushes its read timeout up towards the ceiling.
+ * Until enough calls were seen the ceiling applies. Changes of 10% or more are
+ * logged; current values are the {@code thehub.upstream.timeout{upstream,kind}}
+ * gauges.
+ */
+@Slf4j
+public class AdaptiveTimeouts implements ClientHttpRequestFactory, ClientHttpRequestInterceptor {
+
+    private static final double READ_HEADROOM = 3;
+
+    /**
+     * Timeout bounds of one upstream.
+     *
+     * @param connect
+     *            connect timeout
+     * @param readFloor
+     *            shortest read timeout
+     * @param readCeiling
+     *            longest (and initial) read timeout
+     */
+    public record Bounds(Duration connect, Duration readFloor, Duration readCeiling) {
+        public Bounds {
+            if (readFloor.compareTo(readCeiling) > 0)
+                readFloor = readCeiling;
+        }
+    }
+
+    private final class Upstream {
+        final String name;
+        final Bounds bounds;
+        final LatencyWindow window = new LatencyWindow(256, 32, 0.99);
+        final HttpClient client;
+        final Executor executor = new SimpleAsyncTaskExecutor();
+        volatile Duration read;
+        /**
+         * Factory with the current read timeout; replaced, never mutated, so a
+         * request always sees a fully configured one. All share {@link #client}.
+         */
+        volatile JdkClientHttpRequestFactory factory;
+
+        Upstream(String name, Bounds bounds) {
+            this.name = name;
+            this.bounds = bounds;
+            this.client = HttpClient.newBuilder().connectTimeout(bounds.connect())
+                    .followRedirects(HttpClient.Redirect.NORMAL).build();
+            this.read = bounds.readCeiling();
+            this.factory = factory(read);
+        }
+
+        JdkClientHttpRequestFactory factory(Duration read) {
+            var f = new JdkClientHttpRequestFactory(client, executor);
+            f.setReadTimeout(read);
+            return f;
+        }
+    }
+
+    private final Function<String, Bounds> bounds;
+    private final MeterRegistry registry;
+    private final Map<String, Upstream> upstreams = new ConcurrentHashMap<>();
+
+    /**
+     * @param bounds
+     *            bounds per upstream name (including {@link Upstreams#OTHER})
+     */
+    public AdaptiveTimeouts(Function<String, Bounds> bounds, MeterRegistry registry) {
+        this.bounds = bounds;
+        this.registry = registry;
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        return upstream(uri.getHost()).factory.createRequest(uri, httpMethod);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long t0 = System.nanoTime();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            // a cancelled hedge attempt says nothing about the upstream
+            if (!Thread.currentThread().isInterrupted())
+                record(upstream(request.getURI().getHost()), System.nanoTime() - t0);
+        }
+    }
+
+    private Upstream upstream(String host) {
+        return upstreams.computeIfAbsent(Upstreams.of(host),
+                name -> withGauges(new Upstream(name, bounds.apply(name))));
+    }
+
+    private Upstream withGauges(Upstream upstream) {
+        Gauge.builder("thehub.upstream.timeout", upstream, u -> u.bounds.connect().toMillis() / 1000.0)
+                .tag("upstream", upstream.name).tag("kind", "connect").baseUnit("seconds").register(registry);
+        Gauge.builder("thehub.upstream.timeout", upstream, u -> u.read.toMillis() / 1000.0)
+                .tag("upstream", upstream.name).tag("kind", "read").baseUnit("seconds").register(registry);
+        return upstream;
+    }
+
+    private void record(Upstream u, long nanos) {
+        if (!u.window.record(nanos))
+            return;
+        Bounds b = u.bounds;
+        synchronized (u) {
+            Duration read = clamp((long) (u.window.quantile(0) * READ_HEADROOM), b.readFloor(), b.readCeiling());
+            if (!changed(u.read, read, 0.10))
+                return;
+            u.factory = u.factory(read);
+            u.read = read;
+            log.info("Upstream read timeout updated upstream={} readMs={} p99Ms={}", u.name, read.toMillis(),
+                    u.window.quantile(0) / 1_000_000);
+        }
+    }
+
+    private static boolean changed(Duration current, Duration next, double threshold) {
+        return Math.abs(next.toMillis() - current.toMillis()) >= current.toMillis() * threshold;
+    }
+
+    private static Duration clamp(long nanos, Duration floor, Duration ceiling) {
+        return Duration.ofMillis(Math.clamp(nanos / 1_000_000, floor.toMillis(), ceiling.toMillis()));
+    }
+}
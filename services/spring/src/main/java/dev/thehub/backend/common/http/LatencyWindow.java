@@ -0,0 +1,59 @@
+package dev.thehub.backend.common.http;
+
+import java.util.Arrays;
+
+/**
+ * The last {@code size} latencies of one upstream, with percentiles recomputed
+ * every 16 samples (sorting a few hundred longs is cheap at that rate).
+ * Thread-safe.
+ */
+final class LatencyWindow {
+
+    private final long[] samples;
+    private final int minSamples;
+    private final double[] quantiles;
+    private final long[] values;
+    private int count;
+    private int next;
+    private boolean ready;
+
+    /**
+     * @param size
+     *            samples kept
+     * @param minSamples
+     *            samples needed before percentiles are reported
+     * @param quantiles
+     *            quantiles to track, e.g. 0.5, 0.95
+     */
+    LatencyWindow(int size, int minSamples, double... quantiles) {
+        this.samples = new long[size];
+        this.minSamples = Math.min(minSamples, size);
+        this.quantiles = quantiles.clone();
+        this.values = new long[quantiles.length];
+    }
+
+    /**
+     * Adds a sample.
+     *
+     * @return true if the percentiles were recomputed
+     */
+    synchronized boolean record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length)
+            count++;
+        if (count < minSamples || (count != minSamples && (next & 15) != 0))
+            return false;
+        long[] copy = Arrays.copyOf(samples, count);
+        Arrays.sort(copy);
+        for (int i = 0; i < quantiles.length; i++)
+            values[i] = copy[Math.max(0, (int) Math.ceil(count * quantiles[i]) - 1)];
+        ready = true;
+        return true;
+    }
+
+    /** Value of the i-th tracked quantile, or 0 until enough samples were seen. */
+    synchronized long quantile(int i) {
+        return ready ? values[i] : 0;
+    }
+}
@@ -0,0 +1,258 @@
+package dev.thehub.backend.common.http;
+
+import dev.thehub.backend.common.tracing.ContextPropagatingTaskDecorator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hedges slow calls to one upstream: when the first attempt has not answered
+ * within the recently observed p95 latency, an identical second attempt is
+ * started and whichever succeeds first wins; the other is cancelled
+ * (interrupted, which aborts a blocking RestTemplate call).
+ * <p>
+ * Hedges are paid from a budget that every call refills by {@code maxRate},
+ * so at most that fraction of extra requests is sent, however slow the
+ * upstream gets. No hedging happens until enough latencies have been seen, and
+ * errors are never retried through a hedge.
+ * <p>
+ * Meters: {@code thehub.hedging.calls{upstream,outcome}} (timer of the whole
+ * call; outcome {@code primary}, {@code primary_after_hedge} or {@code hedge}),
+ * {@code thehub.hedging.skipped{upstream,reason}} and the current
+ * {@code thehub.hedging.delay}. Comparing the p99 of hedged calls with the
+ * primary-only tail shows the latency gained.
+ */
+public class RequestHedger implements AutoCloseable {
+
+    private static final double MAX_BUDGET = 10;
+
+    private final String upstream;
+    private final boolean enabled;
+    private final double maxRate;
+    private final long minDelayNanos;
+    private final long maxDelayNanos;
+    private final ThreadPoolExecutor executor;
+    private final ContextPropagatingTaskDecorator context;
+    private final MeterRegistry registry;
+
+    private final LatencyWindow latencies = new LatencyWindow(256, 32, 0.95);
+    // guarded by this
+    private double budget;
+
+    /**
+     * @param upstream
+     *            upstream name used in thread names and meter tags
+     * @param enabled
+     *            when false, calls run once on the caller's thread
+     * @param maxRate
+     *            hedges allowed per call, e.g. 0.05 for at most 5% extra requests
+     * @param minDelay
+     *            lower bound of the hedge delay
+     * @param maxDelay
+     *            upper bound of the hedge delay (keep below the upstream timeout)
+     * @param maxThreads
+     *            attempts running at once; calls beyond it are not hedged
+     */
+    public RequestHedger(String upstream, boolean enabled, double maxRate, Duration minDelay, Duration maxDelay,
+            int maxThreads, ContextPropagatingTaskDecorator context, MeterRegistry registry) {
+        this.upstream = upstream;
+        this.enabled = enabled;
+        this.maxRate = maxRate;
+        this.minDelayNanos = minDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.context = context;
+        this.registry = registry;
+        var seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(0, Math.max(2, maxThreads), 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), r -> {
+                    Thread t = new Thread(r, "hedge-" + upstream + "-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        // bound to the latency window, not this, so no half-built hedger is published
+        long min = minDelayNanos;
+        long max = maxDelayNanos;
+        Gauge.builder("thehub.hedging.delay", latencies, w -> delayNanos(w, min, max) / 1e9).tag("upstream", upstream)
+                .baseUnit("seconds").description("Current hedge delay (observed p95)").register(registry);
+    }
+
+    /**
+     * Runs {@code attempt}, hedging it if it is slow.
+     *
+     * @param attempt
+     *            the call; must be safe to run twice (idempotent read)
+     * @return the first successful result
+     */
+    public <T> T call(Supplier<T> attempt) {
+        if (!enabled)
+            return attempt.get();
+        long t0 = System.nanoTime();
+        CompletableFuture<T> primary;
+        try {
+            primary = submit(attempt);
+        } catch (RejectedExecutionException e) {
+            skipped("saturated");
+            return attempt.get();
+        }
+
+        long delay = currentDelayNanos();
+        if (delay > 0) {
+            try {
+                T result = primary.get(delay, TimeUnit.NANOSECONDS);
+                return done(t0, "primary", result);
+            } catch (TimeoutException e) {
+                // slow: hedge below
+            } catch (ExecutionException e) {
+                throw unwrap(e);
+            } catch (InterruptedException e) {
+                primary.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted waiting for " + upstream, e);
+            }
+        } else {
+            skipped("warming_up");
+            return done(t0, "primary", join(primary));
+        }
+
+        CompletableFuture<T> hedge = tryHedge(attempt);
+        if (hedge == null)
+            return done(t0, "primary", join(primary));
+
+        try {
+            var first = CompletableFuture.anyOf(primary, hedge);
+            // one attempt failing is fine as long as the other succeeds
+            try {
+                first.get();
+            } catch (ExecutionException e) {
+                (primary.isCompletedExceptionally() ? hedge : primary).get();
+            }
+            boolean primaryWon = primary.isDone() && !primary.isCompletedExceptionally();
+            return done(t0, primaryWon ? "primary_after_hedge" : "hedge", primaryWon ? primary.get() : hedge.get());
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for " + upstream, e);
+        } finally {
+            primary.cancel(true);
+            hedge.cancel(true);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> CompletableFuture<T> tryHedge(Supplier<T> attempt) {
+        synchronized (this) {
+            if (budget < 1) {
+                skipped("budget");
+                return null;
+            }
+            budget -= 1;
+        }
+        try {
+            return submit(attempt);
+        } catch (RejectedExecutionException e) {
+            skipped("saturated");
+            return null;
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Supplier<T> attempt) {
+        // the runner is set and cleared under the future's lock, so a late cancel
+        // cannot interrupt the pool thread while it runs someone else's task
+        var future = new CompletableFuture<T>() {
+            Thread runner;
+
+            @Override
+            public boolean cancel(boolean mayInterrupt) {
+                boolean cancelled = super.cancel(mayInterrupt);
+                synchronized (this) {
+                    if (cancelled && mayInterrupt && runner != null)
+                        runner.interrupt();
+                }
+                return cancelled;
+            }
+        };
+        long start = System.nanoTime();
+        executor.execute(context.decorate(() -> {
+            synchronized (future) {
+                if (future.isDone())
+                    return;
+                future.runner = Thread.currentThread();
+            }
+            try {
+                T result = attempt.get();
+                latencies.record(System.nanoTime() - start);
+                future.complete(result);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (future) {
+                    future.runner = null;
+                    Thread.interrupted();
+                }
+            }
+        }));
+        return future;
+    }
+
+    private <T> T join(CompletableFuture<T> f) {
+        try {
+            return f.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            f.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted waiting for " + upstream, e);
+        }
+    }
+
+    private <T> T done(long t0, String outcome, T result) {
+        synchronized (this) {
+            budget = Math.min(MAX_BUDGET, budget + maxRate);
+        }
+        Timer.builder("thehub.hedging.calls").tag("upstream", upstream).tag("outcome", outcome)
+                .publishPercentileHistogram().register(registry).record(System.nanoTime() - t0, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private void skipped(String reason) {
+        Counter.builder("thehub.hedging.skipped").tag("upstream", upstream).tag("reason", reason).register(registry)
+                .increment();
+    }
+
+    private long currentDelayNanos() {
+        return delayNanos(latencies, minDelayNanos, maxDelayNanos);
+    }
+
+    private static long delayNanos(LatencyWindow latencies, long min, long max) {
+        long p95 = latencies.quantile(0);
+        if (p95 == 0)
+            return 0;
+        return Math.clamp(p95, min, max);
+    }
+
+    private static RuntimeException unwrap(ExecutionException e) {
+        Throwable c = e.getCause();
+        if (c instanceof RuntimeException re)
+            return re;
+        if (c instanceof Error err)
+            throw err;
+        return new IllegalStateException(c);
+    }
+}
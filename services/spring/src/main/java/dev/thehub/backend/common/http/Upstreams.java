@@ -0,0 +1,35 @@
+package dev.thehub.backend.common.http;
+
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fixed names of the third-party hosts we call, used as low-cardinality meter
+ * tags and as keys for per-upstream settings.
+ */
+public final class Upstreams {
+
+    public static final String OTHER = "other";
+
+    /** Host suffix to upstream name. */
+    private static final Map<String, String> BY_HOST = Map.of("etilbudsavis.no", "etilbudsavis",
+            "generativelanguage.googleapis.com", "gemini", "cinemateket-trondheim.no", "cinemateket",
+            "eurobonusguiden.no", "eurobonusguiden", "bonusjegeren.no", "bonusjegeren", "rabo.no", "rabo");
+
+    private Upstreams() {
+    }
+
+    /**
+     * Upstream name of a host; anything unknown (e.g. a local replay server) is
+     * {@link #OTHER}.
+     */
+    public static String of(String host) {
+        if (host == null)
+            return OTHER;
+        String h = host.toLowerCase(Locale.ROOT);
+        for (var e : BY_HOST.entrySet())
+            if (h.equals(e.getKey()) || h.endsWith("." + e.getKey()))
+                return e.getValue();
+        return OTHER;
+    }
+}
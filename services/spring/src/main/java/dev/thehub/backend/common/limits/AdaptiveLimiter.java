@@ -0,0 +1,126 @@
+package dev.thehub.backend.common.limits;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking concurrency limiter whose limit adapts to measured latency
+ * (gradient algorithm, in the style of Netflix's concurrency-limits).
+ * <p>
+ * Each completed call feeds its round-trip time into a short-term average,
+ * compared against a no-load baseline (the lowest latency seen, drifting slowly
+ * towards the current one so a permanently slower upstream is accepted). While
+ * the short-term latency stays within {@code tolerance} of the baseline the
+ * limit grows by about {@code sqrt(limit)} per adjustment; when latency rises
+ * above it (an upstream slows down, requests start queueing) the limit shrinks
+ * in proportion.
+ * Calls reported as dropped (upstream timeout or error) cut the limit
+ * multiplicatively. Requests over the limit are rejected immediately instead
+ * of queueing on a thread.
+ */
+public class AdaptiveLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+    private static final int BASELINE_DRIFT = 1000;
+    private static final int SHORT_WINDOW = 10;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // guarded by this
+    private double limit;
+    private double shortRtt;
+    private double baselineRtt;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.clamp(initialLimit, this.minLimit, this.maxLimit);
+    }
+
+    /**
+     * A held slot; close it when the call is done.
+     */
+    public final class Permit implements AutoCloseable {
+        private final long startNanos = System.nanoTime();
+        private final int inFlightAtStart;
+        private boolean dropped;
+        private boolean closed;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /** Marks the call as failed upstream (timeout, 5xx); the limit backs off. */
+        public void dropped() {
+            dropped = true;
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            inFlight.decrementAndGet();
+            onSample(System.nanoTime() - startNanos, inFlightAtStart, dropped);
+        }
+    }
+
+    /**
+     * Takes a slot if the group is under its limit.
+     *
+     * @return a permit, or empty if the request should be shed
+     */
+    public Optional<Permit> tryAcquire() {
+        int current = limit();
+        while (true) {
+            int n = inFlight.get();
+            if (n >= current)
+                return Optional.empty();
+            if (inFlight.compareAndSet(n, n + 1))
+                return Optional.of(new Permit(n + 1));
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            limit = Math.max(minLimit, limit * BACKOFF);
+            return;
+        }
+        double rtt = rttNanos;
+        if (baselineRtt == 0) {
+            shortRtt = baselineRtt = rtt;
+            return;
+        }
+        shortRtt += (rtt - shortRtt) / SHORT_WINDOW;
+        if (rtt < baselineRtt)
+            baselineRtt = rtt;
+        else
+            baselineRtt += (shortRtt - baselineRtt) / BASELINE_DRIFT;
+
+        // only grow when the limit is actually being used
+        if (inFlightAtStart < limit / 2)
+            return;
+
+        double gradient = Math.clamp(TOLERANCE * baselineRtt / shortRtt, 0.5, 1.0);
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - SMOOTHING) + target * SMOOTHING, minLimit, maxLimit);
+    }
+}
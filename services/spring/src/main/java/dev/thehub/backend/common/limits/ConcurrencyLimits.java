@@ -0,0 +1,85 @@
+package dev.thehub.backend.common.limits;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adaptive limiters for endpoint groups whose requests wait on an upstream
+ * (Etilbudsavis, Cinemateket scraping).
+ * <p>
+ * Only those groups are limited: a burst of slow upstream-bound requests is
+ * shed early, so it can't take every Tomcat thread and database connection
+ * from the cheap endpoints (widget list, settings, pings), which are never
+ * limited. Callers degrade to cached data or answer 429 when shed.
+ * <p>
+ * Per group, {@code limits.<group>.initial-limit}, {@code .min-limit} and
+ * {@code .max-limit} configure the limiter. State is exported as
+ * {@code thehub.limiter.limit}, {@code thehub.limiter.in_flight} and
+ * {@code thehub.limiter.requests{outcome=accepted|degraded|rejected}}.
+ */
+@Component
+public class ConcurrencyLimits {
+
+    public static final String GROCERIES = "groceries";
+    public static final String CINEMATEKET = "cinemateket";
+
+    /** Outcome of a request in a limited group, for the requests counter. */
+    public enum Outcome {
+        ACCEPTED, DEGRADED, REJECTED
+    }
+
+    private final Environment env;
+    private final MeterRegistry registry;
+    private final Map<String, AdaptiveLimiter> limiters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimits(Environment env, MeterRegistry registry) {
+        this.env = env;
+        this.registry = registry;
+    }
+
+    /**
+     * Takes a slot in a group; counts the request as accepted when granted.
+     *
+     * @param group
+     *            endpoint group, e.g. {@link #GROCERIES}
+     * @return a permit to close when done, or empty if the request is shed
+     */
+    public Optional<AdaptiveLimiter.Permit> tryAcquire(String group) {
+        var permit = limiter(group).tryAcquire();
+        if (permit.isPresent())
+            record(group, Outcome.ACCEPTED);
+        return permit;
+    }
+
+    /** Counts how a shed request was answered. */
+    public void record(String group, Outcome outcome) {
+        counters.computeIfAbsent(group + "/" + outcome,
+                k -> Counter.builder("thehub.limiter.requests").tag("group", group)
+                        .tag("outcome", outcome.name().toLowerCase(Locale.ROOT)).register(registry))
+                .increment();
+    }
+
+    AdaptiveLimiter limiter(String group) {
+        return limiters.computeIfAbsent(group, this::create);
+    }
+
+    private AdaptiveLimiter create(String group) {
+        String p = "limits." + group + ".";
+        var l = new AdaptiveLimiter(group, env.getProperty(p + "initial-limit", Integer.class, 8),
+                env.getProperty(p + "min-limit", Integer.class, 2),
+                env.getProperty(p + "max-limit", Integer.class, 32));
+        Gauge.builder("thehub.limiter.limit", l, AdaptiveLimiter::limit).tag("group", group)
+                .description("Current adaptive concurrency limit").register(registry);
+        Gauge.builder("thehub.limiter.in_flight", l, AdaptiveLimiter::inFlight).tag("group", group)
+                .description("Requests currently holding a limiter slot").register(registry);
+        return l;
+    }
+}
@@ -0,0 +1,63 @@
+package dev.thehub.backend.common.metrics;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps every call on the shared {@code JdbcTemplate} in a
+ * {@code thehub.jdbc.queries} observation: a span named after the calling class
+ * and JdbcTemplate method, and a timer tagged with the method ({@code query},
+ * {@code update}, ...), the calling application class (DAO, service or
+ * controller) and the outcome.
+ * <p>
+ * Only the outermost JdbcTemplate call is observed; its internal delegation is
+ * not proxied. The caller is found with a short stack walk, which is negligible
+ * next to a database round-trip.
+ */
+@Aspect
+@Component
+public class JdbcObservationAspect {
+
+    private static final String APP_PACKAGE = "dev.thehub.backend.";
+    private static final StackWalker WALKER = StackWalker.getInstance();
+
+    private final ObservationRegistry registry;
+
+    public JdbcObservationAspect(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * org.springframework.jdbc.core.JdbcTemplate.*(..))"
+            + " && !execution(* org.springframework.jdbc.core.JdbcTemplate.get*(..))"
+            + " && !execution(* org.springframework.jdbc.core.JdbcTemplate.set*(..))"
+            + " && !execution(* org.springframework.jdbc.core.JdbcTemplate.is*(..))")
+    public Object observe(ProceedingJoinPoint pjp) throws Throwable {
+        String operation = pjp.getSignature().getName();
+        String caller = caller();
+        var observation = Observation.createNotStarted("thehub.jdbc.queries", registry)
+                .contextualName("jdbc " + caller + "." + operation).lowCardinalityKeyValue("operation", operation)
+                .lowCardinalityKeyValue("caller", caller).start();
+        String outcome = "error";
+        try (Observation.Scope ignored = observation.openScope()) {
+            Object result = pjp.proceed();
+            outcome = "success";
+            return result;
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+    }
+
+    private static String caller() {
+        return WALKER.walk(frames -> frames.map(StackWalker.StackFrame::getClassName)
+                .filter(c -> c.startsWith(APP_PACKAGE) && !c.startsWith(APP_PACKAGE + "common.metrics.")
+                        && !c.contains("$$"))
+                .findFirst().map(c -> c.substring(c.lastIndexOf('.') + 1)).orElse("other"));
+    }
+}
@@ -0,0 +1,48 @@
+package dev.thehub.backend.common.metrics;
+
+import dev.thehub.backend.common.http.Upstreams;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+/**
+ * Times every outbound RestTemplate call as {@code thehub.upstream.requests}.
+ * <p>
+ * Tags are kept low-cardinality: {@code upstream} is a fixed name derived from
+ * the host (anything unknown, e.g. a local replay server, is {@code other}),
+ * plus the status class and outcome. Paths and query strings are never used
+ * as tags, which also keeps the Gemini API key out of the metrics.
+ */
+public class UpstreamMetricsInterceptor implements ClientHttpRequestInterceptor {
+
+    private final MeterRegistry registry;
+
+    public UpstreamMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String upstream = Upstreams.of(request.getURI().getHost());
+        long t0 = System.nanoTime();
+        String status = "error";
+        String outcome = "error";
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            int code = response.getStatusCode().value();
+            status = (code / 100) + "xx";
+            outcome = code < 400 ? "success" : "failure";
+            return response;
+        } finally {
+            Timer.builder("thehub.upstream.requests").description("Outbound HTTP calls to third-party sources")
+                    .tag("upstream", upstream).tag("status", status).tag("outcome", outcome)
+                    .publishPercentileHistogram().register(registry).record(System.nanoTime() - t0,
+                            java.util.concurrent.TimeUnit.NANOSECONDS);
+        }
+    }
+}
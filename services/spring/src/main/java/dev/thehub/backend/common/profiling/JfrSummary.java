@@ -0,0 +1,212 @@
+package dev.thehub.backend.common.profiling;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Aggregates JFR events of a recording stream as they arrive: CPU samples by
+ * method, sampled allocations by site, monitor and park contention by site, and
+ * {@link ThreadPoolSampleEvent}s by pool. A "site" is the first application
+ * frame of the stack when there is one, else the top frame.
+ */
+public final class JfrSummary {
+
+    private static final String APP_PACKAGE = "dev.thehub.backend.";
+    private static final int TOP = 15;
+
+    /**
+     * Summary of one recording.
+     *
+     * @param executionSamples
+     *            CPU samples seen
+     * @param cpuHotMethods
+     *            methods most often on top of the stack
+     * @param cpuHotAppMethods
+     *            application methods most often on the stack of a sample
+     * @param allocationSites
+     *            sites allocating the most (sampled, weighted) bytes
+     * @param lockContention
+     *            sites that waited longest on monitors or parked on locks
+     * @param threadPools
+     *            load of the application executors
+     */
+    public record Result(long executionSamples, List<Hot> cpuHotMethods, List<Hot> cpuHotAppMethods,
+            List<Allocation> allocationSites, List<Contention> lockContention, List<Pool> threadPools) {
+    }
+
+    public record Hot(String method, long samples, double pct) {
+    }
+
+    public record Allocation(String site, String objectClass, long bytes, double pct) {
+    }
+
+    /**
+     * @param kind
+     *            {@code monitor} (blocked entering {@code synchronized}) or
+     *            {@code park} (waiting on a {@code java.util.concurrent} lock)
+     */
+    public record Contention(String kind, String lockClass, String site, long events, long totalMs, long maxMs) {
+    }
+
+    public record Pool(String name, long samples, double avgActive, int maxActive, int maxPoolSize, int maxQueued,
+            int queueCapacity, double saturatedPct) {
+    }
+
+    private record AllocKey(String site, String objectClass) {
+    }
+
+    private record LockKey(String kind, String lockClass, String site) {
+    }
+
+    private static final class LockStats {
+        long events;
+        long totalNanos;
+        long maxNanos;
+    }
+
+    private static final class PoolStats {
+        long samples;
+        long sumActive;
+        long saturated;
+        int maxActive;
+        int maxPoolSize;
+        int maxQueued;
+        int queueCapacity;
+    }
+
+    private long executionSamples;
+    private final Map<String, Long> topFrames = new HashMap<>();
+    private final Map<String, Long> appFrames = new HashMap<>();
+    private long allocatedBytes;
+    private final Map<AllocKey, Long> allocations = new HashMap<>();
+    private final Map<LockKey, LockStats> locks = new HashMap<>();
+    private final Map<String, PoolStats> pools = new HashMap<>();
+
+    void attach(RecordingStream stream) {
+        stream.onEvent("jdk.ExecutionSample", this::onExecutionSample);
+        stream.onEvent("jdk.ObjectAllocationSample", this::onAllocation);
+        stream.onEvent("jdk.JavaMonitorEnter", e -> onLock(e, "monitor", e.getClass("monitorClass")));
+        stream.onEvent("jdk.ThreadPark", e -> onLock(e, "park", e.getClass("parkedClass")));
+        stream.onEvent(ThreadPoolSampleEvent.NAME, this::onPoolSample);
+    }
+
+    private synchronized void onExecutionSample(RecordedEvent e) {
+        RecordedStackTrace st = e.getStackTrace();
+        if (st == null || st.getFrames().isEmpty())
+            return;
+        executionSamples++;
+        topFrames.merge(method(st.getFrames().get(0)), 1L, Long::sum);
+        String app = firstAppFrame(st);
+        if (app != null)
+            appFrames.merge(app, 1L, Long::sum);
+    }
+
+    private synchronized void onAllocation(RecordedEvent e) {
+        RecordedStackTrace st = e.getStackTrace();
+        RecordedClass type = e.getClass("objectClass");
+        long weight = e.getLong("weight");
+        allocatedBytes += weight;
+        allocations.merge(new AllocKey(site(st), type != null ? type.getName() : "?"), weight, Long::sum);
+    }
+
+    private synchronized void onLock(RecordedEvent e, String kind, RecordedClass lockClass) {
+        RecordedStackTrace st = e.getStackTrace();
+        String app = firstAppFrame(st);
+        // idle pool threads park all the time; only waits inside our code are contention
+        if (app == null && "park".equals(kind))
+            return;
+        String site = app != null ? app : site(st);
+        long nanos = e.getDuration().toNanos();
+        var s = locks.computeIfAbsent(new LockKey(kind, lockClass != null ? lockClass.getName() : "?", site),
+                k -> new LockStats());
+        s.events++;
+        s.totalNanos += nanos;
+        s.maxNanos = Math.max(s.maxNanos, nanos);
+    }
+
+    private synchronized void onPoolSample(RecordedEvent e) {
+        var s = pools.computeIfAbsent(e.getString("pool"), k -> new PoolStats());
+        int active = e.getInt("active");
+        int max = e.getInt("maxPoolSize");
+        s.samples++;
+        s.sumActive += active;
+        if (active >= max)
+            s.saturated++;
+        s.maxActive = Math.max(s.maxActive, active);
+        s.maxPoolSize = max;
+        s.maxQueued = Math.max(s.maxQueued, e.getInt("queued"));
+        s.queueCapacity = e.getInt("queueCapacity");
+    }
+
+    synchronized Result result() {
+        List<Hot> hot = hot(topFrames);
+        List<Hot> hotApp = hot(appFrames);
+        List<Allocation> alloc = allocations.entrySet().stream()
+                .sorted(Map.Entry.<AllocKey, Long>comparingByValue().reversed()).limit(TOP)
+                .map(en -> new Allocation(en.getKey().site(), en.getKey().objectClass(), en.getValue(),
+                        pct(en.getValue(), allocatedBytes)))
+                .toList();
+        List<Contention> contention = locks.entrySet().stream()
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<LockKey, LockStats> en) -> en.getValue().totalNanos).reversed())
+                .limit(TOP)
+                .map(en -> new Contention(en.getKey().kind(), en.getKey().lockClass(), en.getKey().site(),
+                        en.getValue().events, en.getValue().totalNanos / 1_000_000,
+                        en.getValue().maxNanos / 1_000_000))
+                .toList();
+        List<Pool> poolList = pools.entrySet().stream().sorted(Map.Entry.comparingByKey())
+                .map(en -> {
+                    var s = en.getValue();
+                    return new Pool(en.getKey(), s.samples, round((double) s.sumActive / Math.max(1, s.samples)),
+                            s.maxActive, s.maxPoolSize, s.maxQueued, s.queueCapacity, pct(s.saturated, s.samples));
+                })
+                .toList();
+        return new Result(executionSamples, hot, hotApp, alloc, contention, poolList);
+    }
+
+    private List<Hot> hot(Map<String, Long> counts) {
+        return counts.entrySet().stream().sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(TOP)
+                .map(en -> new Hot(en.getKey(), en.getValue(), pct(en.getValue(), executionSamples))).toList();
+    }
+
+    private static String site(RecordedStackTrace st) {
+        if (st == null || st.getFrames().isEmpty())
+            return "?";
+        String app = firstAppFrame(st);
+        return app != null ? app : method(st.getFrames().get(0));
+    }
+
+    private static String firstAppFrame(RecordedStackTrace st) {
+        if (st == null)
+            return null;
+        for (RecordedFrame f : st.getFrames()) {
+            if (!f.isJavaFrame() || f.getMethod() == null)
+                continue;
+            String type = f.getMethod().getType().getName();
+            if (type.startsWith(APP_PACKAGE) && !type.contains("$$") && !type.startsWith(APP_PACKAGE + "common."))
+                return method(f);
+        }
+        return null;
+    }
+
+    private static String method(RecordedFrame f) {
+        if (f.getMethod() == null)
+            return "?";
+        return f.getMethod().getType().getName() + "." + f.getMethod().getName();
+    }
+
+    private static double pct(long part, long whole) {
+        return whole == 0 ? 0 : round(100.0 * part / whole);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 10) / 10.0;
+    }
+}
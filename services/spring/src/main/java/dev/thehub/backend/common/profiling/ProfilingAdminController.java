@@ -0,0 +1,69 @@
+package dev.thehub.backend.common.profiling;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin endpoints for on-demand JFR profiling. Requires ROLE_ADMIN (enforced by
+ * the /api/admin/** rule in SecurityConfig and by @PreAuthorize).
+ * <p>
+ * Start a recording, poll it until {@code state} is {@code DONE}, then read the
+ * hot-spot summary or download the {@code .jfr} file.
+ */
+@RestController
+@RequestMapping("/api/admin/profiling")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+public class ProfilingAdminController {
+
+    private final ProfilingService profiling;
+
+    /**
+     * Starts a recording of {@code seconds} seconds (default 30).
+     */
+    @PostMapping("/recordings")
+    public ResponseEntity<?> start(@RequestParam(defaultValue = "30") long seconds) {
+        if (seconds <= 0 || seconds > profiling.maxDuration().toSeconds())
+            return ResponseEntity.badRequest()
+                    .body(Map.of("error", "invalid_duration", "maxSeconds", profiling.maxDuration().toSeconds()));
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(profiling.start(Duration.ofSeconds(seconds)));
+        } catch (ProfilingService.AlreadyRecording e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /** Kept recordings, newest first. */
+    @GetMapping("/recordings")
+    public List<ProfilingService.Recording> list() {
+        return profiling.list();
+    }
+
+    /** One recording with its summary once done. */
+    @GetMapping("/recordings/{id}")
+    public ResponseEntity<ProfilingService.Recording> get(@PathVariable String id) {
+        return ResponseEntity.of(profiling.get(id));
+    }
+
+    /** The raw {@code .jfr} file of a finished recording. */
+    @GetMapping("/recordings/{id}/file")
+    public ResponseEntity<Resource> file(@PathVariable String id) {
+        return profiling.file(id)
+                .<ResponseEntity<Resource>>map(p -> ResponseEntity.ok().contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .header(HttpHeaders.CONTENT_DISPOSITION,
+                                ContentDisposition.attachment().filename(id + ".jfr").build().toString())
+                        .body(new FileSystemResource(p)))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
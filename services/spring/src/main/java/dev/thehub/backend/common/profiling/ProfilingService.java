@@ -0,0 +1,231 @@
+package dev.thehub.backend.common.profiling;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs time-boxed Java Flight Recorder sessions inside the process, for
+ * environments where no profiler can be attached.
+ * <p>
+ * A session streams events through a {@link RecordingStream} and aggregates
+ * them into a {@link JfrSummary} while recording; when it ends the recording is
+ * also dumped to a {@code .jfr} file for JDK Mission Control. One session runs
+ * at a time and only the last few recordings are kept.
+ */
+@Slf4j
+@Service
+public class ProfilingService {
+
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+
+    /**
+     * A recording and, once done, its summary.
+     *
+     * @param id
+     *            recording id
+     * @param startedAt
+     *            start time
+     * @param durationSeconds
+     *            requested length
+     * @param state
+     *            current state
+     * @param summary
+     *            hot spots; null until done
+     * @param error
+     *            failure message when failed
+     */
+    public record Recording(String id, Instant startedAt, long durationSeconds, State state, JfrSummary.Result summary,
+            String error) {
+    }
+
+    public static class AlreadyRecording extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public AlreadyRecording() {
+            super("recording_in_progress");
+        }
+    }
+
+    private final ListableBeanFactory beans;
+    private final Duration maxDuration;
+    private final int keep;
+    private final ScheduledExecutorService stopper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "jfr-profiling");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Runnable poolSampler = this::samplePools;
+
+    /** Insertion-ordered, so the first entry is the oldest. Guarded by this. */
+    private final LinkedHashMap<String, Recording> recordings = new LinkedHashMap<>();
+    private final LinkedHashMap<String, Path> files = new LinkedHashMap<>();
+    private RecordingStream active;
+    private Path dir;
+
+    public ProfilingService(ListableBeanFactory beans,
+            @Value("${profiling.max-duration-seconds:300}") long maxDurationSeconds,
+            @Value("${profiling.keep-recordings:5}") int keep) {
+        this.beans = beans;
+        this.maxDuration = Duration.ofSeconds(maxDurationSeconds);
+        this.keep = Math.max(1, keep);
+        FlightRecorder.addPeriodicEvent(ThreadPoolSampleEvent.class, poolSampler);
+    }
+
+    /** Longest session that may be requested. */
+    public Duration maxDuration() {
+        return maxDuration;
+    }
+
+    /**
+     * Starts a recording that stops by itself after {@code duration}.
+     *
+     * @param duration
+     *            recording length, at most {@link #maxDuration()}
+     * @return the running recording
+     * @throws AlreadyRecording
+     *             if another session is still running
+     */
+    public synchronized Recording start(Duration duration) {
+        if (active != null)
+            throw new AlreadyRecording();
+        if (duration.isNegative() || duration.isZero() || duration.compareTo(maxDuration) > 0)
+            throw new IllegalArgumentException("invalid_duration");
+
+        RecordingStream stream;
+        try {
+            stream = new RecordingStream(Configuration.getConfiguration("profile"));
+        } catch (IOException | ParseException e) {
+            throw new IllegalStateException("JFR profile configuration unavailable", e);
+        }
+        stream.enable("jdk.ExecutionSample").withPeriod(Duration.ofMillis(20));
+        stream.enable("jdk.JavaMonitorEnter").withThreshold(Duration.ofMillis(1)).withStackTrace();
+        stream.enable("jdk.ThreadPark").withThreshold(Duration.ofMillis(5)).withStackTrace();
+        stream.enable(ThreadPoolSampleEvent.class).withPeriod(Duration.ofSeconds(1));
+        var summary = new JfrSummary();
+        summary.attach(stream);
+        stream.onError(e -> log.warn("Profiling stream error: {}", e.toString()));
+        stream.startAsync();
+
+        String id = UUID.randomUUID().toString();
+        var rec = new Recording(id, Instant.now(), duration.toSeconds(), State.RUNNING, null, null);
+        active = stream;
+        recordings.put(id, rec);
+        stopper.schedule(() -> finish(rec, stream, summary), duration.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("Profiling started id={} seconds={}", id, duration.toSeconds());
+        return rec;
+    }
+
+    /** Recordings, newest first. */
+    public synchronized List<Recording> list() {
+        var out = new ArrayList<>(recordings.values());
+        Collections.reverse(out);
+        return out;
+    }
+
+    public synchronized Optional<Recording> get(String id) {
+        return Optional.ofNullable(recordings.get(id));
+    }
+
+    /** The {@code .jfr} file of a finished recording. */
+    public synchronized Optional<Path> file(String id) {
+        return Optional.ofNullable(files.get(id)).filter(Files::isReadable);
+    }
+
+    private void finish(Recording rec, RecordingStream stream, JfrSummary summary) {
+        Recording done;
+        Path file = null;
+        try {
+            // waits until every recorded event went through the summary handlers
+            stream.stop();
+            file = directory().resolve(rec.id() + ".jfr");
+            stream.dump(file);
+            done = new Recording(rec.id(), rec.startedAt(), rec.durationSeconds(), State.DONE, summary.result(), null);
+            log.info("Profiling finished id={} samples={} bytes={}", rec.id(), done.summary().executionSamples(),
+                    Files.size(file));
+        } catch (Exception e) {
+            log.warn("Profiling failed id={}", rec.id(), e);
+            done = new Recording(rec.id(), rec.startedAt(), rec.durationSeconds(), State.FAILED, summary.result(),
+                    e.getMessage());
+        } finally {
+            stream.close();
+        }
+        synchronized (this) {
+            active = null;
+            recordings.put(rec.id(), done);
+            if (file != null)
+                files.put(rec.id(), file);
+            while (recordings.size() > keep) {
+                String oldest = recordings.keySet().iterator().next();
+                recordings.remove(oldest);
+                deleteQuietly(files.remove(oldest));
+            }
+        }
+    }
+
+    private synchronized Path directory() throws IOException {
+        if (dir == null)
+            dir = Files.createTempDirectory("thehub-jfr-");
+        return dir;
+    }
+
+    private void samplePools() {
+        for (var e : beans.getBeansOfType(ThreadPoolTaskExecutor.class, false, false).entrySet()) {
+            var pool = e.getValue();
+            if (pool.getThreadPoolExecutor() == null)
+                continue;
+            var ev = new ThreadPoolSampleEvent();
+            ev.pool = e.getKey();
+            ev.active = pool.getActiveCount();
+            ev.poolSize = pool.getPoolSize();
+            ev.maxPoolSize = pool.getMaxPoolSize();
+            ev.queued = pool.getQueueSize();
+            ev.queueCapacity = pool.getQueueCapacity();
+            ev.commit();
+        }
+    }
+
+    @PreDestroy
+    synchronized void shutdown() {
+        FlightRecorder.removePeriodicEvent(poolSampler);
+        stopper.shutdownNow();
+        if (active != null)
+            active.close();
+        files.values().forEach(ProfilingService::deleteQuietly);
+        files.clear();
+        deleteQuietly(dir);
+    }
+
+    private static void deleteQuietly(Path p) {
+        if (p == null)
+            return;
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException e) {
+            log.debug("Could not delete {}: {}", p, e.toString());
+        }
+    }
+}
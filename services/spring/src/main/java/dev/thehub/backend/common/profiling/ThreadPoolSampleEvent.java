@@ -0,0 +1,42 @@
+package dev.thehub.backend.common.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+/**
+ * Periodic JFR event with the load of one Spring {@code ThreadPoolTaskExecutor}.
+ * Emitted only while a recording has it enabled; it is written to the
+ * {@code .jfr} file like the JDK's own events.
+ */
+@Name(ThreadPoolSampleEvent.NAME)
+@Label("Thread Pool Sample")
+@Description("Active threads and queue depth of an application executor")
+@Category("The Hub")
+@Period("1 s")
+@StackTrace(false)
+class ThreadPoolSampleEvent extends jdk.jfr.Event {
+
+    static final String NAME = "thehub.ThreadPoolSample";
+
+    @Label("Pool")
+    String pool;
+
+    @Label("Active Threads")
+    int active;
+
+    @Label("Pool Size")
+    int poolSize;
+
+    @Label("Max Pool Size")
+    int maxPoolSize;
+
+    @Label("Queued Tasks")
+    int queued;
+
+    @Label("Queue Capacity")
+    int queueCapacity;
+}
@@ -0,0 +1,42 @@
+package dev.thehub.backend.common.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.Map;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * Carries the submitting thread's MDC (request id, trace ids) and current
+ * observation into executor tasks, so work done on pool threads logs with the
+ * same request id and its spans become children of the request's span.
+ */
+public class ContextPropagatingTaskDecorator implements TaskDecorator {
+
+    private final ObservationRegistry registry;
+
+    public ContextPropagatingTaskDecorator(ObservationRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        Observation parent = registry.getCurrentObservation();
+        return () -> {
+            Map<String, String> previous = MDC.getCopyOfContextMap();
+            if (mdc != null)
+                MDC.setContextMap(mdc);
+            else
+                MDC.clear();
+            try (Observation.Scope ignored = parent != null ? parent.openScope() : null) {
+                task.run();
+            } finally {
+                if (previous != null)
+                    MDC.setContextMap(previous);
+                else
+                    MDC.clear();
+            }
+        };
+    }
+}
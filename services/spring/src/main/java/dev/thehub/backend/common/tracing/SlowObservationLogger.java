@@ -0,0 +1,95 @@
+package dev.thehub.backend.common.tracing;
+
+import dev.thehub.backend.common.RequestIdFilter;
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Log sink for observations: every span (request, upstream call, query, cache
+ * lookup, enrichment job) slower than {@code tracing.log.slow-threshold-ms} is
+ * logged with its parent chain and the request id it belongs to. Works without
+ * a collector; with the {@code tracing} Maven profile the same observations are
+ * also exported as OpenTelemetry spans.
+ */
+@Slf4j
+@Component
+public class SlowObservationLogger implements ObservationHandler<Observation.Context> {
+
+    private static final String START = SlowObservationLogger.class.getName() + ".start";
+    private static final String REQUEST_ID = SlowObservationLogger.class.getName() + ".requestId";
+
+    private final long thresholdNanos;
+
+    public SlowObservationLogger(@Value("${tracing.log.slow-threshold-ms:1000}") long thresholdMs) {
+        this.thresholdNanos = thresholdMs * 1_000_000L;
+    }
+
+    @Override
+    public void onStart(Observation.Context context) {
+        context.put(START, System.nanoTime());
+        String rid = MDC.get(RequestIdFilter.MDC_KEY);
+        if (rid != null)
+            context.put(REQUEST_ID, rid);
+    }
+
+    @Override
+    public void onStop(Observation.Context context) {
+        Long start = context.get(START);
+        if (start == null || thresholdNanos <= 0)
+            return;
+        long elapsed = System.nanoTime() - start;
+        if (elapsed < thresholdNanos)
+            return;
+        log.info("Slow span name={} ms={} requestId={} path={} tags={}", nameOf(context), elapsed / 1_000_000,
+                requestIdOf(context), pathOf(context), tagsOf(context));
+    }
+
+    @Override
+    public boolean supportsContext(Observation.Context context) {
+        return true;
+    }
+
+    private static String nameOf(Observation.Context context) {
+        return context.getContextualName() != null ? context.getContextualName() : context.getName();
+    }
+
+    /** Own request id, else the nearest ancestor's (e.g. for pool threads). */
+    private static String requestIdOf(Observation.Context context) {
+        for (Observation.ContextView c = context; c != null; c = parentOf(c)) {
+            String rid = c.get(REQUEST_ID);
+            if (rid != null)
+                return rid;
+            KeyValue kv = c.getHighCardinalityKeyValue(RequestIdFilter.KEY_VALUE);
+            if (kv != null)
+                return kv.getValue();
+        }
+        return "-";
+    }
+
+    private static String pathOf(Observation.Context context) {
+        var sb = new StringBuilder();
+        for (Observation.ContextView c = parentOf(context); c != null; c = parentOf(c)) {
+            if (!sb.isEmpty())
+                sb.append(" < ");
+            sb.append(c.getContextualName() != null ? c.getContextualName() : c.getName());
+        }
+        return sb.isEmpty() ? "-" : sb.toString();
+    }
+
+    private static String tagsOf(Observation.Context context) {
+        return StreamSupport.stream(context.getLowCardinalityKeyValues().spliterator(), false)
+                .map(kv -> kv.getKey() + "=" + kv.getValue()).collect(Collectors.joining(","));
+    }
+
+    private static Observation.ContextView parentOf(Observation.ContextView c) {
+        var parent = c.getParentObservation();
+        return parent != null ? parent.getContextView() : null;
+    }
+}
@@ -1,35 +1,82 @@
 package dev.thehub.backend.config;
 
+import dev.thehub.backend.common.http.AdaptiveTimeouts;
+import dev.thehub.backend.common.http.RequestHedger;
+import dev.thehub.backend.common.tracing.ContextPropagatingTaskDecorator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import java.time.Duration;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
 import org.springframework.web.client.RestTemplate;
 
 /**
  * HTTP client configuration for outbound calls.
  *
  * <p>
- * Exposes a default RestTemplate (short timeout for Etilbudsavis) and an
- * optional geminiRestTemplate with longer read timeout for the Gemini API.
+ * Exposes a default RestTemplate (Etilbudsavis and the scraped sources) and a
+ * geminiRestTemplate for the Gemini API, plus the (opt-in) request hedger for
+ * Etilbudsavis searches. Both templates share {@link AdaptiveTimeouts}, which
+ * keeps one HttpClient per upstream host and picks its read timeout from
+ * observed latency; the old fixed timeouts are now the ceilings.
  */
 @Configuration
 public class HttpConfig {
 
     @Bean
     @Primary
-    RestTemplate restTemplate(RestTemplateBuilder builder,
-            @Value("${etilbudsavis.timeout-seconds:6}") long timeoutSeconds) {
-        return builder.connectTimeout(Duration.ofSeconds(timeoutSeconds))
-                .readTimeout(Duration.ofSeconds(timeoutSeconds)).build();
+    RestTemplate restTemplate(RestTemplateBuilder builder, AdaptiveTimeouts timeouts) {
+        return withTimeouts(builder.build(), timeouts);
     }
 
     @Bean(name = "geminiRestTemplate")
-    RestTemplate geminiRestTemplate(RestTemplateBuilder builder,
-            @Value("${groceries.gemini.timeout-seconds:15}") int timeoutSeconds) {
-        return builder.connectTimeout(Duration.ofSeconds(timeoutSeconds))
-                .readTimeout(Duration.ofSeconds(timeoutSeconds)).build();
+    RestTemplate geminiRestTemplate(RestTemplateBuilder builder, AdaptiveTimeouts timeouts) {
+        return withTimeouts(builder.build(), timeouts);
     }
-}
\ No newline at end of file
+
+    /**
+     * Timeout bounds per upstream, overridable with
+     * {@code http.timeouts.<upstream>.connect-ms} and
+     * {@code http.timeouts.<upstream>.read-(floor|ceiling)-ms}. Read ceilings
+     * default to the previous fixed timeouts (scrapers inherited the
+     * Etilbudsavis one); connects default to the read ceiling, at most 5 s.
+     */
+    @Bean
+    AdaptiveTimeouts upstreamTimeouts(Environment env, MeterRegistry registry,
+            @Value("${etilbudsavis.timeout-seconds:6}") long etilbudsavisSeconds,
+            @Value("${groceries.gemini.timeout-seconds:15}") long geminiSeconds) {
+        return new AdaptiveTimeouts(upstream -> {
+            boolean gemini = "gemini".equals(upstream);
+            long readCeiling = (gemini ? geminiSeconds : etilbudsavisSeconds) * 1000;
+            String p = "http.timeouts." + upstream + ".";
+            return new AdaptiveTimeouts.Bounds(ms(env, p + "connect-ms", Math.min(readCeiling, 5000)),
+                    ms(env, p + "read-floor-ms", gemini ? 5000 : 1500), ms(env, p + "read-ceiling-ms", readCeiling));
+        }, registry);
+    }
+
+    @Bean(name = "etilbudsavisHedger")
+    RequestHedger etilbudsavisHedger(@Value("${etilbudsavis.hedging.enabled:false}") boolean enabled,
+            @Value("${etilbudsavis.hedging.max-rate:0.05}") double maxRate,
+            @Value("${etilbudsavis.hedging.min-delay-ms:100}") long minDelayMs,
+            @Value("${etilbudsavis.hedging.max-delay-ms:3000}") long maxDelayMs,
+            @Value("${etilbudsavis.hedging.max-threads:64}") int maxThreads, ObservationRegistry observations,
+            MeterRegistry registry) {
+        return new RequestHedger("etilbudsavis", enabled, maxRate, Duration.ofMillis(minDelayMs),
+                Duration.ofMillis(maxDelayMs), maxThreads, new ContextPropagatingTaskDecorator(observations), registry);
+    }
+
+    private static RestTemplate withTimeouts(RestTemplate rt, AdaptiveTimeouts timeouts) {
+        rt.setRequestFactory(timeouts);
+        rt.getInterceptors().add(timeouts);
+        return rt;
+    }
+
+    private static Duration ms(Environment env, String key, long defaultMs) {
+        long v = env.getProperty(key, Long.class, defaultMs);
+        return Duration.ofMillis(Math.max(1, v));
+    }
+}
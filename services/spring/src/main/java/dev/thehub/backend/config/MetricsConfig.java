@@ -0,0 +1,91 @@
+package dev.thehub.backend.config;
+
+import dev.thehub.backend.common.auth.VerifiedJwtCache;
+import dev.thehub.backend.common.metrics.UpstreamMetricsInterceptor;
+import dev.thehub.backend.widgets.WidgetRowCache;
+import dev.thehub.backend.widgets.countdown.CountdownService;
+import dev.thehub.backend.widgets.groceries.GeminiGroceryEnricher;
+import dev.thehub.backend.widgets.groceries.LocalOfferIndex;
+import dev.thehub.backend.widgets.piHealth.PiMetricsIngestService;
+import dev.thehub.backend.widgets.piHealth.PiMetricsRingBuffers;
+import dev.thehub.backend.widgets.pings.PingsService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.config.MeterFilter;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Metrics wiring: upstream call timers on every RestTemplate, cache size
+ * gauges, and tag hygiene for Spring's own client metrics.
+ *
+ * <p>
+ * Everything is exposed through the actuator; the {@code prometheus} endpoint
+ * is available when the app is built with the {@code prometheus} Maven profile.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Adds {@link UpstreamMetricsInterceptor} to every RestTemplate built from the
+     * shared builder (Etilbudsavis, Gemini, scraped countdown sources,
+     * Cinemateket).
+     */
+    @Bean
+    RestTemplateCustomizer upstreamMetricsCustomizer(MeterRegistry registry) {
+        var interceptor = new UpstreamMetricsInterceptor(registry);
+        return rt -> rt.getInterceptors().add(interceptor);
+    }
+
+    /**
+     * Drops the {@code uri} tag from Spring's {@code http.client.requests}: our
+     * callers pass full URLs (one even carries an API key), which would make it
+     * unbounded. {@code thehub.upstream.requests} names the upstream instead.
+     */
+    @Bean
+    MeterFilter clientUriTagFilter() {
+        return new MeterFilter() {
+            @Override
+            public Meter.Id map(Meter.Id id) {
+                if (!id.getName().startsWith("http.client.requests"))
+                    return id;
+                return id.replaceTags(id.getTags().stream().filter(t -> !"uri".equals(t.getKey()))
+                        .collect(Collectors.toList()));
+            }
+        };
+    }
+
+    /**
+     * Size gauges of the in-process caches and buffers, as
+     * {@code thehub.cache.size{cache=...}}.
+     */
+    @Bean
+    MeterBinder cacheGauges(ObjectProvider<WidgetRowCache> rowCache, ObjectProvider<CountdownService> countdown,
+            ObjectProvider<GeminiGroceryEnricher> gemini, ObjectProvider<PingsService> pings,
+            ObjectProvider<PiMetricsRingBuffers> rings, ObjectProvider<PiMetricsIngestService> ingest,
+            ObjectProvider<VerifiedJwtCache> jwts, ObjectProvider<LocalOfferIndex> offers) {
+        return registry -> {
+            cacheSize(registry, "widget-rows", () -> rowCache.getObject().size());
+            cacheSize(registry, "countdown-rules", () -> countdown.getObject().compiledRuleCount());
+            cacheSize(registry, "gemini-enrichment", () -> gemini.getObject().cacheSize());
+            cacheSize(registry, "ping-results", () -> pings.getObject().storedResults());
+            cacheSize(registry, "pi-metrics-rings", () -> rings.getObject().deviceCount());
+            cacheSize(registry, "verified-jwt", () -> jwts.getObject().size());
+            cacheSize(registry, "offer-index", () -> offers.getObject().size());
+            Gauge.builder("thehub.pi_metrics.ingest.queued", () -> ingest.getObject().queued())
+                    .description("Pi metrics samples waiting to be written").register(registry);
+        };
+    }
+
+    private static void cacheSize(MeterRegistry registry, String cache, Supplier<Number> size) {
+        Gauge.builder("thehub.cache.size", size).tags(java.util.List.of(Tag.of("cache", cache)))
+                .description("Entries held by an in-process cache").register(registry);
+    }
+}
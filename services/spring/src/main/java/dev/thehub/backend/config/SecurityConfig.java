@@ -1,24 +1,37 @@
 package dev.thehub.backend.config;
 
+import dev.thehub.backend.common.auth.VerifiedJwtCache;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletRequestWrapper;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 
 /**
  * Spring Security configuration for the backend.
  *
  * <p>
  * Enables method security and configures the application as an OAuth2 Resource
- * Server that validates JWTs. Public endpoints include /health and
- * /actuator/**. All other endpoints require authentication; /api/admin/**
- * requires role ADMIN.
+ * Server that validates JWTs. Public endpoints include /health, the /livez and
+ * /readyz probes and /actuator/**, except /actuator/prometheus, which only
+ * answers clients connecting from {@code metrics.prometheus.allowed-ips}. The
+ * actuator itself listens on {@code management.server.port}, which is not
+ * published outside the host. All other endpoints require authentication;
+ * /api/admin/** requires role ADMIN.
  */
 @Configuration
 @EnableMethodSecurity
@@ -74,18 +87,44 @@ public class SecurityConfig {
 
     /**
      * Configures the HTTP security filter chain with CORS, CSRF, endpoint
-     * authorization, and JWT resource server support.
+     * authorization, and JWT resource server support. Bearer tokens are verified
+     * through {@link VerifiedJwtCache}, which applies {@link #jwtAuthConverter()}
+     * once per token.
      */
     @Bean
-    SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationConverter jwtAuthConverter)
+    SecurityFilterChain securityFilterChain(HttpSecurity http, VerifiedJwtCache verifiedJwts,
+            @Value("${metrics.prometheus.allowed-ips:127.0.0.1/32,::1/128}") String prometheusAllowedIps)
             throws Exception {
         return http.csrf(AbstractHttpConfigurer::disable).cors(Customizer.withDefaults())
                 .authorizeHttpRequests(reg -> reg
                         .requestMatchers("/swagger-ui", "/swagger-ui.html", "/swagger-ui/**", "/v3/api-docs/**")
-                        .permitAll().requestMatchers("/health", "/actuator/**").permitAll()
+                        .permitAll().requestMatchers("/actuator/prometheus")
+                        .access(fromAddresses(prometheusAllowedIps))
+                        .requestMatchers("/health", "/livez", "/readyz", "/actuator/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/widgets/**").authenticated()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN").anyRequest().authenticated())
-                .oauth2ResourceServer(oauth -> oauth.jwt(jwt -> jwt.jwtAuthenticationConverter(jwtAuthConverter)))
+                .oauth2ResourceServer(oauth -> oauth.jwt(jwt -> jwt.authenticationManager(verifiedJwts)))
                 .build();
     }
+
+    /**
+     * Grants access to requests whose peer address matches one of the given
+     * comma-separated IPs or CIDR ranges; metrics carry widget targets and must
+     * not be public. The address is taken from the container's request, not the
+     * one rewritten from {@code X-Forwarded-For}, which any client can set.
+     */
+    private static AuthorizationManager<RequestAuthorizationContext> fromAddresses(String ips) {
+        List<IpAddressMatcher> matchers = Arrays.stream(ips.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .map(IpAddressMatcher::new).toList();
+        return (auth, ctx) -> {
+            String peer = peerAddress(ctx.getRequest());
+            return new AuthorizationDecision(matchers.stream().anyMatch(m -> m.matches(peer)));
+        };
+    }
+
+    private static String peerAddress(ServletRequest request) {
+        while (request instanceof ServletRequestWrapper wrapper)
+            request = wrapper.getRequest();
+        return request.getRemoteAddr();
+    }
 }
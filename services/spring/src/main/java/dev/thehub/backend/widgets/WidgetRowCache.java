@@ -0,0 +1,202 @@
+package dev.thehub.backend.widgets;
+
+import dev.thehub.backend.common.cache.CacheInvalidationEvent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded in-memory cache of parsed {@link WidgetRow}s keyed by (userId,
+ * instanceId).
+ * <p>
+ * Widget data endpoints poll their row on every request; this saves the query
+ * and the jsonb parsing for rows that haven't changed. The services that write
+ * {@code user_widgets} invalidate affected entries, changes from other replicas
+ * or direct database writes arrive as {@link CacheInvalidationEvent}s, and
+ * entries also expire after a short TTL as a safety net.
+ * <p>
+ * Cached rows are shared between callers and must be treated as read-only.
+ * Misses (unknown or foreign widgets) are not cached. Each lookup is a
+ * {@code thehub.cache.lookups} observation, so a miss's query shows up as its
+ * child span.
+ */
+@Component
+public class WidgetRowCache {
+
+    private record Key(UUID userId, UUID instanceId) {
+    }
+
+    private record Entry(WidgetRow row, long loadedAtNanos) {
+    }
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    /** Access-ordered so the eldest entry is the least recently used. */
+    private final LinkedHashMap<Key, Entry> entries;
+    /**
+     * Bumped on every invalidation; a load only populates the cache if no
+     * invalidation happened while it was reading the database.
+     */
+    private final AtomicLong generation = new AtomicLong();
+    private final ObservationRegistry observations;
+
+    public WidgetRowCache(@Value("${widgets.row-cache.max-entries:2000}") int maxEntries,
+            @Value("${widgets.row-cache.ttl-seconds:60}") long ttlSeconds, ObservationRegistry observations) {
+        this.observations = observations;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > WidgetRowCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached row or loads it with {@code loader}, caching a found row.
+     *
+     * @param userId
+     *            owner id
+     * @param instanceId
+     *            widget instance id
+     * @param loader
+     *            database lookup used on a miss
+     * @return the row, or empty if the loader found none
+     */
+    public Optional<WidgetRow> get(UUID userId, UUID instanceId, Supplier<Optional<WidgetRow>> loader) {
+        var lookup = Observation.createNotStarted("thehub.cache.lookups", observations)
+                .contextualName("cache widget-rows").lowCardinalityKeyValue("cache", "widget-rows").start();
+        Key key = new Key(userId, instanceId);
+        String result = "miss";
+        try (Observation.Scope ignored = lookup.openScope()) {
+            Optional<WidgetRow> cached = cached(key);
+            if (cached.isPresent()) {
+                result = "hit";
+                return cached;
+            }
+            return load(key, loader);
+        } catch (RuntimeException e) {
+            lookup.error(e);
+            throw e;
+        } finally {
+            lookup.lowCardinalityKeyValue("result", result).stop();
+        }
+    }
+
+    private Optional<WidgetRow> cached(Key key) {
+        long now = System.nanoTime();
+        synchronized (entries) {
+            Entry e = entries.get(key);
+            if (e != null) {
+                if (now - e.loadedAtNanos() < ttlNanos)
+                    return Optional.of(e.row());
+                entries.remove(key);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private Optional<WidgetRow> load(Key key, Supplier<Optional<WidgetRow>> loader) {
+        long now = System.nanoTime();
+        long gen = generation.get();
+        Optional<WidgetRow> loaded = loader.get();
+        loaded.ifPresent(row -> {
+            synchronized (entries) {
+                if (generation.get() == gen)
+                    entries.put(key, new Entry(row, now));
+            }
+        });
+        return loaded;
+    }
+
+    /**
+     * Drops the entry for one widget. When called inside a transaction the entry
+     * is dropped again after commit, so a concurrent read of the pre-commit row
+     * cannot linger.
+     *
+     * @param userId
+     *            owner id
+     * @param instanceId
+     *            widget instance id
+     */
+    public void invalidate(UUID userId, UUID instanceId) {
+        Key key = new Key(userId, instanceId);
+        Runnable drop = () -> {
+            generation.incrementAndGet();
+            synchronized (entries) {
+                entries.remove(key);
+            }
+        };
+        drop.run();
+        afterCommit(drop);
+    }
+
+    /**
+     * Drops every entry of a user, e.g. after their grid was reflowed.
+     *
+     * @param userId
+     *            owner id
+     */
+    public void invalidateUser(UUID userId) {
+        Runnable drop = () -> {
+            generation.incrementAndGet();
+            synchronized (entries) {
+                entries.keySet().removeIf(k -> k.userId().equals(userId));
+            }
+        };
+        drop.run();
+        afterCommit(drop);
+    }
+
+    /** Number of cached rows. */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Drops every entry.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @EventListener
+    void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.affects("user_widgets"))
+            return;
+        if (event.isWholeTable() || event.userId() == null) {
+            clear();
+        } else if (event.instanceId() == null) {
+            invalidateUser(event.userId());
+        } else {
+            invalidate(event.userId(), event.instanceId());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
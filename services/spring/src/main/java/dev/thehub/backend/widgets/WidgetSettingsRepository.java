@@ -3,6 +3,9 @@ package dev.thehub.backend.widgets;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import org.springframework.dao.EmptyResultDataAccessException;
@@ -49,17 +52,68 @@ public class WidgetSettingsRepository {
                 limit 1
                 """;
         try {
-            return Optional.ofNullable(jdbc.queryForObject(sql, (ResultSet rs, int i) -> {
-                JsonNode grid = parseJson(rs.getString("grid"));
-                JsonNode settings = parseJson(rs.getString("settings"));
-                return new WidgetRow(rs.getObject("id", UUID.class), rs.getObject("instance_id", UUID.class),
-                        rs.getString("kind"), grid, settings);
-            }, userId, instanceId));
+            return Optional.ofNullable(jdbc.queryForObject(sql, this::mapRow, userId, instanceId));
         } catch (EmptyResultDataAccessException e) {
             return Optional.empty();
         }
     }
 
+    /**
+     * Loads several widgets of one kind owned by the user in a single query.
+     *
+     * @param userId
+     *            owner id
+     * @param kind
+     *            widget kind to restrict to
+     * @param instanceIds
+     *            instance ids to load, or null to load every widget of the kind
+     * @return matching rows ordered by id; ids that don't exist, belong to
+     *         someone else or have another kind are left out
+     */
+    public List<WidgetRow> findWidgets(UUID userId, String kind, Collection<UUID> instanceIds) {
+        final String sql = """
+                select id, instance_id, kind, grid, settings
+                from user_widgets
+                where user_id = ? and kind = ?
+                  and (?::uuid[] is null or instance_id = any (?::uuid[]))
+                order by id asc
+                """;
+        return jdbc.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setObject(1, userId);
+            ps.setString(2, kind);
+            var arr = instanceIds == null ? null : con.createArrayOf("uuid", instanceIds.toArray());
+            ps.setArray(3, arr);
+            ps.setArray(4, arr);
+            return ps;
+        }, this::mapRow);
+    }
+
+    /**
+     * Loads every widget of one kind across all users, e.g. for background jobs
+     * that serve all instances.
+     *
+     * @param kind
+     *            widget kind
+     * @return rows ordered by id
+     */
+    public List<WidgetRow> findAllOfKind(String kind) {
+        final String sql = """
+                select id, instance_id, kind, grid, settings
+                from user_widgets
+                where kind = ?
+                order by id asc
+                """;
+        return jdbc.query(sql, this::mapRow, kind);
+    }
+
+    private WidgetRow mapRow(ResultSet rs, int i) throws SQLException {
+        JsonNode grid = parseJson(rs.getString("grid"));
+        JsonNode settings = parseJson(rs.getString("settings"));
+        return new WidgetRow(rs.getObject("id", UUID.class), rs.getObject("instance_id", UUID.class),
+                rs.getString("kind"), grid, settings);
+    }
+
     /**
      * Safely parses a JSON string returning an empty object node on error.
      */
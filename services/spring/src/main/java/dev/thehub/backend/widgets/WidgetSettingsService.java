@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import dev.thehub.backend.widgets.groceries.dto.GroceryDealsSettings;
 import dev.thehub.backend.widgets.pings.PingsSettings;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 import org.springframework.stereotype.Service;
@@ -22,19 +23,24 @@ public class WidgetSettingsService {
     }
 
     private final WidgetSettingsRepository repo;
+    private final WidgetRowCache rowCache;
 
     /**
      * Creates a new settings service backed by the provided repository.
      *
      * @param repo
      *            repository used to fetch widget rows
+     * @param rowCache
+     *            cache of parsed rows in front of the repository
      */
-    public WidgetSettingsService(WidgetSettingsRepository repo) {
+    public WidgetSettingsService(WidgetSettingsRepository repo, WidgetRowCache rowCache) {
         this.repo = repo;
+        this.rowCache = rowCache;
     }
 
     /**
-     * Loads a widget owned by the given user or throws if not found.
+     * Loads a widget owned by the given user or throws if not found. Served from
+     * {@link WidgetRowCache} when possible.
      *
      * @param userId
      *            owner id
@@ -45,7 +51,34 @@ public class WidgetSettingsService {
      *             if not found or not owned by the user
      */
     public WidgetRow requireWidget(UUID userId, UUID instanceId) {
-        return repo.findWidget(userId, instanceId).orElseThrow(NotFoundOrNotOwned::new);
+        return rowCache.get(userId, instanceId, () -> repo.findWidget(userId, instanceId))
+                .orElseThrow(NotFoundOrNotOwned::new);
+    }
+
+    /**
+     * Loads several widgets of the given kind owned by the user.
+     *
+     * @param userId
+     *            owner id
+     * @param kind
+     *            widget kind
+     * @param instanceIds
+     *            instance ids to load, or null for all widgets of the kind
+     * @return rows found; unknown or foreign instance ids are skipped
+     */
+    public List<WidgetRow> findWidgets(UUID userId, WidgetKind kind, Collection<UUID> instanceIds) {
+        return repo.findWidgets(userId, kind.getValue(), instanceIds);
+    }
+
+    /**
+     * Loads every widget of the given kind, across all users. Not cached.
+     *
+     * @param kind
+     *            widget kind
+     * @return all rows of the kind
+     */
+    public List<WidgetRow> findAllWidgets(WidgetKind kind) {
+        return repo.findAllOfKind(kind.getValue());
     }
 
     /**
@@ -76,7 +109,8 @@ public class WidgetSettingsService {
      * Converts a generic widget row into {@link PingsSettings}.
      *
      * <p>
-     * Supports both a single "target" and an array of "targets". Invalid entries
+     * Supports both a single "target" and an array of "targets". Entries must be
+     * http(s) URLs or {@code tcp://host:port} (connect-only probe); invalid entries
      * are filtered out and duplicates removed. If no valid targets are present, a
      * sensible localhost default is provided.
      *
@@ -103,10 +137,12 @@ public class WidgetSettingsService {
         }
 
         // sanitize
-        targets = targets.stream().filter(u -> u.startsWith("http://") || u.startsWith("https://")).distinct().toList();
+        targets = targets.stream()
+                .filter(u -> u.startsWith("http://") || u.startsWith("https://") || u.startsWith("tcp://")).distinct()
+                .toList();
 
         if (targets.isEmpty()) {
-            targets = List.of("http://localhost:8080/actuator/health");
+            targets = List.of("http://localhost:8080/readyz");
         }
 
         return new PingsSettings(targets);
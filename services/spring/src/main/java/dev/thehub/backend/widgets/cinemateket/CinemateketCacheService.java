@@ -1,10 +1,12 @@
 package dev.thehub.backend.widgets.cinemateket;
 
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
 import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +21,8 @@ import org.springframework.stereotype.Service;
  * {@link #isFresh(CinemateketCacheDao.Row, Instant)}).</li>
  * <li>Fetch from {@link CinemateketService} (scraping) and upsert cache.</li>
  * </ol>
+ * Only the scrape takes a slot of the {@link ConcurrencyLimits#CINEMATEKET}
+ * limiter; fresh cache hits are served without one.
  */
 @Service
 @RequiredArgsConstructor
@@ -27,37 +31,71 @@ public class CinemateketCacheService {
 
     private final CinemateketCacheDao cache;
     private final CinemateketService scraper;
+    private final ConcurrencyLimits limits;
 
     /** Default freshness window when validUntil is not set. */
     private static final Duration STALE_AFTER = Duration.ofHours(24);
 
+    /**
+     * Thrown when the cache is stale or missing and the Cinemateket limiter sheds
+     * the scrape; callers may answer from {@link #getCachedShowings} instead.
+     */
+    public static class Overloaded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public Overloaded() {
+            super("cinemateket_overloaded");
+        }
+    }
+
     /**
      * Gets film showings, using cache if fresh, otherwise fetching from the
      * scraper.
      * <p>
-     * This method is synchronized to prevent multiple concurrent threads from
-     * triggering simultaneous scrapes when the cache is stale.
+     * Scrapes are serialized so that concurrent requests on a stale cache do not
+     * trigger simultaneous scrapes; a request that waited re-reads the cache.
      *
      * @param limit
      *            maximum number of showings to return (null = no limit)
      * @return list of film showings, sorted by show time
+     * @throws Overloaded
+     *             if a scrape is needed and the limiter sheds it
      */
-    public synchronized List<FilmShowingDto> getShowings(Integer limit) {
-        Instant now = Instant.now();
-        var cached = cache.find().orElse(null);
+    public List<FilmShowingDto> getShowings(Integer limit) {
+        var fresh = fromFreshCache(limit);
+        if (fresh.isPresent())
+            return fresh.get();
 
-        // 1) Fresh cache
-        if (cached != null && isFresh(cached, now)) {
-            log.info("CinemateketCacheService: using FRESH CACHE fetchedAt={} showingsCount={}", cached.fetchedAt(),
-                    cached.showings().size());
-            List<FilmShowingDto> result = new ArrayList<>(cached.showings());
-            if (limit != null && limit > 0) {
-                result = result.stream().limit(limit).collect(java.util.stream.Collectors.toList());
+        try (var permit = limits.tryAcquire(ConcurrencyLimits.CINEMATEKET).orElseThrow(Overloaded::new)) {
+            try {
+                return scrape(limit);
+            } catch (RuntimeException e) {
+                permit.dropped();
+                throw e;
             }
-            return result;
         }
+    }
 
-        // 2) Fetch from scraper, upsert cache, return
+    private Optional<List<FilmShowingDto>> fromFreshCache(Integer limit) {
+        var cached = cache.find().orElse(null);
+        if (cached == null || !isFresh(cached, Instant.now()))
+            return Optional.empty();
+        log.info("CinemateketCacheService: using FRESH CACHE fetchedAt={} showingsCount={}", cached.fetchedAt(),
+                cached.showings().size());
+        List<FilmShowingDto> result = new ArrayList<>(cached.showings());
+        if (limit != null && limit > 0) {
+            result = result.stream().limit(limit).collect(java.util.stream.Collectors.toList());
+        }
+        return Optional.of(result);
+    }
+
+    private synchronized List<FilmShowingDto> scrape(Integer limit) {
+        // Another request may have refreshed the cache while this one waited
+        var fresh = fromFreshCache(limit);
+        if (fresh.isPresent())
+            return fresh.get();
+
+        Instant now = Instant.now();
         log.info("CinemateketCacheService: FETCHING from scraper (cache stale or missing)");
         List<FilmShowingDto> showings = scraper.fetchShowings(null); // Fetch all, we'll apply limit after caching
 
@@ -74,6 +112,19 @@ public class CinemateketCacheService {
         return showings;
     }
 
+    /**
+     * Cached showings regardless of freshness, without scraping. Used as the
+     * degraded answer when a request is shed under load.
+     *
+     * @param limit
+     *            maximum number of showings to return (null = no limit)
+     * @return cached showings, or empty if nothing was ever cached
+     */
+    public Optional<List<FilmShowingDto>> getCachedShowings(Integer limit) {
+        return cache.find().map(c -> c.showings().stream().limit(limit != null && limit > 0 ? limit : Long.MAX_VALUE)
+                .collect(java.util.stream.Collectors.toList()));
+    }
+
     private boolean isFresh(CinemateketCacheDao.Row c, Instant now) {
         if (c.validUntil() != null) {
             return now.isBefore(c.validUntil());
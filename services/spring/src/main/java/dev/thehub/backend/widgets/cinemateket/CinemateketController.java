@@ -1,5 +1,7 @@
 package dev.thehub.backend.widgets.cinemateket;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
 import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +15,8 @@ import java.util.List;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -32,11 +36,13 @@ public class CinemateketController {
 
     private final CinemateketCacheService cacheService;
     private final dev.thehub.backend.widgets.WidgetSettingsService settings;
+    private final ConcurrencyLimits limits;
 
     public CinemateketController(CinemateketCacheService cacheService,
-            dev.thehub.backend.widgets.WidgetSettingsService settings) {
+            dev.thehub.backend.widgets.WidgetSettingsService settings, ConcurrencyLimits limits) {
         this.cacheService = cacheService;
         this.settings = settings;
+        this.limits = limits;
     }
 
     /**
@@ -49,7 +55,9 @@ public class CinemateketController {
      * @param limit
      *            optional limit on number of showings to return
      * @return HTTP 200 with a list of film showings, or 404 if widget not found or
-     *         not owned
+     *         not owned; when the cache is stale and the scrape is shed, cached
+     *         showings are served (header {@code X-Degraded: true}) or 429 when
+     *         none are cached
      */
     @Operation(summary = "Fetch Cinemateket showings", description = "Fetches upcoming film showings from Cinemateket Trondheim's program page.")
     @ApiResponses({
@@ -58,7 +66,7 @@ public class CinemateketController {
     public ResponseEntity<List<FilmShowingDto>> showings(@Parameter(hidden = true) JwtAuthenticationToken auth,
             @Parameter(description = "Widget instance ID (UUID). Must belong to the authenticated user.") @RequestParam UUID instanceId,
             @Parameter(description = "Maximum number of showings to return") @RequestParam(required = false) Integer limit) {
-        var userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        var userId = UserAuthentication.userId(auth);
 
         if (log.isDebugEnabled()) {
             log.debug("Cinemateket request uid={} instanceId={} limit={}", userId, instanceId, limit);
@@ -84,8 +92,16 @@ public class CinemateketController {
                 }
             }
 
-            List<FilmShowingDto> showings = cacheService.getShowings(limit);
-            return ResponseEntity.ok(showings);
+            return ResponseEntity.ok(cacheService.getShowings(limit));
+        } catch (CinemateketCacheService.Overloaded e) {
+            var cached = cacheService.getCachedShowings(limit);
+            if (cached.isEmpty()) {
+                limits.record(ConcurrencyLimits.CINEMATEKET, ConcurrencyLimits.Outcome.REJECTED);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                        .body(List.of());
+            }
+            limits.record(ConcurrencyLimits.CINEMATEKET, ConcurrencyLimits.Outcome.DEGRADED);
+            return ResponseEntity.ok().header("X-Degraded", "true").body(cached.get());
         } catch (dev.thehub.backend.widgets.WidgetSettingsService.NotFoundOrNotOwned e) {
             log.warn("Cinemateket widget not found or not owned userId={} instanceId={}", userId, instanceId);
             return ResponseEntity.status(404).body(List.of());
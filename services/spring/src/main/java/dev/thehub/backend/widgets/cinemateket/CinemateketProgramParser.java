@@ -0,0 +1,455 @@
+package dev.thehub.backend.widgets.cinemateket;
+
+import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
+import java.time.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jsoup.internal.StringUtil;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Parser that turns Cinemateket Trondheim's program page into
+ * {@link FilmShowingDto}s.
+ * <p>
+ * Each program paragraph is walked once: its nodes are split into lines at
+ * {@code <br>} elements while the line text and the {@code <a>} and
+ * {@code <strong>} elements that start on that line are collected in the same
+ * pass. Line text is normalised the same way as jsoup's {@link Element#text()},
+ * so the output matches re-parsing each line's HTML without building a
+ * throwaway {@link Document} per line.
+ * <p>
+ * Notes: This utility is stateless and thread-safe. All calculations use
+ * Europe/Oslo time.
+ */
+final class CinemateketProgramParser {
+    private static final Logger log = LoggerFactory.getLogger(CinemateketProgramParser.class);
+    private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
+    private static final Map<String, Month> NO_MONTHS = Map.ofEntries(Map.entry("januar", Month.JANUARY),
+            Map.entry("februar", Month.FEBRUARY), Map.entry("mars", Month.MARCH), Map.entry("april", Month.APRIL),
+            Map.entry("mai", Month.MAY), Map.entry("juni", Month.JUNE), Map.entry("juli", Month.JULY),
+            Map.entry("august", Month.AUGUST), Map.entry("september", Month.SEPTEMBER),
+            Map.entry("oktober", Month.OCTOBER), Map.entry("november", Month.NOVEMBER),
+            Map.entry("desember", Month.DECEMBER));
+
+    // Pattern to match "DD.MM" or "DD.MM." date format
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{1,2})\\.(\\d{2})\\.?");
+    // Pattern to match "HH.MM" time format
+    private static final Pattern TIME_PATTERN = Pattern.compile("(\\d{1,2})\\.(\\d{2})");
+    // Pattern to match director and year: "Director Name YYYY" or "Director Name"
+    private static final Pattern DIRECTOR_YEAR_PATTERN = Pattern.compile("^(.+?)\\s+(\\d{4})$");
+    // Pattern to match film format markers like "(35mm)", "(70mm)", "(16mm)"
+    private static final Pattern FORMAT_PATTERN = Pattern.compile("\\((\\d+mm)\\)", Pattern.CASE_INSENSITIVE);
+    // Line tail consisting only of digits, dots and whitespace (a bare date, not a
+    // showing)
+    private static final Pattern NUMERIC_ONLY = Pattern.compile("^[\\d.\\s]+$");
+    private static final Pattern TICKETS_SUFFIX = Pattern.compile("(?i)\\s*billetter.*");
+    private static final Pattern FORMAT_MARKER = Pattern.compile("(?i)\\(\\d+mm\\)\\s*");
+    private static final Pattern DAY_NAME = Pattern
+            .compile("(?i)(mandag|tirsdag|onsdag|torsdag|fredag|lørdag|søndag).*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private CinemateketProgramParser() {
+    }
+
+    /**
+     * Parses all showings listed on the program page.
+     *
+     * @param doc
+     *            parsed program page
+     * @param today
+     *            current date in Europe/Oslo; used to resolve the year of each
+     *            month section
+     * @param baseUrl
+     *            site root that relative film and ticket links are resolved
+     *            against (no trailing slash)
+     * @return showings in page order (not filtered or sorted)
+     */
+    static List<FilmShowingDto> parse(Document doc, LocalDate today, String baseUrl) {
+        List<FilmShowingDto> showings = new ArrayList<>();
+
+        // Find all h2 elements (months) - they're in accordion items
+        for (Element monthHeader : doc.getElementsByTag("h2")) {
+            Month month = NO_MONTHS.get(monthHeader.text().trim().toLowerCase(Locale.ROOT));
+            if (month == null) {
+                continue;
+            }
+
+            // The structure is: accordion item > h2 (month) > accordion content >
+            // wp-block-group > paragraphs
+            Element accordionItem = monthHeader.parent();
+            while (accordionItem != null && !accordionItem.hasClass("wp-block-pb-accordion-item")) {
+                accordionItem = accordionItem.parent();
+            }
+            if (accordionItem == null) {
+                continue;
+            }
+
+            Element contentDiv = accordionItem.selectFirst(".c-accordion__content");
+            if (contentDiv == null) {
+                continue;
+            }
+
+            int year = yearFor(month, today);
+            for (Element p : contentDiv.getElementsByTag("p")) {
+                parseParagraph(p, month, year, baseUrl, showings);
+            }
+        }
+
+        return showings;
+    }
+
+    /**
+     * Handles the year boundary relative to today: a January section seen in
+     * December belongs to next year, a December section seen in January to last
+     * year.
+     */
+    private static int yearFor(Month month, LocalDate today) {
+        if (today.getMonth() == Month.DECEMBER && month == Month.JANUARY) {
+            return today.getYear() + 1;
+        }
+        if (today.getMonth() == Month.JANUARY && month == Month.DECEMBER) {
+            return today.getYear() - 1;
+        }
+        return today.getYear();
+    }
+
+    private static void parseParagraph(Element p, Month month, int year, String baseUrl,
+            List<FilmShowingDto> showings) {
+        String text = p.text();
+        if (text.isBlank())
+            return;
+
+        // Look for day patterns like "Torsdag 08.01." or "Onsdag 14.01" in strong tags
+        String dayText = "";
+        for (Element strong : p.getElementsByTag("strong")) {
+            String strongText = strong.text().trim();
+            if (DATE_PATTERN.matcher(strongText).find()) {
+                dayText = strongText;
+                break;
+            }
+        }
+
+        if (dayText.isEmpty()) {
+            // Fallback: check the whole paragraph text
+            Matcher dayMatcher = DATE_PATTERN.matcher(text);
+            if (!dayMatcher.find())
+                return;
+            dayText = dayMatcher.group(0);
+        }
+
+        Matcher dayMatcher = DATE_PATTERN.matcher(dayText);
+        if (!dayMatcher.find())
+            return;
+
+        int day;
+        int monthNum;
+        try {
+            day = Integer.parseInt(dayMatcher.group(1));
+            monthNum = Integer.parseInt(dayMatcher.group(2));
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        // Validate month matches
+        if (monthNum != month.getValue()) {
+            return;
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return;
+        }
+
+        LineSplitter splitter = new LineSplitter();
+        for (Node child : p.childNodes())
+            NodeTraversor.traverse(splitter, child);
+        splitter.endLine();
+
+        for (Line line : splitter.lines) {
+            FilmShowingDto showing = parseLine(line, date, baseUrl);
+            if (showing != null)
+                showings.add(showing);
+        }
+    }
+
+    private static FilmShowingDto parseLine(Line l, LocalDate date, String baseUrl) {
+        String line = l.text;
+        if (line.isEmpty())
+            return null;
+
+        // Check if line contains a time (HH.MM format, where HH is 0-23)
+        Matcher timeMatcher = TIME_PATTERN.matcher(line);
+        if (!timeMatcher.find())
+            return null;
+
+        int hour;
+        int minute;
+        try {
+            hour = Integer.parseInt(timeMatcher.group(1));
+            minute = Integer.parseInt(timeMatcher.group(2));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        // Validate hour (0-23) and minute (0-59); "24.01" is a date, not a time
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return null;
+        }
+
+        // Times should be followed by title/director info, not just be standalone
+        // dates
+        String afterTime = line.substring(timeMatcher.end()).trim();
+        if (afterTime.isEmpty() || NUMERIC_ONLY.matcher(afterTime).matches()) {
+            return null;
+        }
+
+        LocalDateTime dateTime;
+        try {
+            dateTime = date.atTime(hour, minute);
+        } catch (DateTimeException e) {
+            log.debug("Failed to create LocalDateTime from hour={} minute={} date={}: {}", hour, minute, date,
+                    e.getMessage());
+            return null;
+        }
+        Instant showTime = dateTime.atZone(ZONE).toInstant();
+
+        // Extract title and filmUrl together to ensure they match; links are the
+        // most reliable source
+        String title = null;
+        String filmUrl = null;
+        String ticketUrl = null;
+
+        for (Tagged link : l.links) {
+            String linkText = link.text;
+            String linkTextLower = linkText.toLowerCase(Locale.ROOT);
+            String href = link.href;
+
+            // Skip ticket links and other non-title links
+            if (linkText.isEmpty() || linkTextLower.contains("billetter")
+                    || linkTextLower.equals("minimalen kortfilmfestival") || linkTextLower.contains("ticketco")) {
+                if ((linkTextLower.contains("billetter") || href.contains("ticketco")) && ticketUrl == null) {
+                    ticketUrl = absolute(href, baseUrl);
+                }
+                continue;
+            }
+
+            if (title == null) {
+                title = linkText;
+                if (href.contains("/program/") || href.contains("cinemateket")) {
+                    filmUrl = absolute(href, baseUrl);
+                }
+            }
+        }
+
+        // If no title from links, try strong tags
+        if (title == null) {
+            for (Tagged s : l.strongs) {
+                String strongText = s.text;
+                String strongLower = strongText.toLowerCase(Locale.ROOT);
+                if (!strongText.isEmpty() && !DATE_PATTERN.matcher(strongText).find() && !strongLower.contains("uke")
+                        && !strongLower.contains("billetter") && !DAY_NAME.matcher(strongText).matches()) {
+                    title = strongText;
+                    break;
+                }
+            }
+        }
+
+        // Fallback: extract from line text after time
+        if (title == null) {
+            String candidate = TICKETS_SUFFIX.matcher(afterTime).replaceAll("").trim();
+            Matcher dirYearMatcher = DIRECTOR_YEAR_PATTERN.matcher(candidate);
+            if (dirYearMatcher.find()) {
+                String beforeDir = candidate.substring(0, dirYearMatcher.start()).trim();
+                if (!beforeDir.isEmpty()) {
+                    title = beforeDir;
+                }
+            } else {
+                String[] parts = WHITESPACE.split(candidate, 2);
+                if (parts.length > 0 && !parts[0].isEmpty()) {
+                    title = parts[0];
+                }
+            }
+        }
+
+        if (title == null || title.isBlank())
+            return null;
+
+        // Extract film format marker (e.g., "(35mm)", "(70mm)")
+        String filmFormat = null;
+        Matcher fmtMatcher = FORMAT_PATTERN.matcher(line);
+        if (fmtMatcher.find()) {
+            filmFormat = fmtMatcher.group(1).toLowerCase(Locale.ROOT);
+        }
+
+        // Extract director and year - look for pattern after the title
+        String director = null;
+        Integer filmYear = null;
+        int titleIdx = afterTime.toLowerCase(Locale.ROOT).indexOf(title.toLowerCase(Locale.ROOT));
+        if (titleIdx >= 0) {
+            String afterTitle = afterTime.substring(titleIdx + title.length()).trim();
+            // Strip format marker so it doesn't bleed into the director name
+            if (filmFormat != null) {
+                afterTitle = FORMAT_MARKER.matcher(afterTitle).replaceAll("").trim();
+            }
+            Matcher dirYearMatcher = DIRECTOR_YEAR_PATTERN.matcher(afterTitle);
+            if (dirYearMatcher.find()) {
+                director = dirYearMatcher.group(1).trim();
+                try {
+                    filmYear = Integer.parseInt(dirYearMatcher.group(2));
+                } catch (NumberFormatException e) {
+                    // Ignore
+                }
+            } else if (!afterTitle.isBlank() && !afterTitle.toLowerCase(Locale.ROOT).contains("billetter")) {
+                director = afterTitle;
+            }
+        }
+
+        // If we still don't have ticketUrl, look for it in the line
+        if (ticketUrl == null) {
+            for (Tagged link : l.links) {
+                if (link.text.toLowerCase(Locale.ROOT).contains("billetter") || link.href.contains("ticketco")) {
+                    ticketUrl = absolute(link.href, baseUrl);
+                    break;
+                }
+            }
+        }
+
+        // Extract organizer (e.g., "Psykolosjen filmklubb:")
+        String organizer = null;
+        if (line.contains("filmklubb") || line.contains("Filmklubb") || line.contains("filmklubben")) {
+            int colonIdx = line.indexOf(':');
+            if (colonIdx > 0) {
+                organizer = line.substring(0, colonIdx).trim();
+            }
+        }
+
+        return new FilmShowingDto(title, director, filmYear, showTime.toString(), ticketUrl, filmUrl, organizer,
+                filmFormat);
+    }
+
+    private static String absolute(String href, String baseUrl) {
+        return href.startsWith("http") ? href : baseUrl + href;
+    }
+
+    /** One {@code <br>}-separated line of a paragraph. */
+    private record Line(String text, List<Tagged> links, List<Tagged> strongs) {
+    }
+
+    /**
+     * An {@code <a>} or {@code <strong>} element that starts on a line. Its text
+     * only covers the part of the element on that line.
+     */
+    private static final class Tagged {
+        final Element element;
+        final String href;
+        final StringBuilder accum = new StringBuilder();
+        String text;
+
+        Tagged(Element element) {
+            this.element = element;
+            this.href = element.attr("href");
+        }
+    }
+
+    /**
+     * Visitor that splits a paragraph into lines at {@code <br>} elements (at any
+     * depth) and accumulates text for the line and for every open {@code <a>} /
+     * {@code <strong>} element, using the same whitespace rules as
+     * {@link Element#text()}.
+     */
+    private static final class LineSplitter implements NodeVisitor {
+        final List<Line> lines = new ArrayList<>();
+        private StringBuilder text = new StringBuilder();
+        private List<Tagged> links = new ArrayList<>();
+        private List<Tagged> strongs = new ArrayList<>();
+        private final List<Tagged> open = new ArrayList<>();
+
+        @Override
+        public void head(Node node, int depth) {
+            if (node instanceof TextNode t) {
+                String whole = t.getWholeText();
+                StringUtil.appendNormalisedWhitespace(text, whole, lastCharIsWhitespace(text));
+                for (Tagged tagged : open)
+                    StringUtil.appendNormalisedWhitespace(tagged.accum, whole, lastCharIsWhitespace(tagged.accum));
+            } else if (node instanceof Element e) {
+                if (e.normalName().equals("br")) {
+                    endLine();
+                    return;
+                }
+                if (e.isBlock()) {
+                    spaceIfNeeded(text);
+                    for (Tagged tagged : open)
+                        spaceIfNeeded(tagged.accum);
+                }
+                switch (e.normalName()) {
+                    case "a" -> open(e, links);
+                    case "strong" -> open(e, strongs);
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void tail(Node node, int depth) {
+            if (!(node instanceof Element e))
+                return;
+            for (int i = open.size() - 1; i >= 0; i--) {
+                if (open.get(i).element == e) {
+                    open.remove(i);
+                    break;
+                }
+            }
+            Node next = e.nextSibling();
+            if (e.isBlock() && (next instanceof TextNode
+                    || next instanceof Element nextEl && !nextEl.tag().formatAsBlock())) {
+                if (!lastCharIsWhitespace(text))
+                    text.append(' ');
+                for (Tagged tagged : open)
+                    if (!lastCharIsWhitespace(tagged.accum))
+                        tagged.accum.append(' ');
+            }
+        }
+
+        private void open(Element e, List<Tagged> target) {
+            Tagged tagged = new Tagged(e);
+            target.add(tagged);
+            open.add(tagged);
+        }
+
+        /**
+         * Closes the current line. Elements still open continue on the next line
+         * only as plain text, matching how a line fragment is parsed on its own.
+         */
+        void endLine() {
+            for (Tagged tagged : links)
+                tagged.text = tagged.accum.toString().trim();
+            for (Tagged tagged : strongs)
+                tagged.text = tagged.accum.toString().trim();
+            lines.add(new Line(text.toString().trim(), links, strongs));
+            text = new StringBuilder();
+            links = new ArrayList<>();
+            strongs = new ArrayList<>();
+            open.clear();
+        }
+
+        private static void spaceIfNeeded(StringBuilder accum) {
+            if (accum.length() > 0 && !lastCharIsWhitespace(accum))
+                accum.append(' ');
+        }
+
+        private static boolean lastCharIsWhitespace(StringBuilder sb) {
+            return sb.length() != 0 && sb.charAt(sb.length() - 1) == ' ';
+        }
+    }
+}
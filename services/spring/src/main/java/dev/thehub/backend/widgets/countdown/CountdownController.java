@@ -1,5 +1,6 @@
 package dev.thehub.backend.widgets.countdown;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -7,6 +8,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -25,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class CountdownController {
     private static final Logger log = LoggerFactory.getLogger(CountdownController.class);
+    private static final int MAX_BATCH_INSTANCES = 100;
 
     private final CountdownService service;
 
@@ -50,7 +54,7 @@ public class CountdownController {
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     public CountdownDto get(@Parameter(hidden = true) JwtAuthenticationToken auth,
             @Parameter(description = "Widget instance ID (UUID). Must belong to the authenticated user.", required = true, example = "114c228a-a378-44e2-bc67-1c6b16581187") @RequestParam String instanceId) {
-        UUID userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        UUID userId = UserAuthentication.userId(auth);
         UUID inst = UUID.fromString(instanceId);
 
         log.debug("CountdownController GET called userId={} instanceId={}", userId, inst);
@@ -59,4 +63,39 @@ public class CountdownController {
 
         return dto;
     }
+
+    /**
+     * Resolves countdown data for several widget instances in one request.
+     *
+     * Widgets sharing a provider are resolved against it only once. Instance ids
+     * that don't belong to the user or aren't countdown widgets are left out of
+     * the response; a widget that fails to resolve has its {@code error} set.
+     *
+     * @param auth
+     *            JwtAuthenticationToken providing the user's subject (sub)
+     * @param instanceIds
+     *            Widget instance IDs (UUIDs); when omitted all of the user's
+     *            countdown widgets are resolved
+     * @return map of instance id to CountdownDto
+     */
+    @Operation(summary = "Get countdown data for several widgets", description = "Resolves countdown data for the given widget instances (or all of the user's countdown widgets) in one round-trip.")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Resolved countdowns keyed by instance id"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized"),
+            @ApiResponse(responseCode = "500", description = "Internal server error")})
+    @GetMapping(path = "/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<UUID, CountdownDto> getBatch(@Parameter(hidden = true) JwtAuthenticationToken auth,
+            @Parameter(description = "Widget instance IDs (UUIDs). Omit to resolve all countdown widgets of the user.") @RequestParam(required = false) List<String> instanceIds) {
+        UUID userId = UserAuthentication.userId(auth);
+        List<UUID> ids = instanceIds == null ? null : instanceIds.stream().map(UUID::fromString).distinct().toList();
+        if (ids != null && ids.size() > MAX_BATCH_INSTANCES)
+            throw new IllegalArgumentException("too_many_instances");
+
+        log.debug("CountdownController GET batch called userId={} requested={}", userId,
+                ids == null ? "all" : ids.size());
+        Map<UUID, CountdownDto> result = service.resolveAll(userId, ids);
+        log.info("CountdownController GET batch result userId={} resolved={}", userId, result.size());
+
+        return result;
+    }
 }
@@ -12,7 +12,24 @@ package dev.thehub.backend.widgets.countdown;
  * @param ongoing
  *            true if now is within the interval [previousIso..nextIso], meaning
  *            a window is currently ongoing
+ * @param error
+ *            why this widget could not be resolved (e.g. {@code invalid_time}),
+ *            or null; set only in batch responses, where one failing widget
+ *            must not fail the others
  */
 public record CountdownDto(String nowIso, String nextIso, String previousIso, boolean ongoing, boolean tentative,
-        boolean verified) {
+        boolean verified, String error) {
+
+    /**
+     * Entry for a widget that could not be resolved.
+     *
+     * @param nowIso
+     *            current server time in ISO-8601 format
+     * @param error
+     *            short error key
+     * @return a DTO with no instants and the error set
+     */
+    public static CountdownDto failed(String nowIso, String error) {
+        return new CountdownDto(nowIso, null, null, false, false, false, error);
+    }
 }
@@ -1,16 +1,24 @@
 package dev.thehub.backend.widgets.countdown;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import dev.thehub.backend.common.cache.CacheInvalidationEvent;
+import dev.thehub.backend.widgets.WidgetKind;
 import dev.thehub.backend.widgets.WidgetRow;
 import dev.thehub.backend.widgets.WidgetSettingsService;
 import dev.thehub.backend.widgets.countdown.CountdownResolver.ProviderResult;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Supplier;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
 /**
@@ -21,8 +29,8 @@ import org.springframework.stereotype.Service;
  * <ul>
  * <li>"fixed-date": expects "targetIso" (ISO-8601) and returns it as
  * nextIso.</li>
- * <li>"monthly-rule": uses {@link Monthly} with fields like time, dayOfMonth or
- * byWeekday/bySetPos.</li>
+ * <li>"monthly-rule": uses {@link Monthly} with fields like time, dayOfMonth,
+ * byMonthDay, byWeekday/bySetPos and interval.</li>
  * <li>"provider": uses a {@code provider} id routed through
  * {@link CountdownResolver}.</li>
  * </ul>
@@ -31,10 +39,49 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 public class CountdownService {
     private static final Logger log = LoggerFactory.getLogger(CountdownService.class);
+    private static final int MAX_COMPILED_RULES = 10_000;
 
     private final WidgetSettingsService settings;
     private final CountdownResolver resolver;
 
+    /**
+     * Compiles rules per widget instance and settings version: the key carries
+     * the settings' hash, so an edited widget gets a new entry and its old rule
+     * ages out. Access-ordered and bounded, so the eldest entry is the least
+     * recently polled one; deleted or edited widgets are also dropped when their
+     * {@link CacheInvalidationEvent} arrives.
+     */
+    private final LinkedHashMap<RuleKey, Monthly> monthlyRules = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RuleKey, Monthly> eldest) {
+            return size() > MAX_COMPILED_RULES;
+        }
+    };
+
+    /** A memoized provider resolution: its result, or the failure to rethrow. */
+    private record ProviderOutcome(ProviderResult result, RuntimeException failure) {
+        static ProviderOutcome of(Supplier<ProviderResult> resolve) {
+            try {
+                return new ProviderOutcome(resolve.get(), null);
+            } catch (RuntimeException e) {
+                return new ProviderOutcome(null, e);
+            }
+        }
+
+        ProviderResult get() {
+            if (failure != null)
+                throw failure;
+            return result;
+        }
+    }
+
+    /**
+     * A settings version is the settings' hash; two edits of one widget whose
+     * settings collide would share a rule until it is evicted.
+     */
+    private record RuleKey(UUID instanceId, int settingsVersion) {
+    }
+
     /**
      * Resolve countdown data for a specific user's widget instance.
      *
@@ -46,7 +93,7 @@ public class CountdownService {
      * <ul>
      * <li>source = "fixed-date": uses string field "targetIso".</li>
      * <li>source = "monthly-rule": see
-     * {@link Monthly#nextOccurrenceIso(java.time.Instant, com.fasterxml.jackson.databind.JsonNode)}.</li>
+     * {@link Monthly}.</li>
      * <li>source = "provider": uses string field "provider" matching
      * {@link dev.thehub.backend.widgets.countdown.provider.CountdownProvider#id()}.</li>
      * </ul>
@@ -62,10 +109,56 @@ public class CountdownService {
      */
     public CountdownDto resolve(UUID userId, UUID instanceId) {
         WidgetRow row = settings.requireWidget(userId, instanceId);
+        return resolve(row, Instant.now(), new HashMap<>());
+    }
+
+    /**
+     * Resolve countdown data for several of a user's countdown widgets at once.
+     * <p>
+     * Rows are loaded with one query and every provider id is resolved at most
+     * once, however many widgets reference it. All results share the same
+     * reference time.
+     *
+     * @param userId
+     *            owner of the widget instances
+     * @param instanceIds
+     *            widget instance identifiers, or null for all of the user's
+     *            countdown widgets
+     * @return DTOs keyed by instance id; ids that are unknown, not owned by the
+     *         user or not countdown widgets are omitted. A widget that fails to
+     *         resolve (malformed settings, a failing provider) gets an entry
+     *         with {@link CountdownDto#error()} set instead of failing the
+     *         whole batch
+     */
+    public Map<UUID, CountdownDto> resolveAll(UUID userId, Collection<UUID> instanceIds) {
+        Instant now = Instant.now();
+        Map<String, ProviderOutcome> providerResults = new HashMap<>();
+        Map<UUID, CountdownDto> out = new LinkedHashMap<>();
+        for (WidgetRow row : settings.findWidgets(userId, WidgetKind.COUNTDOWN, instanceIds)) {
+            CountdownDto dto;
+            try {
+                dto = resolve(row, now, providerResults);
+            } catch (IllegalArgumentException e) {
+                log.warn("CountdownService: malformed widget instanceId={} error={}", row.instanceId(), e.getMessage());
+                dto = CountdownDto.failed(now.toString(), e.getMessage() == null ? "invalid_settings" : e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("CountdownService: resolving widget failed instanceId={}", row.instanceId(), e);
+                dto = CountdownDto.failed(now.toString(), "resolve_failed");
+            }
+            out.put(row.instanceId(), dto);
+        }
+        return out;
+    }
+
+    /**
+     * Resolve a loaded widget row. Provider results are memoized in
+     * {@code providerResults} so callers resolving several rows share them; a
+     * provider that failed is not asked again for the other rows.
+     */
+    private CountdownDto resolve(WidgetRow row, Instant now, Map<String, ProviderOutcome> providerResults) {
         JsonNode s = row.settings();
 
         String source = s.hasNonNull("source") ? s.get("source").asText() : "";
-        Instant now = Instant.now();
         String nextIso = null;
         String previousIso = null;
         boolean tentative = false;
@@ -78,12 +171,13 @@ public class CountdownService {
                 nextIso = s.hasNonNull("targetIso") ? s.get("targetIso").asText() : null;
             }
             case "monthly-rule" -> {
-                nextIso = Monthly.nextOccurrenceIso(now, s);
+                nextIso = monthlyRule(row.instanceId(), s).nextOccurrenceIso(now);
             }
             case "provider" -> {
                 providerName = s.hasNonNull("provider") ? s.get("provider").asText() : null;
                 if (providerName != null && !providerName.isBlank()) {
-                    ProviderResult result = resolver.resolveProvider(providerName, now);
+                    ProviderResult result = providerResults.computeIfAbsent(providerName,
+                            id -> ProviderOutcome.of(() -> resolver.resolveProvider(id, now))).get();
                     nextIso = Optional.ofNullable(result.next()).map(Instant::toString).orElse(null);
                     previousIso = Optional.ofNullable(result.previous()).map(Instant::toString).orElse(null);
                     tentative = result.tentative();
@@ -115,6 +209,44 @@ public class CountdownService {
             ongoing = inBounds && plausible;
         }
 
-        return new CountdownDto(now.toString(), nextIso, previousIso, ongoing, tentative, verified);
+        return new CountdownDto(now.toString(), nextIso, previousIso, ongoing, tentative, verified, null);
+    }
+
+    /** Number of compiled monthly rules currently held. */
+    public int compiledRuleCount() {
+        synchronized (monthlyRules) {
+            return monthlyRules.size();
+        }
+    }
+
+    /**
+     * Returns the compiled monthly rule for a widget instance and settings
+     * version, compiling it on a miss. Compilation runs outside the lock;
+     * concurrent misses for the same key compile the same immutable rule.
+     */
+    private Monthly monthlyRule(UUID instanceId, JsonNode s) {
+        RuleKey key = new RuleKey(instanceId, s.hashCode());
+        synchronized (monthlyRules) {
+            Monthly rule = monthlyRules.get(key);
+            if (rule != null)
+                return rule;
+        }
+        Monthly rule = Monthly.compile(s);
+        synchronized (monthlyRules) {
+            monthlyRules.put(key, rule);
+        }
+        return rule;
+    }
+
+    @EventListener
+    void onInvalidation(CacheInvalidationEvent event) {
+        if (!event.affects("user_widgets") || "INSERT".equals(event.op()))
+            return;
+        synchronized (monthlyRules) {
+            if (event.isWholeTable())
+                monthlyRules.clear();
+            else if (event.instanceId() != null)
+                monthlyRules.keySet().removeIf(k -> k.instanceId().equals(event.instanceId()));
+        }
     }
 }
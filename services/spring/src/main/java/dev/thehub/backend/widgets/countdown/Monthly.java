@@ -3,94 +3,293 @@ package dev.thehub.backend.widgets.countdown;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.time.*;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 /**
- * Utility for computing the next monthly occurrence based on a simple rule.
+ * Compiled monthly recurrence rule (a small RRULE subset with FREQ=MONTHLY).
  * <p>
  * Supported settings:
  * <ul>
  * <li>time: "HH:mm" (default 08:00)</li>
- * <li>dayOfMonth: number 1..31 (clamped to the month's last day)</li>
- * <li>byWeekday: "MO","TU","WE","TH","FR","SA","SU" together with bySetPos</li>
- * <li>bySetPos: nth match within month (1..n) or negative for from-end (-1 =
- * last)</li>
+ * <li>dayOfMonth: number 1..31 (clamped to the month's last day). When set, all
+ * other day selectors are ignored.</li>
+ * <li>byMonthDay: number or list of numbers 1..31 or -31..-1 (-1 = last day);
+ * days that don't exist in a month are skipped</li>
+ * <li>byWeekday: "MO","TU","WE","TH","FR","SA","SU" or a list of them. Entries
+ * may carry an ordinal prefix ("2TU" = second Tuesday, "-1FR" = last
+ * Friday). Unknown entries are ignored.</li>
+ * <li>bySetPos: number or list of numbers selecting the nth match within the
+ * month (1..n) or negative for from-end (-1 = last)</li>
+ * <li>interval: every n-th month (default 1), counted from start</li>
+ * <li>start: optional ISO date; no occurrence is produced before it and it
+ * anchors interval (without it, interval is counted from January 1970)</li>
  * </ul>
- * Notes: This utility is stateless and thread-safe. All calculations use
- * Europe/Oslo time.
+ * When both byMonthDay and byWeekday are set, only days matching both are
+ * used. A byWeekday without bySetPos matches every listed weekday of the month
+ * (earlier versions produced no occurrence for such rules). Occurrences are
+ * computed arithmetically per month without iterating the days of the month.
+ * <p>
+ * Notes: Instances are immutable and thread-safe; compile once per settings
+ * version and reuse. All calculations use Europe/Oslo time.
  */
 final class Monthly {
     private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
+    /** Upper bound on months inspected when searching for the next occurrence. */
+    private static final int MAX_MONTHS_SCANNED = 600;
+    private static final int[] NONE = new int[0];
+    /** Month index of January 1970, the interval anchor of rules without start. */
+    private static final int EPOCH_MONTH = monthIndex(1970, 1);
+
+    private final int hour;
+    private final int minute;
+    private final Integer dayOfMonth;
+    private final int[] byMonthDay;
+    /** Bit (dow - 1) set for weekdays that match every occurrence in a month. */
+    private final int everyWeekday;
+    private final int[] ordinalWeekday;
+    private final int[] ordinalN;
+    private final int[] bySetPos;
+    private final int interval;
+    private final LocalDate start;
+    private final int anchorMonth;
+
+    private Monthly(int hour, int minute, Integer dayOfMonth, int[] byMonthDay, int everyWeekday,
+            int[] ordinalWeekday, int[] ordinalN, int[] bySetPos, int interval, LocalDate start) {
+        this.hour = hour;
+        this.minute = minute;
+        this.dayOfMonth = dayOfMonth;
+        this.byMonthDay = byMonthDay;
+        this.everyWeekday = everyWeekday;
+        this.ordinalWeekday = ordinalWeekday;
+        this.ordinalN = ordinalN;
+        this.bySetPos = bySetPos;
+        this.interval = interval;
+        this.start = start;
+        this.anchorMonth = start == null ? EPOCH_MONTH : monthIndex(start.getYear(), start.getMonthValue());
+    }
 
     /**
-     * Calculates the next occurrence described by the settings at or after the
-     * given time.
+     * Compiles the rule described by the widget settings.
      *
-     * @param now
-     *            reference instant
      * @param s
      *            JSON settings node
-     * @return ISO-8601 offset date-time string or null if no rule matched
+     * @return compiled rule
+     * @throws IllegalArgumentException
+     *             if time or start is malformed
      */
-    static String nextOccurrenceIso(Instant now, JsonNode s) {
-        var zNow = now.atZone(ZONE);
-
+    static Monthly compile(JsonNode s) {
         String time = text(s, "time", "08:00");
         String[] hm = time.split(":");
-        int H = Integer.parseInt(hm[0]), M = Integer.parseInt(hm[1]);
+        int H, M;
+        try {
+            H = Integer.parseInt(hm[0].trim());
+            M = Integer.parseInt(hm[1].trim());
+            LocalTime.of(H, M);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("invalid_time");
+        }
 
         Integer dayOfMonth = intOrNull(s, "dayOfMonth");
-        String byWeekday = text(s, "byWeekday", null);
-        Integer bySetPos = intOrNull(s, "bySetPos");
+        int[] byMonthDay = ints(s, "byMonthDay");
 
-        var candidate = candidateInMonth(zNow, H, M, dayOfMonth, byWeekday, bySetPos);
-        if (candidate == null || !candidate.isAfter(zNow)) {
-            candidate = candidateInMonth(zNow.plusMonths(1), H, M, dayOfMonth, byWeekday, bySetPos);
+        int every = 0;
+        List<int[]> ordinals = new ArrayList<>();
+        for (String entry : texts(s, "byWeekday")) {
+            String e = entry.trim().toUpperCase(Locale.ROOT);
+            if (e.length() < 2)
+                continue;
+            int dow = weekday(e.substring(e.length() - 2));
+            String prefix = e.substring(0, e.length() - 2);
+            if (dow == 0)
+                continue; // unknown weekday codes never match, as before
+            if (prefix.isEmpty() || prefix.equals("+")) {
+                every |= 1 << (dow - 1);
+                continue;
+            }
+            try {
+                int n = Integer.parseInt(prefix);
+                if (n != 0 && n >= -5 && n <= 5)
+                    ordinals.add(new int[]{dow, n});
+            } catch (NumberFormatException ignored) {
+                // malformed ordinal; entry never matches
+            }
+        }
+        int[] ordDow = new int[ordinals.size()];
+        int[] ordN = new int[ordinals.size()];
+        for (int i = 0; i < ordinals.size(); i++) {
+            ordDow[i] = ordinals.get(i)[0];
+            ordN[i] = ordinals.get(i)[1];
         }
-        return candidate == null ? null : candidate.toOffsetDateTime().toString();
-    }
 
-    private static ZonedDateTime candidateInMonth(ZonedDateTime base, int H, int M, Integer dom, String byWeekday,
-            Integer bySetPos) {
-        int y = base.getYear(), mo = base.getMonthValue();
-        if (dom != null) {
-            int last = YearMonth.of(y, mo).lengthOfMonth();
-            int d = Math.min(Math.max(dom, 1), last);
-            return ZonedDateTime.of(y, mo, d, H, M, 0, 0, ZONE);
+        Integer interval = intOrNull(s, "interval");
+        LocalDate start = null;
+        String startText = text(s, "start", null);
+        if (startText != null && !startText.isBlank()) {
+            try {
+                start = LocalDate.parse(startText.length() > 10 ? startText.substring(0, 10) : startText);
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("invalid_start");
+            }
         }
-        if (byWeekday != null && bySetPos != null) {
-            var dow = switch (byWeekday) {
-                case "MO" -> DayOfWeek.MONDAY;
-                case "TU" -> DayOfWeek.TUESDAY;
-                case "WE" -> DayOfWeek.WEDNESDAY;
-                case "TH" -> DayOfWeek.THURSDAY;
-                case "FR" -> DayOfWeek.FRIDAY;
-                case "SA" -> DayOfWeek.SATURDAY;
-                case "SU" -> DayOfWeek.SUNDAY;
-                default -> null;
-            };
-            if (dow == null)
-                return null;
-            var dates = new ArrayList<LocalDate>();
-            var d = LocalDate.of(y, mo, 1);
-            while (d.getMonthValue() == mo) {
-                if (d.getDayOfWeek() == dow)
-                    dates.add(d);
-                d = d.plusDays(1);
+
+        return new Monthly(H, M, dayOfMonth, byMonthDay, every, ordDow, ordN, ints(s, "bySetPos"),
+                (interval == null || interval < 1) ? 1 : interval, start);
+    }
+
+    /**
+     * Calculates the next occurrence strictly after the given time.
+     *
+     * @param now
+     *            reference instant
+     * @return next occurrence in Europe/Oslo or null if no rule matched
+     */
+    ZonedDateTime next(Instant now) {
+        var zNow = now.atZone(ZONE);
+        int idx = monthIndex(zNow.getYear(), zNow.getMonthValue());
+        if (start != null)
+            idx = Math.max(idx, anchorMonth);
+
+        for (int scanned = 0; scanned < MAX_MONTHS_SCANNED; scanned++) {
+            int offset = Math.floorMod(idx - anchorMonth, interval);
+            if (offset != 0)
+                idx += interval - offset;
+
+            int y = Math.floorDiv(idx, 12);
+            int mo = Math.floorMod(idx, 12) + 1;
+            for (int bits = daysInMonth(y, mo); bits != 0; bits &= bits - 1) {
+                int d = Integer.numberOfTrailingZeros(bits) + 1;
+                if (start != null && LocalDate.of(y, mo, d).isBefore(start))
+                    continue;
+                var candidate = ZonedDateTime.of(y, mo, d, hour, minute, 0, 0, ZONE);
+                if (candidate.isAfter(zNow))
+                    return candidate;
             }
-            LocalDate picked = (bySetPos > 0)
-                    ? (bySetPos <= dates.size() ? dates.get(bySetPos - 1) : null)
-                    : (-bySetPos <= dates.size() ? dates.get(dates.size() + bySetPos) : null);
-            if (picked == null)
-                return null;
-            return picked.atTime(H, M).atZone(ZONE);
+            idx += interval;
         }
         return null;
     }
 
+    /**
+     * Calculates the next occurrence strictly after the given time as an ISO-8601
+     * offset date-time string.
+     *
+     * @param now
+     *            reference instant
+     * @return ISO-8601 offset date-time string or null if no rule matched
+     */
+    String nextOccurrenceIso(Instant now) {
+        var next = next(now);
+        return next == null ? null : next.toOffsetDateTime().toString();
+    }
+
+    /**
+     * Returns the matching days of the given month as a bit mask (bit 0 = day 1).
+     */
+    private int daysInMonth(int y, int mo) {
+        int len = YearMonth.of(y, mo).lengthOfMonth();
+        if (dayOfMonth != null) {
+            return 1 << (Math.min(Math.max(dayOfMonth, 1), len) - 1);
+        }
+
+        boolean hasWeekday = everyWeekday != 0 || ordinalWeekday.length > 0;
+        boolean hasMonthDay = byMonthDay.length > 0;
+        if (!hasWeekday && !hasMonthDay)
+            return 0;
+
+        int firstDow = LocalDate.of(y, mo, 1).getDayOfWeek().getValue();
+        int weekdayMask = 0;
+        for (int dow = 1; dow <= 7; dow++) {
+            if ((everyWeekday & (1 << (dow - 1))) == 0)
+                continue;
+            for (int d = firstOf(dow, firstDow); d <= len; d += 7)
+                weekdayMask |= 1 << (d - 1);
+        }
+        for (int i = 0; i < ordinalWeekday.length; i++) {
+            int first = firstOf(ordinalWeekday[i], firstDow);
+            int n = ordinalN[i];
+            int d = n > 0 ? first + 7 * (n - 1) : first + 7 * ((len - first) / 7) + 7 * (n + 1);
+            if (d >= 1 && d <= len)
+                weekdayMask |= 1 << (d - 1);
+        }
+
+        int monthDayMask = 0;
+        for (int v : byMonthDay) {
+            int d = v > 0 ? v : len + v + 1;
+            if (d >= 1 && d <= len)
+                monthDayMask |= 1 << (d - 1);
+        }
+
+        int mask = (hasWeekday && hasMonthDay) ? weekdayMask & monthDayMask : (hasWeekday ? weekdayMask : monthDayMask);
+        return bySetPos.length == 0 ? mask : selectPositions(mask);
+    }
+
+    /** Applies bySetPos to the set of matching days. */
+    private int selectPositions(int mask) {
+        int count = Integer.bitCount(mask);
+        int out = 0;
+        for (int pos : bySetPos) {
+            int n = pos > 0 ? pos : count + pos + 1;
+            if (n < 1 || n > count)
+                continue;
+            int bits = mask;
+            for (int i = 1; i < n; i++)
+                bits &= bits - 1;
+            out |= Integer.lowestOneBit(bits);
+        }
+        return out;
+    }
+
+    /** Day of month (1..7) of the first given weekday in a month. */
+    private static int firstOf(int dow, int firstDowOfMonth) {
+        return 1 + Math.floorMod(dow - firstDowOfMonth, 7);
+    }
+
+    private static int monthIndex(int year, int month) {
+        return year * 12 + (month - 1);
+    }
+
+    private static int weekday(String code) {
+        return switch (code) {
+            case "MO" -> 1;
+            case "TU" -> 2;
+            case "WE" -> 3;
+            case "TH" -> 4;
+            case "FR" -> 5;
+            case "SA" -> 6;
+            case "SU" -> 7;
+            default -> 0;
+        };
+    }
+
     private static String text(JsonNode n, String k, String def) {
         return (n != null && n.hasNonNull(k)) ? n.get(k).asText() : def;
     }
     private static Integer intOrNull(JsonNode n, String k) {
         return (n != null && n.hasNonNull(k)) ? n.get(k).asInt() : null;
     }
+    private static List<String> texts(JsonNode n, String k) {
+        if (n == null || !n.hasNonNull(k))
+            return List.of();
+        JsonNode v = n.get(k);
+        if (!v.isArray())
+            return List.of(v.asText());
+        List<String> out = new ArrayList<>(v.size());
+        v.forEach(e -> {
+            if (!e.isNull())
+                out.add(e.asText());
+        });
+        return out;
+    }
+    private static int[] ints(JsonNode n, String k) {
+        if (n == null || !n.hasNonNull(k))
+            return NONE;
+        JsonNode v = n.get(k);
+        if (!v.isArray())
+            return new int[]{v.asInt()};
+        int[] out = new int[v.size()];
+        for (int i = 0; i < out.length; i++)
+            out[i] = v.get(i).asInt();
+        return out;
+    }
 }
@@ -14,12 +14,16 @@ import org.springframework.web.client.RestTemplate;
  * CountdownProvider that scrapes a public overview of DNB "Supertilbud"
  * campaign windows and returns the next start date as an Instant at start of
  * day in Europe/Oslo.
+ * <p>
+ * The page URL comes from {@code countdown.providers.dnb-supertilbud.url};
+ * {@link #parseWindows(String, int)} turns a fetched page into windows without
+ * touching the network.
  */
 public class DNBSupertilbudProvider implements CountdownProvider {
     private static final Logger log = LoggerFactory.getLogger(DNBSupertilbudProvider.class);
     private final RestTemplate http;
     private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
-    private static final String URL = "https://www.rabo.no/1336/dnb-supertilbud-2026-oversikt-over-neste-kampanjer/";
+    private final String url;
 
     private static final Pattern TWO_MONTH = Pattern
             .compile("(?iu)(\\d{1,2})\\.?\\s*([a-zæøå]+)\\s*[\\p{Pd}]\\s*(\\d{1,2})\\.?\\s*([a-zæøå]+)");
@@ -42,8 +46,9 @@ public class DNBSupertilbudProvider implements CountdownProvider {
             Map.entry("oktober", Month.OCTOBER), Map.entry("november", Month.NOVEMBER),
             Map.entry("desember", Month.DECEMBER));
 
-    public DNBSupertilbudProvider(RestTemplate http) {
+    public DNBSupertilbudProvider(RestTemplate http, String url) {
         this.http = http;
+        this.url = url;
     }
 
     @Override
@@ -85,10 +90,10 @@ public class DNBSupertilbudProvider implements CountdownProvider {
 
     @Override
     public Optional<String> sourceUrl() {
-        return Optional.of(URL);
+        return Optional.of(url);
     }
 
-    private static final class Span {
+    static final class Span {
         final LocalDate start, end;
         Span(LocalDate s, LocalDate e) {
             start = s;
@@ -101,42 +106,11 @@ public class DNBSupertilbudProvider implements CountdownProvider {
             HttpHeaders h = new HttpHeaders();
             h.setAccept(List.of(MediaType.TEXT_HTML));
             h.set(HttpHeaders.ACCEPT_CHARSET, StandardCharsets.UTF_8.name());
-            var resp = http.exchange(URL, HttpMethod.GET, new HttpEntity<>(h), String.class);
+            var resp = http.exchange(url, HttpMethod.GET, new HttpEntity<>(h), String.class);
             if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null)
                 return List.of();
-            String text = toPlainText(resp.getBody());
-            int year = Year.now(ZONE).getValue();
-
-            var out = new ArrayList<Span>();
-
-            Matcher m1 = TWO_MONTH.matcher(text);
-            while (m1.find()) {
-                int d1 = Integer.parseInt(m1.group(1));
-                Month mA = NO_MONTHS.get(m1.group(2).toLowerCase(Locale.ROOT));
-                int d2 = Integer.parseInt(m1.group(3));
-                Month mB = NO_MONTHS.get(m1.group(4).toLowerCase(Locale.ROOT));
-                if (mA == null || mB == null)
-                    continue;
-                var s = LocalDate.of(year, mA, d1);
-                var e = LocalDate.of(year, mB, d2);
-                if (!e.isBefore(s))
-                    out.add(new Span(s, e));
-            }
-
-            Matcher m2 = ONE_MONTH_RANGE.matcher(text);
-            while (m2.find()) {
-                int d1 = Integer.parseInt(m2.group(1));
-                int d2 = Integer.parseInt(m2.group(2));
-                Month mm = NO_MONTHS.get(m2.group(3).toLowerCase(Locale.ROOT));
-                if (mm == null)
-                    continue;
-                var s = LocalDate.of(year, mm, d1);
-                var e = LocalDate.of(year, mm, d2);
-                if (!e.isBefore(s))
-                    out.add(new Span(s, e));
-            }
 
-            out.sort(Comparator.comparing(a -> a.start));
+            var out = parseWindows(resp.getBody(), Year.now(ZONE).getValue());
             log.info("DNB provider parsed {} windows: {}", out.size(),
                     out.stream().map(s -> s.start + "—" + s.end).toList());
             return out;
@@ -145,6 +119,52 @@ public class DNBSupertilbudProvider implements CountdownProvider {
         }
     }
 
+    /**
+     * Extracts campaign date ranges ("3. mars – 9. mars" or "3–9. mars") from the
+     * overview page.
+     *
+     * @param html
+     *            page HTML
+     * @param year
+     *            year the dates on the page belong to
+     * @return spans sorted by start date
+     */
+    static List<Span> parseWindows(String html, int year) {
+        String text = toPlainText(html);
+
+        var out = new ArrayList<Span>();
+
+        Matcher m1 = TWO_MONTH.matcher(text);
+        while (m1.find()) {
+            int d1 = Integer.parseInt(m1.group(1));
+            Month mA = NO_MONTHS.get(m1.group(2).toLowerCase(Locale.ROOT));
+            int d2 = Integer.parseInt(m1.group(3));
+            Month mB = NO_MONTHS.get(m1.group(4).toLowerCase(Locale.ROOT));
+            if (mA == null || mB == null)
+                continue;
+            var s = LocalDate.of(year, mA, d1);
+            var e = LocalDate.of(year, mB, d2);
+            if (!e.isBefore(s))
+                out.add(new Span(s, e));
+        }
+
+        Matcher m2 = ONE_MONTH_RANGE.matcher(text);
+        while (m2.find()) {
+            int d1 = Integer.parseInt(m2.group(1));
+            int d2 = Integer.parseInt(m2.group(2));
+            Month mm = NO_MONTHS.get(m2.group(3).toLowerCase(Locale.ROOT));
+            if (mm == null)
+                continue;
+            var s = LocalDate.of(year, mm, d1);
+            var e = LocalDate.of(year, mm, d2);
+            if (!e.isBefore(s))
+                out.add(new Span(s, e));
+        }
+
+        out.sort(Comparator.comparing(a -> a.start));
+        return out;
+    }
+
     @Override
     public Optional<Instant> validUntil(Instant now) {
         var wins = scrapeWindows();
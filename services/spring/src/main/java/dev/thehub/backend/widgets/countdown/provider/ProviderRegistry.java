@@ -1,6 +1,7 @@
 package dev.thehub.backend.widgets.countdown.provider;
 
 import java.util.Map;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
@@ -16,10 +17,18 @@ public class ProviderRegistry {
      *
      * @param http
      *            RestTemplate used by providers for HTTP requests
+     * @param trumfUrl
+     *            EuroBonusguiden overview page for Trippel Trumf dates
+     * @param trumfCrossCheckUrl
+     *            bonusjegeren.no page used to cross-check Trippel Trumf dates
+     * @param dnbUrl
+     *            overview page for DNB Supertilbud campaigns
      */
-    public ProviderRegistry(RestTemplate http) {
-        var trumf = new TrippelTrumfProvider(http);
-        var dnb = new DNBSupertilbudProvider(http);
+    public ProviderRegistry(RestTemplate http, @Value("${countdown.providers.trippel-trumf.url}") String trumfUrl,
+            @Value("${countdown.providers.trippel-trumf.cross-check-url}") String trumfCrossCheckUrl,
+            @Value("${countdown.providers.dnb-supertilbud.url}") String dnbUrl) {
+        var trumf = new TrippelTrumfProvider(http, trumfUrl, trumfCrossCheckUrl);
+        var dnb = new DNBSupertilbudProvider(http, dnbUrl);
         this.providers = Map.of(trumf.id(), trumf, dnb.id(), dnb);
     }
 
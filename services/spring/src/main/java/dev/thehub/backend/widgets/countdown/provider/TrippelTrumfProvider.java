@@ -14,21 +14,25 @@ import org.springframework.web.client.RestTemplate;
  * CountdownProvider implementation for "Trippel Trumf" campaign days.
  * <p>
  * Source: a public overview table on EuroBonusguiden (see
- * {@link #sourceUrl()}). Update the URL once a year when EuroBonusguiden
- * publishes the new year's page (path/month in URL is not predictable, e.g.
- * 2025 used /10/, 2026 used /01/). For every listed date a time window is
- * created in Europe/Oslo: [07:00, 22:00).
+ * {@link #sourceUrl()}), cross-checked against bonusjegeren.no. Both URLs come
+ * from {@code countdown.providers.trippel-trumf.*}; update the EuroBonusguiden
+ * one once a year when the new year's page is published (path/month in URL is
+ * not predictable, e.g. 2025 used /10/, 2026 used /01/). For every listed date
+ * a time window is created in Europe/Oslo: [07:00, 22:00).
+ * <p>
+ * Fetching and parsing are kept apart: {@link #parseOverviewTable(String, int)}
+ * and {@link #parseBonusjegeren(String, int)} are pure functions of the page
+ * HTML, so recorded pages can be replayed against them directly.
  */
 public class TrippelTrumfProvider implements CountdownProvider {
     private static final Logger log = LoggerFactory.getLogger(TrippelTrumfProvider.class);
 
     private final RestTemplate http;
     private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
-    /**
-     * Current year's overview page – update annually when new page is published.
-     */
-    private static final String URL = "https://eurobonusguiden.no/2026/01/trippel-trumf-torsdag-datoer-2026/";
-    private static final String BONUS_URL = "https://bonusjegeren.no/nar-er-det-trippel-trumf/";
+    /** Current year's overview page. */
+    private final String url;
+    /** Cross-check page on bonusjegeren.no. */
+    private final String bonusUrl;
     /**
      * Matches "16. april 2026", "16. april", or "16. apr" — year is optional. When
      * absent, we infer the current year (bonusjegeren groups by year with a
@@ -91,8 +95,10 @@ public class TrippelTrumfProvider implements CountdownProvider {
     private List<MergedWindow> mergedWindowCache;
     private Instant mergedCacheExpiry = Instant.EPOCH;
 
-    public TrippelTrumfProvider(RestTemplate http) {
+    public TrippelTrumfProvider(RestTemplate http, String url, String bonusUrl) {
         this.http = http;
+        this.url = url;
+        this.bonusUrl = bonusUrl;
     }
 
     @Override
@@ -134,7 +140,7 @@ public class TrippelTrumfProvider implements CountdownProvider {
 
     @Override
     public Optional<String> sourceUrl() {
-        return Optional.of(URL);
+        return Optional.of(url);
     }
 
     @Override
@@ -167,7 +173,7 @@ public class TrippelTrumfProvider implements CountdownProvider {
     /**
      * Internal value object representing a single-day window with an exclusive end.
      */
-    private record Window(Instant start, Instant endExclusive) {
+    record Window(Instant start, Instant endExclusive) {
     }
 
     /**
@@ -217,37 +223,11 @@ public class TrippelTrumfProvider implements CountdownProvider {
      */
     private Set<LocalDate> scrapeBonusjegeren() {
         try {
-            HttpHeaders h = new HttpHeaders();
-            h.setAccept(List.of(MediaType.TEXT_HTML));
-            h.set(HttpHeaders.ACCEPT_CHARSET, StandardCharsets.UTF_8.name());
-            h.set(HttpHeaders.USER_AGENT, "Mozilla/5.0 (CountdownBot)");
-            var resp = http.exchange(BONUS_URL, HttpMethod.GET, new HttpEntity<>(h), String.class);
-            if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null)
+            String html = fetchHtml(bonusUrl);
+            if (html == null)
                 return Set.of();
-
-            // Parse with Jsoup so HTML entities (&nbsp;) and tag boundaries are
-            // normalized to plain whitespace before the date regex runs —
-            // otherwise "16.&nbsp;april&nbsp;2026" won't match DATE_PATTERN.
-            String text = org.jsoup.Jsoup.parse(resp.getBody()).text();
-
             final int yearWanted = Year.now(ZONE).getValue();
-            Set<LocalDate> dates = new HashSet<>();
-            var matcher = DATE_PATTERN.matcher(text);
-            while (matcher.find()) {
-                int day = Integer.parseInt(matcher.group(1));
-                String monthKey = matcher.group(2).toLowerCase(Locale.ROOT);
-                String yearStr = matcher.group(3);
-                int year = yearStr != null ? Integer.parseInt(yearStr) : yearWanted;
-                if (year != yearWanted)
-                    continue;
-                Month month = NO_MONTHS_SHORT.get(monthKey);
-                if (month == null)
-                    continue;
-                try {
-                    dates.add(LocalDate.of(year, month, day));
-                } catch (DateTimeException ignored) {
-                }
-            }
+            Set<LocalDate> dates = parseBonusjegeren(html, yearWanted);
             log.info("BonusJegeren scraped {} dates for {}: {}", dates.size(), yearWanted, dates);
             return dates;
         } catch (Exception e) {
@@ -257,90 +237,149 @@ public class TrippelTrumfProvider implements CountdownProvider {
     }
 
     /**
-     * Scrapes the source page for a table with headers År / Måned / Dato and
-     * converts each target-year row to a [07:00, 22:00) window in Europe/Oslo.
+     * Extracts the dates of the given year from a bonusjegeren.no page.
+     *
+     * @param html
+     *            page HTML
+     * @param yearWanted
+     *            year to keep; entries without an inline year are assumed to
+     *            belong to it
+     * @return dates found on the page
+     */
+    static Set<LocalDate> parseBonusjegeren(String html, int yearWanted) {
+        // Parse with Jsoup so HTML entities (&nbsp;) and tag boundaries are
+        // normalized to plain whitespace before the date regex runs —
+        // otherwise "16.&nbsp;april&nbsp;2026" won't match DATE_PATTERN.
+        String text = org.jsoup.Jsoup.parse(html).text();
+
+        Set<LocalDate> dates = new HashSet<>();
+        var matcher = DATE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            int day = Integer.parseInt(matcher.group(1));
+            String monthKey = matcher.group(2).toLowerCase(Locale.ROOT);
+            String yearStr = matcher.group(3);
+            int year = yearStr != null ? Integer.parseInt(yearStr) : yearWanted;
+            if (year != yearWanted)
+                continue;
+            Month month = NO_MONTHS_SHORT.get(monthKey);
+            if (month == null)
+                continue;
+            try {
+                dates.add(LocalDate.of(year, month, day));
+            } catch (DateTimeException ignored) {
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Scrapes the source page and converts its overview table to windows for the
+     * current year.
      */
     private List<Window> scrapeWindows() {
         try {
-            HttpHeaders h = new HttpHeaders();
-            h.setAccept(List.of(MediaType.TEXT_HTML));
-            h.set(HttpHeaders.ACCEPT_CHARSET, StandardCharsets.UTF_8.name());
-            h.set(HttpHeaders.USER_AGENT, "Mozilla/5.0 (CountdownBot)");
-            var resp = http.exchange(URL, HttpMethod.GET, new HttpEntity<>(h), String.class);
-            if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null)
-                return List.of();
-
-            org.jsoup.nodes.Document doc = org.jsoup.Jsoup.parse(resp.getBody());
-
-            // Find the table that has headers År / Måned / Dato
-            org.jsoup.select.Elements tables = doc.select("table");
-            org.jsoup.nodes.Element target = null;
-            for (var t : tables) {
-                var headers = t.select("tr").first();
-                if (headers == null)
-                    continue;
-                var ths = headers.select("th,td").eachText().stream().map(String::trim).toList();
-                boolean ok = ths.stream().anyMatch(s -> s.equalsIgnoreCase("År"))
-                        && ths.stream().anyMatch(s -> s.toLowerCase(Locale.ROOT).startsWith("måned"))
-                        && ths.stream().anyMatch(s -> s.equalsIgnoreCase("Dato"));
-                if (ok) {
-                    target = t;
-                    break;
-                }
-            }
-            if (target == null) {
-                log.info("Trippel provider: no table with headers År/Måned/Dato found");
+            String html = fetchHtml(url);
+            if (html == null)
                 return List.of();
-            }
-
-            List<Window> out = new ArrayList<>();
-            final int yearWanted = Year.now(ZONE).getValue();
-
-            var rows = target.select("tr");
-            for (int i = 1; i < rows.size(); i++) {
-                var cells = rows.get(i).select("td");
-                if (cells.isEmpty())
-                    continue;
-
-                String yearTxt = cells.get(0).text().trim();
-                String monthTxt = cells.size() > 1 ? cells.get(1).text().trim() : "";
-                String dateTxt = cells.size() > 2 ? cells.get(2).text().trim() : "";
-
-                if (!yearTxt.matches("\\d{4}"))
-                    continue;
-                int year = Integer.parseInt(yearTxt);
-                if (year != yearWanted)
-                    continue;
-
-                if (!dateTxt.matches("\\d{1,2}"))
-                    continue;
-                int day = Integer.parseInt(dateTxt);
-
-                String monthKey = monthTxt.split("\\(")[0].trim().toLowerCase(Locale.ROOT);
-                Month month = NO_MONTHS.get(monthKey);
-                if (month == null)
-                    continue;
-
-                LocalDate date;
-                try {
-                    date = LocalDate.of(year, month, day);
-                } catch (DateTimeException e) {
-                    continue;
-                }
-                Instant start = date.atTime(START).atZone(ZONE).toInstant();
-                Instant endEx = date.atTime(END).atZone(ZONE).toInstant();
-
-                out.add(new Window(start, endEx));
-            }
 
-            out.sort(Comparator.comparing(w -> w.start));
+            List<Window> out = parseOverviewTable(html, Year.now(ZONE).getValue());
             log.info("Trippel provider parsed {} windows: {}", out.size(),
                     out.stream().map(w -> w.start.atZone(ZONE).toLocalDate().toString()).toList());
-
             return out;
         } catch (Exception e) {
             log.info("Trippel provider scrape error: {}", e.toString());
             return List.of();
         }
     }
+
+    /**
+     * Finds the table with headers År / Måned / Dato and converts each row of the
+     * wanted year to a [07:00, 22:00) window in Europe/Oslo.
+     *
+     * @param html
+     *            page HTML
+     * @param yearWanted
+     *            year whose rows are kept
+     * @return windows sorted by start, empty if no matching table was found
+     */
+    static List<Window> parseOverviewTable(String html, int yearWanted) {
+        org.jsoup.nodes.Document doc = org.jsoup.Jsoup.parse(html);
+
+        // Find the table that has headers År / Måned / Dato
+        org.jsoup.select.Elements tables = doc.select("table");
+        org.jsoup.nodes.Element target = null;
+        for (var t : tables) {
+            var headers = t.select("tr").first();
+            if (headers == null)
+                continue;
+            var ths = headers.select("th,td").eachText().stream().map(String::trim).toList();
+            boolean ok = ths.stream().anyMatch(s -> s.equalsIgnoreCase("År"))
+                    && ths.stream().anyMatch(s -> s.toLowerCase(Locale.ROOT).startsWith("måned"))
+                    && ths.stream().anyMatch(s -> s.equalsIgnoreCase("Dato"));
+            if (ok) {
+                target = t;
+                break;
+            }
+        }
+        if (target == null) {
+            log.info("Trippel provider: no table with headers År/Måned/Dato found");
+            return List.of();
+        }
+
+        List<Window> out = new ArrayList<>();
+
+        var rows = target.select("tr");
+        for (int i = 1; i < rows.size(); i++) {
+            var cells = rows.get(i).select("td");
+            if (cells.isEmpty())
+                continue;
+
+            String yearTxt = cells.get(0).text().trim();
+            String monthTxt = cells.size() > 1 ? cells.get(1).text().trim() : "";
+            String dateTxt = cells.size() > 2 ? cells.get(2).text().trim() : "";
+
+            if (!yearTxt.matches("\\d{4}"))
+                continue;
+            int year = Integer.parseInt(yearTxt);
+            if (year != yearWanted)
+                continue;
+
+            if (!dateTxt.matches("\\d{1,2}"))
+                continue;
+            int day = Integer.parseInt(dateTxt);
+
+            String monthKey = monthTxt.split("\\(")[0].trim().toLowerCase(Locale.ROOT);
+            Month month = NO_MONTHS.get(monthKey);
+            if (month == null)
+                continue;
+
+            LocalDate date;
+            try {
+                date = LocalDate.of(year, month, day);
+            } catch (DateTimeException e) {
+                continue;
+            }
+            Instant start = date.atTime(START).atZone(ZONE).toInstant();
+            Instant endEx = date.atTime(END).atZone(ZONE).toInstant();
+
+            out.add(new Window(start, endEx));
+        }
+
+        out.sort(Comparator.comparing(w -> w.start));
+        return out;
+    }
+
+    /**
+     * GETs an HTML page, returning null on a non-2xx status or empty body.
+     */
+    private String fetchHtml(String pageUrl) {
+        HttpHeaders h = new HttpHeaders();
+        h.setAccept(List.of(MediaType.TEXT_HTML));
+        h.set(HttpHeaders.ACCEPT_CHARSET, StandardCharsets.UTF_8.name());
+        h.set(HttpHeaders.USER_AGENT, "Mozilla/5.0 (CountdownBot)");
+        var resp = http.exchange(pageUrl, HttpMethod.GET, new HttpEntity<>(h), String.class);
+        if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null)
+            return null;
+        return resp.getBody();
+    }
 }
@@ -0,0 +1,14 @@
+package dev.thehub.backend.widgets.create;
+
+import java.util.List;
+
+/**
+ * Request payload for creating several widgets at once, e.g. when applying a
+ * dashboard template.
+ *
+ * @param widgets
+ *            widget specs in the order they should be laid out; each follows the
+ *            rules of {@link CreateWidgetRequest}
+ */
+public record BulkCreateWidgetRequest(List<CreateWidgetRequest> widgets) {
+}
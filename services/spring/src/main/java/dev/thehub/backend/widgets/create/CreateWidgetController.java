@@ -1,5 +1,6 @@
 package dev.thehub.backend.widgets.create;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
 import dev.thehub.backend.widgets.WidgetKind;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -38,6 +39,12 @@ public class CreateWidgetController {
 
     private final CreateWidgetService service;
     private static final Logger log = LoggerFactory.getLogger(CreateWidgetController.class);
+    private static final int MAX_GROCERY_WIDGETS = 5;
+    private static final int MAX_BULK_WIDGETS = 50;
+    private static final EnumSet<WidgetKind> SUPPORTED = EnumSet.of(WidgetKind.SERVER_PINGS,
+            WidgetKind.GROCERY_DEALS, WidgetKind.COUNTDOWN, WidgetKind.CINEMATEKET);
+    private static final EnumSet<WidgetKind> NON_ADMIN_KINDS = EnumSet.of(WidgetKind.GROCERY_DEALS,
+            WidgetKind.COUNTDOWN, WidgetKind.CINEMATEKET);
 
     /**
      * Constructs the controller.
@@ -77,7 +84,7 @@ public class CreateWidgetController {
     @PostMapping
     public ResponseEntity<?> create(@Parameter(hidden = true) JwtAuthenticationToken auth,
             @RequestBody CreateWidgetRequest body) {
-        final UUID userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        final UUID userId = UserAuthentication.userId(auth);
 
         log.info("CreateWidget request received userId={} kind={}", userId, body.kind());
 
@@ -86,39 +93,32 @@ public class CreateWidgetController {
             return ResponseEntity.badRequest().body(Map.of("error", "invalid_request"));
         }
 
-        EnumSet<WidgetKind> supported = EnumSet.of(WidgetKind.SERVER_PINGS, WidgetKind.GROCERY_DEALS,
-                WidgetKind.COUNTDOWN, WidgetKind.CINEMATEKET);
-
-        if (!supported.contains(body.kind())) {
+        if (!SUPPORTED.contains(body.kind())) {
             log.warn("CreateWidget unsupported_kind userId={} kind={}", userId, body.kind());
             return ResponseEntity.badRequest().body(Map.of("error", "unsupported_kind", "message",
-                    "Supported kinds: " + supported.stream().map(WidgetKind::getValue).toList()));
+                    "Supported kinds: " + SUPPORTED.stream().map(WidgetKind::getValue).toList()));
         }
 
         boolean isAdmin = auth.getAuthorities().stream().map(GrantedAuthority::getAuthority)
                 .anyMatch("ROLE_ADMIN"::equals);
 
-        if (!isAdmin && body.kind() != WidgetKind.GROCERY_DEALS && body.kind() != WidgetKind.COUNTDOWN
-                && body.kind() != WidgetKind.CINEMATEKET) {
+        if (!isAdmin && !NON_ADMIN_KINDS.contains(body.kind())) {
             log.warn("CreateWidget forbidden_non_admin userId={} kind={}", userId, body.kind());
             return ResponseEntity.status(403)
                     .body(Map.of("error", "forbidden", "message", "Only admins can create this widget type."));
         }
 
-        if (!isAdmin && body.kind() == WidgetKind.GROCERY_DEALS) {
-            int current = service.countByUserAndKind(userId, WidgetKind.GROCERY_DEALS);
-            if (current >= 5) {
-                log.warn("CreateWidget limit_reached userId={} count={}", userId, current);
-                return ResponseEntity.status(409).body(
-                        Map.of("error", "limit_reached", "message", "You can have at most 5 grocery-deals widgets."));
-            }
-        }
+        // Non-admins may have at most 5 grocery-deals widgets; checked by the insert
+        Integer maxPerKind = (!isAdmin && body.kind() == WidgetKind.GROCERY_DEALS) ? MAX_GROCERY_WIDGETS : null;
 
         try {
-            service.ensureNoDuplicate(userId, body.kind(), body.settings());
-            var resp = service.create(userId, body.kind(), body.settings(), body.grid());
+            var resp = service.create(userId, body.kind(), body.settings(), body.grid(), maxPerKind);
             log.info("CreateWidget success userId={} instanceId={} kind={}", userId, resp.instanceId(), body.kind());
             return ResponseEntity.created(URI.create("/api/widgets/" + resp.instanceId())).body(resp);
+        } catch (CreateWidgetService.LimitReachedException e) {
+            log.warn("CreateWidget limit_reached userId={} kind={}", userId, body.kind());
+            return ResponseEntity.status(409).body(Map.of("error", "limit_reached", "message",
+                    "You can have at most " + MAX_GROCERY_WIDGETS + " grocery-deals widgets."));
         } catch (CreateWidgetService.DuplicateException | CreateWidgetService.DuplicateTargetException e) {
             log.warn("CreateWidget duplicate userId={} kind={} msg={}", userId, body.kind(), e.getMessage());
             return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
@@ -130,4 +130,82 @@ public class CreateWidgetController {
             return ResponseEntity.internalServerError().body(Map.of("error", "internal_error"));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Creates several widgets for the current user in one transaction, e.g. to
+     * apply a dashboard template.
+     *
+     * <p>
+     * Every widget follows the same kind, role and limit rules as
+     * {@link #create}. The batch is all-or-nothing: if any widget is rejected,
+     * none are created.
+     *
+     * @param auth
+     *            current JWT authentication (used to derive user id)
+     * @param body
+     *            list of widget specs
+     * @return 201 Created with the list of {@link CreateWidgetResponse}s; 400 for
+     *         invalid input; 403 when a kind is forbidden by role; 409 when
+     *         duplicates/limits are violated
+     */
+    @Operation(summary = "Create several widget instances", description = "Creates all listed widgets for the current user in one transaction, with the same rules as single creation. At most 50 per request.")
+    @ApiResponses({@ApiResponse(responseCode = "201", description = "Created"),
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "403", description = "Forbidden"),
+            @ApiResponse(responseCode = "409", description = "Duplicate or limit reached")})
+    @PostMapping("/bulk")
+    public ResponseEntity<?> createBulk(@Parameter(hidden = true) JwtAuthenticationToken auth,
+            @RequestBody BulkCreateWidgetRequest body) {
+        final UUID userId = UserAuthentication.userId(auth);
+        var specs = body.widgets();
+
+        log.info("CreateWidget bulk request received userId={} count={}", userId, specs != null ? specs.size() : 0);
+
+        if (specs == null || specs.isEmpty() || specs.stream().anyMatch(w -> w == null || w.kind() == null)) {
+            log.warn("CreateWidget bulk invalid_request userId={}", userId);
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_request"));
+        }
+        if (specs.size() > MAX_BULK_WIDGETS) {
+            log.warn("CreateWidget bulk too_many_widgets userId={} count={}", userId, specs.size());
+            return ResponseEntity.badRequest().body(Map.of("error", "too_many_widgets"));
+        }
+
+        var unsupported = specs.stream().map(CreateWidgetRequest::kind).filter(k -> !SUPPORTED.contains(k))
+                .findFirst();
+        if (unsupported.isPresent()) {
+            log.warn("CreateWidget bulk unsupported_kind userId={} kind={}", userId, unsupported.get());
+            return ResponseEntity.badRequest().body(Map.of("error", "unsupported_kind", "message",
+                    "Supported kinds: " + SUPPORTED.stream().map(WidgetKind::getValue).toList()));
+        }
+
+        boolean isAdmin = auth.getAuthorities().stream().map(GrantedAuthority::getAuthority)
+                .anyMatch("ROLE_ADMIN"::equals);
+
+        if (!isAdmin && specs.stream().anyMatch(w -> !NON_ADMIN_KINDS.contains(w.kind()))) {
+            log.warn("CreateWidget bulk forbidden_non_admin userId={}", userId);
+            return ResponseEntity.status(403)
+                    .body(Map.of("error", "forbidden", "message", "Only admins can create this widget type."));
+        }
+
+        Map<WidgetKind, Integer> limits = isAdmin ? Map.of() : Map.of(WidgetKind.GROCERY_DEALS, MAX_GROCERY_WIDGETS);
+
+        try {
+            var created = service.createAll(userId, specs, limits);
+            log.info("CreateWidget bulk success userId={} count={}", userId, created.size());
+            return ResponseEntity.status(201).body(created);
+        } catch (CreateWidgetService.LimitReachedException e) {
+            log.warn("CreateWidget bulk limit_reached userId={}", userId);
+            return ResponseEntity.status(409).body(Map.of("error", "limit_reached", "message",
+                    "You can have at most " + MAX_GROCERY_WIDGETS + " grocery-deals widgets."));
+        } catch (CreateWidgetService.DuplicateException | CreateWidgetService.DuplicateTargetException e) {
+            log.warn("CreateWidget bulk duplicate userId={} msg={}", userId, e.getMessage());
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            log.warn("CreateWidget bulk bad_request userId={} msg={}", userId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("CreateWidget bulk unexpected_error userId={}", userId, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "internal_error"));
+        }
+    }
+}
@@ -3,12 +3,15 @@ package dev.thehub.backend.widgets.create;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRowCache;
 import java.util.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StopWatch;
 
 /**
@@ -17,7 +20,9 @@ import org.springframework.util.StopWatch;
  *
  * <ul>
  * <li>Persisting newly created widgets into the database.
- * <li>Preventing duplicate target URLs for the same user and widget kind.
+ * <li>Rejecting duplicate widgets (same target URL, grocery query/city,
+ * countdown provider, or a second cinemateket widget) via the unique indexes on
+ * {@code user_widgets}.
  * <li>Serializing settings and grid configuration to JSON for storage.
  * </ul>
  *
@@ -31,6 +36,7 @@ public class CreateWidgetService {
 
     private final JdbcTemplate jdbc;
     private final ObjectMapper json;
+    private final WidgetRowCache rowCache;
     private final int gridCols;
 
     /**
@@ -42,241 +48,59 @@ public class CreateWidgetService {
      *            Optional ObjectMapper used for JSON serialization of settings and
      *            grid. If null is provided, a new default ObjectMapper will be
      *            created.
+     * @param rowCache
+     *            widget row cache to invalidate on writes
      */
-    public CreateWidgetService(JdbcTemplate jdbc, ObjectMapper objectMapper,
+    public CreateWidgetService(JdbcTemplate jdbc, ObjectMapper objectMapper, WidgetRowCache rowCache,
             @Value("${widgets.grid.cols:3}") int gridCols) {
         this.jdbc = jdbc;
         this.json = objectMapper != null ? objectMapper : new ObjectMapper();
+        this.rowCache = rowCache;
         this.gridCols = gridCols;
     }
 
-    public void ensureNoDuplicate(UUID userId, WidgetKind kind, Map<String, Object> settings) {
-        if (log.isDebugEnabled()) {
-            log.debug("DupeCheck start userId={} kind={} summary={}", userId, kind, summarizeSettings(kind, settings));
-        }
-        switch (kind) {
-            case SERVER_PINGS -> ensureNoDuplicateTargets(userId, kind, settings);
-            case GROCERY_DEALS -> ensureNoDuplicateGroceries(userId, kind, settings);
-            case COUNTDOWN -> ensureNoDuplicateCountdown(userId, kind, settings);
-            case CINEMATEKET -> {
-                // Cinemateket widget has no settings, allow only one instance per user
-                // Pass a throwaway random UUID for exclude since we're checking for any
-                // existing instance
-                ensureNoDuplicateCinemateket(userId, kind, UUID.randomUUID());
-            }
-            default -> throw new IllegalArgumentException("unsupported_kind");
-        }
-    }
-
-    public int countByUserAndKind(UUID userId, WidgetKind kind) {
-        final String sql = "select count(*) from user_widgets where user_id = ? and kind = ?";
-        Integer n = jdbc.queryForObject(sql, Integer.class, userId, kind.getValue());
-        int out = (n != null) ? n : 0;
-        if (log.isDebugEnabled()) {
-            log.debug("Count widgets userId={} kind={} count={}", userId, kind, out);
-        }
-        return out;
-    }
-
-    private void ensureNoDuplicateGroceries(UUID userId, WidgetKind kind, Map<String, Object> settings) {
-        if (settings == null)
-            throw new IllegalArgumentException("settings_required");
-
-        String query = optString(settings.get("query"));
-        String city = optString(settings.get("city"));
-
-        if (query == null || query.isBlank())
-            throw new IllegalArgumentException("query_required");
-
-        String qNorm = query.trim().toLowerCase(Locale.ROOT);
-        String cNorm = (city == null) ? null : city.trim().toLowerCase(Locale.ROOT);
-
-        final String dupeSql = """
-                select exists (
-                  select 1
-                  from user_widgets uw
-                  where uw.user_id = ?
-                    and uw.kind = ?
-                    and lower(uw.settings->>'query') = ?
-                    and (
-                         (? is null and jsonb_exists(uw.settings, 'city') = false)
-                      or (? is not null and lower(uw.settings->>'city') = ?)
-                    )
-                )
-                """;
-
-        boolean exists = Boolean.TRUE.equals(jdbc.query(con -> {
-            var ps = con.prepareStatement(dupeSql);
-            ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            ps.setString(3, qNorm);
-            ps.setString(4, cNorm);
-            ps.setString(5, cNorm);
-            ps.setString(6, cNorm);
-            return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (exists) {
-            log.warn("Duplicate groceries widget userId={} kind={} query={} city={}", userId, kind, qNorm,
-                    (cNorm == null ? "<none>" : cNorm));
-            throw new DuplicateException("duplicate_groceries");
-        } else if (log.isDebugEnabled()) {
-            log.debug("No duplicate groceries userId={} kind={} query={} city={}", userId, kind, qNorm,
-                    (cNorm == null ? "<none>" : cNorm));
-        }
-    }
-
-    private void ensureNoDuplicateGroceries(UUID userId, WidgetKind kind, Map<String, Object> settings, UUID exclude) {
-        if (settings == null)
-            throw new IllegalArgumentException("settings_required");
-        String query = optString(settings.get("query"));
-        String city = optString(settings.get("city"));
-        if (query == null || query.isBlank())
-            throw new IllegalArgumentException("query_required");
-
-        String qNorm = query.trim().toLowerCase(Locale.ROOT);
-        String cNorm = (city == null) ? null : city.trim().toLowerCase(Locale.ROOT);
-
-        final String dupeSql = """
-                    select exists (
-                      select 1
-                      from user_widgets uw
-                      where uw.user_id = ?
-                        and uw.kind = ?
-                        and uw.instance_id <> ?
-                        and lower(uw.settings->>'query') = ?
-                        and (
-                             (? is null and jsonb_exists(uw.settings, 'city') = false)
-                          or (? is not null and lower(uw.settings->>'city') = ?)
-                        )
-                    )
-                """;
-
-        boolean exists = Boolean.TRUE.equals(jdbc.query(con -> {
-            var ps = con.prepareStatement(dupeSql);
-            ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            ps.setObject(3, exclude);
-            ps.setString(4, qNorm);
-            ps.setString(5, cNorm);
-            ps.setString(6, cNorm);
-            ps.setString(7, cNorm);
-            return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (exists)
-            throw new DuplicateException("duplicate_groceries");
-    }
-
     /**
-     * Ensures that no duplicate target URLs exist for the given user and widget
-     * kind.
+     * Checks that the settings carry the fields the duplicate rules of the kind
+     * depend on. Uniqueness itself is enforced by the database (see the
+     * {@code user_widgets_dedupe_indexes} migration) when the row is written.
      *
-     * <p>
-     * This method extracts target values from the provided settings map (supporting
-     * either a single "target" or multiple "targets") and applies lightweight URL
-     * normalization (e.g., trimming and removing a trailing slash). It then checks
-     * the database to determine whether any of those targets already exist for the
-     * specified user and widget kind. If a duplicate is found, a
-     * {@link DuplicateTargetException} is thrown.
-     *
-     * @param userId
-     *            the ID of the widget owner; used to scope the duplicate check
      * @param kind
-     *            the widget kind; mapped to its DB representation via
-     *            {@link WidgetKind#getValue()}
+     *            widget kind
      * @param settings
-     *            input settings which may contain either "target" (String) or
-     *            "targets" (array/iterable)
+     *            settings to validate (may be null)
      * @throws IllegalArgumentException
-     *             if no target could be extracted from settings
-     * @throws DuplicateTargetException
-     *             if any of the normalized targets already exist for the user and
-     *             kind
+     *             with settings_required, query_required, target_required,
+     *             provider_required or unsupported_kind
      */
-    public void ensureNoDuplicateTargets(UUID userId, WidgetKind kind, Map<String, Object> settings) {
-        var targets = extractTargets(settings);
-        if (targets.isEmpty())
-            throw new IllegalArgumentException("target_required");
-
-        targets = targets.stream().map(CreateWidgetService::normalizeUrl).filter(Objects::nonNull).toList();
-
-        final String dupeSql = """
-                  select exists (
-                    select 1
-                    from user_widgets uw
-                    where uw.user_id = ?
-                      and uw.kind = ?
-                      and (
-                        (jsonb_exists(uw.settings, 'target') and uw.settings->>'target' = any (?))
-                        or (jsonb_exists(uw.settings, 'targets') and exists (
-                            select 1
-                            from jsonb_array_elements_text(uw.settings->'targets') t(v)
-                            where t.v = any (?)
-                        ))
-                      )
-                  )
-                """;
-
-        List<String> finalTargets = targets;
-        boolean anyExists = Boolean.TRUE.equals(jdbc.query(con -> {
-            var ps = con.prepareStatement(dupeSql);
-            ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            var arr = con.createArrayOf("text", finalTargets.toArray(new String[0]));
-            ps.setArray(3, arr);
-            ps.setArray(4, arr);
-            return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (anyExists) {
-            log.warn("Duplicate targets userId={} kind={} targetsCount={} example={}", userId, kind,
-                    finalTargets.size(), finalTargets.get(0));
-            throw new DuplicateTargetException("duplicate_target");
-        } else if (log.isDebugEnabled()) {
-            log.debug("No duplicate targets userId={} kind={} targetsCount={}", userId, kind, finalTargets.size());
+    public void validateSettings(WidgetKind kind, Map<String, Object> settings) {
+        if (log.isDebugEnabled()) {
+            log.debug("Validate settings kind={} summary={}", kind, summarizeSettings(kind, settings));
+        }
+        switch (kind) {
+            case SERVER_PINGS -> {
+                if (extractTargets(settings).isEmpty())
+                    throw new IllegalArgumentException("target_required");
+            }
+            case GROCERY_DEALS -> {
+                if (settings == null)
+                    throw new IllegalArgumentException("settings_required");
+                if (optString(settings.get("query")) == null)
+                    throw new IllegalArgumentException("query_required");
+            }
+            case COUNTDOWN -> {
+                if (settings == null)
+                    throw new IllegalArgumentException("settings_required");
+                // Only provider-sourced countdowns are unique; fixed-date / monthly-rule
+                // may repeat
+                if ("provider".equals(optString(settings.get("source")))
+                        && optString(settings.get("provider")) == null)
+                    throw new IllegalArgumentException("provider_required");
+            }
+            case CINEMATEKET -> {
+                // no settings; one instance per user is enforced by a unique index
+            }
+            default -> throw new IllegalArgumentException("unsupported_kind");
         }
-    }
-
-    private void ensureNoDuplicateTargets(UUID userId, WidgetKind kind, Map<String, Object> settings, UUID exclude) {
-        var targets = extractTargets(settings);
-        if (targets.isEmpty())
-            throw new IllegalArgumentException("target_required");
-
-        targets = targets.stream().map(CreateWidgetService::normalizeUrl).filter(Objects::nonNull).toList();
-
-        final String dupeSql = """
-                  select exists(
-                    select 1
-                    from user_widgets uw
-                    where uw.user_id = ?
-                      and uw.kind = ?
-                      and uw.instance_id <> ?
-                      and (
-                        (jsonb_exists(uw.settings, 'target')  and uw.settings->>'target' = any (?))
-                        or
-                        (jsonb_exists(uw.settings, 'targets') and exists (
-                           select 1 from jsonb_array_elements_text(uw.settings->'targets') t(v)
-                           where t.v = any (?)
-                        ))
-                      )
-                  )
-                """;
-
-        List<String> finalTargets = targets;
-        boolean exists = Boolean.TRUE.equals(jdbc.query(con -> {
-            var ps = con.prepareStatement(dupeSql);
-            ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            ps.setObject(3, exclude);
-            var arr = con.createArrayOf("text", finalTargets.toArray(new String[0]));
-            ps.setArray(4, arr);
-            ps.setArray(5, arr);
-            return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (exists)
-            throw new DuplicateTargetException("duplicate_target");
     }
 
     /**
@@ -288,35 +112,76 @@ public class CreateWidgetService {
      *
      * <ul>
      * <li>If settings is null, an empty map will be persisted.
-     * <li>If grid is null, a default grid {x:0, y:0, w:1, h:1} will be used.
+     * <li>If grid is null, the next free grid cell is assigned.
      * <li>Settings and grid are serialized as JSON and stored as jsonb.
+     * <li>Duplicate rules, target overlap and the optional per-kind limit are
+     * checked by the same statement that inserts the row; the latter two under
+     * {@link #lockUserWidgets(UUID)}.
      * </ul>
      *
      * @param userId
-     *            the owner of the widget
+     *            owner of the new widget
      * @param kind
-     *            the widget kind; persisted via {@link WidgetKind#getValue()}
+     *            widget kind
      * @param settings
      *            arbitrary settings map; will be serialized to JSON (jsonb)
      * @param grid
      *            widget grid configuration; will be serialized to JSON (jsonb)
+     * @param maxPerKind
+     *            maximum number of widgets of this kind the user may have, or
+     *            null for no limit
      * @return a populated {@link CreateWidgetResponse} including generated id and
      *         instanceId
+     * @throws IllegalArgumentException
+     *             if required settings are missing (see
+     *             {@link #validateSettings(WidgetKind, Map)})
+     * @throws DuplicateException
+     *             if an equivalent widget already exists
+     * @throws DuplicateTargetException
+     *             if a server-pings target is already used by another widget
+     * @throws LimitReachedException
+     *             if the user already has {@code maxPerKind} widgets of the kind
      * @throws RuntimeException
      *             if JSON serialization fails
      */
+    @Transactional
     public CreateWidgetResponse create(UUID userId, WidgetKind kind, Map<String, Object> settings,
-            Map<String, Object> grid) {
+            Map<String, Object> grid, Integer maxPerKind) {
+        validateSettings(kind, settings);
+        if (kind == WidgetKind.SERVER_PINGS || maxPerKind != null)
+            lockUserWidgets(userId);
+
         final UUID id = UUID.randomUUID();
         final UUID instanceId = UUID.randomUUID();
         Map<String, Object> safeSettings = (settings != null) ? settings : Map.of();
         Map<String, Object> safeGrid = (grid != null && !grid.isEmpty()) ? grid : assignNextGrid(userId, gridCols);
 
+        // One round-trip: the guard CTE reports target overlap and the current
+        // count for the limit, the insert skips unique-index conflicts, and the
+        // final select tells which of those (if any) prevented the write.
         final String insertSql = """
-                insert into user_widgets
-                  (id, instance_id, user_id, kind, settings, grid)
-                values
-                  (?, ?, ?, ?, ?::jsonb, ?::jsonb)
+                with guard as (
+                  select exists (
+                           select 1
+                           from user_widgets uw
+                           where uw.user_id = ?
+                             and uw.kind = 'server-pings'
+                             and ? = 'server-pings'
+                             and uw.target_urls && public.widget_target_urls(?::jsonb)
+                         ) as target_taken,
+                         (select count(*) from user_widgets uw where uw.user_id = ? and uw.kind = ?) as kind_count
+                ), ins as (
+                  insert into user_widgets
+                    (id, instance_id, user_id, kind, settings, grid)
+                  select ?, ?, ?, ?, ?::jsonb, ?::jsonb
+                  from guard
+                  where not guard.target_taken
+                    and (?::int is null or guard.kind_count < ?::int)
+                  on conflict do nothing
+                  returning 1
+                )
+                select exists (select 1 from ins) as inserted, target_taken, kind_count
+                from guard
                 """;
 
         final String settingsJson;
@@ -332,29 +197,311 @@ public class CreateWidgetService {
 
         var sw = new StopWatch("createWidget");
         sw.start("dbInsert");
+        InsertOutcome outcome;
         try {
-            jdbc.update(insertSql, ps -> {
-                ps.setObject(1, id);
-                ps.setObject(2, instanceId);
-                ps.setObject(3, userId);
-                ps.setString(4, kind.getValue());
-                ps.setString(5, settingsJson);
-                ps.setString(6, gridJson);
+            outcome = jdbc.query(con -> {
+                var ps = con.prepareStatement(insertSql);
+                ps.setObject(1, userId);
+                ps.setString(2, kind.getValue());
+                ps.setString(3, settingsJson);
+                ps.setObject(4, userId);
+                ps.setString(5, kind.getValue());
+                ps.setObject(6, id);
+                ps.setObject(7, instanceId);
+                ps.setObject(8, userId);
+                ps.setString(9, kind.getValue());
+                ps.setString(10, settingsJson);
+                ps.setString(11, gridJson);
+                ps.setObject(12, maxPerKind, java.sql.Types.INTEGER);
+                ps.setObject(13, maxPerKind, java.sql.Types.INTEGER);
+                return ps;
+            }, rs -> {
+                rs.next();
+                return new InsertOutcome(rs.getBoolean("inserted"), rs.getBoolean("target_taken"),
+                        rs.getInt("kind_count"));
             });
             sw.stop();
-            log.info("Widget created userId={} kind={} instanceId={} ms={}", userId, kind, instanceId,
-                    sw.getLastTaskTimeMillis());
-            if (log.isDebugEnabled()) {
-                log.debug("Widget create details settingsSummary={} gridSummary={}",
-                        summarizeSettings(kind, safeSettings), summarizeGrid(safeGrid));
-            }
-            return new CreateWidgetResponse(id.toString(), instanceId.toString(), kind, safeGrid, safeSettings);
         } catch (Exception e) {
             if (sw.isRunning())
                 sw.stop();
             log.error("DB insert failed userId={} kind={} msSoFar={}", userId, kind, sw.getTotalTimeMillis(), e);
             throw e;
         }
+
+        if (!outcome.inserted()) {
+            if (outcome.targetTaken()) {
+                log.warn("Duplicate targets userId={} kind={} summary={}", userId, kind,
+                        summarizeSettings(kind, safeSettings));
+                throw new DuplicateTargetException("duplicate_target");
+            }
+            if (maxPerKind != null && outcome.kindCount() >= maxPerKind) {
+                log.warn("Widget limit reached userId={} kind={} count={}", userId, kind, outcome.kindCount());
+                throw new LimitReachedException("limit_reached");
+            }
+            log.warn("Duplicate widget userId={} kind={} summary={}", userId, kind,
+                    summarizeSettings(kind, safeSettings));
+            throw new DuplicateException(duplicateErrorKey(kind));
+        }
+
+        rowCache.invalidate(userId, instanceId);
+        log.info("Widget created userId={} kind={} instanceId={} ms={}", userId, kind, instanceId,
+                sw.lastTaskInfo().getTimeMillis());
+        if (log.isDebugEnabled()) {
+            log.debug("Widget create details settingsSummary={} gridSummary={}",
+                    summarizeSettings(kind, safeSettings), summarizeGrid(safeGrid));
+        }
+        return new CreateWidgetResponse(id.toString(), instanceId.toString(), kind, safeGrid, safeSettings);
+    }
+
+    /**
+     * Creates several widgets for one user in a single transaction.
+     *
+     * <p>
+     * Duplicates are checked in memory, both within the batch and against the
+     * user's existing widgets, which are read once together with their grid
+     * positions. Widgets without a grid are then placed in one pass over that
+     * occupancy, and all rows are inserted with one JDBC batch. The read runs
+     * under {@link #lockUserWidgets(UUID)}, so target overlap and limits hold
+     * against concurrent creates; the unique indexes also back up the duplicate
+     * rules, and a conflicting write rolls the whole batch back with a
+     * {@link DuplicateException}.
+     *
+     * @param userId
+     *            owner of the new widgets
+     * @param specs
+     *            widgets to create, in layout order
+     * @param maxPerKind
+     *            per-kind limits on the user's total widget count (existing plus
+     *            new); kinds not present are unlimited
+     * @return responses for the created widgets, in the order of {@code specs}
+     * @throws IllegalArgumentException
+     *             if a spec has no kind or its settings are invalid
+     * @throws DuplicateException
+     *             if a widget duplicates another one in the batch or an existing
+     *             one
+     * @throws DuplicateTargetException
+     *             if a server-pings target is used twice
+     * @throws LimitReachedException
+     *             if a per-kind limit would be exceeded
+     */
+    @Transactional
+    public List<CreateWidgetResponse> createAll(UUID userId, List<CreateWidgetRequest> specs,
+            Map<WidgetKind, Integer> maxPerKind) {
+        if (specs == null || specs.isEmpty())
+            return List.of();
+        for (CreateWidgetRequest spec : specs) {
+            if (spec == null || spec.kind() == null)
+                throw new IllegalArgumentException("invalid_request");
+            validateSettings(spec.kind(), spec.settings());
+        }
+        lockUserWidgets(userId);
+
+        // One read for duplicate keys, target urls, kind counts and occupied cells
+        final String existingSql = """
+                select kind, dedupe_key, target_urls,
+                       coalesce(grid_x, 0) as x, coalesce(grid_y, 0) as y,
+                       greatest(coalesce(grid_w, 1), 1) as w, greatest(coalesce(grid_h, 1), 1) as h
+                from user_widgets
+                where user_id = ?
+                """;
+        Set<String> keys = new HashSet<>();
+        Set<String> targets = new HashSet<>();
+        Map<String, Integer> kindCounts = new HashMap<>();
+        Set<Long> occupied = new HashSet<>();
+        jdbc.query(existingSql, rs -> {
+            String kind = rs.getString("kind");
+            kindCounts.merge(kind, 1, Integer::sum);
+            String key = rs.getString("dedupe_key");
+            if (key != null)
+                keys.add(kind + "|" + key);
+            java.sql.Array urls = rs.getArray("target_urls");
+            if (urls != null)
+                Collections.addAll(targets, (String[]) urls.getArray());
+            occupy(occupied, rs.getInt("x"), rs.getInt("y"), rs.getInt("w"), rs.getInt("h"));
+        }, userId);
+
+        for (CreateWidgetRequest spec : specs) {
+            WidgetKind kind = spec.kind();
+            String key = dedupeKey(kind, spec.settings());
+            if (key != null && !keys.add(kind.getValue() + "|" + key))
+                throw new DuplicateException(duplicateErrorKey(kind));
+            if (kind == WidgetKind.SERVER_PINGS) {
+                for (String url : targetUrls(spec.settings()))
+                    if (!targets.add(url))
+                        throw new DuplicateTargetException("duplicate_target");
+            }
+            int count = kindCounts.merge(kind.getValue(), 1, Integer::sum);
+            Integer limit = maxPerKind != null ? maxPerKind.get(kind) : null;
+            if (limit != null && count > limit)
+                throw new LimitReachedException("limit_reached");
+        }
+
+        // Explicit grids claim their cells first, then the rest fill the gaps in order
+        for (CreateWidgetRequest spec : specs) {
+            Map<String, Object> g = spec.grid();
+            if (g != null && !g.isEmpty())
+                occupy(occupied, gridInt(g, "x", 0), gridInt(g, "y", 0), Math.max(1, gridInt(g, "w", 1)),
+                        Math.max(1, gridInt(g, "h", 1)));
+        }
+        int cols = Math.max(1, gridCols);
+        int cursor = 0;
+
+        var responses = new ArrayList<CreateWidgetResponse>(specs.size());
+        var rows = new ArrayList<Object[]>(specs.size());
+        for (CreateWidgetRequest spec : specs) {
+            Map<String, Object> safeSettings = spec.settings() != null ? spec.settings() : Map.of();
+            Map<String, Object> safeGrid = spec.grid();
+            if (safeGrid == null || safeGrid.isEmpty()) {
+                while (occupied.contains(cell(cursor % cols, cursor / cols)))
+                    cursor++;
+                occupied.add(cell(cursor % cols, cursor / cols));
+                safeGrid = Map.of("x", cursor % cols, "y", cursor / cols, "w", 1, "h", 1);
+            }
+            UUID id = UUID.randomUUID();
+            UUID instanceId = UUID.randomUUID();
+            try {
+                rows.add(new Object[]{id, instanceId, userId, spec.kind().getValue(),
+                        json.writeValueAsString(safeSettings), json.writeValueAsString(safeGrid)});
+            } catch (JsonProcessingException e) {
+                log.error("JSON serialization failed userId={} kind={}", userId, spec.kind(), e);
+                throw new RuntimeException("Failed to serialize JSON", e);
+            }
+            responses.add(new CreateWidgetResponse(id.toString(), instanceId.toString(), spec.kind(), safeGrid,
+                    safeSettings));
+        }
+
+        var sw = new StopWatch("createWidgets");
+        sw.start("dbBatchInsert");
+        try {
+            jdbc.batchUpdate("""
+                    insert into user_widgets (id, instance_id, user_id, kind, settings, grid)
+                    values (?, ?, ?, ?, ?::jsonb, ?::jsonb)
+                    """, rows);
+        } catch (DuplicateKeyException e) {
+            log.warn("Bulk create conflicted with a concurrent write userId={} widgets={}", userId, specs.size());
+            throw new DuplicateException("duplicate");
+        } finally {
+            sw.stop();
+        }
+
+        for (CreateWidgetResponse r : responses)
+            rowCache.invalidate(userId, UUID.fromString(r.instanceId()));
+        log.info("Widgets created in bulk userId={} count={} ms={}", userId, responses.size(),
+                sw.lastTaskInfo().getTimeMillis());
+        return responses;
+    }
+
+    /**
+     * Serializes widget writes of one user until the current transaction ends.
+     * <p>
+     * Target overlap and per-kind limits are not backed by an index; they are
+     * checked against the rows the writing statement sees. Under READ COMMITTED
+     * two concurrent writes of the same user do not see each other and could
+     * both pass. With this transaction-scoped advisory lock taken first, the
+     * second writer waits for the first to commit and its statement then sees
+     * the committed row. Must be called inside a transaction.
+     *
+     * @param userId
+     *            owner whose widget writes to serialize
+     */
+    public void lockUserWidgets(UUID userId) {
+        jdbc.query("select pg_advisory_xact_lock(hashtext('user_widgets'), hashtext(?))", rs -> {
+        }, userId.toString());
+    }
+
+    /**
+     * Same key as the {@code dedupe_key} column of {@code user_widgets}, or null
+     * when the kind has no uniqueness rule for these settings.
+     */
+    static String dedupeKey(WidgetKind kind, Map<String, Object> s) {
+        if (s == null)
+            return kind == WidgetKind.CINEMATEKET ? "cinemateket" : null;
+        return switch (kind) {
+            case GROCERY_DEALS -> {
+                String q = s.get("query") instanceof String v ? lowerBtrim(v) : null;
+                String c = s.get("city") instanceof String v ? lowerBtrim(v) : "";
+                yield q == null ? null : q + "\n" + c;
+            }
+            case COUNTDOWN -> s.get("source") instanceof String src && src.toLowerCase(Locale.ROOT).equals("provider")
+                    && s.get("provider") instanceof String p ? lowerBtrim(p) : null;
+            case CINEMATEKET -> "cinemateket";
+            default -> null;
+        };
+    }
+
+    /**
+     * Mirrors {@code public.widget_target_urls}: the string entries of
+     * {@code target} and {@code targets}, space-trimmed, one trailing slash
+     * removed, empty ones dropped, without repeats.
+     */
+    static Set<String> targetUrls(Map<String, Object> settings) {
+        Set<String> out = new LinkedHashSet<>();
+        if (settings == null)
+            return out;
+        List<Object> raw = new ArrayList<>();
+        raw.add(settings.get("target"));
+        Object many = settings.get("targets");
+        if (many instanceof Iterable<?> it)
+            it.forEach(raw::add);
+        else if (many instanceof Object[] arr)
+            raw.addAll(Arrays.asList(arr));
+        for (Object o : raw) {
+            if (!(o instanceof String v))
+                continue;
+            String t = btrim(v);
+            if (t.endsWith("/"))
+                t = t.substring(0, t.length() - 1);
+            if (!t.isEmpty())
+                out.add(t);
+        }
+        return out;
+    }
+
+    /** Postgres {@code lower(btrim(s))}. */
+    private static String lowerBtrim(String s) {
+        return btrim(s).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Postgres {@code btrim(s)}: strips spaces only, unlike {@link String#trim()}
+     * which also strips tabs and line breaks.
+     */
+    private static String btrim(String s) {
+        int from = 0;
+        int to = s.length();
+        while (from < to && s.charAt(from) == ' ')
+            from++;
+        while (to > from && s.charAt(to - 1) == ' ')
+            to--;
+        return s.substring(from, to);
+    }
+
+    private static void occupy(Set<Long> occupied, int x, int y, int w, int h) {
+        for (int dx = 0; dx < w; dx++)
+            for (int dy = 0; dy < h; dy++)
+                occupied.add(cell(x + dx, y + dy));
+    }
+
+    private static long cell(int x, int y) {
+        return ((long) y << 32) | (x & 0xffffffffL);
+    }
+
+    private static int gridInt(Map<String, Object> grid, String key, int fallback) {
+        return grid.get(key) instanceof Number n ? n.intValue() : fallback;
+    }
+
+    private record InsertOutcome(boolean inserted, boolean targetTaken, int kindCount) {
+    }
+
+    /**
+     * Error key reported when a unique index of the kind rejects a write.
+     */
+    private static String duplicateErrorKey(WidgetKind kind) {
+        return switch (kind) {
+            case GROCERY_DEALS -> "duplicate_groceries";
+            case COUNTDOWN -> "duplicate_provider";
+            default -> "duplicate";
+        };
     }
 
     /**
@@ -415,32 +562,18 @@ public class CreateWidgetService {
         }
     }
 
-    private static String optString(Object o) {
-        return (o instanceof String s && !s.isBlank()) ? s : null;
-    }
-
     /**
-     * Performs a lightweight normalization on a URL-like string.
-     *
-     * <ul>
-     * <li>Trims leading/trailing whitespace.
-     * <li>Removes a trailing slash, if present.
-     * </ul>
-     *
-     * This method does not validate or parse the URL; it is intentionally minimal.
-     *
-     * @param s
-     *            the input string (may be null)
-     * @return the normalized string, or null if the input was null
+     * Exception thrown when the user already has the maximum number of widgets of
+     * a kind.
      */
-    private static String normalizeUrl(String s) {
-        if (s == null)
-            return null;
-        s = s.trim();
-        // very light normalization; keep it simple for now
-        if (s.endsWith("/"))
-            s = s.substring(0, s.length() - 1);
-        return s;
+    public static class LimitReachedException extends RuntimeException {
+        public LimitReachedException(String msg) {
+            super(msg);
+        }
+    }
+
+    private static String optString(Object o) {
+        return (o instanceof String s && !s.isBlank()) ? s : null;
     }
 
     private static String summarizeSettings(WidgetKind kind, Map<String, Object> s) {
@@ -480,161 +613,51 @@ public class CreateWidgetService {
         return "x=" + x + ",y=" + y + ",w=" + w + ",h=" + h;
     }
 
-    public void ensureNoDuplicateExceptInstance(UUID userId, WidgetKind kind, Map<String, Object> settings,
-            UUID excludeInstanceId) {
-        switch (kind) {
-            case SERVER_PINGS -> ensureNoDuplicateTargets(userId, kind, settings, excludeInstanceId);
-            case GROCERY_DEALS -> ensureNoDuplicateGroceries(userId, kind, settings, excludeInstanceId);
-            case COUNTDOWN -> ensureNoDuplicateCountdown(userId, kind, settings, excludeInstanceId);
-            case CINEMATEKET -> {
-                // Cinemateket widget has no settings, allow only one instance per user
-                ensureNoDuplicateCinemateket(userId, kind, excludeInstanceId);
-            }
-            default -> throw new IllegalArgumentException("unsupported_kind");
-        }
-    }
-
-    private void ensureNoDuplicateCountdown(UUID userId, WidgetKind kind, Map<String, Object> settings) {
-        if (settings == null)
-            throw new IllegalArgumentException("settings_required");
-
-        String source = optString(settings.get("source"));
-        if (!"provider".equals(source)) {
-            // For fixed-date / monthly-rule we allow multiple instances (no dupe check)
-            return;
-        }
-        String provider = optString(settings.get("provider"));
-        if (provider == null)
-            throw new IllegalArgumentException("provider_required");
-
-        final String sql = """
-                    select exists (
-                      select 1
-                      from user_widgets uw
-                      where uw.user_id = ?
-                        and uw.kind = ?
-                        and lower(uw.settings->>'source') = 'provider'
-                        and lower(uw.settings->>'provider') = ?
-                    )
-                """;
-
-        boolean exists = Boolean.TRUE.equals(jdbc.query(con -> {
-            var ps = con.prepareStatement(sql);
-            ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            ps.setString(3, provider.toLowerCase());
-            return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (exists) {
-            log.warn("Duplicate countdown provider userId={} provider={}", userId, provider);
-            throw new DuplicateException("duplicate_provider");
-        }
-    }
-
-    private void ensureNoDuplicateCountdown(UUID userId, WidgetKind kind, Map<String, Object> settings, UUID exclude) {
-        if (settings == null)
-            throw new IllegalArgumentException("settings_required");
-
-        String source = optString(settings.get("source"));
-        if (!"provider".equals(source))
-            return;
-
-        String provider = optString(settings.get("provider"));
-        if (provider == null)
-            throw new IllegalArgumentException("provider_required");
-
-        final String sql = """
-                    select exists (
-                      select 1
-                      from user_widgets uw
-                      where uw.user_id = ?
-                        and uw.kind = ?
-                        and uw.instance_id <> ?
-                        and lower(uw.settings->>'source') = 'provider'
-                        and lower(uw.settings->>'provider') = ?
-                    )
-                """;
-
-        boolean exists = Boolean.TRUE.equals(jdbc.query(con -> {
-            var ps = con.prepareStatement(sql);
-            ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            ps.setObject(3, exclude);
-            ps.setString(4, provider.toLowerCase());
-            return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (exists)
-            throw new DuplicateException("duplicate_provider");
-    }
+    /**
+     * Finds the first free 1x1 cell in reading order for a new widget.
+     * <p>
+     * Works on the typed grid columns in SQL: the candidate cells are the first
+     * N+1 cells of a {@code cols}-wide grid, where N is the number of cells the
+     * user's widgets cover, so at least one of them is free.
+     */
+    private Map<String, Object> assignNextGrid(UUID userId, int cols) {
+        if (cols <= 0)
+            cols = 1;
 
-    private void ensureNoDuplicateCinemateket(UUID userId, WidgetKind kind, UUID exclude) {
         final String sql = """
-                    select exists (
-                      select 1
-                      from user_widgets uw
-                      where uw.user_id = ?
-                        and uw.kind = ?
-                        and uw.instance_id <> ?
-                    )
+                with w as (
+                  select coalesce(grid_x, 0) as x,
+                         coalesce(grid_y, 0) as y,
+                         greatest(coalesce(grid_w, 1), 1) as w,
+                         greatest(coalesce(grid_h, 1), 1) as h
+                  from user_widgets
+                  where user_id = ?
+                )
+                select (c.idx % ?)::int as x, (c.idx / ?)::int as y
+                from generate_series(0, (select coalesce(sum(w * h), 0) from w)) c(idx)
+                where not exists (
+                  select 1 from w
+                  where c.idx % ? >= w.x and c.idx % ? < w.x + w.w
+                    and c.idx / ? >= w.y and c.idx / ? < w.y + w.h
+                )
+                order by c.idx
+                limit 1
                 """;
-
-        boolean exists = Boolean.TRUE.equals(jdbc.query(con -> {
+        int finalCols = cols;
+        int[] cell = jdbc.query(con -> {
             var ps = con.prepareStatement(sql);
             ps.setObject(1, userId);
-            ps.setString(2, kind.getValue());
-            ps.setObject(3, exclude);
+            for (int i = 2; i <= 7; i++)
+                ps.setInt(i, finalCols);
             return ps;
-        }, rs -> rs.next() && rs.getBoolean(1)));
-
-        if (exists) {
-            log.warn("Duplicate cinemateket widget userId={}", userId);
-            throw new DuplicateException("duplicate");
-        }
-    }
+        }, rs -> rs.next() ? new int[]{rs.getInt("x"), rs.getInt("y")} : null);
 
-    private Map<String, Object> assignNextGrid(UUID userId, int cols) {
-        if (cols <= 0)
-            cols = 1;
-
-        final String sql = "select grid from user_widgets where user_id = ?";
-        List<Map<String, Object>> grids = jdbc.query(sql, (rs, rowNum) -> {
-            try {
-                return json.readValue(rs.getString("grid"), Map.class);
-            } catch (Exception e) {
-                return Map.of();
-            }
-        }, userId);
-
-        Set<String> occupied = new HashSet<>();
-        for (Map<String, Object> g : grids) {
-            int x = ((Number) g.getOrDefault("x", 0)).intValue();
-            int y = ((Number) g.getOrDefault("y", 0)).intValue();
-            int w = Math.max(1, ((Number) g.getOrDefault("w", 1)).intValue());
-            int h = Math.max(1, ((Number) g.getOrDefault("h", 1)).intValue());
-            for (int dx = 0; dx < w; dx++)
-                for (int dy = 0; dy < h; dy++)
-                    occupied.add((x + dx) + "," + (y + dy));
-        }
-
-        // simple BFS scan; guard against pathological cases
-        int y = 0;
-        int safety = Math.max(64, grids.size() + 64); // arbitrary but safe
-        while (safety-- > 0) {
-            for (int x = 0; x < cols; x++) {
-                String key = x + "," + y;
-                if (!occupied.contains(key)) {
-                    Map<String, Object> found = Map.of("x", x, "y", y, "w", 1, "h", 1);
-                    if (log.isInfoEnabled())
-                        log.info("AssignNextGrid userId={} grids={} next=({}, {})", userId, grids.size(), x, y);
-                    return found;
-                }
-            }
-            y++;
+        if (cell == null) {
+            log.warn("AssignNextGrid fallback userId={} cols={}", userId, cols);
+            return Map.of("x", 0, "y", 0, "w", 1, "h", 1);
         }
-
-        log.warn("AssignNextGrid safety fallback userId={} cols={} grids={}", userId, cols, grids.size());
-        return Map.of("x", 0, "y", y, "w", 1, "h", 1);
+        if (log.isInfoEnabled())
+            log.info("AssignNextGrid userId={} next=({}, {})", userId, cell[0], cell[1]);
+        return Map.of("x", cell[0], "y", cell[1], "w", 1, "h", 1);
     }
 }
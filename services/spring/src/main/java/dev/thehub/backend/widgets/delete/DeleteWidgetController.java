@@ -1,5 +1,6 @@
 package dev.thehub.backend.widgets.delete;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -60,7 +61,7 @@ public class DeleteWidgetController {
     @DeleteMapping("/{instanceId}")
     public ResponseEntity<?> delete(@PathVariable String instanceId, @RequestHeader Map<String, String> _headers,
             @Parameter(hidden = true) JwtAuthenticationToken auth) {
-        final UUID requester = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        final UUID requester = UserAuthentication.userId(auth);
         final boolean isAdmin = auth.getAuthorities().stream().map(GrantedAuthority::getAuthority)
                 .anyMatch("ROLE_ADMIN"::equals);
 
@@ -1,5 +1,7 @@
 package dev.thehub.backend.widgets.delete;
 
+import dev.thehub.backend.widgets.WidgetRowCache;
+import java.util.List;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,12 +22,15 @@ import org.springframework.transaction.annotation.Transactional;
 public class DeleteWidgetService {
     private static final Logger log = LoggerFactory.getLogger(DeleteWidgetService.class);
     private final JdbcTemplate jdbc;
+    private final WidgetRowCache rowCache;
 
     // Prefer configuration, falls back to 3 if not set
     private final int gridCols;
 
-    public DeleteWidgetService(JdbcTemplate jdbc, @Value("${widgets.grid.cols:3}") int gridCols) {
+    public DeleteWidgetService(JdbcTemplate jdbc, WidgetRowCache rowCache,
+            @Value("${widgets.grid.cols:3}") int gridCols) {
         this.jdbc = jdbc;
+        this.rowCache = rowCache;
         this.gridCols = gridCols;
     }
 
@@ -34,11 +39,12 @@ public class DeleteWidgetService {
         final String sqlAdminDelete = "delete from user_widgets where instance_id = ?";
         final String sqlUserDelete = "delete from user_widgets where user_id = ? and instance_id = ?";
 
-        // Owner-aware prefetch so we don’t reflow someone else’s grid by mistake
-        final UUID ownerUserId = jdbc.query(con -> {
+        // Owner-aware prefetch so we don’t reflow someone else’s grid by mistake;
+        // the removed slot tells the reflow where the shift starts
+        final Removed removed = jdbc.query(con -> {
             final var sql = isAdmin
-                    ? "select user_id from user_widgets where instance_id = ?"
-                    : "select user_id from user_widgets where user_id = ? and instance_id = ?";
+                    ? "select id, user_id, grid_x, grid_y from user_widgets where instance_id = ?"
+                    : "select id, user_id, grid_x, grid_y from user_widgets where user_id = ? and instance_id = ?";
             var ps = con.prepareStatement(sql);
             if (isAdmin) {
                 ps.setObject(1, instanceId);
@@ -47,7 +53,10 @@ public class DeleteWidgetService {
                 ps.setObject(2, instanceId);
             }
             return ps;
-        }, rs -> rs.next() ? (UUID) rs.getObject(1) : null);
+        }, rs -> rs.next()
+                ? new Removed(rs.getObject("id", UUID.class), rs.getObject("user_id", UUID.class),
+                        rs.getObject("grid_x", Integer.class), rs.getObject("grid_y", Integer.class))
+                : null);
 
         int affected = isAdmin
                 ? jdbc.update(sqlAdminDelete, ps -> ps.setObject(1, instanceId))
@@ -58,8 +67,10 @@ public class DeleteWidgetService {
 
         if (affected > 0) {
             log.info("Widget deleted requester={} instanceId={} admin={}", requester, instanceId, isAdmin);
-            if (ownerUserId != null) {
-                reflowGrid(ownerUserId, gridCols);
+            if (removed != null) {
+                rowCache.invalidate(removed.userId(), instanceId);
+                for (UUID moved : reflowGrid(removed, gridCols))
+                    rowCache.invalidate(removed.userId(), moved);
             }
         } else {
             log.warn("Delete no-op (not found/not owned) requester={} instanceId={} admin={}", requester, instanceId,
@@ -68,39 +79,66 @@ public class DeleteWidgetService {
         return affected;
     }
 
-    private void reflowGrid(UUID userId, int cols) {
+    /** The deleted widget: its row id, owner and grid cell (null when unset). */
+    record Removed(UUID id, UUID userId, Integer x, Integer y) {
+    }
+
+    /**
+     * Closes the gap left by a deleted widget: every widget after it in reading
+     * order (y, x, id) moves back one cell, continuing from the removed slot.
+     * Widgets before it keep their cells, so the statement only reads the
+     * widgets that follow, as a range scan of {@code user_widgets_user_grid_idx},
+     * and writes only those whose cell changes. On a compact grid this is the
+     * same layout a full compaction produces. A removed widget without a cell
+     * falls back to compacting the whole grid from the first cell.
+     *
+     * @return instance ids of the widgets that were moved
+     */
+    List<UUID> reflowGrid(Removed removed, int cols) {
         if (cols <= 0)
             cols = 1;
+        boolean fromSlot = removed.x() != null && removed.y() != null;
+        int start = fromSlot ? slotIndex(removed.x(), removed.y(), cols) : 0;
 
-        // Preserve reading order by current (y,x,id), then compact left->right,
-        // top->bottom
         final String sql = """
-                    with ordered as (
+                    with following as (
                       select id,
-                             row_number() over (
-                               order by (grid->>'y')::int nulls first,
-                                        (grid->>'x')::int nulls first,
-                                        id
+                             ? + row_number() over (
+                               order by grid_y nulls first, grid_x nulls first, id
                              ) - 1 as idx
                       from user_widgets
-                      where user_id = ?
+                      where user_id = ?%s
+                    ), target as (
+                      select id, (idx %% ?)::int as x, (idx / ?)::int as y
+                      from following
                     )
                     update user_widgets uw
-                    set grid = jsonb_build_object(
-                      'x', (o.idx % ?),
-                      'y', (o.idx / ?),
-                      'w', 1,
-                      'h', 1
-                    )
-                    from ordered o
-                    where uw.id = o.id
-                """;
+                    set grid = jsonb_build_object('x', t.x, 'y', t.y, 'w', 1, 'h', 1)
+                    from target t
+                    where uw.id = t.id
+                      and (uw.grid_x, uw.grid_y, uw.grid_w, uw.grid_h) is distinct from (t.x, t.y, 1, 1)
+                    returning uw.instance_id
+                """.formatted(fromSlot ? "\n                        and (grid_y, grid_x, id) > (?, ?, ?)" : "");
         int finalCols = cols;
-        jdbc.update(sql, ps -> {
-            ps.setObject(1, userId);
-            ps.setInt(2, finalCols);
-            ps.setInt(3, finalCols);
-        });
-        log.info("Reflowed grid for userId={} cols={}", userId, cols);
+        List<UUID> moved = jdbc.query(sql, ps -> {
+            int i = 1;
+            ps.setInt(i++, start);
+            ps.setObject(i++, removed.userId());
+            if (fromSlot) {
+                ps.setInt(i++, removed.y());
+                ps.setInt(i++, removed.x());
+                ps.setObject(i++, removed.id());
+            }
+            ps.setInt(i++, finalCols);
+            ps.setInt(i, finalCols);
+        }, (rs, i) -> rs.getObject(1, UUID.class));
+        log.info("Reflowed grid for userId={} cols={} from={} moved={}", removed.userId(), cols, start,
+                moved.size());
+        return moved;
+    }
+
+    /** Reading-order index of a cell in a {@code cols}-wide grid. */
+    static int slotIndex(int x, int y, int cols) {
+        return Math.max(0, y) * cols + Math.min(Math.max(0, x), cols - 1);
     }
-}
\ No newline at end of file
+}
@@ -3,6 +3,9 @@ package dev.thehub.backend.widgets.groceries;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.thehub.backend.widgets.groceries.dto.DealDto;
 import dev.thehub.backend.widgets.groceries.dto.GeminiDealDecision;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.util.*;
@@ -27,13 +30,10 @@ import org.springframework.web.client.RestTemplate;
 @Slf4j
 public class GeminiGroceryEnricher {
 
-    private static final String GEMINI_MODEL = "gemini-2.5-flash";
-    private static final String GEMINI_URL = "https://generativelanguage.googleapis.com/v1beta/models/" + GEMINI_MODEL
-            + ":generateContent";
-
     private final RestTemplate http;
     private final ObjectMapper mapper = new ObjectMapper();
     private final Executor executor;
+    private final ObservationRegistry observations;
 
     private record CachedEnrichment(List<DealDto> deals, String baseSignature, long cachedAtMs) {
     }
@@ -47,6 +47,13 @@ public class GeminiGroceryEnricher {
     @Value("${groceries.gemini.api-key:}")
     private String apiKey;
 
+    /** API root; point at a local stand-in to exercise the pipeline offline. */
+    @Value("${groceries.gemini.base-url:https://generativelanguage.googleapis.com}")
+    private String baseUrl;
+
+    @Value("${groceries.gemini.model:gemini-2.5-flash}")
+    private String model;
+
     @Value("${groceries.gemini.cache-ttl-seconds:1800}")
     private long cacheTtlSeconds;
 
@@ -54,9 +61,10 @@ public class GeminiGroceryEnricher {
     private long cacheStaleMaxSeconds;
 
     public GeminiGroceryEnricher(@Qualifier("geminiRestTemplate") RestTemplate http,
-            @Qualifier("groceryEnrichmentExecutor") Executor executor) {
+            @Qualifier("groceryEnrichmentExecutor") Executor executor, ObservationRegistry observations) {
         this.http = http;
         this.executor = executor;
+        this.observations = observations;
     }
 
     /**
@@ -67,6 +75,11 @@ public class GeminiGroceryEnricher {
         return enabled && apiKey != null && !apiKey.isBlank();
     }
 
+    /** Number of cached enrichment results. */
+    public int cacheSize() {
+        return cache.size();
+    }
+
     private static String buildCacheKey(String query, String city) {
         String q = (query == null) ? "" : query.trim().toLowerCase(Locale.ROOT);
         String c = (city == null || city.isBlank()) ? "" : city.trim().toLowerCase(Locale.ROOT);
@@ -131,7 +144,9 @@ public class GeminiGroceryEnricher {
             cache.clear();
         List<DealDto> dealSnapshot = new ArrayList<>(deals);
         executor.execute(() -> {
-            try {
+            var observation = Observation.createNotStarted("thehub.groceries.enrichment", observations)
+                    .contextualName("gemini enrichment").start();
+            try (Observation.Scope ignored = observation.openScope()) {
                 List<GeminiDealDecision> decisions = filterAndEnrich(query, dealSnapshot);
                 if (decisions.isEmpty()) {
                     return;
@@ -144,6 +159,7 @@ public class GeminiGroceryEnricher {
                             dealSnapshot.size(), merged.size(), dropped);
                 }
             } catch (Exception e) {
+                observation.error(e);
                 if (e instanceof HttpClientErrorException.TooManyRequests) {
                     log.warn("Gemini rate limit exceeded, skipping enrichment");
                 } else {
@@ -151,6 +167,7 @@ public class GeminiGroceryEnricher {
                 }
             } finally {
                 inFlightRequests.remove(key);
+                observation.stop();
             }
         });
     }
@@ -255,7 +272,7 @@ public class GeminiGroceryEnricher {
         Map<String, Object> requestBody = buildRequestBody(prompt);
 
         try {
-            String url = GEMINI_URL + "?key=" + apiKey;
+            String url = baseUrl + "/v1beta/models/" + model + ":generateContent?key=" + apiKey;
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             HttpEntity<Map<String, Object>> req = new HttpEntity<>(requestBody, headers);
@@ -267,33 +284,12 @@ public class GeminiGroceryEnricher {
                 return List.of();
             }
 
-            Map<String, Object> responseJson = mapper.readValue(resp.getBody(), Map.class);
-            String text = extractResponseText(responseJson);
-            if (text == null || text.isBlank()) {
-                log.warn("Gemini groceries empty response text (check candidates/blockReason in response)");
+            List<GeminiDealDecision> decisions = parseDecisions(resp.getBody());
+            if (decisions.isEmpty())
                 return List.of();
-            }
-
-            List<Map<String, Object>> rawList = mapper.readValue(text,
-                    mapper.getTypeFactory().constructCollectionType(List.class, Map.class));
-            List<GeminiDealDecision> decisions = new ArrayList<>();
-            int relevantCount = 0;
-            int irrelevantCount = 0;
-            for (Map<String, Object> o : rawList) {
-                int index = number(o.get("index"), 0).intValue();
-                boolean isRelevant = Boolean.TRUE.equals(o.get("is_relevant"))
-                        || Boolean.TRUE.equals(o.get("isRelevant"));
-                if (isRelevant)
-                    relevantCount++;
-                else
-                    irrelevantCount++;
-                String cleanName = string(o.get("clean_name"), o.get("cleanName"));
-                String displayUnit = string(o.get("display_unit"), o.get("displayUnit"));
-                Double displayPrice = toDouble(o.get("display_price_per_unit"), o.get("displayPricePerUnit"));
-                decisions.add(new GeminiDealDecision(index, isRelevant, cleanName, displayUnit, displayPrice));
-            }
+            long relevantCount = decisions.stream().filter(GeminiDealDecision::isRelevant).count();
             log.info("Gemini groceries ok decisions={} relevant={} irrelevant={}", decisions.size(), relevantCount,
-                    irrelevantCount);
+                    decisions.size() - relevantCount);
             return decisions;
         } catch (Exception e) {
             log.warn("Gemini groceries call failed, using unfiltered list: {}", e.getMessage());
@@ -301,6 +297,38 @@ public class GeminiGroceryEnricher {
         }
     }
 
+    /**
+     * Reads the per-deal decisions from a generateContent response body.
+     *
+     * @param body
+     *            response JSON
+     * @return decisions in response order, empty if the response has no text
+     * @throws IOException
+     *             if the body or the text part is not valid JSON
+     */
+    @SuppressWarnings("unchecked")
+    List<GeminiDealDecision> parseDecisions(String body) throws IOException {
+        Map<String, Object> responseJson = mapper.readValue(body, Map.class);
+        String text = extractResponseText(responseJson);
+        if (text == null || text.isBlank()) {
+            log.warn("Gemini groceries empty response text (check candidates/blockReason in response)");
+            return List.of();
+        }
+
+        List<Map<String, Object>> rawList = mapper.readValue(text,
+                mapper.getTypeFactory().constructCollectionType(List.class, Map.class));
+        List<GeminiDealDecision> decisions = new ArrayList<>(rawList.size());
+        for (Map<String, Object> o : rawList) {
+            int index = number(o.get("index"), 0).intValue();
+            boolean isRelevant = Boolean.TRUE.equals(o.get("is_relevant")) || Boolean.TRUE.equals(o.get("isRelevant"));
+            String cleanName = string(o.get("clean_name"), o.get("cleanName"));
+            String displayUnit = string(o.get("display_unit"), o.get("displayUnit"));
+            Double displayPrice = toDouble(o.get("display_price_per_unit"), o.get("displayPricePerUnit"));
+            decisions.add(new GeminiDealDecision(index, isRelevant, cleanName, displayUnit, displayPrice));
+        }
+        return decisions;
+    }
+
     private static String buildPrompt(String userQuery, List<Map<String, Object>> items) {
         try {
             String itemsJson = new ObjectMapper().writeValueAsString(items);
@@ -1,5 +1,7 @@
 package dev.thehub.backend.widgets.groceries;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
 import dev.thehub.backend.widgets.WidgetSettingsService;
 import dev.thehub.backend.widgets.groceries.dto.DealDto;
 import dev.thehub.backend.widgets.groceries.dto.GroceryDealsResponse;
@@ -17,6 +19,8 @@ import java.util.Optional;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -37,6 +41,7 @@ public class GroceriesController {
 
     private final GroceriesService svc;
     private final WidgetSettingsService settingsSvc;
+    private final ConcurrencyLimits limits;
 
     /**
      * Constructs the groceries controller.
@@ -45,10 +50,13 @@ public class GroceriesController {
      *            service to fetch grocery deals
      * @param settingsSvc
      *            service to resolve stored widget settings
+     * @param limits
+     *            adaptive limiter counting how shed requests were answered
      */
-    public GroceriesController(GroceriesService svc, WidgetSettingsService settingsSvc) {
+    public GroceriesController(GroceriesService svc, WidgetSettingsService settingsSvc, ConcurrencyLimits limits) {
         this.svc = svc;
         this.settingsSvc = settingsSvc;
+        this.limits = limits;
     }
 
     /**
@@ -74,12 +82,14 @@ public class GroceriesController {
      *            optional cap on number of items returned from service (must be >
      *            0); defaults to the effective limit if null or invalid
      * @return HTTP 200 with a list of deals, or 400 when required inputs are
-     *         missing
+     *         missing; under overload cached deals are served (header
+     *         {@code X-Degraded: true}) or 429 when none are cached
      */
     @Operation(summary = "Fetch grocery deals", description = "Fetches deals by a saved widget instance (instanceId) or by ad-hoc query parameters. Returns wrapper with deals and isEnriched for fast-first refetch-later.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "OK", content = @Content(schema = @Schema(implementation = GroceryDealsResponse.class))),
-            @ApiResponse(responseCode = "400", description = "Missing required inputs")})
+            @ApiResponse(responseCode = "400", description = "Missing required inputs"),
+            @ApiResponse(responseCode = "429", description = "Overloaded and nothing cached; retry later")})
     @GetMapping
     public ResponseEntity<GroceryDealsResponse> deals(@Parameter(hidden = true) JwtAuthenticationToken auth,
             @Parameter(description = "Widget instance id owned by the caller") @RequestParam(required = false) UUID instanceId,
@@ -92,14 +102,14 @@ public class GroceriesController {
             @Parameter(description = "Discard results with price > maxPrice (kr). Defaults to config groceries.max-price.") @RequestParam(required = false) Double maxPrice)
             throws IOException {
         if (log.isDebugEnabled() || sample(0.02)) { // 2% sampled breadcrumb
-            var uid = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+            var uid = UserAuthentication.userId(auth);
             log.debug("Groceries request uid={} instId={} q={} city={} limit={} top={}", uid, instanceId, safe(q),
                     safe(city), limit, top);
         }
         GroceryDealsSettings settings;
 
         if (instanceId != null) {
-            var userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+            var userId = UserAuthentication.userId(auth);
             var row = settingsSvc.requireWidget(userId, instanceId);
             settings = settingsSvc.toGrocery(row);
             // runtime overrides
@@ -115,13 +125,27 @@ public class GroceriesController {
         int fetchLimit = Optional.ofNullable(settings.maxResults()).orElse(svc.getDefaultLimit());
         Integer effectiveTop = (top != null && top > 0) ? Math.min(fetchLimit, top) : fetchLimit;
 
-        var result = svc.fetchDeals(settings, effectiveTop);
+        FetchDealsResult result;
+        try {
+            result = svc.fetchDeals(settings, effectiveTop);
+        } catch (GroceriesService.Overloaded e) {
+            var cached = svc.cachedDeals(settings, effectiveTop);
+            if (cached.isEmpty()) {
+                limits.record(ConcurrencyLimits.GROCERIES, ConcurrencyLimits.Outcome.REJECTED);
+                return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                        .build();
+            }
+            limits.record(ConcurrencyLimits.GROCERIES, ConcurrencyLimits.Outcome.DEGRADED);
+            return ResponseEntity.ok().header("X-Degraded", "true").body(priceCapped(cached.get(), maxPrice));
+        }
+        return ResponseEntity.ok(priceCapped(result, maxPrice));
+    }
 
+    private GroceryDealsResponse priceCapped(FetchDealsResult result, Double maxPrice) {
         double priceCap = Optional.ofNullable(maxPrice).orElse(svc.getDefaultMaxPrice());
 
         List<DealDto> filtered = result.deals().stream().filter(d -> d.price() <= priceCap).toList();
-
-        return ResponseEntity.ok(new GroceryDealsResponse(filtered, result.isEnriched()));
+        return new GroceryDealsResponse(filtered, result.isEnriched());
     }
 
     /**
@@ -1,9 +1,13 @@
 package dev.thehub.backend.widgets.groceries;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.common.http.RequestHedger;
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
 import dev.thehub.backend.widgets.groceries.dto.DealDto;
 import dev.thehub.backend.widgets.groceries.dto.GroceryDealsSettings;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.annotation.PostConstruct;
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -108,16 +112,56 @@ public class GroceriesService {
      *            RestTemplate used to call the external Etilbudsavis API
      * @param metrics
      *            Micrometer registry for recording request metrics
+     * @param observations
+     *            observation registry for the enrichment cache lookup span
+     * @param hedger
+     *            hedges slow Etilbudsavis searches when enabled
+     * @param limits
+     *            adaptive limiter taken for searches that go to Etilbudsavis
+     * @param offerIndex
+     *            local index answering default-region searches it covers
      */
     private final GeminiGroceryEnricher geminiEnricher;
+    private final ObservationRegistry observations;
+    private final RequestHedger hedger;
+    private final ConcurrencyLimits limits;
+    private final LocalOfferIndex offerIndex;
 
-    public GroceriesService(RestTemplate http, MeterRegistry metrics,
+    public GroceriesService(RestTemplate http, MeterRegistry metrics, ObservationRegistry observations,
+            RequestHedger hedger, ConcurrencyLimits limits, LocalOfferIndex offerIndex,
             @Autowired(required = false) GeminiGroceryEnricher geminiEnricher) {
         this.http = http;
         this.metrics = metrics;
+        this.observations = observations;
+        this.hedger = hedger;
+        this.limits = limits;
+        this.offerIndex = offerIndex;
         this.geminiEnricher = geminiEnricher;
     }
 
+    /**
+     * One page of an offer search.
+     *
+     * @param deals
+     *            mapped offers, unfiltered and unsorted
+     * @param last
+     *            whether the page was not full, i.e. there are no more matches
+     */
+    record OfferPage(List<DealDto> deals, boolean last) {
+    }
+
+    /**
+     * Thrown when a search would go to Etilbudsavis but the groceries limiter
+     * sheds it; callers may answer from {@link #cachedDeals} instead.
+     */
+    public static class Overloaded extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public Overloaded() {
+            super("groceries_overloaded");
+        }
+    }
+
     /**
      * Fetches grocery deals for the given settings.
      * <p>
@@ -144,6 +188,10 @@ public class GroceriesService {
      * the HTTP call, parses the NDJSON response, maps each offer into a DealDto,
      * filters excluded vendors, sorts results by price metric, and optionally
      * applies a favorite-vendor preference.
+     * <p>
+     * Searches in the default region that the {@link LocalOfferIndex} covers are
+     * answered from it without calling Etilbudsavis. Only searches that do go
+     * upstream take a slot of the {@link ConcurrencyLimits#GROCERIES} limiter.
      *
      * @param s
      *            search and location settings (query, city/lat/lon, optional max
@@ -156,6 +204,8 @@ public class GroceriesService {
      *         (cache hit); empty list if the search term is blank or no data
      * @throws IOException
      *             if the response payload cannot be parsed as valid NDJSON/JSON
+     * @throws Overloaded
+     *             if the search needs Etilbudsavis and the limiter sheds it
      */
     public FetchDealsResult fetchDeals(GroceryDealsSettings s, Integer top) throws IOException {
         final long t0 = System.nanoTime();
@@ -174,38 +224,52 @@ public class GroceriesService {
             log.warn("Groceries desired_limit_exceeds_safety desired={} cap={}", desiredReturn, SAFETY_CAP);
         }
 
-        Function<Object[], String> enc = parts -> {
+        Optional<List<DealDto>> indexed = fromLocalIndex(s, term, desiredReturn);
+        if (indexed.isPresent())
+            return enrichAndRecord(s, term, indexed.get(), desiredReturn, fetchLimit, t0, "index");
+
+        try (var permit = limits.tryAcquire(ConcurrencyLimits.GROCERIES).orElseThrow(Overloaded::new)) {
             try {
-                return Base64.getEncoder().encodeToString(mapper.writeValueAsBytes(parts));
-            } catch (IOException e) {
-                throw new UncheckedIOException("Encoding payload failed", e);
+                return fromUpstream(s, term, desiredReturn, fetchLimit, t0);
+            } catch (IOException | RuntimeException e) {
+                permit.dropped();
+                throw e;
             }
-        };
-
-        final String qOffers = enc.apply(new Object[]{"offers", Map.of("hideUpcoming", false, "pagination",
-                Map.of("limit", fetchLimit, "offset", 0), "searchTerm", term, "sort", List.of("score_desc"))});
-        final Map<String, Object> payload = Map.of("data", List.of(qOffers));
+        }
+    }
 
-        String etaCookie = buildEtaLocationCookie(s.lat() != null ? s.lat() : defaultLat,
-                s.lon() != null ? s.lon() : defaultLon,
+    /**
+     * Searches Etilbudsavis (hedged), then filters, sorts and caps the offers
+     * like {@link #fetchDeals(GroceryDealsSettings, Integer)} describes.
+     *
+     * @param s
+     *            search and location settings
+     * @param term
+     *            trimmed search term
+     * @param desiredReturn
+     *            number of deals asked for
+     * @param fetchLimit
+     *            upstream page size
+     * @param t0
+     *            request start, from {@link System#nanoTime()}
+     * @return the result to return
+     * @throws IOException
+     *             if the response payload cannot be parsed
+     */
+    private FetchDealsResult fromUpstream(GroceryDealsSettings s, String term, int desiredReturn, int fetchLimit,
+            long t0) throws IOException {
+        HttpEntity<Map<String, Object>> req = searchRequest(term, 0, fetchLimit,
+                s.lat() != null ? s.lat() : defaultLat, s.lon() != null ? s.lon() : defaultLon,
                 (s.city() != null && !s.city().isBlank()) ? s.city() : defaultCity);
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
-        headers.add(HttpHeaders.COOKIE, "eta-location=" + etaCookie);
-        headers.add(HttpHeaders.USER_AGENT, userAgent);
-        headers.add(HttpHeaders.REFERER, baseUrl + "/");
-        headers.add("X-Requested-With", "XMLHttpRequest");
-
-        HttpEntity<Map<String, Object>> req = new HttpEntity<>(payload, headers);
-
         String raw;
         try {
-            ResponseEntity<String> resp = http.exchange(baseUrl + "/", HttpMethod.POST, req, String.class);
+            // a search is a read, so a second identical request is safe
+            ResponseEntity<String> resp = hedger
+                    .call(() -> http.exchange(baseUrl + "/", HttpMethod.POST, req, String.class));
             if (!resp.getStatusCode().is2xxSuccessful()) {
                 log.warn("Etilbudsavis non2xx status={} reason={}", resp.getStatusCode().value(), resp.getStatusCode());
-                recordMetrics(term, s.city(), fetchLimit, 0, t0, false);
+                recordMetrics(term, s.city(), fetchLimit, 0, t0, false, "upstream");
                 return new FetchDealsResult(List.of(), true);
             }
             raw = Optional.ofNullable(resp.getBody()).orElse("");
@@ -215,49 +279,22 @@ public class GroceriesService {
             final String truncated = errBody.length() > max ? errBody.substring(0, max) + "...[truncated]" : errBody;
             log.warn("Etilbudsavis error status={} reason={} body={}", e.getStatusCode().value(), e.getStatusText(),
                     truncated);
-            recordMetrics(term, s.city(), fetchLimit, 0, t0, false);
+            recordMetrics(term, s.city(), fetchLimit, 0, t0, false, "upstream");
             return new FetchDealsResult(List.of(), true);
         } catch (Exception e) {
             log.error("Etilbudsavis call failed", e);
-            recordMetrics(term, s.city(), fetchLimit, 0, t0, false);
+            recordMetrics(term, s.city(), fetchLimit, 0, t0, false, "upstream");
             throw e;
         }
         if (raw.isBlank()) {
-            recordMetrics(term, s.city(), fetchLimit, 0, t0, true);
+            recordMetrics(term, s.city(), fetchLimit, 0, t0, true, "upstream");
             return new FetchDealsResult(List.of(), true);
         }
 
-        List<Map<String, Object>> lines = parseNdjson(raw);
-        if (lines.isEmpty())
-            return new FetchDealsResult(List.of(), true);
-        Map<String, Object> offersBlock = pickOffersBlock(lines);
-        if (offersBlock == null)
+        List<Map<String, Object>> data = offerMaps(raw);
+        if (data.isEmpty())
             return new FetchDealsResult(List.of(), true);
 
-        Object valueObj = offersBlock.get("value");
-        if (!(valueObj instanceof Map<?, ?> vm))
-            return new FetchDealsResult(List.of(), true);
-        Object dataObj = vm.get("data");
-        if (!(dataObj instanceof List<?> dl) || dl.isEmpty())
-            return new FetchDealsResult(List.of(), true);
-
-        @SuppressWarnings("unchecked")
-        List<Map<String, Object>> data = (List<Map<String, Object>>) (List<?>) dl;
-
-        if (log.isDebugEnabled()) {
-            lines.stream().limit(5).forEach(b -> {
-                Object k = b.get("key");
-                Object v = b.get("value");
-                int count = 0;
-                if (v instanceof Map<?, ?> innerVm) {
-                    Object d = innerVm.get("data");
-                    if (d instanceof List<?> dl2)
-                        count = dl2.size();
-                }
-                log.debug("eta line key={} dataCount={}", k, count);
-            });
-        }
-
         final Set<String> excluded = excludedVendorsNormalized();
         final Set<String> preferred = preferredVendorsNormalized();
 
@@ -295,6 +332,33 @@ public class GroceriesService {
         List<DealDto> sorted = eligibleDeals.stream().sorted(cmp).toList();
 
         List<DealDto> capped = sorted.stream().limit(desiredReturn).toList();
+        return enrichAndRecord(s, term, capped, desiredReturn, fetchLimit, t0, "upstream");
+    }
+
+    /**
+     * Applies the Gemini enrichment cache to the capped deals, then logs and
+     * records the request.
+     *
+     * @param s
+     *            search and location settings
+     * @param term
+     *            trimmed search term
+     * @param capped
+     *            sorted, filtered deals, at most {@code desiredReturn}
+     * @param desiredReturn
+     *            number of deals asked for
+     * @param fetchLimit
+     *            upstream page size (for metrics)
+     * @param t0
+     *            request start, from {@link System#nanoTime()}
+     * @param source
+     *            where the deals came from: {@code upstream} or {@code index}
+     * @return the result to return
+     */
+    private FetchDealsResult enrichAndRecord(GroceryDealsSettings s, String term, List<DealDto> capped,
+            int desiredReturn, int fetchLimit, long t0, String source) {
+        final Set<String> excluded = excludedVendorsNormalized();
+        LocalDate todayOslo = LocalDate.now(ZoneId.of("Europe/Oslo"));
         boolean isEnriched = true;
 
         // Stale-while-revalidate:
@@ -304,40 +368,255 @@ public class GroceriesService {
         if (geminiEnricher != null && geminiEnricher.isEnabled() && !capped.isEmpty()) {
             var city = cityOrDefault(s);
             List<DealDto> baseForRefresh = capped;
-            Optional<List<DealDto>> freshCached = geminiEnricher.getCachedEnrichment(term, city, baseForRefresh);
-            if (freshCached.isPresent()) {
-                capped = freshCached.get();
-                isEnriched = true;
-            } else {
-                Optional<List<DealDto>> staleCached = geminiEnricher.getStaleCachedEnrichment(term, city);
-                if (staleCached.isPresent()) {
-                    List<DealDto> validatedStale = staleCached.get().stream()
-                            .filter(d -> !excluded.contains(canonicalizeVendor(d.store())))
-                            .filter(d -> !isExpiredByValidUntil(d.validUntil(), todayOslo)).limit(desiredReturn)
-                            .toList();
-                    if (!validatedStale.isEmpty()) {
-                        capped = validatedStale;
-                        isEnriched = true;
+            var lookup = Observation.createNotStarted("thehub.cache.lookups", observations)
+                    .contextualName("cache gemini-enrichment").lowCardinalityKeyValue("cache", "gemini-enrichment")
+                    .start();
+            String result = "miss";
+            try {
+                Optional<List<DealDto>> freshCached = geminiEnricher.getCachedEnrichment(term, city, baseForRefresh);
+                if (freshCached.isPresent()) {
+                    capped = freshCached.get();
+                    isEnriched = true;
+                    result = "fresh";
+                } else {
+                    Optional<List<DealDto>> staleCached = geminiEnricher.getStaleCachedEnrichment(term, city);
+                    if (staleCached.isPresent()) {
+                        List<DealDto> validatedStale = staleCached.get().stream()
+                                .filter(d -> !excluded.contains(canonicalizeVendor(d.store())))
+                                .filter(d -> !isExpiredByValidUntil(d.validUntil(), todayOslo)).limit(desiredReturn)
+                                .toList();
+                        if (!validatedStale.isEmpty()) {
+                            capped = validatedStale;
+                            isEnriched = true;
+                            result = "stale";
+                        } else {
+                            isEnriched = false;
+                        }
                     } else {
                         isEnriched = false;
                     }
-                } else {
-                    isEnriched = false;
+                    geminiEnricher.triggerAsyncEnrichment(term, city, baseForRefresh);
                 }
-                geminiEnricher.triggerAsyncEnrichment(term, city, baseForRefresh);
+            } finally {
+                lookup.lowCardinalityKeyValue("result", result).stop();
             }
         }
 
         if (log.isDebugEnabled() || sample(0.02)) {
             long ms = (System.nanoTime() - t0) / 1_000_000;
-            log.info("Groceries fetched term={} city={} fetchLimit={} returned={} isEnriched={} ms={}", norm(term),
-                    norm(cityOrDefault(s)), fetchLimit, capped.size(), isEnriched, ms);
+            log.info("Groceries fetched term={} city={} fetchLimit={} returned={} isEnriched={} source={} ms={}",
+                    norm(term), norm(cityOrDefault(s)), fetchLimit, capped.size(), isEnriched, source, ms);
         }
 
-        recordMetrics(term, s.city(), fetchLimit, capped.size(), t0, true);
+        recordMetrics(term, s.city(), fetchLimit, capped.size(), t0, true, source);
         return new FetchDealsResult(capped, isEnriched);
     }
 
+    /**
+     * Answers a default-region search from the {@link LocalOfferIndex}: drops
+     * excluded vendors and expired offers, sorts like the upstream path and
+     * builds {@link DealDto}s for the returned offers only. Each attempt is a
+     * {@code thehub.cache.lookups} observation.
+     *
+     * @param s
+     *            search and location settings
+     * @param term
+     *            trimmed search term
+     * @param desiredReturn
+     *            number of deals asked for
+     * @return the deals, or empty if the search is outside the default region or
+     *         not covered by the index
+     */
+    private Optional<List<DealDto>> fromLocalIndex(GroceryDealsSettings s, String term, int desiredReturn) {
+        if (!isDefaultRegion(s))
+            return Optional.empty();
+        var lookup = Observation.createNotStarted("thehub.cache.lookups", observations)
+                .contextualName("cache offer-index").lowCardinalityKeyValue("cache", "offer-index").start();
+        String result = "miss";
+        try {
+            Optional<List<LocalOfferIndex.Offer>> hits = offerIndex.search(term);
+            if (hits.isEmpty())
+                return Optional.empty();
+            result = "hit";
+
+            final Set<String> excluded = excludedVendorsNormalized();
+            final Set<String> preferred = preferFavoritesEnabled ? preferredVendorsNormalized() : Set.of();
+            LocalDate todayOslo = LocalDate.now(ZoneId.of("Europe/Oslo"));
+            Map<String, String> canonical = new HashMap<>();
+            List<LocalOfferIndex.Offer> eligible = new ArrayList<>(hits.get().size());
+            for (LocalOfferIndex.Offer o : hits.get()) {
+                String store = canonical.computeIfAbsent(Objects.toString(o.store(), ""), this::canonicalizeVendor);
+                if (!excluded.contains(store) && !o.expiredBy(todayOslo))
+                    eligible.add(o);
+            }
+            Comparator<LocalOfferIndex.Offer> cmp = Comparator
+                    .<LocalOfferIndex.Offer, Boolean>comparing(
+                            o -> !preferred.contains(canonical.get(Objects.toString(o.store(), ""))))
+                    .thenComparingDouble(LocalOfferIndex.Offer::metric);
+            eligible.sort(cmp);
+            List<DealDto> out = new ArrayList<>(Math.min(desiredReturn, eligible.size()));
+            for (int i = 0; i < eligible.size() && i < desiredReturn; i++)
+                out.add(eligible.get(i).toDeal());
+            return Optional.of(out);
+        } finally {
+            lookup.lowCardinalityKeyValue("result", result).stop();
+        }
+    }
+
+    /**
+     * Whether a search uses the default location: no coordinates and no city, or
+     * the default city.
+     */
+    boolean isDefaultRegion(GroceryDealsSettings s) {
+        return s.lat() == null && s.lon() == null
+                && (s.city() == null || s.city().isBlank() || s.city().trim().equalsIgnoreCase(defaultCity));
+    }
+
+    /**
+     * Fetches one page of offers for {@code term} in the default region, without
+     * hedging, filtering or sorting. Used by {@link LocalOfferIndexIngester}.
+     *
+     * @param term
+     *            search term
+     * @param offset
+     *            index of the first match
+     * @param limit
+     *            page size
+     * @return the page
+     * @throws IOException
+     *             if the response cannot be parsed
+     */
+    OfferPage regionOffers(String term, int offset, int limit) throws IOException {
+        HttpEntity<Map<String, Object>> req = searchRequest(term, offset, limit, defaultLat, defaultLon, defaultCity);
+        ResponseEntity<String> resp = http.exchange(baseUrl + "/", HttpMethod.POST, req, String.class);
+        List<Map<String, Object>> data = offerMaps(Optional.ofNullable(resp.getBody()).orElse(""));
+        List<DealDto> deals = new ArrayList<>(data.size());
+        for (Map<String, Object> rawDeal : data) {
+            DealDto d = toDeal(rawDeal);
+            if (d != null)
+                deals.add(d);
+        }
+        return new OfferPage(deals, data.size() < limit);
+    }
+
+    /**
+     * Builds the Etilbudsavis search request: a base64 "offers" query with
+     * location context in the eta-location cookie.
+     *
+     * @param term
+     *            search term
+     * @param offset
+     *            index of the first match
+     * @param limit
+     *            page size
+     * @param lat
+     *            latitude
+     * @param lon
+     *            longitude
+     * @param city
+     *            city name
+     * @return the request entity
+     */
+    private HttpEntity<Map<String, Object>> searchRequest(String term, int offset, int limit, double lat, double lon,
+            String city) {
+        Function<Object[], String> enc = parts -> {
+            try {
+                return Base64.getEncoder().encodeToString(mapper.writeValueAsBytes(parts));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Encoding payload failed", e);
+            }
+        };
+
+        final String qOffers = enc.apply(new Object[]{"offers", Map.of("hideUpcoming", false, "pagination",
+                Map.of("limit", limit, "offset", offset), "searchTerm", term, "sort", List.of("score_desc"))});
+        final Map<String, Object> payload = Map.of("data", List.of(qOffers));
+
+        String etaCookie = buildEtaLocationCookie(lat, lon, city);
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.parseMediaType("application/x-ndjson")));
+        headers.add(HttpHeaders.COOKIE, "eta-location=" + etaCookie);
+        headers.add(HttpHeaders.USER_AGENT, userAgent);
+        headers.add(HttpHeaders.REFERER, baseUrl + "/");
+        headers.add("X-Requested-With", "XMLHttpRequest");
+
+        return new HttpEntity<>(payload, headers);
+    }
+
+    /**
+     * Extracts the raw offer documents from an NDJSON search response.
+     *
+     * @param raw
+     *            response body
+     * @return the offers block's value.data entries; empty when there is none
+     * @throws IOException
+     *             if a line fails to parse as JSON
+     */
+    List<Map<String, Object>> offerMaps(String raw) throws IOException {
+        if (raw.isBlank())
+            return List.of();
+        List<Map<String, Object>> lines = parseNdjson(raw);
+        if (lines.isEmpty())
+            return List.of();
+        Map<String, Object> offersBlock = pickOffersBlock(lines);
+        if (offersBlock == null)
+            return List.of();
+
+        Object valueObj = offersBlock.get("value");
+        if (!(valueObj instanceof Map<?, ?> vm))
+            return List.of();
+        Object dataObj = vm.get("data");
+        if (!(dataObj instanceof List<?> dl) || dl.isEmpty())
+            return List.of();
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> data = (List<Map<String, Object>>) (List<?>) dl;
+
+        if (log.isDebugEnabled()) {
+            lines.stream().limit(5).forEach(b -> {
+                Object k = b.get("key");
+                Object v = b.get("value");
+                int count = 0;
+                if (v instanceof Map<?, ?> innerVm) {
+                    Object d = innerVm.get("data");
+                    if (d instanceof List<?> dl2)
+                        count = dl2.size();
+                }
+                log.debug("eta line key={} dataCount={}", k, count);
+            });
+        }
+        return data;
+    }
+
+    /**
+     * Deals from the Gemini enrichment cache only, without calling Etilbudsavis.
+     * Used as the degraded answer when a request is shed under load; stale
+     * entries are accepted, but excluded vendors and expired offers are still
+     * filtered out.
+     *
+     * @param s
+     *            search and location settings
+     * @param top
+     *            optional cap on the number of deals
+     * @return cached deals, or empty if nothing usable is cached
+     */
+    public Optional<FetchDealsResult> cachedDeals(GroceryDealsSettings s, Integer top) {
+        String term = Optional.ofNullable(s.query()).map(String::trim).orElse("");
+        if (term.isEmpty() || geminiEnricher == null || !geminiEnricher.isEnabled())
+            return Optional.empty();
+        final int desiredReturn = (top != null && top > 0)
+                ? top
+                : Optional.ofNullable(s.maxResults()).orElse(getDefaultLimit());
+        final Set<String> excluded = excludedVendorsNormalized();
+        LocalDate todayOslo = LocalDate.now(ZoneId.of("Europe/Oslo"));
+        return geminiEnricher.getStaleCachedEnrichment(term, cityOrDefault(s))
+                .map(deals -> deals.stream().filter(d -> !excluded.contains(canonicalizeVendor(d.store())))
+                        .filter(d -> !isExpiredByValidUntil(d.validUntil(), todayOslo)).limit(desiredReturn)
+                        .toList())
+                .filter(deals -> !deals.isEmpty()).map(deals -> new FetchDealsResult(deals, true));
+    }
+
     /**
      * Reorders deals so that favorite vendors are preferred unless a non-favorite
      * item is strictly cheaper according to the sorting metric.
@@ -398,7 +677,7 @@ public class GroceriesService {
      * @return a populated DealDto or null when essential fields are missing (e.g.,
      *         price)
      */
-    private DealDto toDeal(Map<String, Object> m) {
+    DealDto toDeal(Map<String, Object> m) {
         String name = Objects.toString(m.get("name"), "");
 
         Double priceD = toDouble(m.get("price"));
@@ -645,7 +924,7 @@ public class GroceriesService {
      *            deal
      * @return numeric metric used for ascending sorting
      */
-    private static double metricForSort(DealDto d) {
+    static double metricForSort(DealDto d) {
         // Discount-only deals (no absolute price) sort last
         if (d.price() == 0.0 && d.discountPercent() != null)
             return Double.MAX_VALUE;
@@ -701,16 +980,20 @@ public class GroceriesService {
      *            monotonic start time for latency measurement
      * @param success
      *            whether the HTTP call and parsing were successful
+     * @param source
+     *            {@code upstream} or {@code index}
      */
-    private void recordMetrics(String term, String city, int limit, int outSize, long startNanos, boolean success) {
-        long ms = (System.nanoTime() - startNanos) / 1_000_000;
+    private void recordMetrics(String term, String city, int limit, int outSize, long startNanos, boolean success,
+            String source) {
+        long nanos = System.nanoTime() - startNanos;
         io.micrometer.core.instrument.Tags tags = io.micrometer.core.instrument.Tags.of("success",
                 Boolean.toString(success), "city", norm(city),
                 // keep term coarse to avoid cardinality explosions:
-                "term_class", termClass(term), "limit", Integer.toString(limit));
+                "term_class", termClass(term), "limit", Integer.toString(limit), "source", source);
         metrics.counter("thehub.groceries.requests", tags).increment();
         metrics.summary("thehub.groceries.results.count", tags).record(outSize);
-        metrics.timer("thehub.groceries.latency", tags).record(ms, java.util.concurrent.TimeUnit.MILLISECONDS);
+        // nanoseconds: index answers take microseconds
+        metrics.timer("thehub.groceries.latency", tags).record(nanos, java.util.concurrent.TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -768,7 +1051,7 @@ public class GroceriesService {
      * Parses the first 10 chars of an ISO-like datetime/date string as LocalDate.
      * Returns null on parse errors.
      */
-    private static LocalDate parseIsoDatePrefix(String dateLike) {
+    static LocalDate parseIsoDatePrefix(String dateLike) {
         if (dateLike == null || dateLike.isBlank())
             return null;
         String trimmed = dateLike.trim();
@@ -0,0 +1,484 @@
+package dev.thehub.backend.widgets.groceries;
+
+import dev.thehub.backend.widgets.groceries.dto.DealDto;
+import java.text.Normalizer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory index of the default region's current offers, built by
+ * {@link LocalOfferIndexIngester} from Etilbudsavis searches for a set of
+ * seed and popular terms.
+ * <p>
+ * Names and store names are folded (lower case, æ/ø/å to ae/o/a, accents
+ * dropped) and split into tokens; an inverted index maps each token of a sorted
+ * dictionary to the offers containing it, and gram postings map every 1 to 3
+ * character substring to the dictionary tokens containing it. A query is
+ * answered only when it is <em>covered</em> by an ingested term: its tokens
+ * include all of the term's tokens, and either they are the same or the term's
+ * search was not truncated. The offers upstream returned for that term are then
+ * narrowed by the query's remaining tokens, each matching any offer token
+ * containing it, since upstream also matches inside compounds: "tine melk" is
+ * answered from the "tine" results and includes "Tine Lettmelk". Such a word is
+ * looked up by intersecting the postings of its trigrams and confirming the
+ * candidate tokens, so narrowing never scans offers. A query no ingested term
+ * covers goes upstream.
+ * <p>
+ * Offers are kept as compact {@link Offer}s with repeated strings shared and
+ * the sort metric and expiry precomputed; {@link DealDto}s are built only for
+ * the offers a caller returns. Snapshots are immutable and swapped whole, so
+ * searches take no locks.
+ */
+@Component
+public class LocalOfferIndex {
+
+    private static final Pattern NON_TOKEN = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    /** Length of the grams a longer query word is split into. */
+    private static final int GRAM = 3;
+
+    private final long maxAgeMillis;
+    private volatile Snapshot current = Snapshot.EMPTY;
+
+    /**
+     * Constructs the index.
+     *
+     * @param maxAgeMinutes
+     *            how long a term's results may be served after they were fetched
+     */
+    public LocalOfferIndex(@Value("${groceries.index.max-age-minutes:120}") long maxAgeMinutes) {
+        this.maxAgeMillis = maxAgeMinutes * 60_000L;
+    }
+
+    /**
+     * Offers matching {@code query}, unsorted and unfiltered.
+     *
+     * @param query
+     *            raw search term
+     * @return the matches (possibly none), or empty when the query is not covered
+     *         by a fresh ingested term
+     */
+    public Optional<List<Offer>> search(String query) {
+        return current.search(tokens(query), System.currentTimeMillis() - maxAgeMillis);
+    }
+
+    /** Number of indexed offers. */
+    public int size() {
+        return current.offers.length;
+    }
+
+    /** Number of indexed terms. */
+    public int termCount() {
+        return current.terms.size();
+    }
+
+    Snapshot snapshot() {
+        return current;
+    }
+
+    void replace(Snapshot snapshot) {
+        current = Objects.requireNonNull(snapshot);
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Folds {@code text} for matching: lower case, æ to ae, ø to o, å to a,
+     * accents dropped.
+     */
+    static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        StringBuilder b = new StringBuilder(lower.length() + 4);
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            switch (c) {
+                case 'æ' -> b.append("ae");
+                case 'ø' -> b.append('o');
+                case 'å' -> b.append('a');
+                default -> b.append(c);
+            }
+        }
+        return MARKS.matcher(Normalizer.normalize(b, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    /** Distinct folded tokens of {@code text}, in order of appearance. */
+    static String[] tokens(String text) {
+        if (text == null || text.isBlank())
+            return new String[0];
+        Set<String> out = new LinkedHashSet<>();
+        for (String t : NON_TOKEN.split(fold(text)))
+            if (!t.isEmpty())
+                out.add(t);
+        return out.toArray(String[]::new);
+    }
+
+    /** Order-independent key of a token set. */
+    static String termKey(String[] tokens) {
+        String[] sorted = tokens.clone();
+        Arrays.sort(sorted);
+        return String.join(" ", sorted);
+    }
+
+    /**
+     * One indexed offer. Missing numbers are {@code NaN} or
+     * {@link Integer#MIN_VALUE}; strings other than name and image are shared
+     * across offers.
+     */
+    public static final class Offer {
+        private final String name;
+        private final String store;
+        private final String storeLogo;
+        private final String image;
+        private final String validFrom;
+        private final String validUntil;
+        private final String unit;
+        private final String unitSymbol;
+        private final String baseUnit;
+        private final double price;
+        private final double unitPrice;
+        private final double unitSizeFrom;
+        private final double unitSizeTo;
+        private final double perPiecePrice;
+        private final double unitPriceMin;
+        private final double unitPriceMax;
+        private final int pieceCountFrom;
+        private final int pieceCountTo;
+        private final int discountPercent;
+        private final boolean multipack;
+        /** {@link GroceriesService#metricForSort(DealDto)} of the offer. */
+        private final double metric;
+        /** Epoch day of validUntil, {@code Long.MAX_VALUE} when unknown. */
+        private final long validUntilDay;
+        private final String[] tokens;
+
+        private Offer(DealDto d, Map<String, String> pool) {
+            this.name = d.name();
+            this.store = shared(pool, d.store());
+            this.storeLogo = shared(pool, d.storeLogo());
+            this.image = d.image();
+            this.validFrom = shared(pool, d.validFrom());
+            this.validUntil = shared(pool, d.validUntil());
+            this.unit = shared(pool, d.unit());
+            this.unitSymbol = shared(pool, d.unitSymbol());
+            this.baseUnit = shared(pool, d.baseUnit());
+            this.price = d.price();
+            this.unitPrice = num(d.unitPrice());
+            this.unitSizeFrom = num(d.unitSizeFrom());
+            this.unitSizeTo = num(d.unitSizeTo());
+            this.perPiecePrice = num(d.perPiecePrice());
+            this.unitPriceMin = num(d.unitPriceMin());
+            this.unitPriceMax = num(d.unitPriceMax());
+            this.pieceCountFrom = num(d.pieceCountFrom());
+            this.pieceCountTo = num(d.pieceCountTo());
+            this.discountPercent = num(d.discountPercent());
+            this.multipack = Boolean.TRUE.equals(d.multipack());
+            this.metric = GroceriesService.metricForSort(d);
+            LocalDate until = GroceriesService.parseIsoDatePrefix(d.validUntil());
+            this.validUntilDay = until != null ? until.toEpochDay() : Long.MAX_VALUE;
+            this.tokens = tokens(Objects.toString(d.name(), "") + " " + Objects.toString(d.store(), ""));
+            for (int i = 0; i < tokens.length; i++)
+                tokens[i] = shared(pool, tokens[i]);
+        }
+
+        public String store() {
+            return store;
+        }
+
+        /** Sorting metric, lowest first. */
+        public double metric() {
+            return metric;
+        }
+
+        /**
+         * Whether the offer ended before {@code today}.
+         *
+         * @param today
+         *            current date in Oslo
+         * @return true if validUntil is before today
+         */
+        public boolean expiredBy(LocalDate today) {
+            return validUntilDay < today.toEpochDay();
+        }
+
+        /** Materializes the offer as a deal. */
+        public DealDto toDeal() {
+            return new DealDto(name, store, price, box(unitPrice), validFrom, validUntil, image, storeLogo, unit,
+                    box(pieceCountFrom), box(pieceCountTo), box(unitSizeFrom), box(unitSizeTo), unitSymbol, baseUnit,
+                    box(perPiecePrice), box(unitPriceMin), box(unitPriceMax), multipack, null, null, null,
+                    box(discountPercent));
+        }
+
+        private String identity() {
+            return store + '\n' + name + '\n' + price + '\n' + validFrom + '\n' + validUntil + '\n' + image;
+        }
+
+        private static String shared(Map<String, String> pool, String s) {
+            return s == null ? null : pool.computeIfAbsent(s, k -> k);
+        }
+
+        private static double num(Double d) {
+            return d != null ? d : Double.NaN;
+        }
+
+        private static int num(Integer i) {
+            return i != null ? i : Integer.MIN_VALUE;
+        }
+
+        private static Double box(double d) {
+            return Double.isNaN(d) ? null : d;
+        }
+
+        private static Integer box(int i) {
+            return i == Integer.MIN_VALUE ? null : i;
+        }
+    }
+
+    /**
+     * The offers one ingested term returned.
+     *
+     * @param tokens
+     *            the term's folded tokens
+     * @param offers
+     *            offer ids, ascending
+     * @param complete
+     *            whether the search returned all its matches (was not cut off by
+     *            the page limit)
+     * @param ingestedAtMillis
+     *            when the search ran
+     */
+    record TermEntry(String[] tokens, int[] offers, boolean complete, long ingestedAtMillis) {
+    }
+
+    /** Immutable index contents. */
+    static final class Snapshot {
+        static final Snapshot EMPTY = new Snapshot(new Offer[0], new String[0], new int[0][], Map.of(), Map.of());
+        private static final int[] NONE = new int[0];
+
+        private final Offer[] offers;
+        /** Sorted token dictionary; {@code postings[i]} lists the offers of {@code dict[i]}. */
+        private final String[] dict;
+        private final int[][] postings;
+        /** Every 1 to 3 character substring of a token to its dictionary indexes, ascending. */
+        private final Map<String, int[]> grams;
+        private final Map<String, TermEntry> terms;
+
+        private Snapshot(Offer[] offers, String[] dict, int[][] postings, Map<String, int[]> grams,
+                Map<String, TermEntry> terms) {
+            this.offers = offers;
+            this.dict = dict;
+            this.postings = postings;
+            this.grams = grams;
+            this.terms = terms;
+        }
+
+        /** The entry for {@code term}, or null. */
+        TermEntry entry(String term) {
+            return terms.get(termKey(tokens(term)));
+        }
+
+        /** The offers of an entry from this snapshot. */
+        List<Offer> offersOf(TermEntry e) {
+            List<Offer> out = new ArrayList<>(e.offers().length);
+            for (int id : e.offers())
+                out.add(offers[id]);
+            return out;
+        }
+
+        Optional<List<Offer>> search(String[] q, long freshAfterMillis) {
+            if (q.length == 0)
+                return Optional.empty();
+            Set<String> qs = Set.of(q);
+            TermEntry cover = null;
+            for (TermEntry e : terms.values()) {
+                if (e.ingestedAtMillis() < freshAfterMillis || e.tokens().length > q.length)
+                    continue;
+                if (!e.complete() && e.tokens().length != q.length)
+                    continue;
+                if (!qs.containsAll(Arrays.asList(e.tokens())))
+                    continue;
+                // the most specific term has the fewest offers left to narrow
+                if (cover == null || e.tokens().length > cover.tokens().length
+                        || (e.tokens().length == cover.tokens().length && e.offers().length < cover.offers().length))
+                    cover = e;
+            }
+            if (cover == null)
+                return Optional.empty();
+
+            Set<String> covered = Set.of(cover.tokens());
+            int[] ids = cover.offers();
+            for (String t : q) {
+                if (covered.contains(t))
+                    continue;
+                BitSet match = containing(t);
+                int n = 0;
+                int[] kept = new int[ids.length];
+                for (int id : ids)
+                    if (match.get(id))
+                        kept[n++] = id;
+                ids = Arrays.copyOf(kept, n);
+            }
+            List<Offer> out = new ArrayList<>(ids.length);
+            for (int id : ids)
+                out.add(offers[id]);
+            return Optional.of(out);
+        }
+
+        /** The dictionary token at {@code index}. */
+        String token(int index) {
+            return dict[index];
+        }
+
+        /** Offers with a token containing {@code fragment}. */
+        private BitSet containing(String fragment) {
+            BitSet out = new BitSet(offers.length);
+            for (int t : tokensContaining(fragment))
+                for (int id : postings[t])
+                    out.set(id);
+            return out;
+        }
+
+        /** Dictionary indexes of the tokens containing {@code fragment}, ascending. */
+        int[] tokensContaining(String fragment) {
+            if (fragment.length() <= GRAM)
+                return grams.getOrDefault(fragment, NONE);
+            int[] candidates = null;
+            for (int i = 0; i + GRAM <= fragment.length(); i++) {
+                int[] g = grams.get(fragment.substring(i, i + GRAM));
+                if (g == null)
+                    return NONE;
+                candidates = candidates == null ? g : intersect(candidates, g);
+            }
+            // a token can hold every trigram without holding them in a row
+            return Arrays.stream(candidates).filter(t -> dict[t].contains(fragment)).toArray();
+        }
+
+        private static int[] intersect(int[] a, int[] b) {
+            int[] out = new int[Math.min(a.length, b.length)];
+            int n = 0;
+            for (int i = 0, j = 0; i < a.length && j < b.length;) {
+                if (a[i] < b[j])
+                    i++;
+                else if (a[i] > b[j])
+                    j++;
+                else {
+                    out[n++] = a[i];
+                    i++;
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+    }
+
+    /** Collects ingested terms into a {@link Snapshot}. Not thread-safe. */
+    static final class Builder {
+        private final Map<String, String> pool = new HashMap<>();
+        private final List<Offer> offers = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final Map<String, TermEntry> terms = new HashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the deals an upstream search for {@code term} returned.
+         *
+         * @param term
+         *            search term
+         * @param deals
+         *            mapped deals, unfiltered
+         * @param complete
+         *            whether the search returned all its matches
+         * @return this builder
+         */
+        Builder add(String term, List<DealDto> deals, boolean complete) {
+            int[] termOffers = new int[deals.size()];
+            for (int i = 0; i < termOffers.length; i++)
+                termOffers[i] = idOf(new Offer(deals.get(i), pool));
+            put(term, termOffers, complete, System.currentTimeMillis());
+            return this;
+        }
+
+        /**
+         * Copies a term's entry from an earlier snapshot, keeping its ingest time.
+         * Used when the term's refresh failed.
+         *
+         * @param term
+         *            search term
+         * @param previous
+         *            snapshot holding the term
+         * @return this builder
+         */
+        Builder carryOver(String term, Snapshot previous) {
+            TermEntry e = previous.entry(term);
+            if (e == null)
+                return this;
+            List<Offer> old = previous.offersOf(e);
+            int[] termOffers = new int[old.size()];
+            for (int i = 0; i < termOffers.length; i++)
+                termOffers[i] = idOf(old.get(i));
+            put(term, termOffers, e.complete(), e.ingestedAtMillis());
+            return this;
+        }
+
+        int termCount() {
+            return terms.size();
+        }
+
+        Snapshot build() {
+            TreeMap<String, List<Integer>> byToken = new TreeMap<>();
+            for (int id = 0; id < offers.size(); id++)
+                for (String t : offers.get(id).tokens)
+                    byToken.computeIfAbsent(t, k -> new ArrayList<>()).add(id);
+            String[] dict = byToken.keySet().toArray(String[]::new);
+            int[][] postings = new int[dict.length][];
+            int i = 0;
+            for (List<Integer> ids : byToken.values())
+                postings[i++] = ids.stream().mapToInt(Integer::intValue).toArray();
+
+            Map<String, List<Integer>> byGram = new HashMap<>();
+            for (int t = 0; t < dict.length; t++)
+                for (int len = 1; len <= GRAM; len++)
+                    for (int s = 0; s + len <= dict[t].length(); s++) {
+                        List<Integer> ts = byGram.computeIfAbsent(dict[t].substring(s, s + len),
+                                k -> new ArrayList<>());
+                        if (ts.isEmpty() || ts.get(ts.size() - 1) != t)
+                            ts.add(t);
+                    }
+            Map<String, int[]> grams = new HashMap<>(byGram.size() * 2);
+            byGram.forEach((g, ts) -> grams.put(g, ts.stream().mapToInt(Integer::intValue).toArray()));
+            return new Snapshot(offers.toArray(Offer[]::new), dict, postings, Map.copyOf(grams), Map.copyOf(terms));
+        }
+
+        private void put(String term, int[] termOffers, boolean complete, long ingestedAtMillis) {
+            String[] tokens = tokens(term);
+            if (tokens.length == 0)
+                return;
+            int[] sorted = Arrays.stream(termOffers).distinct().sorted().toArray();
+            terms.put(termKey(tokens), new TermEntry(tokens, sorted, complete, ingestedAtMillis));
+        }
+
+        private int idOf(Offer o) {
+            return ids.computeIfAbsent(o.identity(), k -> {
+                offers.add(o);
+                return offers.size() - 1;
+            });
+        }
+    }
+}
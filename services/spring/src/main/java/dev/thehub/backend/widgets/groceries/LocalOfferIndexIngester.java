@@ -0,0 +1,162 @@
+package dev.thehub.backend.widgets.groceries;
+
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetSettingsService;
+import dev.thehub.backend.widgets.groceries.dto.DealDto;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that rebuilds the {@link LocalOfferIndex} for the default
+ * region.
+ * <p>
+ * Each round searches Etilbudsavis for the configured seed terms and the most
+ * common queries of saved grocery widgets in the default region, one term
+ * after another, and swaps in the new index when done. A term whose search
+ * fails keeps its previous results until they exceed the index's max age.
+ */
+@Component
+public class LocalOfferIndexIngester {
+    private static final Logger log = LoggerFactory.getLogger(LocalOfferIndexIngester.class);
+    private static final Pattern CSV_SPLIT = Pattern.compile("\\s*,\\s*");
+
+    private final GroceriesService groceries;
+    private final WidgetSettingsService settings;
+    private final LocalOfferIndex index;
+    private final boolean enabled;
+    private final List<String> seedTerms;
+    private final int popularQueries;
+    private final int pageSize;
+    private final int maxPages;
+    private final long requestSpacingMs;
+
+    /**
+     * Constructs the ingester.
+     *
+     * @param groceries
+     *            service performing the Etilbudsavis searches
+     * @param settings
+     *            source of saved grocery widget queries
+     * @param index
+     *            index to rebuild
+     * @param enabled
+     *            whether rounds run at all
+     * @param seedTerms
+     *            comma-separated terms always indexed
+     * @param popularQueries
+     *            how many of the most common saved queries to index as well
+     * @param pageSize
+     *            offers per search request
+     * @param maxPages
+     *            search pages fetched per term at most
+     * @param requestSpacingMs
+     *            pause between two upstream requests
+     */
+    public LocalOfferIndexIngester(GroceriesService groceries, WidgetSettingsService settings, LocalOfferIndex index,
+            @Value("${groceries.index.enabled:true}") boolean enabled,
+            @Value("${groceries.index.seed-terms:}") String seedTerms,
+            @Value("${groceries.index.popular-queries:50}") int popularQueries,
+            @Value("${groceries.index.page-size:50}") int pageSize,
+            @Value("${groceries.index.max-pages:2}") int maxPages,
+            @Value("${groceries.index.request-spacing-ms:250}") long requestSpacingMs) {
+        this.groceries = groceries;
+        this.settings = settings;
+        this.index = index;
+        this.enabled = enabled;
+        this.seedTerms = seedTerms.isBlank()
+                ? List.of()
+                : Arrays.stream(CSV_SPLIT.split(seedTerms.trim())).filter(t -> !t.isBlank()).toList();
+        this.popularQueries = Math.max(0, popularQueries);
+        this.pageSize = Math.max(1, pageSize);
+        this.maxPages = Math.max(1, maxPages);
+        this.requestSpacingMs = Math.max(0, requestSpacingMs);
+    }
+
+    /**
+     * Rebuilds the index every {@code groceries.index.refresh-interval-ms} (30 min
+     * by default).
+     */
+    @Scheduled(initialDelayString = "${groceries.index.initial-delay-ms:30000}",
+            fixedDelayString = "${groceries.index.refresh-interval-ms:1800000}")
+    public void refresh() {
+        if (!enabled)
+            return;
+        try {
+            long t0 = System.nanoTime();
+            var terms = terms();
+            var previous = index.snapshot();
+            var builder = LocalOfferIndex.builder();
+            int failed = 0;
+            for (String term : terms) {
+                if (Thread.currentThread().isInterrupted())
+                    return;
+                try {
+                    List<DealDto> deals = new ArrayList<>();
+                    boolean complete = false;
+                    for (int page = 0; page < maxPages && !complete; page++) {
+                        pause();
+                        var p = groceries.regionOffers(term, page * pageSize, pageSize);
+                        deals.addAll(p.deals());
+                        complete = p.last();
+                    }
+                    builder.add(term, deals, complete);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    failed++;
+                    log.warn("LocalOfferIndexIngester: search failed term={} error={}", term, e.toString());
+                    builder.carryOver(term, previous);
+                }
+            }
+            var snapshot = builder.build();
+            index.replace(snapshot);
+            log.info("LocalOfferIndexIngester: indexed terms={} offers={} failed={} ms={}", builder.termCount(),
+                    index.size(), failed, (System.nanoTime() - t0) / 1_000_000);
+        } catch (Exception e) {
+            log.error("LocalOfferIndexIngester: round failed", e);
+        }
+    }
+
+    /**
+     * Seed terms followed by the most common saved default-region queries,
+     * distinct after folding.
+     */
+    private List<String> terms() {
+        Map<String, String> byKey = new LinkedHashMap<>();
+        for (String t : seedTerms)
+            byKey.putIfAbsent(LocalOfferIndex.termKey(LocalOfferIndex.tokens(t)), t);
+        if (popularQueries > 0) {
+            Map<String, Integer> counts = new HashMap<>();
+            Map<String, String> sample = new HashMap<>();
+            for (var row : settings.findAllWidgets(WidgetKind.GROCERY_DEALS)) {
+                var s = settings.toGrocery(row);
+                if (!groceries.isDefaultRegion(s))
+                    continue;
+                String key = LocalOfferIndex.termKey(LocalOfferIndex.tokens(s.query()));
+                if (key.isEmpty())
+                    continue;
+                counts.merge(key, 1, Integer::sum);
+                sample.putIfAbsent(key, s.query().trim());
+            }
+            counts.entrySet().stream().sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .limit(popularQueries).forEach(e -> byKey.putIfAbsent(e.getKey(), sample.get(e.getKey())));
+        }
+        return List.copyOf(byKey.values());
+    }
+
+    private void pause() throws InterruptedException {
+        if (requestSpacingMs > 0)
+            Thread.sleep(requestSpacingMs);
+    }
+}
@@ -1,11 +1,10 @@
 package dev.thehub.backend.widgets.list;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.common.auth.UserAuthentication;
 import dev.thehub.backend.widgets.WidgetKind;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,20 +20,18 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/widgets")
 public class WidgetsListController {
 
+    private static final byte[] EMPTY_ARRAY = "[]".getBytes(StandardCharsets.UTF_8);
+
     private final JdbcTemplate jdbc;
-    private final ObjectMapper json;
 
     /**
      * Constructs the controller.
      *
      * @param jdbc
      *            JDBC template for database access
-     * @param objectMapper
-     *            optional ObjectMapper; if null, a default mapper is used
      */
-    public WidgetsListController(JdbcTemplate jdbc, ObjectMapper objectMapper) {
+    public WidgetsListController(JdbcTemplate jdbc) {
         this.jdbc = jdbc;
-        this.json = objectMapper != null ? objectMapper : new ObjectMapper();
     }
 
     /**
@@ -45,6 +42,11 @@ public class WidgetsListController {
      * e.g. 'server-pings' - includeSettings (optional, default true): include full
      * settings JSON
      *
+     * <p>
+     * The JSON array is built by Postgres ({@code json_agg}) and its bytes are
+     * written to the response as-is, so grid and settings are never parsed or
+     * re-serialized here.
+     *
      * @param auth
      *            JWT authentication
      * @param kind
@@ -52,55 +54,37 @@ public class WidgetsListController {
      *            {@link WidgetKind#from(String)})
      * @param includeSettings
      *            whether to include the settings JSON in the response
-     * @return list of maps containing id, instanceId, kind, grid, settings
+     * @return JSON array of objects containing id, instanceId, kind, grid,
+     *         settings
      */
-    @GetMapping("/list")
-    public List<Map<String, Object>> list(JwtAuthenticationToken auth, @RequestParam(required = false) String kind,
+    @GetMapping(path = "/list", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> list(JwtAuthenticationToken auth, @RequestParam(required = false) String kind,
             @RequestParam(required = false, defaultValue = "true") boolean includeSettings) {
-        var userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        var userId = UserAuthentication.userId(auth);
+        String kindValue = kind != null ? WidgetKind.from(kind).getValue() : null;
 
         String sql = """
-                select id, instance_id, kind, grid, settings
+                select coalesce(json_agg(json_build_object(
+                         'id', id::text,
+                         'instanceId', instance_id::text,
+                         'kind', kind,
+                         'grid', coalesce(grid, '{}'::jsonb),
+                         'settings', case when ? then coalesce(settings, '{}'::jsonb) else '{}'::jsonb end
+                       ) order by id asc), '[]'::json)::text
                 from user_widgets
                 where user_id = ?
                 %s
-                order by id asc
-                """.formatted(kind != null ? "and kind = ?" : "");
-
-        var rows = jdbc.query(sql, ps -> {
-            ps.setObject(1, userId);
-            if (kind != null) {
-                var parsed = WidgetKind.from(kind).getValue();
-                ps.setString(2, parsed);
-            }
-        }, (rs, i) -> {
-            Map<String, Object> grid = Map.of();
-            Map<String, Object> settings = Map.of();
-
-            try {
-                var gridStr = rs.getString("grid");
-                if (gridStr != null && !gridStr.isBlank()) {
-                    grid = json.readValue(gridStr, new TypeReference<Map<String, Object>>() {
-                    });
-                }
-            } catch (Exception ignored) {
-            }
-
-            if (includeSettings) {
-                try {
-                    var settingsStr = rs.getString("settings");
-                    if (settingsStr != null && !settingsStr.isBlank()) {
-                        settings = json.readValue(settingsStr, new TypeReference<Map<String, Object>>() {
-                        });
-                    }
-                } catch (Exception ignored) {
-                }
-            }
+                """.formatted(kindValue != null ? "and kind = ?" : "");
 
-            return Map.of("id", rs.getString("id"), "instanceId", rs.getObject("instance_id", UUID.class).toString(),
-                    "kind", rs.getString("kind"), "grid", grid, "settings", includeSettings ? settings : Map.of());
-        });
+        // Text column bytes arrive in the connection's client encoding (UTF-8).
+        byte[] body = jdbc.query(sql, ps -> {
+            ps.setBoolean(1, includeSettings);
+            ps.setObject(2, userId);
+            if (kindValue != null)
+                ps.setString(3, kindValue);
+        }, rs -> rs.next() ? rs.getBytes(1) : null);
 
-        return rows;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON)
+                .body(body != null ? body : EMPTY_ARRAY);
     }
 }
@@ -1,8 +1,15 @@
 package dev.thehub.backend.widgets.piHealth;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.common.auth.UserAuthentication;
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRow;
+import dev.thehub.backend.widgets.WidgetSettingsService;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.util.*;
+import org.springframework.http.ResponseEntity;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.web.bind.annotation.*;
@@ -15,17 +22,38 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/widgets")
 public class PiHealthController {
 
+    /** Longest history range served in one request. */
+    private static final Duration MAX_HISTORY_RANGE = Duration.ofDays(400);
+    private static final int MAX_INGEST_SAMPLES = 1000;
+
     private final JdbcTemplate jdbc;
     private final ObjectMapper json = new ObjectMapper();
+    private final PiMetricsRepository metrics;
+    private final PiMetricsIngestService ingest;
+    private final PiMetricsRingBuffers rings;
+    private final WidgetSettingsService widgets;
 
     /**
-     * Constructs the controller with a JDBC template for database access.
+     * Constructs the controller.
      *
      * @param jdbc
      *            Spring JdbcTemplate
+     * @param metrics
+     *            metrics history repository
+     * @param ingest
+     *            buffered sample writer
+     * @param rings
+     *            in-memory recent samples per device
+     * @param widgets
+     *            cached widget lookup
      */
-    public PiHealthController(JdbcTemplate jdbc) {
+    public PiHealthController(JdbcTemplate jdbc, PiMetricsRepository metrics, PiMetricsIngestService ingest,
+            PiMetricsRingBuffers rings, WidgetSettingsService widgets) {
         this.jdbc = jdbc;
+        this.metrics = metrics;
+        this.ingest = ingest;
+        this.rings = rings;
+        this.widgets = widgets;
     }
 
     /**
@@ -41,36 +69,23 @@ public class PiHealthController {
      */
     @GetMapping("/pi-health")
     public Map<String, Object> piHealth(JwtAuthenticationToken auth, @RequestParam UUID instanceId) {
-        var userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
-
-        // 1) read deviceId from this widget instance
-        UUID deviceId = jdbc.query("""
-                select (settings->>'deviceId')::uuid as device_id
-                from user_widgets
-                where user_id = ? and kind = 'pi-health' and instance_id = ?
-                limit 1
-                """, ps -> {
-            ps.setObject(1, userId);
-            ps.setObject(2, instanceId);
-        }, rs -> rs.next() ? rs.getObject("device_id", UUID.class) : null);
-
-        if (deviceId == null) {
-            return Map.of("status", "ok", "data", List.of(), "updatedAt", OffsetDateTime.now().toString());
-        }
+        var userId = UserAuthentication.userId(auth);
 
-        // 2) fetch latest metrics for that device (enforce ownership)
+        // widget -> device -> latest snapshot in one query (ownership enforced on both)
         var list = jdbc.query("""
                 select d.id as device_id,
                        d.name,
                        coalesce(m.updated_at, d.created_at) as last_seen,
                        m.snapshot,
                        m.updated_at
-                from pi_devices d
+                from user_widgets w
+                join pi_devices d on d.id = (w.settings->>'deviceId')::uuid and d.user_id = w.user_id
                 left join pi_metrics_latest m on m.device_id = d.id
-                where d.user_id = ? and d.id = ?
+                where w.user_id = ? and w.kind = 'pi-health' and w.instance_id = ?
+                limit 1
                 """, ps -> {
             ps.setObject(1, userId);
-            ps.setObject(2, deviceId);
+            ps.setObject(2, instanceId);
         }, (rs, i) -> {
             UUID devId = rs.getObject("device_id", UUID.class);
             String name = rs.getString("name");
@@ -93,4 +108,130 @@ public class PiHealthController {
 
         return Map.of("status", "ok", "data", list, "updatedAt", OffsetDateTime.now().toString());
     }
+
+    /**
+     * Accepts a batch of snapshots from a Pi agent for a device owned by the
+     * authenticated user. Samples are buffered and written asynchronously.
+     *
+     * @param auth
+     *            current JWT authentication
+     * @param deviceId
+     *            device the samples belong to
+     * @param body
+     *            snapshots
+     * @return 202 with the number of accepted samples and of samples rejected for
+     *         their timestamp; 404 for an unknown device; 400 for an empty or
+     *         oversized batch, or one whose timestamps are all out of range; 503
+     *         if the buffer is full
+     */
+    @PostMapping("/pi-health/{deviceId}/samples")
+    public ResponseEntity<?> ingest(JwtAuthenticationToken auth, @PathVariable UUID deviceId,
+            @RequestBody PiMetricsIngestRequest body) {
+        var userId = UserAuthentication.userId(auth);
+        var samples = body.samples();
+        if (samples == null || samples.isEmpty() || samples.size() > MAX_INGEST_SAMPLES)
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_samples"));
+        if (!metrics.isOwnedDevice(userId, deviceId))
+            return ResponseEntity.status(404).body(Map.of("error", "not_found"));
+
+        var result = ingest.accept(userId, deviceId, samples, Instant.now());
+        if (result.accepted() == 0 && result.queueFull())
+            return ResponseEntity.status(503).body(Map.of("error", "ingest_overloaded"));
+        if (result.accepted() == 0 && result.outOfWindow() > 0)
+            return ResponseEntity.badRequest().body(Map.of("error", "samples_out_of_window"));
+        return ResponseEntity.accepted()
+                .body(Map.of("accepted", result.accepted(), "outOfWindow", result.outOfWindow()));
+    }
+
+    /**
+     * Returns the metrics history of the widget's device over a time range, read
+     * from the finest stored resolution that still retains and suits the range
+     * (raw samples for short ranges, 1-minute/1-hour/1-day rollups for longer
+     * ones).
+     *
+     * @param auth
+     *            current JWT authentication
+     * @param instanceId
+     *            pi-health widget instance id
+     * @param from
+     *            range start (ISO-8601 instant); defaults to 24 hours before
+     *            {@code to}
+     * @param to
+     *            range end (ISO-8601 instant); defaults to now
+     * @return status, deviceId, the chosen resolution and the points
+     */
+    @GetMapping("/pi-health/history")
+    public ResponseEntity<?> history(JwtAuthenticationToken auth, @RequestParam UUID instanceId,
+            @RequestParam(required = false) Instant from, @RequestParam(required = false) Instant to) {
+        var userId = UserAuthentication.userId(auth);
+        Instant now = Instant.now();
+        Instant end = to != null ? to : now;
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        if (!start.isBefore(end) || Duration.between(start, end).compareTo(MAX_HISTORY_RANGE) > 0)
+            return ResponseEntity.badRequest().body(Map.of("error", "invalid_range"));
+
+        var resolution = PiMetricsResolution.forRange(start, end, now);
+        if (resolution == PiMetricsResolution.RAW) {
+            var recent = recentFromMemory(userId, instanceId, start, end);
+            if (recent != null)
+                return ResponseEntity.ok(Map.of("status", "ok", "deviceId", recent.getKey(), "resolution",
+                        resolution.label(), "points", recent.getValue()));
+        }
+
+        UUID deviceId = metrics.findWidgetDevice(userId, instanceId);
+        if (deviceId == null)
+            return ResponseEntity.ok(Map.of("status", "ok", "points", List.of()));
+
+        var points = metrics.history(deviceId, resolution, start, end);
+        return ResponseEntity.ok(Map.of("status", "ok", "deviceId", deviceId, "resolution", resolution.label(),
+                "points", points));
+    }
+
+    /**
+     * Serves a raw window from the device's ring buffer, reading only the part
+     * before the buffer's coverage from the database. The widget row comes from
+     * the row cache and the device's owner was verified at ingest, so a fully
+     * covered window costs one primary-key lookup of the device's ingest owner.
+     * The buffer is trusted only if this node owns the device's ingest, and
+     * only from when it took over; samples that reached other replicas are in
+     * the database.
+     *
+     * @return device id and points, or null if the device has nothing buffered
+     *         here or another node ingests it
+     */
+    private Map.Entry<UUID, List<PiMetricsPoint>> recentFromMemory(UUID userId, UUID instanceId, Instant start,
+            Instant end) {
+        WidgetRow row;
+        try {
+            row = widgets.requireWidget(userId, instanceId);
+        } catch (WidgetSettingsService.NotFoundOrNotOwned e) {
+            return null;
+        }
+        if (!WidgetKind.PI_HEALTH.getValue().equals(row.kind()))
+            return null;
+        UUID deviceId;
+        try {
+            deviceId = UUID.fromString(row.settings().path("deviceId").asText());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+
+        var window = rings.read(userId, deviceId, start, end);
+        if (window == null)
+            return null;
+        var owner = metrics.ingestOwner(deviceId);
+        if (owner == null || !owner.nodeId().equals(rings.nodeId()))
+            return null;
+        Instant completeSince = owner.since().isAfter(window.completeSince()) ? owner.since()
+                : window.completeSince();
+        if (!start.isBefore(completeSince))
+            return Map.entry(deviceId, window.points());
+
+        var points = new ArrayList<>(metrics.history(deviceId, PiMetricsResolution.RAW, start,
+                completeSince.isBefore(end) ? completeSince : end));
+        for (PiMetricsPoint p : window.points())
+            if (!p.ts().isBefore(completeSince))
+                points.add(p);
+        return Map.entry(deviceId, points);
+    }
 }
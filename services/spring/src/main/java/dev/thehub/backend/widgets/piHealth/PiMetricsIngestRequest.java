@@ -0,0 +1,26 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Batch of snapshots pushed by a Pi agent.
+ *
+ * @param samples
+ *            snapshots, in any order
+ */
+public record PiMetricsIngestRequest(List<Sample> samples) {
+
+    /**
+     * One snapshot.
+     *
+     * @param ts
+     *            when the snapshot was taken; defaults to the time of receipt
+     * @param snapshot
+     *            metrics keyed like {@link PiHealthDTO} fields, plus anything else
+     *            the agent reports
+     */
+    public record Sample(Instant ts, Map<String, Object> snapshot) {
+    }
+}
@@ -0,0 +1,231 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Buffers Pi metrics samples pushed by agents and writes them in batches.
+ * <p>
+ * Ingest requests only validate, append to the in-memory
+ * {@link PiMetricsRingBuffers} and enqueue; a scheduled flush drains the
+ * queue into {@code pi_metrics_samples} with one JDBC batch per round and
+ * stores the newest snapshot per device in {@code pi_metrics_latest}. When the
+ * queue is full new samples are rejected rather than blocking the request.
+ * <p>
+ * Sample timestamps come from the agent's clock. Samples up to
+ * {@code max-clock-skew} in the future are clamped to the time of receipt;
+ * samples further ahead or older than {@code max-sample-age} are rejected, so
+ * a wrong clock cannot write outside the partitions and rollup windows that
+ * exist. If a write fails the batch goes back into the queue (as far as it
+ * fits) and the latest snapshots stay pending for the next flush.
+ */
+@Service
+public class PiMetricsIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(PiMetricsIngestService.class);
+
+    private final PiMetricsRepository repo;
+    private final PiMetricsRingBuffers rings;
+    private final ObjectMapper json;
+    private final int batchSize;
+    private final BlockingQueue<PiMetricsSample> queue;
+    /** Newest snapshot JSON per device since the last flush. */
+    private final ConcurrentHashMap<UUID, Map.Entry<String, Instant>> latest = new ConcurrentHashMap<>();
+    private final Duration maxSampleAge;
+    private final Duration maxClockSkew;
+    /** Oldest sample time written since the last {@link #takeOldestWritten()}. */
+    private final AtomicReference<Instant> oldestWritten = new AtomicReference<>();
+
+    /**
+     * Outcome of one ingest request.
+     *
+     * @param accepted
+     *            samples buffered for writing
+     * @param outOfWindow
+     *            samples rejected for a timestamp outside the accepted window
+     * @param queueFull
+     *            whether samples were turned away because the queue was full
+     */
+    public record Accepted(int accepted, int outOfWindow, boolean queueFull) {
+    }
+
+    public PiMetricsIngestService(PiMetricsRepository repo, PiMetricsRingBuffers rings, ObjectMapper json,
+            @Value("${pi-metrics.ingest.queue-capacity:50000}") int queueCapacity,
+            @Value("${pi-metrics.ingest.batch-size:2000}") int batchSize,
+            @Value("${pi-metrics.ingest.max-sample-age:PT24H}") Duration maxSampleAge,
+            @Value("${pi-metrics.ingest.max-clock-skew:PT5M}") Duration maxClockSkew) {
+        this.repo = repo;
+        this.rings = rings;
+        this.json = json;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxSampleAge = maxSampleAge;
+        this.maxClockSkew = maxClockSkew;
+    }
+
+    /**
+     * Buffers and queues samples of one device.
+     *
+     * @param ownerId
+     *            user owning the device (ownership must already be checked)
+     * @param deviceId
+     *            device id
+     * @param samples
+     *            snapshots from the agent
+     * @param receivedAt
+     *            time used for samples without a timestamp, and the reference for
+     *            the accepted time window
+     * @return how many samples were accepted and why others were not
+     */
+    public Accepted accept(UUID ownerId, UUID deviceId, List<PiMetricsIngestRequest.Sample> samples,
+            Instant receivedAt) {
+        var accepted = new ArrayList<PiMetricsSample>(samples.size());
+        PiMetricsIngestRequest.Sample newest = null;
+        Instant newestTs = null;
+        boolean full = false;
+        int outOfWindow = 0;
+        Instant oldestAllowed = receivedAt.minus(maxSampleAge);
+        Instant newestAllowed = receivedAt.plus(maxClockSkew);
+        for (PiMetricsIngestRequest.Sample s : samples) {
+            if (s == null || s.snapshot() == null)
+                continue;
+            Instant ts = s.ts() != null ? s.ts() : receivedAt;
+            if (ts.isBefore(oldestAllowed) || ts.isAfter(newestAllowed)) {
+                outOfWindow++;
+                continue;
+            }
+            if (ts.isAfter(receivedAt))
+                ts = receivedAt;
+            var sample = PiMetricsSample.fromSnapshot(deviceId, ts, s.snapshot());
+            if (!queue.offer(sample)) {
+                full = true;
+                break;
+            }
+            accepted.add(sample);
+            if (newestTs == null || ts.isAfter(newestTs)) {
+                newest = s;
+                newestTs = ts;
+            }
+        }
+        if (newest != null)
+            rememberLatest(deviceId, newest.snapshot(), newestTs);
+        accepted.sort(Comparator.comparing(PiMetricsSample::ts));
+        rings.append(ownerId, deviceId, accepted);
+        if (full)
+            log.warn("PiMetrics ingest queue full deviceId={} sent={} accepted={}", deviceId, samples.size(),
+                    accepted.size());
+        if (outOfWindow > 0)
+            log.warn("PiMetrics samples outside the time window deviceId={} rejected={}", deviceId, outOfWindow);
+        return new Accepted(accepted.size(), outOfWindow, full);
+    }
+
+    private void rememberLatest(UUID deviceId, Map<String, Object> snapshot, Instant ts) {
+        String snapshotJson;
+        try {
+            snapshotJson = json.writeValueAsString(snapshot);
+        } catch (Exception e) {
+            return;
+        }
+        var entry = new AbstractMap.SimpleImmutableEntry<>(snapshotJson, ts);
+        latest.merge(deviceId, entry, (old, neu) -> neu.getValue().isBefore(old.getValue()) ? old : neu);
+    }
+
+    /** Number of samples waiting for the next flush. */
+    public int queued() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the oldest sample time written since the previous call, or null if
+     * nothing was written. The minute rollup starts there when that is earlier
+     * than its usual lookback, so late samples reach the rollups too.
+     */
+    public Instant takeOldestWritten() {
+        return oldestWritten.getAndSet(null);
+    }
+
+    /**
+     * Writes queued samples and latest snapshots, then claims the written
+     * devices' ingest for this node. A failed batch is put back into the queue
+     * and the round ends; latest snapshots are only dropped from memory once
+     * written, and only if no newer one arrived meanwhile.
+     */
+    @Scheduled(fixedDelayString = "${pi-metrics.ingest.flush-interval-ms:2000}")
+    public void flush() {
+        var batch = new ArrayList<PiMetricsSample>(Math.min(batchSize, queue.size()));
+        var devices = new HashSet<UUID>();
+        int written = 0;
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                repo.insertSamples(batch);
+            } catch (Exception e) {
+                int requeued = requeue(batch);
+                log.error("PiMetrics flush failed batch={} requeued={} queued={}", batch.size(), requeued,
+                        queue.size(), e);
+                break;
+            }
+            written += batch.size();
+            for (PiMetricsSample sample : batch)
+                devices.add(sample.deviceId());
+            Instant oldest = batch.stream().map(PiMetricsSample::ts).min(Comparator.naturalOrder()).orElseThrow();
+            oldestWritten.accumulateAndGet(oldest, (a, b) -> a == null || b.isBefore(a) ? b : a);
+            batch.clear();
+        }
+
+        if (!devices.isEmpty()) {
+            try {
+                repo.claimIngest(devices, rings.nodeId());
+            } catch (Exception e) {
+                log.error("PiMetrics ingest claim failed devices={}", devices.size(), e);
+            }
+        }
+
+        if (!latest.isEmpty()) {
+            var snapshot = Map.copyOf(latest);
+            try {
+                repo.upsertLatest(snapshot);
+                snapshot.forEach(latest::remove);
+            } catch (Exception e) {
+                log.error("PiMetrics latest snapshot write failed devices={}", snapshot.size(), e);
+            }
+        }
+        if (written > 0)
+            log.debug("PiMetrics flushed samples={}", written);
+    }
+
+    /** Puts a failed batch back as far as the queue has room; returns how many fit. */
+    private int requeue(List<PiMetricsSample> batch) {
+        int n = 0;
+        for (PiMetricsSample sample : batch) {
+            if (!queue.offer(sample))
+                break;
+            n++;
+        }
+        if (n < batch.size())
+            log.warn("PiMetrics dropped samples after a failed flush dropped={}", batch.size() - n);
+        return n;
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
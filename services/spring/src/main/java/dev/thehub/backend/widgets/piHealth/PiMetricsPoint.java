@@ -0,0 +1,26 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.time.Instant;
+
+/**
+ * One point of a Pi metrics history series: a raw sample or the averages of a
+ * rollup bucket starting at {@code ts}.
+ *
+ * @param ts
+ *            sample time or bucket start
+ * @param cpuTempC
+ *            CPU temperature in Celsius
+ * @param cpuPct
+ *            CPU utilization percent
+ * @param memUsedMb
+ *            used memory in MB
+ * @param diskUsedPct
+ *            disk usage percent
+ * @param netUpKbps
+ *            upstream bandwidth in Kbps
+ * @param netDownKbps
+ *            downstream bandwidth in Kbps
+ */
+public record PiMetricsPoint(Instant ts, Double cpuTempC, Double cpuPct, Double memUsedMb, Double diskUsedPct,
+        Double netUpKbps, Double netDownKbps) {
+}
@@ -0,0 +1,271 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Data access for Pi metrics history: raw samples, rollups and partition
+ * maintenance. See the {@code pi_metrics_timeseries} migration for the schema.
+ */
+@Repository
+public class PiMetricsRepository {
+
+    /** Metric columns shared by the raw table and the rollups. */
+    private static final List<String> METRICS = List.of("cpu_temp_c", "cpu_pct", "mem_used_mb", "disk_used_pct",
+            "net_up_kbps", "net_down_kbps");
+
+    private static final String INSERT_SAMPLE = """
+            insert into public.pi_metrics_samples
+              (device_id, ts, cpu_temp_c, cpu_pct, mem_used_mb, disk_used_pct, net_up_kbps, net_down_kbps)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final int[] SAMPLE_TYPES = {Types.OTHER, Types.TIMESTAMP_WITH_TIMEZONE, Types.DOUBLE, Types.DOUBLE,
+            Types.INTEGER, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE};
+
+    private final JdbcTemplate jdbc;
+
+    public PiMetricsRepository(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /**
+     * Whether the device exists and belongs to the user.
+     *
+     * @param userId
+     *            user id
+     * @param deviceId
+     *            device id
+     * @return true if owned
+     */
+    public boolean isOwnedDevice(UUID userId, UUID deviceId) {
+        Boolean owned = jdbc.queryForObject("select exists (select 1 from pi_devices where id = ? and user_id = ?)",
+                Boolean.class, deviceId, userId);
+        return Boolean.TRUE.equals(owned);
+    }
+
+    /**
+     * Resolves the device of a pi-health widget, enforcing that both the widget
+     * and the device belong to the user.
+     *
+     * @param userId
+     *            user id
+     * @param instanceId
+     *            widget instance id
+     * @return device id, or null if none
+     */
+    public UUID findWidgetDevice(UUID userId, UUID instanceId) {
+        return jdbc.query("""
+                select d.id
+                from user_widgets w
+                join pi_devices d on d.id = (w.settings->>'deviceId')::uuid and d.user_id = w.user_id
+                where w.user_id = ? and w.kind = 'pi-health' and w.instance_id = ?
+                limit 1
+                """, ps -> {
+            ps.setObject(1, userId);
+            ps.setObject(2, instanceId);
+        }, rs -> rs.next() ? rs.getObject(1, UUID.class) : null);
+    }
+
+    /**
+     * Appends samples with one JDBC batch.
+     *
+     * @param samples
+     *            samples to insert
+     */
+    public void insertSamples(List<PiMetricsSample> samples) {
+        List<Object[]> rows = samples.stream()
+                .map(s -> new Object[]{s.deviceId(), Timestamp.from(s.ts()), s.cpuTempC(), s.cpuPct(), s.memUsedMb(),
+                        s.diskUsedPct(), s.netUpKbps(), s.netDownKbps()})
+                .toList();
+        jdbc.batchUpdate(INSERT_SAMPLE, rows, SAMPLE_TYPES);
+    }
+
+    /**
+     * Stores the newest snapshot per device in {@code pi_metrics_latest}, keeping
+     * a newer row if one is already there.
+     *
+     * @param latest
+     *            device id to (snapshot JSON, time)
+     */
+    public void upsertLatest(Map<UUID, Map.Entry<String, Instant>> latest) {
+        List<Object[]> rows = latest.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue().getKey(), Timestamp.from(e.getValue().getValue())})
+                .toList();
+        jdbc.batchUpdate("""
+                insert into pi_metrics_latest (device_id, snapshot, updated_at)
+                values (?, ?::jsonb, ?)
+                on conflict (device_id) do update set
+                  snapshot = excluded.snapshot,
+                  updated_at = excluded.updated_at
+                where pi_metrics_latest.updated_at is null or pi_metrics_latest.updated_at <= excluded.updated_at
+                """, rows, new int[]{Types.OTHER, Types.VARCHAR, Types.TIMESTAMP_WITH_TIMEZONE});
+    }
+
+    /**
+     * Records that {@code nodeId} ingests the given devices. A device whose
+     * ingest moves to this node gets a new {@code since}; devices the node
+     * already owns keep theirs.
+     *
+     * @param deviceIds
+     *            devices whose samples this node just wrote
+     * @param nodeId
+     *            {@link PiMetricsRingBuffers#nodeId()} of this node
+     */
+    public void claimIngest(Collection<UUID> deviceIds, String nodeId) {
+        List<Object[]> rows = deviceIds.stream().map(d -> new Object[]{d, nodeId}).toList();
+        jdbc.batchUpdate("""
+                insert into public.pi_metrics_ingest_nodes (device_id, node_id, since)
+                values (?, ?, now())
+                on conflict (device_id) do update set
+                  node_id = excluded.node_id,
+                  since = excluded.since
+                where pi_metrics_ingest_nodes.node_id <> excluded.node_id
+                """, rows, new int[]{Types.OTHER, Types.VARCHAR});
+    }
+
+    /**
+     * The node currently ingesting a device's samples.
+     *
+     * @param deviceId
+     *            device id
+     * @return node id and since when it ingests, or null if no node claimed it
+     */
+    public IngestOwner ingestOwner(UUID deviceId) {
+        return jdbc.query("select node_id, since from public.pi_metrics_ingest_nodes where device_id = ?",
+                ps -> ps.setObject(1, deviceId), rs -> rs.next()
+                        ? new IngestOwner(rs.getString("node_id"), rs.getTimestamp("since").toInstant())
+                        : null);
+    }
+
+    /**
+     * Node that ingests a device's samples.
+     *
+     * @param nodeId
+     *            {@link PiMetricsRingBuffers#nodeId()} of the node
+     * @param since
+     *            when the node took over the device's ingest
+     */
+    public record IngestOwner(String nodeId, Instant since) {
+    }
+
+    /**
+     * Recomputes the buckets of a rollup level from {@code from} onwards out of
+     * the next finer level. Buckets are upserted, so re-running over the same
+     * range (including the current, still filling bucket) is safe.
+     *
+     * @param level
+     *            rollup level (not {@link PiMetricsResolution#RAW})
+     * @param from
+     *            start of the first bucket to recompute; should be bucket-aligned
+     * @return number of buckets written
+     */
+    public int rollup(PiMetricsResolution level, Instant from) {
+        if (level == PiMetricsResolution.RAW)
+            throw new IllegalArgumentException("raw_is_not_a_rollup");
+        PiMetricsResolution source = PiMetricsResolution.values()[level.ordinal() - 1];
+        String unit = switch (level) {
+            case MINUTE -> "minute";
+            case HOUR -> "hour";
+            default -> "day";
+        };
+
+        String aggregates;
+        String count;
+        if (source == PiMetricsResolution.RAW) {
+            count = "count(*)";
+            aggregates = METRICS.stream().map(m -> "avg(" + m + ")").collect(Collectors.joining(", "));
+        } else {
+            // averages of averages, weighted by how many samples each bucket holds
+            count = "sum(samples)";
+            aggregates = METRICS.stream()
+                    .map(m -> "sum(" + m + " * samples) / nullif(sum(samples) filter (where " + m
+                            + " is not null), 0)")
+                    .collect(Collectors.joining(", "));
+        }
+        String updates = METRICS.stream().map(m -> m + " = excluded." + m).collect(Collectors.joining(", "));
+
+        String sql = """
+                insert into public.%s (device_id, bucket, samples, %s)
+                select device_id, date_trunc('%s', %s, 'UTC') as b, %s, %s
+                from public.%s
+                where %s >= ?
+                group by device_id, b
+                on conflict (device_id, bucket) do update set samples = excluded.samples, %s
+                """.formatted(level.table(), String.join(", ", METRICS), unit, source.timeColumn(), count, aggregates,
+                source.table(), source.timeColumn(), updates);
+        return jdbc.update(sql, Timestamp.from(from));
+    }
+
+    /**
+     * Reads a device's series from one resolution.
+     *
+     * @param deviceId
+     *            device id
+     * @param resolution
+     *            table to read
+     * @param from
+     *            range start (inclusive)
+     * @param to
+     *            range end (exclusive)
+     * @return points in time order
+     */
+    public List<PiMetricsPoint> history(UUID deviceId, PiMetricsResolution resolution, Instant from, Instant to) {
+        String t = resolution.timeColumn();
+        String sql = """
+                select %s as t, %s
+                from public.%s
+                where device_id = ? and %s >= ? and %s < ?
+                order by %s
+                """.formatted(t, String.join(", ", METRICS), resolution.table(), t, t, t);
+        return jdbc.query(sql, ps -> {
+            ps.setObject(1, deviceId);
+            ps.setTimestamp(2, Timestamp.from(from));
+            ps.setTimestamp(3, Timestamp.from(to));
+        }, (rs, i) -> new PiMetricsPoint(rs.getTimestamp("t").toInstant(), rs.getObject("cpu_temp_c", Double.class),
+                rs.getObject("cpu_pct", Double.class), rs.getObject("mem_used_mb", Double.class),
+                rs.getObject("disk_used_pct", Double.class), rs.getObject("net_up_kbps", Double.class),
+                rs.getObject("net_down_kbps", Double.class)));
+    }
+
+    /**
+     * Creates the daily raw partition of one UTC day, if missing. Rows of that
+     * day that already landed in the default partition are moved into it.
+     */
+    public void ensurePartition(LocalDate day) {
+        jdbc.query("select public.ensure_pi_metrics_partition(?)", rs -> {
+        }, java.sql.Date.valueOf(day));
+    }
+
+    /**
+     * Drops raw partitions of days before {@code cutoff} and deletes older rows
+     * that ended up in the default partition.
+     *
+     * @return number of partitions dropped
+     */
+    public int dropPartitionsBefore(LocalDate cutoff) {
+        Integer n = jdbc.queryForObject("select public.drop_pi_metrics_partitions_before(?)", Integer.class,
+                java.sql.Date.valueOf(cutoff));
+        jdbc.update("delete from public.pi_metrics_samples_default where ts < ?",
+                Timestamp.from(cutoff.atStartOfDay(java.time.ZoneOffset.UTC).toInstant()));
+        return n != null ? n : 0;
+    }
+
+    /**
+     * Deletes rollup buckets older than {@code cutoff}.
+     *
+     * @return number of buckets deleted
+     */
+    public int deleteRollupsBefore(PiMetricsResolution level, Instant cutoff) {
+        return jdbc.update("delete from public." + level.table() + " where bucket < ?", Timestamp.from(cutoff));
+    }
+}
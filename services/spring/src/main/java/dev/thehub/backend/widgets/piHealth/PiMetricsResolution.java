@@ -0,0 +1,83 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Storage resolutions of Pi metrics history, finest first.
+ * <p>
+ * Each level names its table, bucket size, how long it is kept and the longest
+ * range it serves; {@link #forRange} picks the finest level that covers a
+ * request without returning more than a sparkline's worth of points.
+ */
+public enum PiMetricsResolution {
+
+    RAW("raw", "pi_metrics_samples", "ts", null, Duration.ofDays(7), Duration.ofHours(1)),
+    MINUTE("1m", "pi_metrics_1m", "bucket", ChronoUnit.MINUTES, Duration.ofDays(14), Duration.ofHours(12)),
+    HOUR("1h", "pi_metrics_1h", "bucket", ChronoUnit.HOURS, Duration.ofDays(400), Duration.ofDays(30)),
+    DAY("1d", "pi_metrics_1d", "bucket", ChronoUnit.DAYS, null, null);
+
+    private final String label;
+    private final String table;
+    private final String timeColumn;
+    private final ChronoUnit bucket;
+    private final Duration retention;
+    private final Duration maxRange;
+
+    PiMetricsResolution(String label, String table, String timeColumn, ChronoUnit bucket, Duration retention,
+            Duration maxRange) {
+        this.label = label;
+        this.table = table;
+        this.timeColumn = timeColumn;
+        this.bucket = bucket;
+        this.retention = retention;
+        this.maxRange = maxRange;
+    }
+
+    /**
+     * Picks the finest resolution whose data still reaches back to {@code from}
+     * and whose bucket count over the range stays within a sparkline.
+     *
+     * @param from
+     *            range start (inclusive)
+     * @param to
+     *            range end (exclusive)
+     * @param now
+     *            current time, for retention
+     * @return the resolution to read from
+     */
+    public static PiMetricsResolution forRange(Instant from, Instant to, Instant now) {
+        Duration range = Duration.between(from, to);
+        for (PiMetricsResolution r : values()) {
+            boolean retained = r.retention == null || !from.isBefore(now.minus(r.retention));
+            boolean fits = r.maxRange == null || range.compareTo(r.maxRange) <= 0;
+            if (retained && fits)
+                return r;
+        }
+        return DAY;
+    }
+
+    /** Short name used in API responses, e.g. {@code 1m}. */
+    public String label() {
+        return label;
+    }
+
+    String table() {
+        return table;
+    }
+
+    String timeColumn() {
+        return timeColumn;
+    }
+
+    /** Bucket unit of a rollup level; null for raw samples. */
+    ChronoUnit bucket() {
+        return bucket;
+    }
+
+    /** How long the level is kept; null for forever. */
+    Duration retention() {
+        return retention;
+    }
+}
@@ -0,0 +1,265 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recent raw Pi metrics per device, kept in memory for the short windows the
+ * pi-health widget polls.
+ * <p>
+ * Each device gets a fixed-size ring of parallel primitive arrays (epoch millis
+ * plus one {@code double[]} per metric, NaN for a missing value) that ingest
+ * appends to. A ring knows since when it holds every accepted sample of its
+ * device, so a reader can tell whether a window is fully covered or the older
+ * part has to come from the database.
+ * <p>
+ * Memory is bounded by {@code pi-metrics.ring.capacity-per-device} samples per
+ * device and {@code pi-metrics.ring.max-devices} devices; beyond that the
+ * device with the oldest write is dropped. Rings without a write for
+ * {@code pi-metrics.ring.max-idle} (e.g. of deleted devices) are dropped by a
+ * periodic sweep, and a device that changed owner starts a new ring.
+ * <p>
+ * Coverage only speaks for samples ingested by this instance. With several
+ * replicas, a reader must also check that {@link #nodeId()} owns the device's
+ * ingest ({@link PiMetricsRepository#ingestOwner}) and trust coverage only
+ * from when it took over.
+ */
+@Component
+public class PiMetricsRingBuffers {
+
+    private static final int METRICS = 6;
+
+    private final int capacity;
+    private final int maxDevices;
+    private final long maxIdleNanos;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final ConcurrentHashMap<UUID, Ring> rings = new ConcurrentHashMap<>();
+
+    public PiMetricsRingBuffers(@Value("${pi-metrics.ring.capacity-per-device:3600}") int capacity,
+            @Value("${pi-metrics.ring.max-devices:500}") int maxDevices,
+            @Value("${pi-metrics.ring.max-idle:PT1H}") Duration maxIdle) {
+        this.capacity = Math.max(1, capacity);
+        this.maxDevices = Math.max(1, maxDevices);
+        this.maxIdleNanos = maxIdle.toNanos();
+    }
+
+    /** Identifies this instance's rings when claiming a device's ingest. */
+    public String nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Appends samples of one device. A sample older than the device's newest
+     * buffered sample is inserted in time order, so coverage stays truthful;
+     * one older than the ring's coverage is skipped (it still reaches the
+     * database).
+     *
+     * @param ownerId
+     *            user owning the device, checked again on read
+     * @param deviceId
+     *            device id
+     * @param samples
+     *            samples sorted by time
+     */
+    public void append(UUID ownerId, UUID deviceId, List<PiMetricsSample> samples) {
+        if (samples.isEmpty())
+            return;
+        Ring ring = rings.get(deviceId);
+        if (ring != null && !ring.ownerId.equals(ownerId)) {
+            // the device changed owner; the previous owner's samples must not leak
+            rings.remove(deviceId, ring);
+            ring = null;
+        }
+        if (ring == null) {
+            if (rings.size() >= maxDevices)
+                evictStalest();
+            ring = rings.computeIfAbsent(deviceId, id -> new Ring(ownerId, capacity));
+        }
+        ring.append(samples);
+    }
+
+    /**
+     * Reads buffered samples of {@code [from, to)}.
+     *
+     * @param ownerId
+     *            requesting user; rings of other users' devices are not returned
+     * @param deviceId
+     *            device id
+     * @param from
+     *            range start (inclusive)
+     * @param to
+     *            range end (exclusive)
+     * @return the buffered points and the instant from which they are complete,
+     *         or null if nothing is buffered for the device
+     */
+    public Window read(UUID ownerId, UUID deviceId, Instant from, Instant to) {
+        Ring ring = rings.get(deviceId);
+        if (ring == null || !ring.ownerId.equals(ownerId))
+            return null;
+        return ring.read(from.toEpochMilli(), to.toEpochMilli());
+    }
+
+    /**
+     * Drops rings that were not written for {@code pi-metrics.ring.max-idle}.
+     * Devices are deleted outside the backend, so an idle ring is how a deleted
+     * device shows up here.
+     */
+    @Scheduled(fixedDelayString = "${pi-metrics.ring.sweep-interval-ms:60000}")
+    public void dropIdle() {
+        long now = System.nanoTime();
+        rings.values().removeIf(r -> now - r.lastWriteNanos > maxIdleNanos);
+    }
+
+    /** Number of devices with a ring. */
+    public int deviceCount() {
+        return rings.size();
+    }
+
+    private void evictStalest() {
+        UUID stalest = null;
+        long oldest = Long.MAX_VALUE;
+        for (Map.Entry<UUID, Ring> e : rings.entrySet()) {
+            long w = e.getValue().lastWriteNanos;
+            if (w < oldest) {
+                oldest = w;
+                stalest = e.getKey();
+            }
+        }
+        if (stalest != null)
+            rings.remove(stalest);
+    }
+
+    /**
+     * Result of a buffered read.
+     *
+     * @param points
+     *            buffered points in time order
+     * @param completeSince
+     *            every sample at or after this instant is in {@code points} (for
+     *            the requested range)
+     */
+    public record Window(List<PiMetricsPoint> points, Instant completeSince) {
+    }
+
+    private static final class Ring {
+        final UUID ownerId;
+        final long[] ts;
+        final double[][] values;
+        /** Index of the next write. */
+        int head;
+        int size;
+        /** Time since which the ring holds every accepted sample. */
+        long completeSince = Long.MAX_VALUE;
+        volatile long lastWriteNanos;
+
+        Ring(UUID ownerId, int capacity) {
+            this.ownerId = ownerId;
+            this.lastWriteNanos = System.nanoTime();
+            this.ts = new long[capacity];
+            this.values = new double[METRICS][capacity];
+        }
+
+        synchronized void append(List<PiMetricsSample> samples) {
+            int cap = ts.length;
+            for (PiMetricsSample s : samples) {
+                long t = s.ts().toEpochMilli();
+                if (size > 0 && t < ts[(head - 1 + cap) % cap]) {
+                    if (t >= completeSince)
+                        insert(t, s);
+                    continue;
+                }
+                boolean full = size == cap;
+                if (!full)
+                    size++;
+                if (completeSince == Long.MAX_VALUE)
+                    completeSince = t;
+                write(head, t, s);
+                head = (head + 1) % cap;
+                // the oldest sample was overwritten; coverage now starts at the next one
+                if (full)
+                    completeSince = ts[head];
+            }
+            lastWriteNanos = System.nanoTime();
+        }
+
+        /** Inserts a late sample at its place in time order; {@code t} is within coverage. */
+        private void insert(long t, PiMetricsSample s) {
+            int cap = ts.length;
+            int start = (head - size + cap) % cap;
+            // logical index of the first sample newer than t; at least 1 since t >= the oldest
+            int pos = size;
+            while (pos > 0 && ts[(start + pos - 1) % cap] > t)
+                pos--;
+            if (size == cap) {
+                // drop the oldest sample by shifting the older part towards it
+                for (int i = 1; i < pos; i++)
+                    move((start + i) % cap, (start + i - 1) % cap);
+                write((start + pos - 1) % cap, t, s);
+                completeSince = ts[start];
+            } else {
+                for (int i = size; i > pos; i--)
+                    move((start + i - 1) % cap, (start + i) % cap);
+                write((start + pos) % cap, t, s);
+                head = (head + 1) % cap;
+                size++;
+            }
+        }
+
+        private void write(int idx, long t, PiMetricsSample s) {
+            ts[idx] = t;
+            values[0][idx] = orNaN(s.cpuTempC());
+            values[1][idx] = orNaN(s.cpuPct());
+            values[2][idx] = s.memUsedMb() != null ? s.memUsedMb() : Double.NaN;
+            values[3][idx] = orNaN(s.diskUsedPct());
+            values[4][idx] = orNaN(s.netUpKbps());
+            values[5][idx] = orNaN(s.netDownKbps());
+        }
+
+        private void move(int from, int to) {
+            ts[to] = ts[from];
+            for (double[] metric : values)
+                metric[to] = metric[from];
+        }
+
+        synchronized Window read(long from, long to) {
+            int cap = ts.length;
+            int start = (head - size + cap) % cap;
+            // binary search for the first sample >= from in the logical order
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (ts[(start + mid) % cap] < from)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            var points = new ArrayList<PiMetricsPoint>();
+            for (int i = lo; i < size; i++) {
+                int idx = (start + i) % cap;
+                if (ts[idx] >= to)
+                    break;
+                points.add(new PiMetricsPoint(Instant.ofEpochMilli(ts[idx]), box(values[0][idx]),
+                        box(values[1][idx]), box(values[2][idx]), box(values[3][idx]), box(values[4][idx]),
+                        box(values[5][idx])));
+            }
+            return new Window(points, Instant.ofEpochMilli(completeSince));
+        }
+
+        private static double orNaN(Double d) {
+            return d != null ? d : Double.NaN;
+        }
+
+        private static Double box(double d) {
+            return Double.isNaN(d) ? null : d;
+        }
+    }
+}
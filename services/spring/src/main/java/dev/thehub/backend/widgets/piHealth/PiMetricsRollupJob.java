@@ -0,0 +1,150 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled jobs that downsample Pi metrics and keep the raw table's partitions
+ * in shape.
+ * <p>
+ * Each rollup recomputes the last few buckets of its level from the next finer
+ * one (raw → 1m → 1h → 1d), so the still-filling current bucket is picked up on
+ * the next run. Samples that arrive late (agents may send up to
+ * {@code pi-metrics.ingest.max-sample-age} old data) widen the next minute
+ * rollup back to the oldest written sample, and every level passes the start
+ * of what it recomputed on to the next coarser one. A failed rollup keeps its
+ * start for the next run.
+ * <p>
+ * Partitions for the next few days are ensured at startup and hourly, one day
+ * at a time, so a failure for one day neither blocks the others nor waits a
+ * day for the next attempt.
+ */
+@Component
+public class PiMetricsRollupJob implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(PiMetricsRollupJob.class);
+
+    /** Days of raw partitions kept ready, starting today (UTC). */
+    static final int PARTITION_DAYS_AHEAD = 3;
+
+    private final PiMetricsRepository repo;
+    private final PiMetricsIngestService ingest;
+    /** Per rollup level: earliest time that must be recomputed on its next run. */
+    private final Map<PiMetricsResolution, AtomicReference<Instant>> pendingFrom = new EnumMap<>(
+            PiMetricsResolution.class);
+
+    public PiMetricsRollupJob(PiMetricsRepository repo, PiMetricsIngestService ingest) {
+        this.repo = repo;
+        this.ingest = ingest;
+        for (PiMetricsResolution level : PiMetricsResolution.values())
+            if (level != PiMetricsResolution.RAW)
+                pendingFrom.put(level, new AtomicReference<>());
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        ensurePartitions();
+    }
+
+    /** Rolls raw samples into 1-minute buckets, every minute. */
+    @Scheduled(cron = "5 * * * * ?")
+    public void rollupMinutes() {
+        Instant late = ingest.takeOldestWritten();
+        if (late != null)
+            markPending(PiMetricsResolution.MINUTE, late);
+        rollup(PiMetricsResolution.MINUTE, Duration.ofMinutes(5));
+    }
+
+    /** Rolls 1-minute buckets into hours, every 5 minutes. */
+    @Scheduled(cron = "15 */5 * * * ?")
+    public void rollupHours() {
+        rollup(PiMetricsResolution.HOUR, Duration.ofHours(2));
+    }
+
+    /** Rolls hours into days, hourly. */
+    @Scheduled(cron = "30 7 * * * ?")
+    public void rollupDays() {
+        rollup(PiMetricsResolution.DAY, Duration.ofDays(2));
+    }
+
+    /**
+     * Creates the daily partitions for today and the next days if missing, at
+     * startup and hourly.
+     *
+     * @return number of days whose partition could not be ensured
+     */
+    @Scheduled(cron = "0 20 * * * ?", zone = "UTC")
+    public int ensurePartitions() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        int failed = 0;
+        for (int i = 0; i < PARTITION_DAYS_AHEAD; i++) {
+            LocalDate day = today.plusDays(i);
+            try {
+                repo.ensurePartition(day);
+            } catch (Exception e) {
+                failed++;
+                log.error("PiMetricsRollupJob: ensuring partition failed day={}", day, e);
+            }
+        }
+        return failed;
+    }
+
+    /**
+     * Applies retention, daily at 03:00 UTC. Dropping raw partitions and deleting
+     * old buckets of each rollup level are independent steps; one failing does
+     * not skip the others.
+     */
+    @Scheduled(cron = "0 0 3 * * ?", zone = "UTC")
+    public void maintain() {
+        Instant now = Instant.now();
+        int dropped = 0;
+        int deleted = 0;
+        try {
+            dropped = repo.dropPartitionsBefore(
+                    LocalDate.ofInstant(now.minus(PiMetricsResolution.RAW.retention()), ZoneOffset.UTC));
+        } catch (Exception e) {
+            log.error("PiMetricsRollupJob: dropping raw partitions failed", e);
+        }
+        for (PiMetricsResolution level : PiMetricsResolution.values()) {
+            if (level == PiMetricsResolution.RAW || level.retention() == null)
+                continue;
+            try {
+                deleted += repo.deleteRollupsBefore(level, now.minus(level.retention()));
+            } catch (Exception e) {
+                log.error("PiMetricsRollupJob: retention failed level={}", level.label(), e);
+            }
+        }
+        log.info("PiMetricsRollupJob: maintenance done partitionsDropped={} bucketsDeleted={}", dropped, deleted);
+    }
+
+    private void rollup(PiMetricsResolution level, Duration lookback) {
+        Instant from = Instant.now().minus(lookback);
+        Instant pending = pendingFrom.get(level).getAndSet(null);
+        if (pending != null && pending.isBefore(from))
+            from = pending;
+        from = from.truncatedTo(level.bucket());
+        try {
+            int buckets = repo.rollup(level, from);
+            if (level.ordinal() + 1 < PiMetricsResolution.values().length)
+                markPending(PiMetricsResolution.values()[level.ordinal() + 1], from);
+            log.debug("PiMetricsRollupJob: rollup level={} from={} buckets={}", level.label(), from, buckets);
+        } catch (Exception e) {
+            markPending(level, from);
+            log.error("PiMetricsRollupJob: rollup failed level={}", level.label(), e);
+        }
+    }
+
+    private void markPending(PiMetricsResolution level, Instant from) {
+        pendingFrom.get(level).accumulateAndGet(from, (a, b) -> a == null || b.isBefore(a) ? b : a);
+    }
+}
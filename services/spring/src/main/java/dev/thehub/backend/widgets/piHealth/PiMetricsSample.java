@@ -0,0 +1,58 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One metrics sample of a Pi device, as stored in {@code pi_metrics_samples}.
+ * Metric values are nullable; devices report what they have.
+ *
+ * @param deviceId
+ *            device id
+ * @param ts
+ *            sample time
+ * @param cpuTempC
+ *            CPU temperature in Celsius
+ * @param cpuPct
+ *            CPU utilization percent
+ * @param memUsedMb
+ *            used memory in MB
+ * @param diskUsedPct
+ *            disk usage percent
+ * @param netUpKbps
+ *            upstream bandwidth in Kbps
+ * @param netDownKbps
+ *            downstream bandwidth in Kbps
+ */
+public record PiMetricsSample(UUID deviceId, Instant ts, Double cpuTempC, Double cpuPct, Integer memUsedMb,
+        Double diskUsedPct, Double netUpKbps, Double netDownKbps) {
+
+    /**
+     * Reads the known metrics from an agent snapshot. Keys follow
+     * {@link PiHealthDTO} (e.g. {@code cpuTempC}); other keys are ignored.
+     *
+     * @param deviceId
+     *            device id
+     * @param ts
+     *            sample time
+     * @param snapshot
+     *            snapshot as sent by the agent
+     * @return the sample
+     */
+    public static PiMetricsSample fromSnapshot(UUID deviceId, Instant ts, Map<String, Object> snapshot) {
+        Double mem = num(snapshot, "memUsedMb");
+        return new PiMetricsSample(deviceId, ts, num(snapshot, "cpuTempC"), num(snapshot, "cpuPct"),
+                mem != null ? (int) Math.round(mem) : null, num(snapshot, "diskUsedPct"), num(snapshot, "netUpKbps"),
+                num(snapshot, "netDownKbps"));
+    }
+
+    private static Double num(Map<String, Object> m, String key) {
+        if (m == null)
+            return null;
+        Object v = m.get(key);
+        if (v instanceof Number n && Double.isFinite(n.doubleValue()))
+            return n.doubleValue();
+        return null;
+    }
+}
@@ -0,0 +1,217 @@
+package dev.thehub.backend.widgets.pings;
+
+import jakarta.annotation.PreDestroy;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Non-blocking probe engine for server-pings targets.
+ * <p>
+ * HTTP(S) targets get a HEAD request through one shared {@link HttpClient},
+ * which keeps connections to a host alive between rounds. Targets written as
+ * {@code tcp://host:port} only open a TCP connection, for services where a
+ * HEAD request is too heavy or not HTTP at all. At most
+ * {@code pings.probe.max-concurrency} probes are in flight; the rest wait in
+ * a queue without holding a thread. Nothing here runs on the common
+ * ForkJoinPool.
+ * <p>
+ * Three executors keep slow work from stalling the rest: the HttpClient gets
+ * up to one thread per probe in flight (it resolves host names on them), tcp
+ * host names are resolved on a small bounded pool that fails a lookup rather
+ * than queue it when busy, and finished probes hand their permit to the next
+ * queued one on a thread of their own.
+ */
+@Component
+public class PingProber {
+
+    private static final String USER_AGENT = "the-hub-pinger/1.0";
+
+    private final HttpClient http;
+    private final ThreadPoolExecutor httpExecutor;
+    private final ThreadPoolExecutor resolver;
+    private final ExecutorService handoff;
+    private final Duration timeout;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public PingProber(@Value("${pings.probe.timeout-ms:3000}") long timeoutMs,
+            @Value("${pings.probe.max-concurrency:64}") int maxConcurrency,
+            @Value("${pings.probe.resolver-threads:4}") int resolverThreads) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        int concurrency = Math.max(1, maxConcurrency);
+        this.permits = new Semaphore(concurrency);
+        // threads are started on demand and retire when idle
+        this.httpExecutor = new ThreadPoolExecutor(concurrency, concurrency, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemon("pings-probe"));
+        this.httpExecutor.allowCoreThreadTimeOut(true);
+        int resolvers = Math.max(1, resolverThreads);
+        this.resolver = new ThreadPoolExecutor(resolvers, resolvers, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(concurrency), daemon("pings-resolve"));
+        this.resolver.allowCoreThreadTimeOut(true);
+        this.handoff = Executors.newSingleThreadExecutor(daemon("pings-handoff"));
+        this.http = HttpClient.newBuilder().executor(httpExecutor).connectTimeout(timeout)
+                .followRedirects(HttpClient.Redirect.NORMAL).build();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            var t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Upper bound on how long one probe can take once started. */
+    long maxProbeMillis() {
+        return timeout.toMillis() * 2;
+    }
+
+    /**
+     * Probes one target. The future always completes normally: failures and
+     * timeouts yield status -1.
+     *
+     * @param url
+     *            http(s) URL or {@code tcp://host:port}
+     * @return the probe result
+     */
+    public CompletableFuture<PingsService.PingResult> probe(String url) {
+        return limited(() -> {
+            long t0 = System.nanoTime();
+            CompletableFuture<Integer> status = url.startsWith("tcp://") ? connect(url) : head(url);
+            return status.orTimeout(maxProbeMillis(), TimeUnit.MILLISECONDS).exceptionally(e -> -1)
+                    .thenApply(code -> new PingsService.PingResult(url, code, (System.nanoTime() - t0) / 1_000_000,
+                            OffsetDateTime.now().toString()));
+        });
+    }
+
+    private CompletableFuture<Integer> head(String url) {
+        HttpRequest req;
+        try {
+            req = HttpRequest.newBuilder(URI.create(url)).method("HEAD", HttpRequest.BodyPublishers.noBody())
+                    .timeout(timeout).header("User-Agent", USER_AGENT).build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(-1);
+        }
+        return http.sendAsync(req, HttpResponse.BodyHandlers.discarding()).thenApply(HttpResponse::statusCode);
+    }
+
+    /**
+     * Opens and closes a TCP connection. A successful connect reports 200 so the
+     * widget shows the target as up.
+     */
+    private CompletableFuture<Integer> connect(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(-1);
+        }
+        if (uri.getHost() == null || uri.getPort() < 0)
+            return CompletableFuture.completedFuture(-1);
+
+        // resolving the name blocks, so do it on the resolver pool; when that is
+        // saturated by slow lookups the probe fails instead of waiting behind them
+        CompletableFuture<InetSocketAddress> resolved;
+        try {
+            resolved = CompletableFuture.supplyAsync(() -> new InetSocketAddress(uri.getHost(), uri.getPort()),
+                    resolver);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(-1);
+        }
+        return resolved.thenCompose(addr -> {
+            if (addr.isUnresolved())
+                return CompletableFuture.completedFuture(-1);
+            var done = new CompletableFuture<Integer>();
+            AsynchronousSocketChannel ch;
+            try {
+                ch = AsynchronousSocketChannel.open();
+            } catch (Exception e) {
+                return CompletableFuture.completedFuture(-1);
+            }
+            ch.connect(addr, null, new CompletionHandler<Void, Void>() {
+                @Override
+                public void completed(Void v, Void a) {
+                    done.complete(200);
+                }
+
+                @Override
+                public void failed(Throwable e, Void a) {
+                    done.complete(-1);
+                }
+            });
+            return done.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).whenComplete((c, e) -> {
+                try {
+                    ch.close();
+                } catch (Exception ignored) {
+                }
+            });
+        });
+    }
+
+    /**
+     * Runs the task when a permit is free; otherwise queues it until a running
+     * probe finishes.
+     */
+    private <T> CompletableFuture<T> limited(Supplier<CompletableFuture<T>> task) {
+        var result = new CompletableFuture<T>();
+        waiting.add(() -> {
+            CompletableFuture<T> started;
+            try {
+                started = task.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            // async so a long run of instantly failing probes doesn't recurse through drain()
+            started.whenCompleteAsync((v, e) -> {
+                permits.release();
+                drain();
+                if (e != null)
+                    result.completeExceptionally(e);
+                else
+                    result.complete(v);
+            }, handoff);
+        });
+        drain();
+        return result;
+    }
+
+    private void drain() {
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+                return;
+            }
+            next.run();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        handoff.shutdownNow();
+        resolver.shutdownNow();
+        httpExecutor.shutdownNow();
+    }
+}
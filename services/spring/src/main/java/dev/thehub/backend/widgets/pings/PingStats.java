@@ -0,0 +1,326 @@
+package dev.thehub.backend.widgets.pings;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rolling latency and availability statistics per ping target.
+ * <p>
+ * Every probe result is recorded into three rolling windows (5 minutes, 1 hour
+ * and 24 hours), each a ring of time slots holding a log-linear latency
+ * histogram (exact below 16 ms, then 8 sub-buckets per power of two, so
+ * percentiles are within 12.5%), up/down counts, a status class breakdown and
+ * jitter sums. Slots are reused as time moves on, so memory per target is
+ * fixed regardless of probe rate.
+ * <p>
+ * The same results feed Micrometer: {@code thehub.pings.latency} (timer),
+ * {@code thehub.pings.probes} (counter by status class) and
+ * {@code thehub.pings.availability} (1 h gauge), tagged by the target's
+ * {@code host:port} only. Paths and query strings never reach the metrics
+ * endpoint, since they may carry tokens; targets sharing a host and port get a
+ * {@code #2}, {@code #3}, ... suffix. Meters of removed targets are dropped.
+ */
+@Component
+public class PingStats {
+
+    /** Status classes in breakdown order; "error" is a failed connection. */
+    private static final String[] CLASSES = {"2xx", "3xx", "4xx", "5xx", "error"};
+    private static final int EXACT = 16;
+    private static final int SUB_BUCKETS = 8;
+    /** Exact 0..15 ms, then 8 sub-buckets for each power of two up to 2^16 ms. */
+    private static final int BUCKETS = EXACT + (16 - 4) * SUB_BUCKETS;
+
+    /**
+     * Aggregates of one window.
+     *
+     * @param probes
+     *            number of probes
+     * @param availability
+     *            share of probes with a 2xx/3xx status (0..1), null without probes
+     * @param p50Ms
+     *            median latency (bucket upper bound)
+     * @param p90Ms
+     *            90th percentile latency
+     * @param p99Ms
+     *            99th percentile latency
+     * @param maxMs
+     *            highest latency seen
+     * @param jitterMs
+     *            mean absolute change in latency between consecutive successful
+     *            probes
+     * @param statuses
+     *            probe count per status class (2xx, 3xx, 4xx, 5xx, error)
+     */
+    public record WindowStats(long probes, Double availability, Long p50Ms, Long p90Ms, Long p99Ms, Long maxMs,
+            Double jitterMs, Map<String, Long> statuses) {
+    }
+
+    private final MeterRegistry registry;
+    private final ConcurrentHashMap<String, Target> targets = new ConcurrentHashMap<>();
+    /** Meter tags claimed by live targets, to keep targets on one host apart. */
+    private final Set<String> tags = ConcurrentHashMap.newKeySet();
+
+    public PingStats(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Records one probe result.
+     *
+     * @param result
+     *            the probe result
+     */
+    public void record(PingsService.PingResult result) {
+        targets.computeIfAbsent(result.url(), this::newTarget).record(System.currentTimeMillis(), result.ms(),
+                result.status());
+    }
+
+    /**
+     * Returns the 5m/1h/24h statistics of a target, or an empty map if it was
+     * never probed.
+     *
+     * @param url
+     *            target URL
+     * @return window label to statistics
+     */
+    public Map<String, WindowStats> stats(String url) {
+        Target t = targets.get(url);
+        return t != null ? t.summaries(System.currentTimeMillis()) : Map.of();
+    }
+
+    /**
+     * Drops statistics and meters of targets not in {@code keep}.
+     *
+     * @param keep
+     *            targets still configured
+     */
+    public void retain(Collection<String> keep) {
+        targets.entrySet().removeIf(e -> {
+            if (keep.contains(e.getKey()))
+                return false;
+            e.getValue().meters.forEach(registry::remove);
+            tags.remove(e.getValue().tag);
+            return true;
+        });
+    }
+
+    private Target newTarget(String url) {
+        var t = new Target();
+        String base = meterTag(url);
+        t.tag = base;
+        for (int n = 2; !tags.add(t.tag); n++)
+            t.tag = base + "#" + n;
+        String tag = t.tag;
+        t.latency = Timer.builder("thehub.pings.latency").description("Probe latency per ping target")
+                .tag("target", tag).publishPercentiles(0.5, 0.9, 0.99).publishPercentileHistogram()
+                .distributionStatisticExpiry(Duration.ofMinutes(5)).register(registry);
+        t.meters.add(t.latency);
+        for (int i = 0; i < CLASSES.length; i++) {
+            t.probes[i] = Counter.builder("thehub.pings.probes").tag("target", tag).tag("status", CLASSES[i])
+                    .register(registry);
+            t.meters.add(t.probes[i]);
+        }
+        t.meters.add(Gauge.builder("thehub.pings.availability", t, x -> x.hourAvailability(System.currentTimeMillis()))
+                .description("Share of successful probes over the last hour").tag("target", tag).register(registry));
+        return t;
+    }
+
+    /**
+     * Reduces a target URL to {@code host:port} (scheme default port when none is
+     * given), dropping user info, path and query.
+     *
+     * @param url
+     *            http(s) URL or {@code tcp://host:port}
+     * @return the meter tag, or {@code "invalid"} if the URL has no host
+     */
+    static String meterTag(String url) {
+        try {
+            var uri = URI.create(url);
+            if (uri.getHost() == null)
+                return "invalid";
+            int port = uri.getPort();
+            if (port < 0)
+                port = "https".equalsIgnoreCase(uri.getScheme()) ? 443 : 80;
+            return uri.getHost().toLowerCase() + ":" + port;
+        } catch (IllegalArgumentException e) {
+            return "invalid";
+        }
+    }
+
+    static int bucketOf(long ms) {
+        if (ms < EXACT)
+            return (int) Math.max(ms, 0);
+        int exp = 63 - Long.numberOfLeadingZeros(ms);
+        int sub = (int) ((ms >> (exp - 3)) & (SUB_BUCKETS - 1));
+        return Math.min(EXACT + (exp - 4) * SUB_BUCKETS + sub, BUCKETS - 1);
+    }
+
+    static long bucketUpperBound(int idx) {
+        if (idx < EXACT)
+            return idx;
+        int exp = 4 + (idx - EXACT) / SUB_BUCKETS;
+        int sub = (idx - EXACT) % SUB_BUCKETS;
+        long width = 1L << (exp - 3);
+        return (SUB_BUCKETS + sub) * width + width - 1;
+    }
+
+    private static int classOf(int status) {
+        if (status < 200 || status >= 600)
+            return 4;
+        return status / 100 - 2;
+    }
+
+    private static final class Target {
+        final Window fiveMinutes = new Window(Duration.ofMinutes(1), 5);
+        final Window hour = new Window(Duration.ofMinutes(5), 12);
+        final Window day = new Window(Duration.ofHours(1), 24);
+        final Counter[] probes = new Counter[CLASSES.length];
+        final List<Meter> meters = new ArrayList<>();
+        String tag;
+        Timer latency;
+        long lastUpMs = -1;
+
+        synchronized void record(long now, long ms, int status) {
+            int cls = classOf(status);
+            boolean up = cls <= 1;
+            long jitter = -1;
+            if (up) {
+                if (lastUpMs >= 0)
+                    jitter = Math.abs(ms - lastUpMs);
+                lastUpMs = ms;
+            }
+            fiveMinutes.record(now, ms, cls, up, jitter);
+            hour.record(now, ms, cls, up, jitter);
+            day.record(now, ms, cls, up, jitter);
+            latency.record(Duration.ofMillis(ms));
+            probes[cls].increment();
+        }
+
+        synchronized double hourAvailability(long now) {
+            Double a = hour.summary(now).availability();
+            return a != null ? a : Double.NaN;
+        }
+
+        synchronized Map<String, WindowStats> summaries(long now) {
+            var out = new LinkedHashMap<String, WindowStats>();
+            out.put("5m", fiveMinutes.summary(now));
+            out.put("1h", hour.summary(now));
+            out.put("24h", day.summary(now));
+            return out;
+        }
+    }
+
+    /**
+     * Ring of fixed-length slots covering {@code slots * slotMillis}. Guarded by
+     * the owning {@link Target}.
+     */
+    private static final class Window {
+        final long slotMillis;
+        final Slot[] slots;
+
+        Window(Duration slot, int count) {
+            this.slotMillis = slot.toMillis();
+            this.slots = new Slot[count];
+            for (int i = 0; i < count; i++)
+                slots[i] = new Slot();
+        }
+
+        void record(long now, long ms, int cls, boolean up, long jitter) {
+            long epoch = now / slotMillis;
+            Slot s = slots[(int) (epoch % slots.length)];
+            if (s.epoch != epoch)
+                s.reset(epoch);
+            s.latency[bucketOf(ms)]++;
+            s.classes[cls]++;
+            s.probes++;
+            if (up)
+                s.up++;
+            if (jitter >= 0) {
+                s.jitterSum += jitter;
+                s.jitterCount++;
+            }
+            s.maxMs = Math.max(s.maxMs, ms);
+        }
+
+        WindowStats summary(long now) {
+            long epoch = now / slotMillis;
+            long[] latency = new long[BUCKETS];
+            long[] classes = new long[CLASSES.length];
+            long probes = 0;
+            long up = 0;
+            long jitterSum = 0;
+            long jitterCount = 0;
+            long max = -1;
+            for (Slot s : slots) {
+                if (s.epoch < 0 || s.epoch > epoch || s.epoch <= epoch - slots.length)
+                    continue;
+                for (int i = 0; i < BUCKETS; i++)
+                    latency[i] += s.latency[i];
+                for (int i = 0; i < CLASSES.length; i++)
+                    classes[i] += s.classes[i];
+                probes += s.probes;
+                up += s.up;
+                jitterSum += s.jitterSum;
+                jitterCount += s.jitterCount;
+                max = Math.max(max, s.maxMs);
+            }
+
+            var statuses = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < CLASSES.length; i++)
+                statuses.put(CLASSES[i], classes[i]);
+            if (probes == 0)
+                return new WindowStats(0, null, null, null, null, null, null, statuses);
+            return new WindowStats(probes, (double) up / probes, percentile(latency, probes, 0.50, max),
+                    percentile(latency, probes, 0.90, max), percentile(latency, probes, 0.99, max), max,
+                    jitterCount > 0 ? (double) jitterSum / jitterCount : null, statuses);
+        }
+
+        /** Upper bound of the bucket holding the q-th value, capped at the observed max. */
+        private static Long percentile(long[] counts, long total, double q, long max) {
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(bucketUpperBound(i), max);
+            }
+            return max;
+        }
+    }
+
+    private static final class Slot {
+        long epoch = -1;
+        final int[] latency = new int[BUCKETS];
+        final int[] classes = new int[CLASSES.length];
+        int probes;
+        int up;
+        long jitterSum;
+        int jitterCount;
+        long maxMs;
+
+        void reset(long epoch) {
+            this.epoch = epoch;
+            Arrays.fill(latency, 0);
+            Arrays.fill(classes, 0);
+            probes = 0;
+            up = 0;
+            jitterSum = 0;
+            jitterCount = 0;
+            maxMs = 0;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package dev.thehub.backend.widgets.pings;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
 import dev.thehub.backend.widgets.WidgetSettingsService;
 import java.time.OffsetDateTime;
 import java.util.Map;
@@ -47,20 +48,22 @@ public class PingsController {
      *            current JWT authentication
      * @param instanceId
      *            the widget instance identifier to read configuration from
-     * @return a JSON map containing status, data (list of ping results), and
-     *         updatedAt timestamp
+     * @return a JSON map containing status, data (list of ping results), stats
+     *         (per target: 5m/1h/24h latency percentiles, availability and status
+     *         breakdown), and updatedAt timestamp
      */
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/server-pings")
     public ResponseEntity<?> serverPings(JwtAuthenticationToken auth, @RequestParam UUID instanceId) {
-        var userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        var userId = UserAuthentication.userId(auth);
 
         try {
             var row = settings.requireWidget(userId, instanceId); // throws if missing / not owned
             var cfg = settings.toPings(row);
             var data = pings.getResults(cfg.targets());
-            return ResponseEntity
-                    .ok(Map.of("status", "ok", "data", data, "updatedAt", OffsetDateTime.now().toString()));
+            var stats = pings.getStats(cfg.targets());
+            return ResponseEntity.ok(Map.of("status", "ok", "data", data, "stats", stats, "updatedAt",
+                    OffsetDateTime.now().toString()));
         } catch (WidgetSettingsService.NotFoundOrNotOwned e) {
             // Treat as idempotent: the widget was deleted or isn't owned
             return ResponseEntity.status(404).body(Map.of("error", "not_found"));
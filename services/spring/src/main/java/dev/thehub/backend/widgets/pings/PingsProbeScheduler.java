@@ -0,0 +1,46 @@
+package dev.thehub.backend.widgets.pings;
+
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetSettingsService;
+import java.util.LinkedHashSet;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that probes the distinct targets of all server-pings widgets.
+ * <p>
+ * Each target is probed once per interval no matter how many widgets reference
+ * it or how often they are viewed, so probe load follows the number of distinct
+ * targets rather than page views.
+ */
+@Component
+@RequiredArgsConstructor
+public class PingsProbeScheduler {
+    private static final Logger log = LoggerFactory.getLogger(PingsProbeScheduler.class);
+
+    private final WidgetSettingsService settings;
+    private final PingsService pings;
+
+    /**
+     * Collects the targets and refreshes their stored results, every
+     * {@code pings.probe-interval-ms} (30 s by default).
+     */
+    @Scheduled(initialDelayString = "${pings.probe-initial-delay-ms:5000}",
+            fixedDelayString = "${pings.probe-interval-ms:30000}")
+    public void probeTargets() {
+        try {
+            var targets = new LinkedHashSet<String>();
+            for (var row : settings.findAllWidgets(WidgetKind.SERVER_PINGS))
+                targets.addAll(settings.toPings(row).targets());
+            long t0 = System.nanoTime();
+            pings.refresh(targets);
+            log.debug("PingsProbeScheduler: probed targets={} ms={}", targets.size(),
+                    (System.nanoTime() - t0) / 1_000_000);
+        } catch (Exception e) {
+            log.error("PingsProbeScheduler: probe round failed", e);
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package dev.thehub.backend.widgets.pings;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.stereotype.Service;
 
 /**
  * Service providing simple HTTP ping functionality for a list of target URLs.
+ * <p>
+ * Results are kept in a store shared by all widgets and viewers, keyed by
+ * target URL. {@link PingsProbeScheduler} refreshes every configured target
+ * once per interval; requests read from the store and only probe targets that
+ * are new or whose result has gone stale (e.g. the scheduler is behind).
+ * Probing is done by {@link PingProber}; a request waits at most
+ * {@code pings.probe.deadline-ms} for it, and probes still running after that
+ * land in the store for the next read.
  */
 @Service
 @EnableScheduling
@@ -20,7 +36,8 @@ public class PingsService {
      * @param url
      *            the target URL
      * @param status
-     *            HTTP response code; -1 indicates a connection error
+     *            HTTP response code (200 for a successful {@code tcp://} connect);
+     *            -1 indicates a connection error or timeout
      * @param ms
      *            latency in milliseconds for the probe
      * @param checkedAt
@@ -29,36 +46,106 @@ public class PingsService {
     public record PingResult(String url, int status, long ms, String checkedAt) {
     }
 
+    private record Stored(PingResult result, long probedAtNanos) {
+    }
+
+    private final ConcurrentHashMap<String, Stored> results = new ConcurrentHashMap<>();
+    private final PingProber prober;
+    private final PingStats stats;
+    private final long maxAgeNanos;
+    private final long deadlineMs;
+
+    /**
+     * @param prober
+     *            probe engine
+     * @param stats
+     *            rolling per-target statistics fed by every probe
+     * @param probeIntervalMs
+     *            scheduler interval; a stored result older than three intervals is
+     *            probed again on read
+     * @param deadlineMs
+     *            longest a request waits for its probes
+     */
+    public PingsService(PingProber prober, PingStats stats,
+            @Value("${pings.probe-interval-ms:30000}") long probeIntervalMs,
+            @Value("${pings.probe.deadline-ms:2000}") long deadlineMs) {
+        this.prober = prober;
+        this.stats = stats;
+        this.maxAgeNanos = Duration.ofMillis(probeIntervalMs).multipliedBy(3).toNanos();
+        this.deadlineMs = deadlineMs;
+    }
+
     /**
-     * Executes ping probes in parallel for the provided targets.
+     * Returns the latest result for each target, probing only those without a
+     * fresh stored result. Targets whose probe misses the deadline report their
+     * previous result, or -1 if there is none.
      *
      * @param targets
      *            list of URLs to probe
-     * @return list of {@link PingResult} objects
+     * @return list of {@link PingResult} objects, in the order of {@code targets}
      */
     public List<PingResult> getResults(List<String> targets) {
-        return targets.parallelStream().map(this::probe).toList();
+        long now = System.nanoTime();
+        var missing = targets.stream().filter(t -> {
+            Stored s = results.get(t);
+            return s == null || now - s.probedAtNanos() > maxAgeNanos;
+        }).distinct().toList();
+        if (!missing.isEmpty())
+            probeAll(missing, deadlineMs);
+        return targets.stream().map(t -> {
+            Stored s = results.get(t);
+            return s != null ? s.result() : new PingResult(t, -1, 0, OffsetDateTime.now().toString());
+        }).toList();
     }
 
     /**
-     * Performs a HEAD request to the supplied URL and captures status and timing.
+     * Rolling 5m/1h/24h latency and availability statistics per target.
+     *
+     * @param targets
+     *            target URLs
+     * @return target to window label to statistics
      */
-    private PingResult probe(String url) {
-        var t0 = System.nanoTime();
+    public Map<String, Map<String, PingStats.WindowStats>> getStats(List<String> targets) {
+        var out = new LinkedHashMap<String, Map<String, PingStats.WindowStats>>();
+        for (String t : targets)
+            out.put(t, stats.stats(t));
+        return out;
+    }
+
+    /** Number of targets with a stored probe result. */
+    public int storedResults() {
+        return results.size();
+    }
+
+    /**
+     * Probes every target once and stores the results; results of targets no
+     * longer in the set are dropped.
+     *
+     * @param targets
+     *            distinct targets across all server-pings widgets
+     */
+    public void refresh(Collection<String> targets) {
+        var keep = new HashSet<>(targets);
+        // a probe ends after at most two timeouts; allow a little slack on top
+        probeAll(keep, deadlineMs + prober.maxProbeMillis());
+        results.keySet().retainAll(keep);
+        stats.retain(keep);
+    }
+
+    private void probeAll(Collection<String> targets, long waitMs) {
+        var all = targets.stream()
+                .map(t -> prober.probe(t).thenAccept(r -> {
+                    results.put(t, new Stored(r, System.nanoTime()));
+                    stats.record(r);
+                }))
+                .toArray(CompletableFuture[]::new);
         try {
-            var conn = (HttpURLConnection) new URL(url).openConnection();
-            conn.setRequestMethod("HEAD");
-            conn.setConnectTimeout(3000);
-            conn.setReadTimeout(3000);
-            conn.setInstanceFollowRedirects(true);
-            conn.setRequestProperty("User-Agent", "the-hub-pinger/1.0");
-            int code = conn.getResponseCode();
-            long ms = (System.nanoTime() - t0) / 1_000_000;
-            return new PingResult(url, code, ms, OffsetDateTime.now().toString());
-        } catch (Exception e) {
-            long ms = (System.nanoTime() - t0) / 1_000_000;
-            // Use -1 to indicate a network/connection error (non-HTTP condition)
-            return new PingResult(url, -1, ms, OffsetDateTime.now().toString());
+            CompletableFuture.allOf(all).get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // stragglers keep running and store their results when done
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
         }
     }
 }
@@ -0,0 +1,16 @@
+package dev.thehub.backend.widgets.update;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Request payload for saving a dashboard layout in one call.
+ *
+ * @param layout
+ *            grid objects keyed by widget instance id; widgets not listed keep
+ *            their current grid
+ */
+public record UpdateLayoutRequest(
+        @Schema(description = "Full grid object per widget instance id; omitted widgets are left as-is") Map<UUID, Map<String, Object>> layout) {
+}
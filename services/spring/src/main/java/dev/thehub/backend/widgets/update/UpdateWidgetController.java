@@ -1,5 +1,6 @@
 package dev.thehub.backend.widgets.update;
 
+import dev.thehub.backend.common.auth.UserAuthentication;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -59,7 +60,7 @@ public class UpdateWidgetController {
     @PatchMapping("/{instanceId}")
     public ResponseEntity<?> patch(@Parameter(hidden = true) JwtAuthenticationToken auth, @PathVariable UUID instanceId,
             @RequestBody UpdateWidgetRequest body) {
-        final UUID userId = UUID.fromString(auth.getToken().getClaimAsString("sub"));
+        final UUID userId = UserAuthentication.userId(auth);
         log.info("UpdateWidget PATCH start userId={} instanceId={} settings?={} grid?={}", userId, instanceId,
                 body.settings() != null, body.grid() != null);
 
@@ -81,4 +82,39 @@ public class UpdateWidgetController {
             return ResponseEntity.internalServerError().body(Map.of("error", "internal_error"));
         }
     }
+
+    /**
+     * Saves the grid of several widgets owned by the authenticated user in one
+     * request, replacing a burst of single-widget PATCHes after drag-and-drop.
+     *
+     * <p>
+     * The layout may be full or partial. It is applied atomically: if any listed
+     * widget is unknown or not owned, nothing is changed and 404 is returned.
+     */
+    @Operation(summary = "Update the grid layout of several widgets", description = "Replaces the grid of every listed widget in one transaction. Widgets not listed are unchanged.")
+    @ApiResponses({@ApiResponse(responseCode = "200", description = "Updated"),
+            @ApiResponse(responseCode = "400", description = "Bad request"),
+            @ApiResponse(responseCode = "404", description = "A listed widget is not found or not owned"),
+            @ApiResponse(responseCode = "500", description = "Internal error")})
+    @PatchMapping("/layout")
+    public ResponseEntity<?> patchLayout(@Parameter(hidden = true) JwtAuthenticationToken auth,
+            @RequestBody UpdateLayoutRequest body) {
+        final UUID userId = UserAuthentication.userId(auth);
+        int requested = body.layout() != null ? body.layout().size() : 0;
+        log.info("UpdateLayout PATCH start userId={} widgets={}", userId, requested);
+
+        try {
+            int updated = service.updateLayout(userId, body.layout());
+            return ResponseEntity.ok(Map.of("updated", updated));
+        } catch (UpdateWidgetService.NotFoundOrNotOwned e) {
+            log.warn("UpdateLayout not_found userId={} widgets={}", userId, requested);
+            return ResponseEntity.status(404).body(Map.of("error", "not_found"));
+        } catch (IllegalArgumentException e) {
+            log.warn("UpdateLayout bad_request userId={} msg={}", userId, e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("UpdateLayout internal_error userId={}", userId, e);
+            return ResponseEntity.internalServerError().body(Map.of("error", "internal_error"));
+        }
+    }
 }
@@ -4,21 +4,30 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.thehub.backend.widgets.WidgetKind;
 import dev.thehub.backend.widgets.WidgetRow;
+import dev.thehub.backend.widgets.WidgetRowCache;
 import dev.thehub.backend.widgets.WidgetSettingsRepository;
 import dev.thehub.backend.widgets.create.CreateWidgetResponse;
 import dev.thehub.backend.widgets.create.CreateWidgetService;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UpdateWidgetService {
 
     private static final Logger log = LoggerFactory.getLogger(UpdateWidgetService.class);
 
+    /** Upper bound for one layout save; a dashboard is far smaller than this. */
+    static final int MAX_LAYOUT_ITEMS = 200;
+
     /**
      * Thrown when a widget cannot be found for the given user/instance pair, or the
      * widget exists but does not belong to the user.
@@ -45,6 +54,7 @@ public class UpdateWidgetService {
     private final ObjectMapper json;
     private final WidgetSettingsRepository readRepo;
     private final CreateWidgetService createChecks;
+    private final WidgetRowCache rowCache;
 
     /**
      * Constructs the service responsible for partial updates of widgets.
@@ -56,14 +66,17 @@ public class UpdateWidgetService {
      * @param readRepo
      *            repository used to locate and read existing widget rows
      * @param createChecks
-     *            delegate used to reuse duplicate-check logic from creation
+     *            delegate used to reuse settings validation from creation
+     * @param rowCache
+     *            widget row cache to invalidate after the update
      */
     public UpdateWidgetService(JdbcTemplate jdbc, ObjectMapper json, WidgetSettingsRepository readRepo,
-            CreateWidgetService createChecks) {
+            CreateWidgetService createChecks, WidgetRowCache rowCache) {
         this.jdbc = jdbc;
         this.json = json;
         this.readRepo = readRepo;
         this.createChecks = createChecks;
+        this.rowCache = rowCache;
     }
 
     /**
@@ -74,7 +87,8 @@ public class UpdateWidgetService {
      * <ul>
      * <li>grid: If provided, replaces the grid JSON.</li>
      * <li>settings: If provided, merges into existing settings (null values
-     * stripped) and enforces duplicate rules.</li>
+     * stripped) and enforces duplicate rules; server-pings target overlap is
+     * checked under {@link CreateWidgetService#lockUserWidgets(UUID)}.</li>
      * </ul>
      *
      * @param userId
@@ -87,13 +101,17 @@ public class UpdateWidgetService {
      * @throws NotFoundOrNotOwned
      *             if no such widget for user/instance
      * @throws DuplicateException
-     *             if settings would conflict with uniqueness constraints
+     *             if settings would conflict with uniqueness constraints (unique
+     *             indexes or server-pings target overlap)
      * @throws IllegalArgumentException
      *             for invalid inputs (e.g., invalid JSON)
      */
+    @Transactional
     public CreateWidgetResponse partialUpdate(UUID userId, UUID instanceId, UpdateWidgetRequest body) {
         log.debug("UpdateWidgetService.enter userId={} instanceId={}", userId, instanceId);
-        var row = readRepo.findWidget(userId, instanceId).orElseThrow(NotFoundOrNotOwned::new);
+        // kind never changes, so a cached row is good enough to pick the rules
+        var row = rowCache.get(userId, instanceId, () -> readRepo.findWidget(userId, instanceId))
+                .orElseThrow(NotFoundOrNotOwned::new);
 
         WidgetKind kind = WidgetKind.from(row.kind());
 
@@ -104,48 +122,162 @@ public class UpdateWidgetService {
                 newGrid != null);
 
         if (newSettings != null && !jsonEquals(newSettings, row.settings())) {
-            try {
-                createChecks.ensureNoDuplicateExceptInstance(userId, kind, newSettings, instanceId);
-            } catch (CreateWidgetService.DuplicateException e) {
-                log.warn("UpdateWidget duplicate userId={} instanceId={} kind={} msg={}", userId, instanceId, kind,
-                        e.getMessage());
-                throw new DuplicateException(mapToConsistentErrorKey(kind));
-            } catch (CreateWidgetService.DuplicateTargetException e) {
-                // Handle the specific target duplicate case
-                throw new DuplicateException("duplicate_target");
-            }
+            createChecks.validateSettings(kind, newSettings);
         }
+        if (newSettings != null && kind == WidgetKind.SERVER_PINGS)
+            createChecks.lockUserWidgets(userId);
 
+        // One statement: merge the settings, check target overlap against the
+        // user's other widgets (only when settings are part of the payload; a
+        // grid-only save never changes targets), update unless it overlaps, and
+        // report which happened. Unique-index conflicts surface as
+        // DuplicateKeyException.
         final String sql = """
-                    update user_widgets
-                           set grid = coalesce(?::jsonb, grid),
-                           settings = case
-                                        when ?::jsonb is null then settings
-                                        else jsonb_strip_nulls(settings || ?::jsonb)
-                                      end
-                     where user_id = ? and instance_id = ?
-                     returning id, instance_id, kind, grid, settings
+                    with cur as (
+                      select id, kind,
+                             ?::jsonb is not null as settings_given,
+                             case
+                               when ?::jsonb is null then settings
+                               else jsonb_strip_nulls(settings || ?::jsonb)
+                             end as new_settings
+                        from user_widgets
+                       where user_id = ? and instance_id = ?
+                    ), guard as (
+                      select cur.id, cur.new_settings,
+                             (cur.settings_given and cur.kind = 'server-pings' and exists (
+                               select 1
+                                 from user_widgets o
+                                where o.user_id = ?
+                                  and o.kind = 'server-pings'
+                                  and o.id <> cur.id
+                                  and o.target_urls && public.widget_target_urls(cur.new_settings)
+                             )) as target_taken
+                        from cur
+                    ), upd as (
+                      update user_widgets uw
+                         set grid = coalesce(?::jsonb, uw.grid),
+                             settings = g.new_settings
+                        from guard g
+                       where uw.id = g.id and not g.target_taken
+                      returning uw.id, uw.instance_id, uw.kind, uw.grid, uw.settings
+                    )
+                    select g.target_taken, upd.id, upd.instance_id, upd.kind, upd.grid, upd.settings
+                      from guard g
+                      left join upd on upd.id = g.id
                 """;
 
         String gridJson = toJsonOrNull(newGrid);
         String settingsJson = toJsonOrNull(newSettings);
 
-        return jdbc.query(con -> {
-            var ps = con.prepareStatement(sql);
-            ps.setString(1, gridJson);
-            ps.setString(2, settingsJson);
-            ps.setString(3, settingsJson);
-            ps.setObject(4, userId);
-            ps.setObject(5, instanceId);
+        CreateWidgetResponse response;
+        try {
+            response = jdbc.query(con -> {
+                var ps = con.prepareStatement(sql);
+                ps.setString(1, settingsJson);
+                ps.setString(2, settingsJson);
+                ps.setString(3, settingsJson);
+                ps.setObject(4, userId);
+                ps.setObject(5, instanceId);
+                ps.setObject(6, userId);
+                ps.setString(7, gridJson);
+
+                return ps;
+            }, rs -> {
+                if (!rs.next())
+                    throw new NotFoundOrNotOwned();
+                if (rs.getBoolean("target_taken"))
+                    throw new DuplicateException("duplicate_target");
+                var updated = new WidgetRow(rs.getObject("id", UUID.class), rs.getObject("instance_id", UUID.class),
+                        rs.getString("kind"), parseJson(rs.getString("grid")), parseJson(rs.getString("settings")));
+                return toCreateResponse(updated);
+            });
+        } catch (DuplicateKeyException e) {
+            log.warn("UpdateWidget duplicate userId={} instanceId={} kind={}", userId, instanceId, kind);
+            throw new DuplicateException(mapToConsistentErrorKey(kind));
+        }
+        rowCache.invalidate(userId, instanceId);
+        return response;
+    }
 
+    /**
+     * Replaces the grid of several widgets at once, e.g. after a drag-and-drop
+     * rearrangement.
+     *
+     * <p>
+     * Runs as one statement: the layout is expanded with {@code jsonb_each},
+     * ownership of every listed instance is checked by a join, and only if all of
+     * them belong to the user are the changed grids written in a single multi-row
+     * UPDATE. Either every grid is applied or none is.
+     *
+     * @param userId
+     *            owner id
+     * @param layout
+     *            grid objects keyed by instance id
+     * @return number of widgets whose grid actually changed
+     * @throws NotFoundOrNotOwned
+     *             if any listed instance does not exist or is not owned by the user
+     * @throws IllegalArgumentException
+     *             for an empty grid entry or an oversized layout
+     */
+    @Transactional
+    public int updateLayout(UUID userId, Map<UUID, Map<String, Object>> layout) {
+        if (layout == null || layout.isEmpty())
+            return 0;
+        if (layout.size() > MAX_LAYOUT_ITEMS)
+            throw new IllegalArgumentException("too_many_widgets");
+
+        var byInstance = new LinkedHashMap<String, Object>(layout.size());
+        layout.forEach((instanceId, grid) -> {
+            if (instanceId == null || grid == null || grid.isEmpty())
+                throw new IllegalArgumentException("invalid_grid");
+            byInstance.put(instanceId.toString(), grid);
+        });
+        String layoutJson = toJsonOrNull(byInstance);
+
+        final String sql = """
+                    with input as (
+                      select key::uuid as instance_id, value as grid
+                        from jsonb_each(?::jsonb)
+                    ), owned as (
+                      select uw.id, uw.instance_id, i.grid
+                        from input i
+                        join user_widgets uw on uw.user_id = ? and uw.instance_id = i.instance_id
+                    ), upd as (
+                      update user_widgets uw
+                         set grid = o.grid
+                        from owned o
+                       where uw.id = o.id
+                         and uw.grid is distinct from o.grid
+                         and (select count(*) from owned) = (select count(*) from input)
+                      returning uw.instance_id
+                    )
+                    select (select count(*) from owned) = (select count(*) from input) as all_owned,
+                           upd.instance_id
+                      from (select 1) one
+                      left join upd on true
+                """;
+
+        List<UUID> changed = jdbc.query(con -> {
+            var ps = con.prepareStatement(sql);
+            ps.setString(1, layoutJson);
+            ps.setObject(2, userId);
             return ps;
         }, rs -> {
-            if (!rs.next())
-                throw new NotFoundOrNotOwned();
-            var updated = new WidgetRow(rs.getObject("id", UUID.class), rs.getObject("instance_id", UUID.class),
-                    rs.getString("kind"), parseJson(rs.getString("grid")), parseJson(rs.getString("settings")));
-            return toCreateResponse(updated);
+            var out = new ArrayList<UUID>();
+            while (rs.next()) {
+                if (!rs.getBoolean("all_owned"))
+                    throw new NotFoundOrNotOwned();
+                UUID id = rs.getObject("instance_id", UUID.class);
+                if (id != null)
+                    out.add(id);
+            }
+            return out;
         });
+
+        for (UUID id : changed)
+            rowCache.invalidate(userId, id);
+        log.info("UpdateLayout userId={} requested={} changed={}", userId, layout.size(), changed.size());
+        return changed.size();
     }
 
     private String mapToConsistentErrorKey(WidgetKind kind) {
@@ -0,0 +1,99 @@
+package dev.thehub.backend.common.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class AdaptiveTimeoutsTest {
+
+    private static final URI ETILBUDSAVIS = URI.create("https://squid-api.etilbudsavis.no/search");
+    private static final URI GEMINI = URI.create("https://generativelanguage.googleapis.com/v1beta/models/x");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AdaptiveTimeouts timeouts = new AdaptiveTimeouts(
+            upstream -> "gemini".equals(upstream)
+                    ? new AdaptiveTimeouts.Bounds(Duration.ofSeconds(3), Duration.ofSeconds(5), Duration.ofSeconds(15))
+                    : new AdaptiveTimeouts.Bounds(Duration.ofSeconds(2), Duration.ofSeconds(1), Duration.ofSeconds(6)),
+            registry);
+
+    @Test
+    void ceilingsApplyUntilEnoughCallsWereSeen() throws IOException {
+        var request = timeouts.createRequest(ETILBUDSAVIS, HttpMethod.GET);
+
+        assertThat(readTimeout(request)).isEqualTo(Duration.ofSeconds(6));
+        assertThat(client(request).connectTimeout()).contains(Duration.ofSeconds(2));
+        assertThat(gauge("etilbudsavis", "read")).isEqualTo(6.0);
+        assertThat(gauge("etilbudsavis", "connect")).isEqualTo(2.0);
+    }
+
+    @Test
+    void fastUpstreamGetsTheReadFloorOnTheSameClient() throws IOException {
+        var before = timeouts.createRequest(ETILBUDSAVIS, HttpMethod.GET);
+
+        for (int i = 0; i < 32; i++)
+            call(ETILBUDSAVIS);
+        var after = timeouts.createRequest(ETILBUDSAVIS, HttpMethod.GET);
+
+        assertThat(readTimeout(after)).isEqualTo(Duration.ofSeconds(1));
+        assertThat(readTimeout(before)).isEqualTo(Duration.ofSeconds(6));
+        assertThat(client(after)).isSameAs(client(before));
+        assertThat(client(after).connectTimeout()).contains(Duration.ofSeconds(2));
+        assertThat(gauge("etilbudsavis", "read")).isEqualTo(1.0);
+        assertThat(gauge("etilbudsavis", "connect")).isEqualTo(2.0);
+    }
+
+    @Test
+    void upstreamsAreTimedSeparately() throws IOException {
+        for (int i = 0; i < 32; i++)
+            call(ETILBUDSAVIS);
+
+        var gemini = timeouts.createRequest(GEMINI, HttpMethod.POST);
+
+        assertThat(readTimeout(gemini)).isEqualTo(Duration.ofSeconds(15));
+        assertThat(client(gemini)).isNotSameAs(client(timeouts.createRequest(ETILBUDSAVIS, HttpMethod.GET)));
+        assertThat(client(gemini).connectTimeout()).contains(Duration.ofSeconds(3));
+    }
+
+    @Test
+    void interruptedCallsAreNotRecorded() throws IOException {
+        try {
+            Thread.currentThread().interrupt();
+            for (int i = 0; i < 32; i++)
+                call(ETILBUDSAVIS);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(readTimeout(timeouts.createRequest(ETILBUDSAVIS, HttpMethod.GET))).isEqualTo(Duration.ofSeconds(6));
+    }
+
+    private void call(URI uri) throws IOException {
+        HttpRequest request = mock(HttpRequest.class);
+        when(request.getURI()).thenReturn(uri);
+        timeouts.intercept(request, new byte[0], (r, body) -> mock(ClientHttpResponse.class));
+    }
+
+    private double gauge(String upstream, String kind) {
+        return registry.get("thehub.upstream.timeout").tag("upstream", upstream).tag("kind", kind).gauge().value();
+    }
+
+    private static Duration readTimeout(ClientHttpRequest request) {
+        return (Duration) ReflectionTestUtils.getField(request, "timeout");
+    }
+
+    private static HttpClient client(ClientHttpRequest request) {
+        return (HttpClient) ReflectionTestUtils.getField(request, "httpClient");
+    }
+}
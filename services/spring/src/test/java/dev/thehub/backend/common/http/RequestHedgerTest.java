@@ -0,0 +1,123 @@
+package dev.thehub.backend.common.http;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.thehub.backend.common.tracing.ContextPropagatingTaskDecorator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class RequestHedgerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private RequestHedger hedger;
+
+    @AfterEach
+    void tearDown() {
+        if (hedger != null)
+            hedger.close();
+    }
+
+    @Test
+    void disabledHedgerRunsOnTheCallersThread() {
+        hedger = hedger(false, 0.5);
+        Thread caller = Thread.currentThread();
+
+        assertThat(hedger.call(() -> Thread.currentThread() == caller)).isTrue();
+    }
+
+    @Test
+    void noHedgeWhileWarmingUp() {
+        hedger = hedger(true, 0.5);
+        var attempts = new AtomicInteger();
+
+        assertThat(hedger.call(() -> attempts.incrementAndGet())).isEqualTo(1);
+
+        assertThat(skipped("warming_up")).isEqualTo(1);
+        assertThat(registry.get("thehub.hedging.delay").gauge().value()).isZero();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedAndCancelled() throws InterruptedException {
+        hedger = hedger(true, 0.5);
+        warmUp();
+        assertThat(registry.get("thehub.hedging.delay").gauge().value()).isEqualTo(0.02);
+
+        var attempts = new AtomicInteger();
+        var primaryInterrupted = new CountDownLatch(1);
+        String result = hedger.call(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    primaryInterrupted.countDown();
+                }
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertThat(result).isEqualTo("hedge");
+        assertThat(attempts).hasValue(2);
+        assertThat(primaryInterrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(registry.get("thehub.hedging.calls").tag("outcome", "hedge").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void hedgesStopWhenTheBudgetIsSpent() {
+        hedger = hedger(true, 0);
+        warmUp();
+
+        var attempts = new AtomicInteger();
+        String result = hedger.call(() -> {
+            attempts.incrementAndGet();
+            sleep(100);
+            return "primary";
+        });
+
+        assertThat(result).isEqualTo("primary");
+        assertThat(attempts).hasValue(1);
+        assertThat(skipped("budget")).isEqualTo(1);
+    }
+
+    @Test
+    void errorsArePropagatedWithoutAHedge() {
+        hedger = hedger(true, 0.5);
+        var attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> hedger.call(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("upstream said no");
+        })).isInstanceOf(IllegalArgumentException.class).hasMessage("upstream said no");
+        assertThat(attempts).hasValue(1);
+    }
+
+    private RequestHedger hedger(boolean enabled, double maxRate) {
+        return new RequestHedger("test", enabled, maxRate, Duration.ofMillis(20), Duration.ofSeconds(1), 4,
+                new ContextPropagatingTaskDecorator(ObservationRegistry.NOOP), registry);
+    }
+
+    /** Enough fast calls for the latency window to report a p95. */
+    private void warmUp() {
+        for (int i = 0; i < 32; i++)
+            hedger.call(() -> "warm");
+    }
+
+    private double skipped(String reason) {
+        return registry.get("thehub.hedging.skipped").tag("reason", reason).counter().count();
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package dev.thehub.backend.common.limits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void requestsOverTheLimitAreShedUntilASlotIsReleased() {
+        var limiter = new AdaptiveLimiter("test", 2, 1, 4);
+
+        var first = limiter.tryAcquire();
+        var second = limiter.tryAcquire();
+
+        assertThat(first).isPresent();
+        assertThat(second).isPresent();
+        assertThat(limiter.tryAcquire()).isEmpty();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+
+        first.get().close();
+        first.get().close();
+
+        assertThat(limiter.inFlight()).isEqualTo(1);
+        assertThat(limiter.tryAcquire()).isPresent();
+    }
+
+    @Test
+    void droppedCallsBackOffToTheMinimum() {
+        var limiter = new AdaptiveLimiter("test", 10, 3, 20);
+
+        try (var permit = limiter.tryAcquire().orElseThrow()) {
+            permit.dropped();
+        }
+        assertThat(limiter.limit()).isEqualTo(9);
+
+        for (int i = 0; i < 50; i++) {
+            try (var permit = limiter.tryAcquire().orElseThrow()) {
+                permit.dropped();
+            }
+        }
+        assertThat(limiter.limit()).isEqualTo(3);
+    }
+
+    @Test
+    void idleLimiterDoesNotGrow() {
+        var limiter = new AdaptiveLimiter("test", 8, 2, 32);
+
+        for (int i = 0; i < 100; i++)
+            limiter.tryAcquire().orElseThrow().close();
+
+        assertThat(limiter.limit()).isEqualTo(8);
+    }
+
+    @Test
+    void limitsAreClampedToSaneBounds() {
+        assertThat(new AdaptiveLimiter("test", 100, 2, 32).limit()).isEqualTo(32);
+        assertThat(new AdaptiveLimiter("test", 0, 0, 0).limit()).isEqualTo(1);
+        assertThat(new AdaptiveLimiter("test", 1, 5, 3).limit()).isEqualTo(5);
+    }
+}
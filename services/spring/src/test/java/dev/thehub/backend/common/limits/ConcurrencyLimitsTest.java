@@ -0,0 +1,52 @@
+package dev.thehub.backend.common.limits;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Locale;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class ConcurrencyLimitsTest {
+
+    @Test
+    void groupsAreConfiguredFromPropertiesAndExportTheirState() {
+        var env = new MockEnvironment().withProperty("limits.groceries.initial-limit", "1")
+                .withProperty("limits.groceries.min-limit", "1").withProperty("limits.groceries.max-limit", "4");
+        var registry = new SimpleMeterRegistry();
+        var limits = new ConcurrencyLimits(env, registry);
+
+        var permit = limits.tryAcquire(ConcurrencyLimits.GROCERIES);
+
+        assertThat(permit).isPresent();
+        assertThat(limits.tryAcquire(ConcurrencyLimits.GROCERIES)).isEmpty();
+        assertThat(registry.get("thehub.limiter.limit").tag("group", "groceries").gauge().value()).isEqualTo(1);
+        assertThat(registry.get("thehub.limiter.in_flight").tag("group", "groceries").gauge().value()).isEqualTo(1);
+        assertThat(limits.limiter(ConcurrencyLimits.CINEMATEKET).limit()).isEqualTo(8);
+        permit.get().close();
+    }
+
+    @Test
+    void outcomesAreCountedWithLocaleIndependentTags() {
+        Locale previous = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            var registry = new SimpleMeterRegistry();
+            var limits = new ConcurrencyLimits(new MockEnvironment(), registry);
+
+            limits.tryAcquire(ConcurrencyLimits.GROCERIES).orElseThrow().close();
+            limits.record(ConcurrencyLimits.GROCERIES, ConcurrencyLimits.Outcome.DEGRADED);
+            limits.record(ConcurrencyLimits.GROCERIES, ConcurrencyLimits.Outcome.DEGRADED);
+            limits.record(ConcurrencyLimits.GROCERIES, ConcurrencyLimits.Outcome.REJECTED);
+
+            assertThat(registry.get("thehub.limiter.requests").tag("outcome", "accepted").counter().count())
+                    .isEqualTo(1);
+            assertThat(registry.get("thehub.limiter.requests").tag("outcome", "degraded").counter().count())
+                    .isEqualTo(2);
+            assertThat(registry.get("thehub.limiter.requests").tag("outcome", "rejected").counter().count())
+                    .isEqualTo(1);
+        } finally {
+            Locale.setDefault(previous);
+        }
+    }
+}
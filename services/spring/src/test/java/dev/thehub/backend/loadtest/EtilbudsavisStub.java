@@ -0,0 +1,139 @@
+package dev.thehub.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Stand-in for the Etilbudsavis search API (POST {@code /}, NDJSON response).
+ * <p>
+ * Decodes the base64 {@code offers} query the backend sends and answers the
+ * requested page of a deterministic, per-term result set: every offer name
+ * contains the search term, and the same term always yields the same offers, so
+ * cache and index behaviour under load matches repeated real searches. Each term
+ * has between 20 and 83 matches, which exercises the backend's paging.
+ */
+final class EtilbudsavisStub extends StubServer {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<String> STORES = List.of("Rema 1000", "Kiwi", "Coop Extra", "Meny", "Bunnpris",
+            "Europris", "Coop Prix", "Spar");
+    private static final List<String> BRANDS = List.of("Tine", "Q", "First Price", "Gilde", "Freia", "Coop", "Eldorado",
+            "Synnøve");
+    private static final List<String> UNITS = List.of("ml", "g", "stk");
+
+    private EtilbudsavisStub(int port, Tuning tuning) throws IOException {
+        super(port, "/", tuning);
+    }
+
+    /**
+     * Starts the stub on localhost.
+     *
+     * @param port
+     *            port to listen on, 0 for any free port
+     * @param tuning
+     *            latency, jitter and error rate
+     * @return the running stub
+     * @throws IOException
+     *             if the port cannot be bound
+     */
+    static EtilbudsavisStub start(int port, Tuning tuning) throws IOException {
+        return new EtilbudsavisStub(port, tuning);
+    }
+
+    @Override
+    protected void respond(HttpExchange exchange, byte[] body) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            return;
+        }
+        JsonNode query = offersQuery(JSON.readTree(body));
+        String term = query.path("searchTerm").asText("");
+        int offset = query.path("pagination").path("offset").asInt(0);
+        int limit = query.path("pagination").path("limit").asInt(24);
+
+        List<Map<String, Object>> all = offers(term);
+        int from = Math.min(Math.max(0, offset), all.size());
+        int to = Math.min(from + Math.max(0, limit), all.size());
+
+        StringBuilder out = new StringBuilder();
+        out.append(JSON.writeValueAsString(Map.of("key", "session", "value",
+                Map.of("data", List.of(Map.of("token", "loadtest")))))).append('\n');
+        out.append(JSON.writeValueAsString(Map.of("key", "offers", "value", Map.of("data", all.subList(from, to),
+                "pagination", Map.of("offset", offset, "limit", limit, "total", all.size()))))).append('\n');
+        out.append("]\n");
+        send(exchange, 200, "application/x-ndjson; charset=utf-8", out.toString());
+    }
+
+    /** The decoded {@code ["offers", {...}]} part of the request payload. */
+    private static JsonNode offersQuery(JsonNode payload) throws IOException {
+        for (JsonNode part : payload.path("data")) {
+            JsonNode decoded = JSON.readTree(Base64.getDecoder().decode(part.asText()));
+            if (decoded.isArray() && "offers".equals(decoded.path(0).asText()))
+                return decoded.path(1);
+        }
+        throw new IOException("no offers query in payload");
+    }
+
+    /**
+     * The full result set for a term; deterministic per (lower-cased) term.
+     *
+     * @param term
+     *            search term
+     * @return offers shaped like the Etilbudsavis documents the backend parses
+     */
+    static List<Map<String, Object>> offers(String term) {
+        String t = term.trim().toLowerCase(Locale.ROOT);
+        if (t.isEmpty())
+            return List.of();
+        Random random = new Random(t.hashCode());
+        int total = 20 + random.nextInt(64);
+        String display = Character.toUpperCase(t.charAt(0)) + t.substring(1);
+        List<Map<String, Object>> out = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            String store = STORES.get(random.nextInt(STORES.size()));
+            String symbol = UNITS.get(random.nextInt(UNITS.size()));
+            int pieces = random.nextInt(4) == 0 ? 2 + random.nextInt(5) : 1;
+            double size = switch (symbol) {
+                case "ml" -> 250 * (1 + random.nextInt(8));
+                case "g" -> 100 * (1 + random.nextInt(10));
+                default -> 1;
+            };
+            double price = Math.round((10 + random.nextDouble() * 140) * 100) / 100.0;
+            String slug = store.toLowerCase(Locale.ROOT).replace(' ', '-');
+
+            Map<String, Object> offer = new LinkedHashMap<>();
+            offer.put("id", String.format("%08x", (t.hashCode() * 31 + i) & 0xffffffffL));
+            offer.put("name", BRANDS.get(random.nextInt(BRANDS.size())) + " " + display + " " + (i + 1));
+            offer.put("price", price);
+            offer.put("currencyCode", "NOK");
+            offer.put("relativeSavings", random.nextBoolean() ? 10 + random.nextInt(40) : null);
+            offer.put("unitPrice", "stk".equals(symbol) ? null : Math.round(price / (pieces * size) * 1000_00) / 100.0);
+            offer.put("baseUnit", switch (symbol) {
+                case "ml" -> "l";
+                case "g" -> "kg";
+                default -> "pcs";
+            });
+            offer.put("unitSymbol", symbol);
+            offer.put("unitSizeFrom", size);
+            offer.put("unitSizeTo", size);
+            offer.put("pieceCountFrom", pieces);
+            offer.put("pieceCountTo", pieces);
+            offer.put("image", "https://image-transformer-api.tjek.com/?u=loadtest%2F" + i + ".jpg");
+            offer.put("validFrom", "2026-01-01T00:00:00+0000");
+            offer.put("validUntil", "2030-12-31T22:59:59+0000");
+            offer.put("business", Map.of("id", slug, "name", store, "slugs", List.of(slug), "positiveLogoImage",
+                    "https://image-transformer-api.tjek.com/logos/" + slug + ".png"));
+            out.add(offer);
+        }
+        return out;
+    }
+}
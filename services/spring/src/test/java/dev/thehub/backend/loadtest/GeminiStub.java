@@ -0,0 +1,126 @@
+package dev.thehub.backend.loadtest;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Stand-in for the Gemini {@code generateContent} endpoint
+ * ({@code POST /v1beta/models/{model}:generateContent}).
+ * <p>
+ * Reads the user query and the product list out of the prompt the grocery
+ * enricher builds and answers one decision per product index: a product is
+ * relevant when its name contains a word of the query, liquids are priced per
+ * litre, dry goods per kilo and everything else per piece. Real model latency is
+ * seconds, not milliseconds; tune it accordingly.
+ */
+final class GeminiStub extends StubServer {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final String QUERY_MARKER = "User query: \"";
+    private static final String PRODUCTS_MARKER = "Products (one per index):";
+
+    private GeminiStub(int port, Tuning tuning) throws IOException {
+        super(port, "/v1beta/models/", tuning);
+    }
+
+    /**
+     * Starts the stub on localhost.
+     *
+     * @param port
+     *            port to listen on, 0 for any free port
+     * @param tuning
+     *            latency, jitter and error rate
+     * @return the running stub
+     * @throws IOException
+     *             if the port cannot be bound
+     */
+    static GeminiStub start(int port, Tuning tuning) throws IOException {
+        return new GeminiStub(port, tuning);
+    }
+
+    @Override
+    protected void respond(HttpExchange exchange, byte[] body) throws IOException {
+        if (!"POST".equals(exchange.getRequestMethod())
+                || !exchange.getRequestURI().getPath().endsWith(":generateContent")) {
+            exchange.sendResponseHeaders(404, -1);
+            return;
+        }
+        String prompt = JSON.readTree(body).path("contents").path(0).path("parts").path(0).path("text").asText("");
+        String text = JSON.writeValueAsString(decisions(query(prompt), products(prompt)));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("candidates", List.of(Map.of("content", Map.of("role", "model", "parts",
+                List.of(Map.of("text", text))), "finishReason", "STOP", "index", 0)));
+        response.put("modelVersion", "loadtest");
+        send(exchange, 200, "application/json; charset=utf-8", JSON.writeValueAsString(response));
+    }
+
+    private static String query(String prompt) {
+        int start = prompt.indexOf(QUERY_MARKER);
+        if (start < 0)
+            return "";
+        start += QUERY_MARKER.length();
+        int end = prompt.indexOf("\"\n", start);
+        return end < 0 ? "" : prompt.substring(start, end).replace("\\\"", "\"");
+    }
+
+    /** The JSON array that follows the products marker; empty when missing. */
+    private static JsonNode products(String prompt) throws IOException {
+        int start = prompt.indexOf(PRODUCTS_MARKER);
+        if (start < 0)
+            return JSON.createArrayNode();
+        try (JsonParser parser = JSON.createParser(prompt.substring(start + PRODUCTS_MARKER.length()))) {
+            JsonNode products = parser.readValueAsTree();
+            return products != null && products.isArray() ? products : JSON.createArrayNode();
+        }
+    }
+
+    private static List<Map<String, Object>> decisions(String query, JsonNode products) {
+        List<String> words = List.of(query.toLowerCase(Locale.ROOT).trim().split("\\s+"));
+        List<Map<String, Object>> out = new ArrayList<>(products.size());
+        for (JsonNode p : products) {
+            String name = p.path("name").asText("");
+            String lower = name.toLowerCase(Locale.ROOT);
+            String symbol = p.path("unitSymbol").asText("");
+            double price = p.path("price").asDouble();
+            double pieces = Math.max(1, p.path("pieceCountFrom").asDouble(1));
+            double size = p.path("unitSizeFrom").asDouble(0);
+
+            String unit;
+            Double perUnit;
+            switch (symbol) {
+                case "l", "cl", "ml" -> {
+                    double litres = size / ("l".equals(symbol) ? 1 : "cl".equals(symbol) ? 100 : 1000);
+                    unit = "kr/l";
+                    perUnit = litres > 0 ? price / (pieces * litres) : null;
+                }
+                case "g", "kg" -> {
+                    double kilos = size / ("kg".equals(symbol) ? 1 : 1000);
+                    unit = "kr/kg";
+                    perUnit = kilos > 0 ? price / (pieces * kilos) : null;
+                }
+                default -> {
+                    unit = "kr/stk";
+                    perUnit = price / pieces;
+                }
+            }
+
+            Map<String, Object> d = new LinkedHashMap<>();
+            d.put("index", p.path("index").asInt());
+            d.put("is_relevant", words.stream().anyMatch(w -> !w.isEmpty() && lower.contains(w)));
+            d.put("clean_name", name);
+            d.put("display_unit", unit);
+            d.put("display_price_per_unit", perUnit == null ? null : Math.round(perUnit * 100) / 100.0);
+            out.add(d);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,119 @@
+package dev.thehub.backend.loadtest;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Collects per-endpoint request latencies during a load-test run and renders
+ * throughput and latency percentiles. Percentiles use the nearest-rank method
+ * over every recorded sample; a run keeps at most a few million samples, so no
+ * histogram approximation is needed.
+ */
+final class LatencyReport {
+
+    /** Summary of one endpoint; latencies in milliseconds. */
+    record Row(String endpoint, long requests, long errors, double throughput, double p50, double p90, double p99,
+            double max) {
+    }
+
+    private final Map<String, Series> series = new ConcurrentSkipListMap<>();
+
+    /**
+     * Records one request.
+     *
+     * @param endpoint
+     *            label to aggregate under, e.g. {@code GET /api/widgets/list}
+     * @param nanos
+     *            time from send to fully read response
+     * @param ok
+     *            false for transport errors and unexpected statuses
+     */
+    void record(String endpoint, long nanos, boolean ok) {
+        series.computeIfAbsent(endpoint, k -> new Series()).add(nanos, ok);
+    }
+
+    /**
+     * Summarises every endpoint, sorted by label.
+     *
+     * @param elapsed
+     *            wall-clock length of the measured run, for throughput
+     * @return one row per endpoint
+     */
+    List<Row> rows(Duration elapsed) {
+        double seconds = Math.max(1e-9, elapsed.toNanos() / 1e9);
+        return series.entrySet().stream().map(e -> e.getValue().row(e.getKey(), seconds)).toList();
+    }
+
+    /**
+     * Renders {@link #rows(Duration)} as a fixed-width table with a total line.
+     *
+     * @param elapsed
+     *            wall-clock length of the measured run
+     * @return the report text
+     */
+    String render(Duration elapsed) {
+        var rows = rows(elapsed);
+        StringBuilder out = new StringBuilder();
+        String header = "%-44s %9s %7s %9s %9s %9s %9s %9s%n";
+        String line = "%-44s %9d %7d %9.1f %9.1f %9.1f %9.1f %9.1f%n";
+        out.append(String.format(Locale.ROOT, header, "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms",
+                "p99 ms", "max ms"));
+        long requests = 0;
+        long errors = 0;
+        for (Row r : rows) {
+            out.append(String.format(Locale.ROOT, line, r.endpoint(), r.requests(), r.errors(), r.throughput(),
+                    r.p50(), r.p90(), r.p99(), r.max()));
+            requests += r.requests();
+            errors += r.errors();
+        }
+        double seconds = Math.max(1e-9, elapsed.toNanos() / 1e9);
+        out.append(String.format(Locale.ROOT, "%-44s %9d %7d %9.1f%n", "total", requests, errors,
+                requests / seconds));
+        return out.toString();
+    }
+
+    /**
+     * Nearest-rank percentile of sorted samples.
+     *
+     * @param sorted
+     *            samples in ascending order, not empty
+     * @param p
+     *            percentile between 0 and 100
+     * @return the sample at that rank
+     */
+    static long percentile(long[] sorted, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+    }
+
+    private static final class Series {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        synchronized void add(long value, boolean ok) {
+            if (size == nanos.length)
+                nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = value;
+            if (!ok)
+                errors++;
+        }
+
+        synchronized Row row(String endpoint, double seconds) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            if (sorted.length == 0)
+                return new Row(endpoint, 0, errors, 0, 0, 0, 0, 0);
+            return new Row(endpoint, size, errors, size / seconds, ms(percentile(sorted, 50)),
+                    ms(percentile(sorted, 90)), ms(percentile(sorted, 99)), ms(sorted[sorted.length - 1]));
+        }
+
+        private static double ms(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dev.thehub.backend.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+class LatencyReportTest {
+
+    @Test
+    void percentilesUseNearestRank() {
+        long[] sorted = new long[100];
+        for (int i = 0; i < sorted.length; i++)
+            sorted[i] = i + 1;
+
+        assertThat(LatencyReport.percentile(sorted, 50)).isEqualTo(50);
+        assertThat(LatencyReport.percentile(sorted, 99)).isEqualTo(99);
+        assertThat(LatencyReport.percentile(sorted, 100)).isEqualTo(100);
+        assertThat(LatencyReport.percentile(new long[]{7}, 99)).isEqualTo(7);
+    }
+
+    @Test
+    void rowsSummariseEachEndpoint() {
+        var report = new LatencyReport();
+        for (int i = 1; i <= 10; i++)
+            report.record("GET /a", i * 1_000_000L, i != 10);
+        report.record("GET /b", 5_000_000L, true);
+
+        var rows = report.rows(Duration.ofSeconds(2));
+
+        assertThat(rows).extracting(LatencyReport.Row::endpoint).containsExactly("GET /a", "GET /b");
+        var a = rows.get(0);
+        assertThat(a.requests()).isEqualTo(10);
+        assertThat(a.errors()).isEqualTo(1);
+        assertThat(a.throughput()).isEqualTo(5.0);
+        assertThat(a.p50()).isEqualTo(5.0);
+        assertThat(a.p90()).isEqualTo(9.0);
+        assertThat(a.max()).isEqualTo(10.0);
+        assertThat(report.render(Duration.ofSeconds(2))).contains("GET /a").contains("total");
+    }
+}
@@ -0,0 +1,251 @@
+package dev.thehub.backend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.BackendApplication;
+import dev.thehub.backend.support.FixtureReplayServer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Load-test driver: drives the dashboard endpoints with concurrent virtual
+ * users against a backend whose third-party upstreams are local stand-ins, and
+ * prints throughput and latency percentiles per endpoint.
+ * <p>
+ * The driver starts the Etilbudsavis and Gemini stubs and the fixture replay
+ * server for the scraped pages on the ports the {@code loadtest} Spring profile
+ * points at (9101, 9102, 9103). Without {@code --base-url} it also boots the
+ * backend in-process with that profile; the database still comes from
+ * {@code SPRING_DATASOURCE_URL}/{@code _USERNAME}/{@code _PASSWORD} (e.g. the
+ * Postgres of {@code supabase start}, which has the schema applied). With
+ * {@code --base-url} the backend must already be running with
+ * {@code SPRING_PROFILES_ACTIVE=loadtest} and the same
+ * {@code SUPABASE_JWT_SECRET}.
+ * <p>
+ * Each virtual user signs its own token, seeds three grocery widgets, two
+ * countdowns and a Cinemateket widget on first use, then loops: list widgets,
+ * fetch every grocery widget's deals, resolve its countdowns in one batch, fetch
+ * the programme, and pause for a randomised think time.
+ * <p>
+ * Run with {@code mvn test-compile spring-boot:test-run}, passing
+ * {@code -Dspring-boot.run.main-class=dev.thehub.backend.loadtest.LoadTest} and
+ * options through {@code -Dspring-boot.run.arguments}, e.g.
+ * {@code "--users=50 --duration-s=120 --gemini-latency-ms=3000"}. Options and
+ * defaults:
+ * <ul>
+ * <li>{@code --base-url} backend under test; default boots it in-process</li>
+ * <li>{@code --jwt-secret} default {@code SUPABASE_JWT_SECRET} from the
+ * environment</li>
+ * <li>{@code --users=20 --duration-s=60 --ramp-s=10 --think-ms=1000}</li>
+ * <li>{@code --etilbudsavis-latency-ms=150 --etilbudsavis-jitter-ms=100
+ * --etilbudsavis-error-rate=0.01}</li>
+ * <li>{@code --gemini-latency-ms=2500 --gemini-jitter-ms=1500
+ * --gemini-error-rate=0.02}</li>
+ * <li>{@code --scrape-latency-ms=200 --scrape-jitter-ms=100}</li>
+ * </ul>
+ */
+public final class LoadTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<String> QUERIES = List.of("melk", "kaffe", "pepsi max", "monster", "brød", "ost",
+            "egg", "bananer", "kylling", "pizza", "smør", "yoghurt", "coca-cola", "laks", "taco");
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private final LatencyReport report = new LatencyReport();
+    private final String baseUrl;
+    private final TestJwts jwts;
+
+    private LoadTest(String baseUrl, TestJwts jwts) {
+        this.baseUrl = baseUrl;
+        this.jwts = jwts;
+    }
+
+    /** One virtual user: its token and the widgets it polls. */
+    private record VirtualUser(String token, List<UUID> groceries, List<UUID> countdowns, List<UUID> cinemateket) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (a.startsWith("--") && eq > 2)
+                opts.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        String secret = opts.getOrDefault("jwt-secret", System.getenv("SUPABASE_JWT_SECRET"));
+        if (secret == null || secret.isBlank())
+            throw new IllegalArgumentException("set SUPABASE_JWT_SECRET or pass --jwt-secret");
+        int users = Integer.parseInt(opts.getOrDefault("users", "20"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("duration-s", "60")));
+        Duration ramp = Duration.ofSeconds(Long.parseLong(opts.getOrDefault("ramp-s", "10")));
+        long thinkMs = Long.parseLong(opts.getOrDefault("think-ms", "1000"));
+
+        try (var etilbudsavis = EtilbudsavisStub.start(9101, tuning(opts, "etilbudsavis", 150, 100, 0.01));
+                var gemini = GeminiStub.start(9102, tuning(opts, "gemini", 2500, 1500, 0.02));
+                var pages = FixtureReplayServer.start(9103, FixtureReplayServer.classpathFixtures(),
+                        Long.parseLong(opts.getOrDefault("scrape-latency-ms", "200")),
+                        Long.parseLong(opts.getOrDefault("scrape-jitter-ms", "100")))) {
+            ConfigurableApplicationContext backend = null;
+            String baseUrl = opts.get("base-url");
+            if (baseUrl == null) {
+                backend = SpringApplication.run(BackendApplication.class, "--spring.profiles.active=loadtest",
+                        "--server.port=0", "--SUPABASE_JWT_SECRET=" + secret, "--spring.docker.compose.enabled=false",
+                        "--spring.devtools.restart.enabled=false");
+                baseUrl = "http://127.0.0.1:" + backend.getEnvironment().getProperty("local.server.port");
+            }
+            try {
+                new LoadTest(baseUrl, new TestJwts(secret)).run(users, duration, ramp, thinkMs);
+                System.out.printf("%nupstream stubs: etilbudsavis requests=%d injectedErrors=%d, "
+                        + "gemini requests=%d injectedErrors=%d, pages requests=%d%n", etilbudsavis.requests(),
+                        etilbudsavis.injectedErrors(), gemini.requests(), gemini.injectedErrors(), pages.requests());
+            } finally {
+                if (backend != null)
+                    backend.close();
+            }
+        }
+    }
+
+    private static StubServer.Tuning tuning(Map<String, String> opts, String prefix, long latencyMs, long jitterMs,
+            double errorRate) {
+        return new StubServer.Tuning(Long.parseLong(opts.getOrDefault(prefix + "-latency-ms", "" + latencyMs)),
+                Long.parseLong(opts.getOrDefault(prefix + "-jitter-ms", "" + jitterMs)),
+                Double.parseDouble(opts.getOrDefault(prefix + "-error-rate", "" + errorRate)));
+    }
+
+    private void run(int users, Duration duration, Duration ramp, long thinkMs) throws Exception {
+        System.out.printf("LoadTest: %d users for %ds against %s%n", users, duration.toSeconds(), baseUrl);
+        List<VirtualUser> vus = new ArrayList<>(users);
+        for (int i = 0; i < users; i++)
+            vus.add(seed(i));
+
+        long start = System.nanoTime();
+        long deadline = start + ramp.toNanos() + duration.toNanos();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < users; i++) {
+                VirtualUser vu = vus.get(i);
+                long startAt = start + ramp.toNanos() * i / Math.max(1, users);
+                executor.submit(() -> {
+                    sleepUntil(startAt);
+                    while (System.nanoTime() < deadline && !Thread.currentThread().isInterrupted()) {
+                        iteration(vu);
+                        sleep(thinkMs / 2 + ThreadLocalRandom.current().nextLong(thinkMs + 1));
+                    }
+                    return null;
+                });
+            }
+        }
+        System.out.println();
+        System.out.print(report.render(Duration.ofNanos(System.nanoTime() - start)));
+    }
+
+    /** One dashboard load of a virtual user. */
+    private void iteration(VirtualUser vu) {
+        get(vu, "GET /api/widgets/list", "/api/widgets/list?includeSettings=true");
+        for (UUID id : vu.groceries())
+            get(vu, "GET /api/widgets/grocery-deals", "/api/widgets/grocery-deals?instanceId=" + id);
+        if (!vu.countdowns().isEmpty())
+            get(vu, "GET /api/widgets/countdown/batch", "/api/widgets/countdown/batch?instanceIds="
+                    + vu.countdowns().stream().map(UUID::toString).collect(Collectors.joining(",")));
+        for (UUID id : vu.cinemateket())
+            get(vu, "GET /api/widgets/cinemateket", "/api/widgets/cinemateket?instanceId=" + id);
+    }
+
+    /**
+     * Signs a token for virtual user {@code i} and creates its widgets unless it
+     * already has some from an earlier run; user ids are stable across runs.
+     */
+    private VirtualUser seed(int i) throws Exception {
+        UUID userId = UUID.nameUUIDFromBytes(("loadtest-user-" + i).getBytes(StandardCharsets.UTF_8));
+        String token = jwts.sign(userId, List.of(), Duration.ofHours(12));
+
+        JsonNode widgets = list(token);
+        if (widgets.isEmpty()) {
+            List<Map<String, Object>> specs = new ArrayList<>();
+            for (int k = 0; k < 3; k++)
+                specs.add(widget("grocery-deals", Map.of("query", QUERIES.get((i * 3 + k) % QUERIES.size())), k));
+            specs.add(widget("countdown", Map.of("source", "monthly-rule", "dayOfMonth", 1 + i % 28, "time", "18:00"),
+                    3));
+            specs.add(widget("countdown", Map.of("source", "provider", "provider", "trippel-trumf"), 4));
+            specs.add(widget("cinemateket", Map.of(), 5));
+            var resp = client.send(request(token, "/api/widgets/bulk")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(JSON.writeValueAsBytes(Map.of("widgets", specs))))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            if (resp.statusCode() != 201)
+                throw new IllegalStateException("seeding user " + i + " failed: " + resp.statusCode() + " "
+                        + resp.body());
+            widgets = list(token);
+        }
+        return new VirtualUser(token, ids(widgets, "grocery-deals"), ids(widgets, "countdown"),
+                ids(widgets, "cinemateket"));
+    }
+
+    private JsonNode list(String token) throws Exception {
+        var resp = client.send(request(token, "/api/widgets/list?includeSettings=false").GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (resp.statusCode() != 200)
+            throw new IllegalStateException("listing widgets failed: " + resp.statusCode());
+        return JSON.readTree(resp.body());
+    }
+
+    private static List<UUID> ids(JsonNode widgets, String kind) {
+        List<UUID> out = new ArrayList<>();
+        for (JsonNode w : widgets)
+            if (kind.equals(w.path("kind").asText()))
+                out.add(UUID.fromString(w.path("instanceId").asText()));
+        return out;
+    }
+
+    private static Map<String, Object> widget(String kind, Map<String, Object> settings, int row) {
+        return Map.of("kind", kind, "settings", settings, "grid", Map.of("x", 0, "y", row * 4, "w", 4, "h", 4));
+    }
+
+    private void get(VirtualUser vu, String endpoint, String pathAndQuery) {
+        long t0 = System.nanoTime();
+        boolean ok;
+        try {
+            var resp = client.send(request(vu.token(), pathAndQuery).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            ok = resp.statusCode() / 100 == 2;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            ok = false;
+        }
+        report.record(endpoint, System.nanoTime() - t0, ok);
+    }
+
+    private HttpRequest.Builder request(String token, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + pathAndQuery))
+                .timeout(Duration.ofSeconds(30)).header("Authorization", "Bearer " + token)
+                .header("Accept", "application/json");
+    }
+
+    private static void sleepUntil(long nanoTime) {
+        sleep((nanoTime - System.nanoTime()) / 1_000_000);
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0)
+            return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
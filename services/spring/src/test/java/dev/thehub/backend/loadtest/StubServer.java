@@ -0,0 +1,133 @@
+package dev.thehub.backend.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Base for the upstream stand-ins of the load test: a JDK HTTP server on
+ * localhost that delays every response by a tunable latency plus random jitter
+ * and fails a tunable share of requests with a 503, the way a struggling
+ * upstream would. Requests are handled on virtual threads, so slow responses do
+ * not limit concurrency.
+ */
+abstract class StubServer implements AutoCloseable {
+
+    /**
+     * Response shaping shared by all stubs.
+     *
+     * @param latencyMs
+     *            delay added to every response
+     * @param jitterMs
+     *            upper bound of the random extra delay
+     * @param errorRate
+     *            share of requests answered with a 503, between 0 and 1
+     */
+    record Tuning(long latencyMs, long jitterMs, double errorRate) {
+
+        static final Tuning NONE = new Tuning(0, 0, 0);
+
+        Tuning {
+            latencyMs = Math.max(0, latencyMs);
+            jitterMs = Math.max(0, jitterMs);
+            errorRate = Math.min(1, Math.max(0, errorRate));
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Tuning tuning;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+
+    protected StubServer(int port, String context, Tuning tuning) throws IOException {
+        this.tuning = tuning;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(context, this::handle);
+        server.start();
+    }
+
+    /**
+     * Answers one request that was neither delayed away nor failed on purpose.
+     *
+     * @param exchange
+     *            the request
+     * @param body
+     *            the request body
+     * @throws IOException
+     *             if the response cannot be written
+     */
+    protected abstract void respond(HttpExchange exchange, byte[] body) throws IOException;
+
+    /** Base URL without trailing slash, e.g. {@code http://127.0.0.1:9101}. */
+    String url() {
+        return "http://127.0.0.1:" + port();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Number of requests received so far. */
+    long requests() {
+        return requests.get();
+    }
+
+    /** Number of requests failed on purpose so far. */
+    long injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    protected static void send(HttpExchange exchange, int status, String contentType, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readAllBytes();
+            requests.incrementAndGet();
+            delay();
+            if (tuning.errorRate() > 0 && ThreadLocalRandom.current().nextDouble() < tuning.errorRate()) {
+                injectedErrors.incrementAndGet();
+                send(exchange, 503, "application/json", "{\"error\":\"stub_unavailable\"}");
+                return;
+            }
+            try {
+                respond(exchange, body);
+            } catch (IOException | RuntimeException e) {
+                send(exchange, 400, "application/json", "{\"error\":\"bad_request\"}");
+            }
+        }
+    }
+
+    private void delay() {
+        long ms = tuning.latencyMs()
+                + (tuning.jitterMs() > 0 ? ThreadLocalRandom.current().nextLong(tuning.jitterMs() + 1) : 0);
+        if (ms == 0)
+            return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
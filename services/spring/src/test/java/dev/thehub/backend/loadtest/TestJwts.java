@@ -0,0 +1,74 @@
+package dev.thehub.backend.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs access tokens the backend accepts, in the shape Supabase issues them.
+ * <p>
+ * Tokens are HS256 JWTs keyed with the raw UTF-8 bytes of the secret, exactly as
+ * {@code JwtConfig} builds its decoder, so the backend under test must be
+ * started with the same {@code SUPABASE_JWT_SECRET}. The secret must be at
+ * least 32 bytes long; shorter HS256 keys are rejected by the decoder.
+ */
+final class TestJwts {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final byte[] secret;
+
+    TestJwts(String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        if (this.secret.length < 32)
+            throw new IllegalArgumentException("SUPABASE_JWT_SECRET must be at least 32 bytes for HS256");
+    }
+
+    /**
+     * Signs a token for a user.
+     *
+     * @param userId
+     *            the {@code sub} claim
+     * @param roles
+     *            application roles, placed in {@code app_metadata.roles}; e.g.
+     *            {@code "admin"}
+     * @param ttl
+     *            lifetime of the token
+     * @return the compact serialized token
+     */
+    String sign(UUID userId, List<String> roles, Duration ttl) {
+        Instant now = Instant.now();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", userId.toString());
+        claims.put("aud", "authenticated");
+        claims.put("role", "authenticated");
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(ttl).getEpochSecond());
+        claims.put("email", "loadtest+" + userId + "@thehub.dev");
+        claims.put("app_metadata", Map.of("provider", "email", "roles", roles));
+        try {
+            String signingInput = part(Map.of("alg", "HS256", "typ", "JWT")) + "." + part(claims);
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            byte[] signature = mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + B64.encodeToString(signature);
+        } catch (GeneralSecurityException | JsonProcessingException e) {
+            throw new IllegalStateException("Signing test JWT failed", e);
+        }
+    }
+
+    private static String part(Map<String, Object> json) throws JsonProcessingException {
+        return B64.encodeToString(JSON.writeValueAsBytes(json));
+    }
+}
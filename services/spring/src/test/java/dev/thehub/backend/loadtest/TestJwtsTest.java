@@ -0,0 +1,45 @@
+package dev.thehub.backend.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import dev.thehub.backend.config.JwtConfig;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class TestJwtsTest {
+
+    private static final String SECRET = "loadtest-secret-loadtest-secret-0123456789";
+
+    @Test
+    void tokensAreAcceptedByTheBackendDecoder() {
+        UUID user = UUID.randomUUID();
+        String token = new TestJwts(SECRET).sign(user, List.of("admin"), Duration.ofMinutes(5));
+
+        var jwt = decoder(SECRET).decode(token);
+
+        assertThat(jwt.getSubject()).isEqualTo(user.toString());
+        assertThat(jwt.getClaimAsMap("app_metadata")).containsEntry("roles", List.of("admin"));
+        assertThat(jwt.getExpiresAt()).isAfter(jwt.getIssuedAt());
+    }
+
+    @Test
+    void tokensSignedWithAnotherSecretOrExpiredAreRejected() {
+        String other = new TestJwts(SECRET + "-other").sign(UUID.randomUUID(), List.of(), Duration.ofMinutes(5));
+        String expired = new TestJwts(SECRET).sign(UUID.randomUUID(), List.of(), Duration.ofMinutes(-5));
+
+        assertThatThrownBy(() -> decoder(SECRET).decode(other)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder(SECRET).decode(expired)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> new TestJwts("short")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static JwtDecoder decoder(String secret) {
+        return ReflectionTestUtils.invokeMethod(new JwtConfig(), "jwtDecoder", secret);
+    }
+}
@@ -0,0 +1,115 @@
+package dev.thehub.backend.loadtest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
+import dev.thehub.backend.widgets.groceries.GeminiGroceryEnricher;
+import dev.thehub.backend.widgets.groceries.GroceriesService;
+import dev.thehub.backend.widgets.groceries.LocalOfferIndex;
+import dev.thehub.backend.widgets.groceries.dto.DealDto;
+import dev.thehub.backend.widgets.groceries.dto.GeminiDealDecision;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Runs the real upstream clients against the stubs, so the stubs keep speaking
+ * the wire formats the backend parses.
+ */
+class UpstreamStubsTest {
+
+    @Test
+    void etilbudsavisStubServesPagedOffersTheServiceParses() throws Exception {
+        try (var stub = EtilbudsavisStub.start(0, StubServer.Tuning.NONE)) {
+            GroceriesService groceries = groceries(stub.url());
+            int total = EtilbudsavisStub.offers("pepsi max").size();
+
+            List<DealDto> all = new ArrayList<>();
+            boolean last = false;
+            for (int offset = 0; !last; offset += 24) {
+                Object page = ReflectionTestUtils.invokeMethod(groceries, "regionOffers", "pepsi max", offset, 24);
+                List<DealDto> deals = ReflectionTestUtils.invokeMethod(page, "deals");
+                last = Boolean.TRUE.equals(ReflectionTestUtils.invokeMethod(page, "last"));
+                all.addAll(deals);
+            }
+
+            assertThat(all).hasSize(total);
+            assertThat(all).allSatisfy(d -> {
+                assertThat(d.name()).contains("Pepsi max");
+                assertThat(d.store()).isNotBlank();
+                assertThat(d.price()).isPositive();
+            });
+            assertThat(EtilbudsavisStub.offers("Pepsi Max")).isEqualTo(EtilbudsavisStub.offers("pepsi max"));
+        }
+    }
+
+    @Test
+    void geminiStubAnswersOneDecisionPerDeal() throws Exception {
+        try (var etilbudsavis = EtilbudsavisStub.start(0, StubServer.Tuning.NONE);
+                var gemini = GeminiStub.start(0, StubServer.Tuning.NONE)) {
+            Object page = ReflectionTestUtils.invokeMethod(groceries(etilbudsavis.url()), "regionOffers", "melk", 0,
+                    20);
+            List<DealDto> deals = ReflectionTestUtils.invokeMethod(page, "deals");
+            GeminiGroceryEnricher enricher = enricher(gemini.url());
+
+            List<GeminiDealDecision> relevant = enricher.filterAndEnrich("melk", deals);
+            List<GeminiDealDecision> irrelevant = enricher.filterAndEnrich("kaffe", deals);
+
+            assertThat(relevant).hasSize(deals.size());
+            assertThat(relevant).extracting(GeminiDealDecision::index)
+                    .containsExactlyElementsOf(IntStream.range(0, deals.size()).boxed().toList());
+            assertThat(relevant).allSatisfy(d -> {
+                assertThat(d.isRelevant()).isTrue();
+                assertThat(d.displayUnit()).isIn("kr/l", "kr/kg", "kr/stk");
+            });
+            assertThat(irrelevant).noneMatch(GeminiDealDecision::isRelevant);
+            assertThat(gemini.requests()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void stubsDelayAndFailOnRequest() throws Exception {
+        try (var stub = GeminiStub.start(0, new StubServer.Tuning(40, 0, 1.0))) {
+            long t0 = System.nanoTime();
+            var resp = HttpClient.newHttpClient().send(HttpRequest
+                    .newBuilder(URI.create(stub.url() + "/v1beta/models/m:generateContent"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{}")).build(), HttpResponse.BodyHandlers.ofString());
+
+            assertThat(resp.statusCode()).isEqualTo(503);
+            assertThat((System.nanoTime() - t0) / 1_000_000).isGreaterThanOrEqualTo(40);
+            assertThat(stub.injectedErrors()).isEqualTo(1);
+        }
+    }
+
+    private static GroceriesService groceries(String baseUrl) {
+        var registry = new SimpleMeterRegistry();
+        var svc = new GroceriesService(new RestTemplate(), registry, ObservationRegistry.NOOP, null,
+                new ConcurrencyLimits(new MockEnvironment(), registry), new LocalOfferIndex(120), null);
+        ReflectionTestUtils.setField(svc, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(svc, "defaultCity", "Trondheim");
+        ReflectionTestUtils.setField(svc, "defaultLat", 63.4306);
+        ReflectionTestUtils.setField(svc, "defaultLon", 10.4037);
+        ReflectionTestUtils.setField(svc, "countryCode", "NO");
+        ReflectionTestUtils.setField(svc, "userAgent", "TheHub/1.0 (loadtest)");
+        return svc;
+    }
+
+    private static GeminiGroceryEnricher enricher(String baseUrl) {
+        var enricher = new GeminiGroceryEnricher(new RestTemplate(), Runnable::run, ObservationRegistry.NOOP);
+        ReflectionTestUtils.setField(enricher, "enabled", true);
+        ReflectionTestUtils.setField(enricher, "apiKey", "loadtest");
+        ReflectionTestUtils.setField(enricher, "baseUrl", baseUrl);
+        ReflectionTestUtils.setField(enricher, "model", "gemini-2.5-flash");
+        return enricher;
+    }
+}
@@ -0,0 +1,220 @@
+package dev.thehub.backend.support;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local HTTP stand-in that replays recorded pages and API responses, so the
+ * fetch paths of the scrapers and upstream clients can be exercised offline.
+ * <p>
+ * Request paths are resolved against a fixture directory. Prefix routes listed
+ * in {@code replay.properties} in that directory win and answer every request
+ * below the prefix, whatever the method (used for the Etilbudsavis search and
+ * Gemini endpoints). Other paths are looked up as files: a path ending in
+ * {@code /} is served from {@code index.html} in that directory or, failing
+ * that, from the path with {@code .html} appended, so
+ * {@code /cinemateket/program/} serves {@code cinemateket/program.html}.
+ * Unknown paths get a 404.
+ * <p>
+ * Every response is delayed by the configured latency plus a uniformly random
+ * jitter. Requests are handled on virtual threads, so slow responses do not
+ * limit concurrency.
+ * <p>
+ * Run standalone with {@code mvn test-compile spring-boot:test-run}, passing
+ * {@code -Dspring-boot.run.main-class=dev.thehub.backend.support.FixtureReplayServer}
+ * and e.g. {@code -Dspring-boot.run.arguments="--latency-ms=50"}; the default
+ * port matches the scrape URLs of the {@code loadtest} Spring profile.
+ */
+public final class FixtureReplayServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Path root;
+    private final Map<String, Path> routes;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final AtomicLong requests = new AtomicLong();
+
+    private FixtureReplayServer(HttpServer server, Path root, long latencyMs, long jitterMs) throws IOException {
+        this.server = server;
+        this.root = root.toAbsolutePath().normalize();
+        this.routes = loadRoutes(this.root);
+        this.latencyMs = Math.max(0, latencyMs);
+        this.jitterMs = Math.max(0, jitterMs);
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Starts a server on localhost.
+     *
+     * @param port
+     *            port to listen on, 0 for any free port
+     * @param root
+     *            fixture directory
+     * @param latencyMs
+     *            delay added to every response
+     * @param jitterMs
+     *            upper bound of the random extra delay
+     * @return the running server
+     * @throws IOException
+     *             if the port cannot be bound or the routes cannot be read
+     */
+    public static FixtureReplayServer start(int port, Path root, long latencyMs, long jitterMs) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        return new FixtureReplayServer(server, root, latencyMs, jitterMs);
+    }
+
+    /**
+     * The fixture directory on the test classpath
+     * ({@code src/test/resources/fixtures}).
+     */
+    public static Path classpathFixtures() {
+        try {
+            var url = FixtureReplayServer.class.getResource("/fixtures/replay.properties");
+            if (url == null)
+                throw new IllegalStateException("fixtures not on the classpath");
+            return Path.of(url.toURI()).getParent();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Base URL without trailing slash, e.g. {@code http://127.0.0.1:9103}. */
+    public String url() {
+        return "http://127.0.0.1:" + port();
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /** Number of requests answered so far. */
+    public long requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.transferTo(OutputStream.nullOutputStream());
+            requests.incrementAndGet();
+            delay();
+            Path file = resolve(exchange.getRequestURI().getPath());
+            if (file == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] bytes = Files.readAllBytes(file);
+            exchange.getResponseHeaders().set("Content-Type", contentType(file));
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+        }
+    }
+
+    private Path resolve(String path) {
+        for (var route : routes.entrySet()) {
+            if (path.startsWith(route.getKey()))
+                return route.getValue();
+        }
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        if (relative.endsWith("/") || relative.isEmpty()) {
+            Path index = file(relative + "index.html");
+            if (index != null)
+                return index;
+            return relative.isEmpty() ? null : file(relative.substring(0, relative.length() - 1) + ".html");
+        }
+        Path exact = file(relative);
+        return exact != null ? exact : file(relative + ".html");
+    }
+
+    /** A regular file below the root, or null; never escapes the root. */
+    private Path file(String relative) {
+        Path p = root.resolve(relative).normalize();
+        return p.startsWith(root) && Files.isRegularFile(p) ? p : null;
+    }
+
+    private void delay() {
+        long ms = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextLong(jitterMs + 1) : 0);
+        if (ms == 0)
+            return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Prefix routes, longest prefix first. */
+    private static Map<String, Path> loadRoutes(Path root) throws IOException {
+        Path file = root.resolve("replay.properties");
+        if (!Files.isRegularFile(file))
+            return Map.of();
+        Properties props = new Properties();
+        try (var in = Files.newBufferedReader(file)) {
+            props.load(in);
+        }
+        Map<String, Path> out = new LinkedHashMap<>();
+        props.stringPropertyNames().stream().sorted(Comparator.comparingInt(String::length).reversed())
+                .forEach(prefix -> {
+                    Path target = root.resolve(props.getProperty(prefix).trim()).normalize();
+                    if (!Files.isRegularFile(target))
+                        throw new UncheckedIOException(new IOException("missing fixture " + target));
+                    out.put(prefix, target);
+                });
+        return out;
+    }
+
+    private static String contentType(Path file) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(".html"))
+            return "text/html; charset=utf-8";
+        if (name.endsWith(".ndjson"))
+            return "application/x-ndjson; charset=utf-8";
+        if (name.endsWith(".json"))
+            return "application/json; charset=utf-8";
+        return "application/octet-stream";
+    }
+
+    /**
+     * Runs the server until the process is stopped. Options:
+     * {@code --port=9103 --root=src/test/resources/fixtures --latency-ms=0 --jitter-ms=0}.
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (String a : args) {
+            int eq = a.indexOf('=');
+            if (a.startsWith("--") && eq > 2)
+                opts.put(a.substring(2, eq), a.substring(eq + 1));
+        }
+        Path root = opts.containsKey("root") ? Path.of(opts.get("root")) : classpathFixtures();
+        var server = start(Integer.parseInt(opts.getOrDefault("port", "9103")), root,
+                Long.parseLong(opts.getOrDefault("latency-ms", "0")),
+                Long.parseLong(opts.getOrDefault("jitter-ms", "0")));
+        System.out.println("FixtureReplayServer: serving " + root + " on " + server.url());
+        Thread.currentThread().join();
+    }
+}
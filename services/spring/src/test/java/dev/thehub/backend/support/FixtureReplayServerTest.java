@@ -0,0 +1,58 @@
+package dev.thehub.backend.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Test;
+
+class FixtureReplayServerTest {
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void servesPagesRoutesAndMisses() throws Exception {
+        var fixtures = FixtureReplayServer.classpathFixtures();
+        try (var server = FixtureReplayServer.start(0, fixtures, 0, 0)) {
+            var program = get(server, "/cinemateket/program/");
+            assertThat(program.statusCode()).isEqualTo(200);
+            assertThat(program.headers().firstValue("Content-Type")).hasValueSatisfying(
+                    v -> assertThat(v).startsWith("text/html"));
+            assertThat(program.body()).isEqualTo(Files.readString(fixtures.resolve("cinemateket/program.html")));
+            assertThat(get(server, "/cinemateket/").body()).contains("Cinemateket Trondheim");
+            assertThat(get(server, "/trippel-trumf/").body()).contains("Trippel-Trumf");
+
+            var search = client.send(HttpRequest.newBuilder(URI.create(server.url() + "/etilbudsavis/"))
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"data\":[]}")).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            assertThat(search.statusCode()).isEqualTo(200);
+            assertThat(search.headers().firstValue("Content-Type")).hasValueSatisfying(
+                    v -> assertThat(v).startsWith("application/x-ndjson"));
+            assertThat(get(server, "/gemini/v1beta/models/gemini-2.5-flash:generateContent?key=x").body())
+                    .contains("candidates");
+
+            assertThat(get(server, "/missing/").statusCode()).isEqualTo(404);
+            assertThat(get(server, "/../pom.xml").statusCode()).isEqualTo(404);
+            assertThat(server.requests()).isEqualTo(7);
+        }
+    }
+
+    @Test
+    void delaysResponses() throws Exception {
+        try (var server = FixtureReplayServer.start(0, FixtureReplayServer.classpathFixtures(), 50, 10)) {
+            long t0 = System.nanoTime();
+            get(server, "/dnb-supertilbud/");
+
+            assertThat((System.nanoTime() - t0) / 1_000_000).isGreaterThanOrEqualTo(50);
+        }
+    }
+
+    private HttpResponse<String> get(FixtureReplayServer server, String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(server.url() + path)).build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,78 @@
+package dev.thehub.backend.widgets.cinemateket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
+import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+class CinemateketCacheServiceTest {
+
+    private static final List<FilmShowingDto> SHOWINGS = List.of(showing("Stalker"), showing("Solaris"));
+
+    private final CinemateketCacheDao cache = mock(CinemateketCacheDao.class);
+    private final CinemateketService scraper = mock(CinemateketService.class);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ConcurrencyLimits limits = new ConcurrencyLimits(new MockEnvironment()
+            .withProperty("limits.cinemateket.initial-limit", "1").withProperty("limits.cinemateket.min-limit", "1")
+            .withProperty("limits.cinemateket.max-limit", "1"), registry);
+    private final CinemateketCacheService service = new CinemateketCacheService(cache, scraper, limits);
+
+    @Test
+    void freshCacheIsServedWithoutALimiterSlot() {
+        when(cache.find()).thenReturn(Optional.of(row(Instant.now().minus(Duration.ofHours(1)))));
+
+        try (var held = limits.tryAcquire(ConcurrencyLimits.CINEMATEKET).orElseThrow()) {
+            assertThat(service.getShowings(1)).containsExactly(SHOWINGS.get(0));
+        }
+        verify(scraper, never()).fetchShowings(any());
+    }
+
+    @Test
+    void staleCacheScrapesUnderALimiterSlot() {
+        when(cache.find()).thenReturn(Optional.of(row(Instant.now().minus(Duration.ofDays(2)))));
+        when(scraper.fetchShowings(null)).thenReturn(SHOWINGS);
+
+        try (var held = limits.tryAcquire(ConcurrencyLimits.CINEMATEKET).orElseThrow()) {
+            assertThatThrownBy(() -> service.getShowings(null)).isInstanceOf(CinemateketCacheService.Overloaded.class);
+            verify(scraper, never()).fetchShowings(any());
+        }
+
+        assertThat(service.getShowings(null)).isEqualTo(SHOWINGS);
+        verify(cache).upsert(any());
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void failedScrapeReleasesItsSlot() {
+        when(cache.find()).thenReturn(Optional.empty());
+        when(scraper.fetchShowings(null)).thenThrow(new IllegalStateException("down"));
+
+        assertThatThrownBy(() -> service.getShowings(null)).isInstanceOf(IllegalStateException.class);
+        assertThat(inFlight()).isZero();
+    }
+
+    private double inFlight() {
+        return registry.get("thehub.limiter.in_flight").tag("group", "cinemateket").gauge().value();
+    }
+
+    private static CinemateketCacheDao.Row row(Instant fetchedAt) {
+        return new CinemateketCacheDao.Row("cinemateket", SHOWINGS, fetchedAt, null, null);
+    }
+
+    private static FilmShowingDto showing(String title) {
+        return new FilmShowingDto(title, "Tarkovskij", 1979, "2026-10-20T19:00:00+02:00", null, null, null, null);
+    }
+}
@@ -0,0 +1,136 @@
+package dev.thehub.backend.widgets.cinemateket;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.Test;
+
+class CinemateketProgramParserTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+    private static final String SITE = "https://cinemateket-trondheim.no";
+
+    @Test
+    void matchesGoldenOutput() throws IOException {
+        List<FilmShowingDto> expected;
+        try (InputStream in = resource("program.expected.json")) {
+            expected = new ObjectMapper().readValue(in, new TypeReference<List<FilmShowingDto>>() {
+            });
+        }
+
+        assertThat(CinemateketProgramParser.parse(program(), TODAY, SITE)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void matchesLegacyParserOnRecordedPage() throws IOException {
+        Document doc = program();
+
+        assertThat(CinemateketProgramParser.parse(doc, TODAY, SITE))
+                .containsExactlyElementsOf(new LegacyCinemateketParser(TODAY, SITE).parseShowings(doc));
+    }
+
+    @Test
+    void matchesLegacyParserAcrossTheYearBoundary() throws IOException {
+        Document doc = program();
+        for (LocalDate today : List.of(LocalDate.of(2026, 12, 30), LocalDate.of(2027, 1, 2))) {
+            assertThat(CinemateketProgramParser.parse(doc, today, SITE))
+                    .containsExactlyElementsOf(new LegacyCinemateketParser(today, SITE).parseShowings(doc));
+        }
+    }
+
+    @Test
+    void matchesLegacyParserOnGeneratedParagraphs() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            Document doc = Jsoup.parse(generatedPage(random));
+
+            assertThat(CinemateketProgramParser.parse(doc, TODAY, SITE)).as("page %d", i)
+                    .containsExactlyElementsOf(new LegacyCinemateketParser(TODAY, SITE).parseShowings(doc));
+        }
+    }
+
+    @Test
+    void resolvesRelativeLinksAgainstConfiguredSite() throws IOException {
+        List<FilmShowingDto> showings = CinemateketProgramParser.parse(program(), TODAY, "http://localhost:9103");
+
+        FilmShowingDto stalker = showings.get(0);
+        assertThat(stalker.title()).isEqualTo("Stalker");
+        assertThat(stalker.filmUrl()).isEqualTo("http://localhost:9103/program/stalker/");
+        assertThat(showings).extracting(FilmShowingDto::filmUrl).filteredOn(u -> u != null)
+                .noneMatch(u -> u.startsWith(SITE + "/program/stalker"));
+    }
+
+    private static Document program() throws IOException {
+        try (InputStream in = resource("program.html")) {
+            return Jsoup.parse(in, StandardCharsets.UTF_8.name(), SITE + "/program/");
+        }
+    }
+
+    private static InputStream resource(String name) {
+        InputStream in = CinemateketProgramParserTest.class.getResourceAsStream("/fixtures/cinemateket/" + name);
+        assertThat(in).as(name).isNotNull();
+        return in;
+    }
+
+    /** A one-month program page with random paragraph markup. */
+    private static String generatedPage(Random random) {
+        StringBuilder html = new StringBuilder("<div class=\"wp-block-pb-accordion-item\"><h2>November</h2>")
+                .append("<div class=\"c-accordion__content\">");
+        int paragraphs = 1 + random.nextInt(4);
+        for (int p = 0; p < paragraphs; p++) {
+            html.append("<p>");
+            if (random.nextInt(5) > 0)
+                html.append("<strong>Mandag ").append(String.format("%02d", 1 + random.nextInt(31))).append(".11.")
+                        .append("</strong>");
+            else
+                html.append("Tirsdag ").append(1 + random.nextInt(30)).append(".11 ");
+            int lines = random.nextInt(5);
+            for (int l = 0; l < lines; l++) {
+                html.append(pick(random, "<br>", "<br/>", "<br />", " <br>\n"));
+                html.append(line(random));
+            }
+            html.append("</p>");
+        }
+        return html.append("</div></div>").toString();
+    }
+
+    private static String line(Random random) {
+        StringBuilder line = new StringBuilder();
+        if (random.nextInt(6) == 0)
+            line.append(pick(random, "Psykolosjen filmklubb: ", "Filmklubben Kosmorama: ", "Filmklubb: "));
+        line.append(String.format("%02d.%02d", random.nextInt(26), pick(random, 0, 15, 30, 45, 75)));
+        line.append(pick(random, " ", "&nbsp;", "  ", " \n "));
+        String title = pick(random, "Stalker", "Paris, Texas", "La Haine", "Min nabo Totoro", "Uke 45", "24.11");
+        switch (random.nextInt(5)) {
+            case 0 -> line.append("<a href=\"/program/x/\">").append(title).append("</a>");
+            case 1 -> line.append("<a href=\"https://cinemateket-trondheim.no/program/y/\"><em>").append(title)
+                    .append("</em> (restaurert)</a>");
+            case 2 -> line.append("<strong>").append(title).append("</strong>");
+            case 3 -> line.append("<a href=\"/program/z/\"><strong>").append(title).append("</strong><br>del 2</a>");
+            default -> line.append(title);
+        }
+        line.append(pick(random, " Andrej Tarkovskij 1979", " Wim Wenders", " (35mm) Alfred Hitchcock 1958", "",
+                " 1984", " (70MM)"));
+        if (random.nextBoolean())
+            line.append(' ').append(pick(random, "<a href=\"https://ticketco.events/e/1\">Billetter</a>",
+                    "<a href=\"/billetter/2\">billetter her</a>",
+                    "<a href=\"/program/m/\">Minimalen kortfilmfestival</a>",
+                    "<a href=\"https://ticketco.events/e/3\">Kjøp</a>", "<strong>Billetter</strong>"));
+        return line.toString();
+    }
+
+    @SafeVarargs
+    private static <T> T pick(Random random, T... options) {
+        return options[random.nextInt(options.length)];
+    }
+}
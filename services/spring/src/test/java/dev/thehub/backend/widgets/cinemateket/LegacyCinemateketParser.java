@@ -0,0 +1,351 @@
+package dev.thehub.backend.widgets.cinemateket;
+
+import dev.thehub.backend.widgets.cinemateket.dto.FilmShowingDto;
+import java.time.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The program-page parser as it was before {@link CinemateketProgramParser}: it
+ * splits each paragraph's HTML at {@code <br>} and re-parses every line. Kept
+ * only as the reference for equivalence tests and benchmarks; "now" and the site
+ * root are passed in instead of read from the clock and a constant.
+ */
+final class LegacyCinemateketParser {
+    private static final Logger log = LoggerFactory.getLogger(LegacyCinemateketParser.class);
+    private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
+    private static final Map<String, Month> NO_MONTHS = Map.ofEntries(Map.entry("januar", Month.JANUARY),
+            Map.entry("februar", Month.FEBRUARY), Map.entry("mars", Month.MARCH), Map.entry("april", Month.APRIL),
+            Map.entry("mai", Month.MAY), Map.entry("juni", Month.JUNE), Map.entry("juli", Month.JULY),
+            Map.entry("august", Month.AUGUST), Map.entry("september", Month.SEPTEMBER),
+            Map.entry("oktober", Month.OCTOBER), Map.entry("november", Month.NOVEMBER),
+            Map.entry("desember", Month.DECEMBER));
+
+    // Pattern to match "DD.MM" or "DD.MM." date format
+    private static final Pattern DATE_PATTERN = Pattern.compile("(\\d{1,2})\\.(\\d{2})\\.?");
+    // Pattern to match "HH.MM" time format
+    private static final Pattern TIME_PATTERN = Pattern.compile("(\\d{1,2})\\.(\\d{2})");
+    // Pattern to match director and year: "Director Name YYYY" or "Director Name"
+    private static final Pattern DIRECTOR_YEAR_PATTERN = Pattern.compile("^(.+?)\\s+(\\d{4})$");
+    // Pattern to match film format markers like "(35mm)", "(70mm)", "(16mm)"
+    private static final Pattern FORMAT_PATTERN = Pattern.compile("\\((\\d+mm)\\)", Pattern.CASE_INSENSITIVE);
+
+    private final LocalDate today;
+    private final String baseUrl;
+
+    LegacyCinemateketParser(LocalDate today, String baseUrl) {
+        this.today = today;
+        this.baseUrl = baseUrl;
+    }
+
+    List<FilmShowingDto> parseShowings(Document doc) {
+        List<FilmShowingDto> showings = new ArrayList<>();
+        int currentYear = today.getYear();
+
+        // Find all h2 elements (months) - they're in accordion items
+        Elements monthHeaders = doc.select("h2");
+
+        // Filter to only h2s that contain month names
+        monthHeaders = monthHeaders.stream().filter(h2 -> {
+            String text = h2.text().trim().toLowerCase(Locale.ROOT);
+            return NO_MONTHS.containsKey(text);
+        }).collect(java.util.stream.Collectors.toCollection(Elements::new));
+
+        for (Element monthHeader : monthHeaders) {
+            String monthText = monthHeader.text().trim().toLowerCase(Locale.ROOT);
+            Month month = NO_MONTHS.get(monthText);
+            if (month == null) {
+                continue;
+            }
+
+            // The structure is: accordion item > h2 (month) > accordion content >
+            // wp-block-group > paragraphs
+            // Find the parent accordion item
+            Element accordionItem = monthHeader.parent();
+            while (accordionItem != null && !accordionItem.hasClass("wp-block-pb-accordion-item")) {
+                accordionItem = accordionItem.parent();
+            }
+
+            if (accordionItem == null) {
+                continue;
+            }
+
+            // Find the accordion content div (sibling of the h2, or child of accordion
+            // item)
+            Element contentDiv = accordionItem.selectFirst(".c-accordion__content");
+            if (contentDiv == null) {
+                continue;
+            }
+
+            // Find all paragraphs in the content div
+            Elements paragraphs = contentDiv.select("p");
+
+            for (Element p : paragraphs) {
+                parseParagraph(p, month, currentYear, showings);
+            }
+        }
+
+        return showings;
+    }
+
+    private void parseParagraph(Element p, Month month, int year, List<FilmShowingDto> showings) {
+        String text = p.text();
+        if (text.isBlank())
+            return;
+
+        // Look for day patterns like "Torsdag 08.01." or "Onsdag 14.01" in strong tags
+        Elements strongTags = p.select("strong");
+        String dayText = "";
+        for (Element strong : strongTags) {
+            String strongText = strong.text().trim();
+            Matcher dayMatcher = DATE_PATTERN.matcher(strongText);
+            if (dayMatcher.find()) {
+                dayText = strongText;
+                break;
+            }
+        }
+
+        if (dayText.isEmpty()) {
+            // Fallback: check the whole paragraph text
+            Matcher dayMatcher = DATE_PATTERN.matcher(text);
+            if (!dayMatcher.find())
+                return;
+            dayText = dayMatcher.group(0);
+        }
+
+        Matcher dayMatcher = DATE_PATTERN.matcher(dayText);
+        if (!dayMatcher.find())
+            return;
+
+        int day;
+        int monthNum;
+        try {
+            day = Integer.parseInt(dayMatcher.group(1));
+            monthNum = Integer.parseInt(dayMatcher.group(2));
+        } catch (NumberFormatException e) {
+            return;
+        }
+
+        // Validate month matches
+        if (monthNum != month.getValue()) {
+            return;
+        }
+
+        // Handle year boundary relative to the current calendar year:
+        // - If current month is December and parsed month is January, increment year.
+        // - If current month is January and parsed month is December, decrement year.
+        // Assumes that the 'year' argument represents the current year at the call
+        // site.
+        int adjustedYear = year;
+        Month currentMonth = today.getMonth();
+        if (currentMonth == Month.DECEMBER && month == Month.JANUARY) {
+            adjustedYear = year + 1;
+        } else if (currentMonth == Month.JANUARY && month == Month.DECEMBER) {
+            adjustedYear = year - 1;
+        }
+
+        LocalDate date;
+        try {
+            date = LocalDate.of(adjustedYear, month, day);
+        } catch (DateTimeException e) {
+            return;
+        }
+
+        // Split by <br> tags to get individual showings
+        String html = p.html();
+        String[] lines = html.split("<br\\s*/?>", -1);
+
+        for (String lineHtml : lines) {
+            // Parse this line as HTML to extract structured data
+            Document lineDoc = Jsoup.parse(lineHtml);
+            String line = lineDoc.text().trim();
+            if (line.isEmpty())
+                continue;
+
+            // Check if line contains a time (HH.MM format, where HH is 0-23)
+            Matcher timeMatcher = TIME_PATTERN.matcher(line);
+            if (!timeMatcher.find())
+                continue;
+
+            int hour;
+            int minute;
+            try {
+                hour = Integer.parseInt(timeMatcher.group(1));
+                minute = Integer.parseInt(timeMatcher.group(2));
+            } catch (NumberFormatException e) {
+                // Skip this line if the time components are not valid integers
+                continue;
+            }
+
+            // Validate hour is in valid range (0-23)
+            // Also check it's not a date pattern (e.g., "24.01" should not match as time
+            // "24.00")
+            if (hour < 0 || hour > 23) {
+                continue;
+            }
+
+            // Validate minute is in valid range (0-59)
+            if (minute < 0 || minute > 59) {
+                continue;
+            }
+
+            // Additional check: if the line only contains a date pattern and no actual time
+            // content,
+            // it's likely just a date header, not a showing with a time
+            // Times should be followed by title/director info, not just be standalone dates
+            String afterTimePattern = line.substring(timeMatcher.end()).trim();
+            if (afterTimePattern.isEmpty() || afterTimePattern.matches("^[\\d.\\s]+$")) {
+                // Line only has numbers/dots after time - likely a date, not a time
+                continue;
+            }
+
+            LocalDateTime dateTime;
+            try {
+                dateTime = date.atTime(hour, minute);
+            } catch (DateTimeException e) {
+                log.debug("Failed to create LocalDateTime from hour={} minute={} date={}: {}", hour, minute, date,
+                        e.getMessage());
+                continue;
+            }
+            Instant showTime = dateTime.atZone(ZONE).toInstant();
+
+            // Extract film title and links from this line
+            // We need to extract title and filmUrl together to ensure they match
+            String title = null;
+            String filmUrl = null;
+            String ticketUrl = null;
+
+            // First, try to find title in links (most reliable) and capture its URL
+            Elements links = lineDoc.select("a");
+            for (Element link : links) {
+                String linkText = link.text().trim();
+                String linkTextLower = linkText.toLowerCase(Locale.ROOT);
+                String href = link.attr("href");
+
+                // Skip ticket links and other non-title links
+                if (linkText.isEmpty() || linkTextLower.contains("billetter")
+                        || linkTextLower.equals("minimalen kortfilmfestival") || linkTextLower.contains("ticketco")) {
+                    // This is a ticket link
+                    if (linkTextLower.contains("billetter") || href.contains("ticketco")) {
+                        if (ticketUrl == null) {
+                            ticketUrl = href.startsWith("http") ? href : baseUrl + href;
+                        }
+                    }
+                    continue;
+                }
+
+                // This looks like a film title link
+                if (title == null) {
+                    title = linkText;
+                    // Capture the film URL from the title link
+                    if (href.contains("/program/") || href.contains("cinemateket")) {
+                        filmUrl = href.startsWith("http") ? href : baseUrl + href;
+                    }
+                }
+            }
+
+            // If no title from links, try strong tags
+            if (title == null) {
+                Elements strong = lineDoc.select("strong");
+                for (Element s : strong) {
+                    String strongText = s.text().trim();
+                    if (!strongText.isEmpty() && !DATE_PATTERN.matcher(strongText).find()
+                            && !strongText.toLowerCase(Locale.ROOT).contains("uke")
+                            && !strongText.toLowerCase(Locale.ROOT).contains("billetter")) {
+                        // Check if it's not a day name
+                        if (!strongText.matches("(?i)(mandag|tirsdag|onsdag|torsdag|fredag|lørdag|søndag).*")) {
+                            title = strongText;
+                            break;
+                        }
+                    }
+                }
+            }
+
+            // Fallback: extract from line text after time
+            if (title == null) {
+                String afterTime = line.substring(timeMatcher.end()).trim();
+                afterTime = afterTime.replaceAll("(?i)\\s*billetter.*", "").trim();
+                Matcher dirYearMatcher = DIRECTOR_YEAR_PATTERN.matcher(afterTime);
+                if (dirYearMatcher.find()) {
+                    String beforeDir = afterTime.substring(0, dirYearMatcher.start()).trim();
+                    if (!beforeDir.isEmpty()) {
+                        title = beforeDir;
+                    }
+                } else {
+                    String[] parts = afterTime.split("\\s+", 2);
+                    if (parts.length > 0 && !parts[0].isEmpty()) {
+                        title = parts[0];
+                    }
+                }
+            }
+
+            if (title == null || title.isBlank())
+                continue;
+
+            // Extract film format marker (e.g., "(35mm)", "(70mm)")
+            String filmFormat = null;
+            Matcher fmtMatcher = FORMAT_PATTERN.matcher(line);
+            if (fmtMatcher.find()) {
+                filmFormat = fmtMatcher.group(1).toLowerCase(Locale.ROOT);
+            }
+
+            // Extract director and year - look for pattern after the title
+            String director = null;
+            Integer filmYear = null;
+            int timeEnd = timeMatcher.end();
+            String afterTime = line.substring(timeEnd).trim();
+
+            // Find title in the text and get what comes after it
+            int titleIdx = afterTime.toLowerCase(Locale.ROOT).indexOf(title.toLowerCase(Locale.ROOT));
+            if (titleIdx >= 0) {
+                String afterTitle = afterTime.substring(titleIdx + title.length()).trim();
+                // Strip format marker so it doesn't bleed into the director name
+                if (filmFormat != null) {
+                    afterTitle = afterTitle.replaceAll("(?i)\\(\\d+mm\\)\\s*", "").trim();
+                }
+                Matcher dirYearMatcher = DIRECTOR_YEAR_PATTERN.matcher(afterTitle);
+                if (dirYearMatcher.find()) {
+                    director = dirYearMatcher.group(1).trim();
+                    try {
+                        filmYear = Integer.parseInt(dirYearMatcher.group(2));
+                    } catch (NumberFormatException e) {
+                        // Ignore
+                    }
+                } else if (!afterTitle.isBlank() && !afterTitle.toLowerCase(Locale.ROOT).contains("billetter")) {
+                    director = afterTitle;
+                }
+            }
+
+            // If we still don't have ticketUrl, look for it in the line
+            if (ticketUrl == null) {
+                for (Element link : links) {
+                    String href = link.attr("href");
+                    String linkText = link.text().toLowerCase(Locale.ROOT);
+                    if (linkText.contains("billetter") || href.contains("ticketco")) {
+                        ticketUrl = href.startsWith("http") ? href : baseUrl + href;
+                        break;
+                    }
+                }
+            }
+
+            // Extract organizer (e.g., "Psykolosjen filmklubb:")
+            String organizer = null;
+            if (line.contains("filmklubb") || line.contains("Filmklubb") || line.contains("filmklubben")) {
+                int colonIdx = line.indexOf(':');
+                if (colonIdx > 0) {
+                    organizer = line.substring(0, colonIdx).trim();
+                }
+            }
+
+            showings.add(new FilmShowingDto(title, director, filmYear, showTime.toString(), ticketUrl, filmUrl,
+                    organizer, filmFormat));
+        }
+    }
+}
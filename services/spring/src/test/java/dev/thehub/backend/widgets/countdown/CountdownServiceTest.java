@@ -0,0 +1,123 @@
+package dev.thehub.backend.widgets.countdown;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.thehub.backend.common.cache.CacheInvalidationEvent;
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRow;
+import dev.thehub.backend.widgets.WidgetSettingsService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CountdownServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final UUID USER = UUID.randomUUID();
+
+    @Mock
+    WidgetSettingsService settings;
+    @Mock
+    CountdownResolver resolver;
+
+    @Test
+    void resolveAllReportsMalformedRulesPerWidget() {
+        WidgetRow valid = row(JSON.createObjectNode().put("source", "monthly-rule").put("dayOfMonth", 1));
+        WidgetRow badTime = row(JSON.createObjectNode().put("source", "monthly-rule").put("time", "25:99"));
+        WidgetRow badStart = row(JSON.createObjectNode().put("source", "monthly-rule").put("byWeekday", "MO")
+                .put("start", "not-a-date"));
+        WidgetRow fixed = row(JSON.createObjectNode().put("source", "fixed-date").put("targetIso",
+                "2030-01-01T00:00:00Z"));
+        when(settings.findWidgets(USER, WidgetKind.COUNTDOWN, null)).thenReturn(List.of(valid, badTime, badStart,
+                fixed));
+
+        var out = new CountdownService(settings, resolver).resolveAll(USER, null);
+
+        assertThat(out).containsOnlyKeys(valid.instanceId(), badTime.instanceId(), badStart.instanceId(),
+                fixed.instanceId());
+        assertThat(out.get(valid.instanceId()).nextIso()).isNotNull();
+        assertThat(out.get(valid.instanceId()).error()).isNull();
+        assertThat(out.get(badTime.instanceId()).error()).isEqualTo("invalid_time");
+        assertThat(out.get(badStart.instanceId()).error()).isEqualTo("invalid_start");
+        assertThat(out.get(badStart.instanceId()).nextIso()).isNull();
+        assertThat(out.get(fixed.instanceId()).nextIso()).isEqualTo("2030-01-01T00:00:00Z");
+    }
+
+    @Test
+    void failingProviderOnlyFailsItsOwnWidgets() {
+        WidgetRow broken = row(JSON.createObjectNode().put("source", "provider").put("provider", "broken"));
+        WidgetRow sameProvider = row(JSON.createObjectNode().put("source", "provider").put("provider", "broken"));
+        WidgetRow fixed = row(JSON.createObjectNode().put("source", "fixed-date").put("targetIso",
+                "2030-01-01T00:00:00Z"));
+        when(settings.findWidgets(USER, WidgetKind.COUNTDOWN, null)).thenReturn(List.of(broken, sameProvider,
+                fixed));
+        when(resolver.resolveProvider(eq("broken"), any())).thenThrow(new IllegalStateException("upstream down"));
+
+        var out = new CountdownService(settings, resolver).resolveAll(USER, null);
+
+        assertThat(out.get(broken.instanceId()).error()).isEqualTo("resolve_failed");
+        assertThat(out.get(sameProvider.instanceId()).error()).isEqualTo("resolve_failed");
+        assertThat(out.get(fixed.instanceId()).nextIso()).isEqualTo("2030-01-01T00:00:00Z");
+        verify(resolver, times(1)).resolveProvider(eq("broken"), any());
+    }
+
+    @Test
+    void monthlyRulesAreKeyedBySettingsVersionAndDroppedWithTheirWidget() {
+        var service = new CountdownService(settings, resolver);
+        WidgetRow first = row(JSON.createObjectNode().put("source", "monthly-rule").put("dayOfMonth", 1));
+        WidgetRow edited = new WidgetRow(first.id(), first.instanceId(), first.kind(), first.grid(),
+                JSON.createObjectNode().put("source", "monthly-rule").put("dayOfMonth", 15));
+        WidgetRow other = row(JSON.createObjectNode().put("source", "monthly-rule").put("dayOfMonth", 1));
+        when(settings.findWidgets(USER, WidgetKind.COUNTDOWN, null)).thenReturn(List.of(first, other),
+                List.of(new WidgetRow(first.id(), first.instanceId(), first.kind(), first.grid(),
+                        first.settings().deepCopy()), other), List.of(edited, other));
+
+        service.resolveAll(USER, null);
+        service.resolveAll(USER, null);
+        assertThat(service.compiledRuleCount()).isEqualTo(2);
+
+        var out = service.resolveAll(USER, null);
+        assertThat(service.compiledRuleCount()).isEqualTo(3);
+        assertThat(out.get(edited.instanceId()).nextIso()).isNotEqualTo(out.get(other.instanceId()).nextIso());
+
+        service.onInvalidation(new CacheInvalidationEvent("user_widgets", "DELETE", null, USER, first.instanceId()));
+        assertThat(service.compiledRuleCount()).isEqualTo(1);
+        service.onInvalidation(new CacheInvalidationEvent("user_widgets", "TRUNCATE", null, null, null));
+        assertThat(service.compiledRuleCount()).isZero();
+    }
+
+    @Test
+    void compiledRulesAreBoundedByRecency() {
+        var service = new CountdownService(settings, resolver);
+        WidgetRow hot = row(JSON.createObjectNode().put("source", "monthly-rule").put("dayOfMonth", 1));
+        List<WidgetRow> rows = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            rows.add(row(JSON.createObjectNode().put("source", "monthly-rule").put("dayOfMonth", 1 + i % 28)));
+        when(settings.findWidgets(USER, WidgetKind.COUNTDOWN, null)).thenReturn(List.of(hot), rows.subList(0, 9_999),
+                List.of(hot), rows.subList(9_999, 10_000));
+
+        for (int i = 0; i < 4; i++)
+            service.resolveAll(USER, null);
+
+        assertThat(service.compiledRuleCount()).isEqualTo(10_000);
+        service.onInvalidation(new CacheInvalidationEvent("user_widgets", "DELETE", null, USER, hot.instanceId()));
+        assertThat(service.compiledRuleCount()).as("recently used rule survived eviction").isEqualTo(9_999);
+    }
+
+    private static WidgetRow row(ObjectNode settings) {
+        return new WidgetRow(UUID.randomUUID(), UUID.randomUUID(), WidgetKind.COUNTDOWN.getValue(),
+                JSON.createObjectNode(), settings);
+    }
+}
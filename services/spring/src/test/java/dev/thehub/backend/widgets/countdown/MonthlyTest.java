@@ -0,0 +1,108 @@
+package dev.thehub.backend.widgets.countdown;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class MonthlyTest {
+
+    private static final ZoneId ZONE = ZoneId.of("Europe/Oslo");
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<String> WEEKDAYS = List.of("MO", "TU", "WE", "TH", "FR", "SA", "SU");
+
+    @Test
+    void dayOfMonthRulesMatchLegacy() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            ObjectNode s = JSON.createObjectNode().put("time", time(random)).put("dayOfMonth",
+                    random.nextInt(34) - 1);
+
+            assertMatchesLegacy(s, instant(random));
+        }
+    }
+
+    @Test
+    void weekdayPositionRulesMatchLegacy() {
+        Random random = new Random(11);
+        for (int i = 0; i < 5_000; i++) {
+            int pos = random.nextBoolean() ? 1 + random.nextInt(5) : -1 - random.nextInt(5);
+            ObjectNode s = JSON.createObjectNode().put("time", time(random))
+                    .put("byWeekday", WEEKDAYS.get(random.nextInt(7))).put("bySetPos", pos);
+
+            assertMatchesLegacy(s, instant(random));
+        }
+    }
+
+    @Test
+    void weekdayRulesAroundDaylightSavingChangesMatchLegacy() {
+        var instants = List.of(ZonedDateTime.of(2026, 3, 29, 1, 59, 0, 0, ZONE),
+                ZonedDateTime.of(2026, 3, 29, 2, 30, 0, 0, ZONE), ZonedDateTime.of(2026, 10, 25, 2, 30, 0, 0, ZONE),
+                ZonedDateTime.of(2026, 10, 25, 2, 30, 0, 0, ZONE).withLaterOffsetAtOverlap());
+        for (var now : instants) {
+            for (String time : List.of("02:30", "01:00", "03:00")) {
+                ObjectNode s = JSON.createObjectNode().put("time", time).put("byWeekday", "SU").put("bySetPos", -1);
+
+                assertMatchesLegacy(s, now.toInstant());
+            }
+        }
+    }
+
+    @Test
+    void weekdayWithoutPositionMatchesEveryListedWeekday() {
+        ObjectNode s = JSON.createObjectNode().put("time", "18:00").put("byWeekday", "TU");
+        Instant now = ZonedDateTime.of(2026, 10, 19, 12, 0, 0, 0, ZONE).toInstant();
+
+        // The legacy implementation required bySetPos and produced no occurrence.
+        assertThat(LegacyMonthly.nextOccurrenceIso(now, s)).isNull();
+        assertThat(Monthly.compile(s).nextOccurrenceIso(now)).isEqualTo("2026-10-20T18:00+02:00");
+    }
+
+    @Test
+    void intervalWithoutStartIsCountedFromJanuary1970() {
+        ObjectNode s = JSON.createObjectNode().put("dayOfMonth", 1).put("interval", 7);
+        Monthly rule = Monthly.compile(s);
+
+        for (int i = 0; i < 24; i++) {
+            var next = rule.next(ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, ZONE).plusMonths(i).toInstant());
+            long months = YearMonth.of(1970, 1).until(YearMonth.from(next), ChronoUnit.MONTHS);
+
+            assertThat(months % 7).as("%s", next).isZero();
+        }
+    }
+
+    /**
+     * The legacy implementation only looked at the current and the following
+     * month; whenever it found an occurrence the compiled rule must find the same
+     * one, and otherwise it must not find one in those two months either.
+     */
+    private static void assertMatchesLegacy(ObjectNode s, Instant now) {
+        String legacy = LegacyMonthly.nextOccurrenceIso(now, s);
+        ZonedDateTime actual = Monthly.compile(s).next(now);
+        if (legacy != null) {
+            assertThat(actual).as("%s at %s", s, now).isNotNull();
+            assertThat(actual.toOffsetDateTime().toString()).as("%s at %s", s, now).isEqualTo(legacy);
+        } else if (actual != null) {
+            YearMonth following = YearMonth.from(now.atZone(ZONE)).plusMonths(1);
+            assertThat(YearMonth.from(actual)).as("%s at %s", s, now).isAfter(following);
+        }
+    }
+
+    private static String time(Random random) {
+        return String.format("%02d:%02d", random.nextInt(24), random.nextInt(4) * 15);
+    }
+
+    private static Instant instant(Random random) {
+        long from = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZONE).toEpochSecond();
+        long to = ZonedDateTime.of(2030, 1, 1, 0, 0, 0, 0, ZONE).toEpochSecond();
+        return Instant.ofEpochSecond(from + (long) (random.nextDouble() * (to - from)));
+    }
+}
@@ -0,0 +1,179 @@
+package dev.thehub.backend.widgets.create;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRowCache;
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+@ExtendWith(MockitoExtension.class)
+class CreateWidgetServiceTest {
+
+    private static final UUID USER = UUID.randomUUID();
+    private static final Map<String, Object> GRID = Map.of("x", 0, "y", 0, "w", 1, "h", 1);
+
+    @Mock
+    JdbcTemplate jdbc;
+    @Mock
+    ResultSet result;
+    @Mock
+    Connection connection;
+    @Mock
+    PreparedStatement statement;
+
+    private CreateWidgetService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new CreateWidgetService(jdbc, new ObjectMapper(), new WidgetRowCache(10, 60,
+                ObservationRegistry.NOOP), 3);
+    }
+
+    @Test
+    void createLocksTheUserBeforeCheckingTargetsOrLimits() throws Exception {
+        inserted();
+        doNothing().when(jdbc).query(contains("pg_advisory_xact_lock"), any(RowCallbackHandler.class),
+                eq(USER.toString()));
+
+        service.create(USER, WidgetKind.SERVER_PINGS, Map.of("target", "https://a.example"), GRID, null);
+        service.create(USER, WidgetKind.GROCERY_DEALS, Map.of("query", "melk"), GRID, 5);
+
+        var order = inOrder(jdbc);
+        order.verify(jdbc).query(contains("pg_advisory_xact_lock"), any(RowCallbackHandler.class),
+                eq(USER.toString()));
+        order.verify(jdbc).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        order.verify(jdbc).query(contains("pg_advisory_xact_lock"), any(RowCallbackHandler.class),
+                eq(USER.toString()));
+        order.verify(jdbc).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+    }
+
+    @Test
+    void createWithoutTargetsOrLimitDoesNotLock() throws Exception {
+        inserted();
+
+        service.create(USER, WidgetKind.COUNTDOWN, Map.of("source", "provider", "provider", "trippel-trumf"), GRID,
+                null);
+
+        verify(jdbc, never()).query(contains("pg_advisory_xact_lock"), any(RowCallbackHandler.class),
+                eq(USER.toString()));
+    }
+
+    @Test
+    void createAllLocksBeforeReadingExistingWidgets() {
+        service.createAll(USER, List.of(new CreateWidgetRequest(WidgetKind.CINEMATEKET, null, GRID)),
+                Map.of());
+
+        var order = inOrder(jdbc);
+        order.verify(jdbc).query(contains("pg_advisory_xact_lock"), any(RowCallbackHandler.class),
+                eq(USER.toString()));
+        order.verify(jdbc).query(contains("from user_widgets"), any(RowCallbackHandler.class), eq(USER));
+        order.verify(jdbc).batchUpdate(anyString(), any(List.class));
+    }
+
+    @Test
+    void dedupeKeysNormalizeLikeTheGeneratedColumn() {
+        // lower(btrim(...)): spaces are trimmed, tabs are not; lower-casing ignores the default locale
+        assertThat(CreateWidgetService.dedupeKey(WidgetKind.GROCERY_DEALS, Map.of("query", "  Melk ", "city",
+                " TRONDHEIM"))).isEqualTo("melk\ntrondheim");
+        assertThat(CreateWidgetService.dedupeKey(WidgetKind.GROCERY_DEALS, Map.of("query", "\tMelk")))
+                .isEqualTo("\tmelk\n");
+        assertThat(CreateWidgetService.dedupeKey(WidgetKind.GROCERY_DEALS, Map.of("query", "ISKREM"))).isEqualTo(
+                "iskrem\n");
+        assertThat(CreateWidgetService.dedupeKey(WidgetKind.COUNTDOWN, Map.of("source", "Provider", "provider",
+                " Trippel-Trumf "))).isEqualTo("trippel-trumf");
+        assertThat(CreateWidgetService.dedupeKey(WidgetKind.COUNTDOWN, Map.of("source", " provider", "provider",
+                "x"))).isNull();
+        assertThat(CreateWidgetService.dedupeKey(WidgetKind.CINEMATEKET, null)).isEqualTo("cinemateket");
+    }
+
+    @Test
+    void targetUrlsMatchTheSqlFunction() {
+        Map<String, Object> settings = Map.of("target", " https://a.example/ ", "targets",
+                List.of("https://a.example", "https://b.example//", " ", 42));
+
+        assertThat(CreateWidgetService.targetUrls(settings)).containsExactly("https://a.example",
+                "https://b.example/");
+    }
+
+    @Test
+    void createAllAcceptsATargetRepeatedWithinOneWidget() {
+        service.createAll(USER, List.of(new CreateWidgetRequest(WidgetKind.SERVER_PINGS, Map.of("targets",
+                List.of("https://a.example", "https://a.example/")), GRID)), Map.of());
+
+        verify(jdbc).batchUpdate(anyString(), any(List.class));
+    }
+
+    @Test
+    void createWithoutGridPlacesTheWidgetWithOneQuery() throws Exception {
+        ResultSet cell = mock(ResultSet.class);
+        when(cell.next()).thenReturn(true);
+        when(cell.getInt("x")).thenReturn(2);
+        when(cell.getInt("y")).thenReturn(1);
+        when(result.next()).thenReturn(true);
+        when(result.getBoolean("inserted")).thenReturn(true);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return inv.<ResultSetExtractor<?>>getArgument(1).extractData(cell);
+        }).thenAnswer(inv -> inv.<ResultSetExtractor<?>>getArgument(1).extractData(result));
+
+        var out = service.create(USER, WidgetKind.COUNTDOWN, Map.of("source", "fixed-date"), null, null);
+
+        assertThat(out.grid()).isEqualTo(Map.of("x", 2, "y", 1, "w", 1, "h", 1));
+        verify(jdbc, times(2)).query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class));
+        verifyNoMoreInteractions(jdbc);
+        verify(connection).prepareStatement(contains("generate_series"));
+        verify(statement).setObject(1, USER);
+        for (int i = 2; i <= 7; i++)
+            verify(statement).setInt(i, 3);
+    }
+
+    @Test
+    void createWithoutGridFallsBackToTheOriginWhenNoCellIsReturned() throws Exception {
+        ResultSet none = mock(ResultSet.class);
+        when(result.next()).thenReturn(true);
+        when(result.getBoolean("inserted")).thenReturn(true);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+                .thenAnswer(inv -> inv.<ResultSetExtractor<?>>getArgument(1).extractData(none))
+                .thenAnswer(inv -> inv.<ResultSetExtractor<?>>getArgument(1).extractData(result));
+
+        var out = service.create(USER, WidgetKind.COUNTDOWN, Map.of("source", "fixed-date"), Map.of(), null);
+
+        assertThat(out.grid()).isEqualTo(Map.of("x", 0, "y", 0, "w", 1, "h", 1));
+    }
+
+    private void inserted() throws Exception {
+        when(result.next()).thenReturn(true);
+        when(result.getBoolean("inserted")).thenReturn(true);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class)))
+                .thenAnswer(inv -> inv.<ResultSetExtractor<?>>getArgument(1).extractData(result));
+    }
+}
@@ -0,0 +1,155 @@
+package dev.thehub.backend.widgets.delete;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRow;
+import dev.thehub.backend.widgets.WidgetRowCache;
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Runs the delete and its reflow against a mocked JDBC layer: which rows the
+ * reflow statement reads, the cell it continues from, and which cached rows are
+ * dropped afterwards.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeleteWidgetServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final UUID USER = UUID.randomUUID();
+    private static final UUID ROW = UUID.randomUUID();
+    private static final UUID INSTANCE = UUID.randomUUID();
+
+    @Mock
+    JdbcTemplate jdbc;
+    @Mock
+    Connection connection;
+    @Mock
+    PreparedStatement statement;
+    @Mock
+    ResultSet removedRow;
+
+    private final WidgetRowCache rowCache = new WidgetRowCache(10, 60, ObservationRegistry.NOOP);
+    private DeleteWidgetService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DeleteWidgetService(jdbc, rowCache, 3);
+    }
+
+    @Test
+    void deleteShiftsOnlyTheWidgetsAfterTheRemovedSlot() throws Exception {
+        UUID moved = UUID.randomUUID();
+        UUID untouched = UUID.randomUUID();
+        cache(moved);
+        cache(untouched);
+        removed(1, 2);
+        when(jdbc.update(anyString(), any(PreparedStatementSetter.class))).thenReturn(1);
+        when(jdbc.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class)))
+                .thenReturn(List.of(moved));
+
+        assertThat(service.deleteByInstanceId(USER, false, INSTANCE)).isEqualTo(1);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<PreparedStatementSetter> params = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertThat(sql.getValue()).contains("(grid_y, grid_x, id) > (?, ?, ?)");
+        params.getValue().setValues(statement);
+        var order = inOrder(statement);
+        order.verify(statement).setInt(1, 7);
+        order.verify(statement).setObject(2, USER);
+        order.verify(statement).setInt(3, 2);
+        order.verify(statement).setInt(4, 1);
+        order.verify(statement).setObject(5, ROW);
+        order.verify(statement).setInt(6, 3);
+        order.verify(statement).setInt(7, 3);
+        assertThat(rowCache.size()).as("only the moved widget's row is dropped").isEqualTo(1);
+    }
+
+    @Test
+    void removedWidgetWithoutACellCompactsTheWholeGrid() throws Exception {
+        removed(null, null);
+        when(jdbc.update(anyString(), any(PreparedStatementSetter.class))).thenReturn(1);
+        when(jdbc.query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class))).thenReturn(List.of());
+
+        service.deleteByInstanceId(USER, false, INSTANCE);
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<PreparedStatementSetter> params = ArgumentCaptor.forClass(PreparedStatementSetter.class);
+        verify(jdbc).query(sql.capture(), params.capture(), any(RowMapper.class));
+        assertThat(sql.getValue()).doesNotContain("(grid_y, grid_x, id) >");
+        params.getValue().setValues(statement);
+        var order = inOrder(statement);
+        order.verify(statement).setInt(1, 0);
+        order.verify(statement).setObject(2, USER);
+        order.verify(statement).setInt(3, 3);
+        order.verify(statement).setInt(4, 3);
+    }
+
+    @Test
+    void noReflowWhenNothingWasDeleted() throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return inv.<ResultSetExtractor<?>>getArgument(1).extractData(removedRow);
+        });
+        when(jdbc.update(anyString(), any(PreparedStatementSetter.class))).thenReturn(0);
+
+        assertThat(service.deleteByInstanceId(USER, false, INSTANCE)).isZero();
+
+        verify(jdbc, never()).query(anyString(), any(PreparedStatementSetter.class), any(RowMapper.class));
+    }
+
+    @Test
+    void slotIndexFollowsReadingOrder() {
+        assertThat(DeleteWidgetService.slotIndex(0, 0, 3)).isZero();
+        assertThat(DeleteWidgetService.slotIndex(2, 0, 3)).isEqualTo(2);
+        assertThat(DeleteWidgetService.slotIndex(0, 1, 3)).isEqualTo(3);
+        assertThat(DeleteWidgetService.slotIndex(5, 1, 3)).as("out-of-grid x clamps to the last column")
+                .isEqualTo(5);
+        assertThat(DeleteWidgetService.slotIndex(-1, -1, 3)).isZero();
+    }
+
+    private void removed(Integer x, Integer y) throws Exception {
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(removedRow.next()).thenReturn(true);
+        when(removedRow.getObject("id", UUID.class)).thenReturn(ROW);
+        when(removedRow.getObject("user_id", UUID.class)).thenReturn(USER);
+        when(removedRow.getObject("grid_x", Integer.class)).thenReturn(x);
+        when(removedRow.getObject("grid_y", Integer.class)).thenReturn(y);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return inv.<ResultSetExtractor<?>>getArgument(1).extractData(removedRow);
+        });
+    }
+
+    private void cache(UUID instanceId) {
+        var row = new WidgetRow(UUID.randomUUID(), instanceId, WidgetKind.COUNTDOWN.getValue(),
+                JSON.createObjectNode(), JSON.createObjectNode());
+        rowCache.get(USER, instanceId, () -> Optional.of(row));
+    }
+}
@@ -0,0 +1,204 @@
+package dev.thehub.backend.widgets.groceries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.common.http.RequestHedger;
+import dev.thehub.backend.common.limits.ConcurrencyLimits;
+import dev.thehub.backend.common.tracing.ContextPropagatingTaskDecorator;
+import dev.thehub.backend.widgets.WidgetSettingsService;
+import dev.thehub.backend.widgets.groceries.dto.DealDto;
+import dev.thehub.backend.widgets.groceries.dto.GroceryDealsSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Checks that searches answered from the {@link LocalOfferIndex} return what
+ * the same search against Etilbudsavis returns. The fake upstream matches a
+ * query word anywhere inside an offer's words ("melk" finds "Lettmelk"), like
+ * the real search does; every query here has fewer matches than one upstream
+ * page, so both paths see the complete result set.
+ */
+class GroceriesServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final List<Map<String, Object>> CATALOG = List.of(
+            offer("Tine Lettmelk 1L", "Rema 1000", 22.9, 1000, "ml"),
+            offer("Tine Helmelk 1L", "Kiwi", 24.5, 1000, "ml"),
+            offer("Tine Skummetmelk 1,75L", "Meny", 31.9, 1750, "ml"),
+            offer("Tine Smør 500g", "Kiwi", 54.9, 500, "g"),
+            offer("Tine Norvegia 1kg", "Coop Extra", 119.0, 1000, "g"),
+            offer("Tine Yoghurt Jordbær 4x125g", "Rema 1000", 29.9, 500, "g"),
+            offer("Q Lettmelk 1L", "Meny", 21.9, 1000, "ml"),
+            offer("Q Melk Laktosefri 1L", "Coop Extra", 27.4, 1000, "ml"),
+            offer("Q Kefir 1L", "Kiwi", 25.9, 1000, "ml"),
+            offer("First Price Lettmelk 1L", "Kiwi", 19.9, 1000, "ml"),
+            offer("Freia Melkesjokolade 200g", "Rema 1000", 39.9, 200, "g"),
+            offer("Gilde Kjøttdeig 400g", "Meny", 44.9, 400, "g"),
+            offer("Gilde Grillpølser 600g", "Coop Extra", 59.0, 600, "g"),
+            offer("Gilde Kyllingpølser 500g", "Kiwi", 49.9, 500, "g"),
+            offer("Prior Kyllingfilet 700g", "Rema 1000", 109.0, 700, "g"),
+            offer("Coop Kyllingfilet 1kg", "Coop Extra", 139.0, 1000, "g"));
+
+    private final RestTemplate http = mock(RestTemplate.class);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestHedger hedger = new RequestHedger("etilbudsavis", false, 0, Duration.ofMillis(1),
+            Duration.ofMillis(2), 2, new ContextPropagatingTaskDecorator(ObservationRegistry.NOOP), registry);
+    private final ConcurrencyLimits limits = new ConcurrencyLimits(new MockEnvironment()
+            .withProperty("limits.groceries.initial-limit", "1").withProperty("limits.groceries.min-limit", "1")
+            .withProperty("limits.groceries.max-limit", "1"), registry);
+    private LocalOfferIndex index;
+    private GroceriesService indexed;
+    private GroceriesService upstreamOnly;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(http.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(inv -> search(inv.getArgument(2)));
+        index = new LocalOfferIndex(120);
+        indexed = service(index);
+        upstreamOnly = service(new LocalOfferIndex(120));
+        new LocalOfferIndexIngester(indexed, mock(WidgetSettingsService.class), index, true, "tine,melk,gilde", 0,
+                50, 2, 0).refresh();
+        upstreamCalls.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        hedger.close();
+    }
+
+    @Test
+    void indexAnswersEqualUpstreamAnswers() throws IOException {
+        for (String q : List.of("tine", "Tine melk", "melk tine", "tine lett", "melk", "q melk", "gilde pølser",
+                "Gilde", "melk laktosefri")) {
+            List<DealDto> fromIndex = deals(indexed, q);
+            int calls = upstreamCalls.get();
+            List<DealDto> fromUpstream = deals(upstreamOnly, q);
+
+            assertThat(upstreamCalls.get()).as("upstream calls for %s", q).isEqualTo(calls + 1);
+            assertThat(fromIndex).as("query %s", q).isNotEmpty().isEqualTo(fromUpstream);
+        }
+        assertThat(names(deals(indexed, "tine melk"))).containsExactlyInAnyOrder("Tine Lettmelk 1L", "Tine Helmelk 1L",
+                "Tine Skummetmelk 1,75L");
+    }
+
+    @Test
+    void uncoveredQueriesGoUpstream() throws IOException {
+        assertThat(names(deals(indexed, "kyllingfilet"))).containsExactlyInAnyOrder("Prior Kyllingfilet 700g",
+                "Coop Kyllingfilet 1kg");
+        assertThat(names(deals(indexed, "lettmelk"))).hasSize(3);
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void onlyUpstreamSearchesTakeALimiterSlot() throws IOException {
+        try (var held = limits.tryAcquire(ConcurrencyLimits.GROCERIES).orElseThrow()) {
+            assertThat(deals(indexed, "tine melk")).hasSize(3);
+            assertThatThrownBy(() -> deals(indexed, "kyllingfilet")).isInstanceOf(GroceriesService.Overloaded.class);
+        }
+        assertThat(deals(indexed, "kyllingfilet")).hasSize(2);
+        assertThat(inFlight()).isZero();
+    }
+
+    @Test
+    void failedUpstreamSearchReleasesItsSlot() {
+        when(http.exchange(anyString(), eq(HttpMethod.POST), any(HttpEntity.class), eq(String.class)))
+                .thenThrow(new ResourceAccessException("timeout"));
+
+        assertThatThrownBy(() -> deals(indexed, "kyllingfilet")).isInstanceOf(ResourceAccessException.class);
+        assertThat(inFlight()).isZero();
+    }
+
+    private GroceriesService service(LocalOfferIndex offerIndex) {
+        var svc = new GroceriesService(http, registry, ObservationRegistry.NOOP, hedger, limits, offerIndex, null);
+        ReflectionTestUtils.setField(svc, "baseUrl", "https://etilbudsavis.no");
+        ReflectionTestUtils.setField(svc, "defaultCity", "Trondheim");
+        ReflectionTestUtils.setField(svc, "defaultLat", 63.4306);
+        ReflectionTestUtils.setField(svc, "defaultLon", 10.4037);
+        ReflectionTestUtils.setField(svc, "countryCode", "NO");
+        ReflectionTestUtils.setField(svc, "defaultLimit", 10);
+        ReflectionTestUtils.setField(svc, "minFetchForSort", 20);
+        ReflectionTestUtils.setField(svc, "userAgent", "TheHub/1.0 (test)");
+        return svc;
+    }
+
+    private static List<DealDto> deals(GroceriesService svc, String q) throws IOException {
+        return svc.fetchDeals(new GroceryDealsSettings(q, null, null, null, null), 10).deals();
+    }
+
+    private static List<String> names(List<DealDto> deals) {
+        return deals.stream().map(DealDto::name).toList();
+    }
+
+    private double inFlight() {
+        return registry.get("thehub.limiter.in_flight").tag("group", "groceries").gauge().value();
+    }
+
+    /** Answers a search request like Etilbudsavis: matching offers, paged, as NDJSON. */
+    private ResponseEntity<String> search(HttpEntity<?> request) throws IOException {
+        upstreamCalls.incrementAndGet();
+        @SuppressWarnings("unchecked")
+        var payload = (Map<String, List<String>>) request.getBody();
+        JsonNode query = JSON.readTree(Base64.getDecoder().decode(payload.get("data").get(0))).path(1);
+        String[] words = LocalOfferIndex.tokens(query.path("searchTerm").asText());
+        int offset = query.path("pagination").path("offset").asInt();
+        int limit = query.path("pagination").path("limit").asInt();
+
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (Map<String, Object> offer : CATALOG) {
+            String[] tokens = LocalOfferIndex.tokens(offer.get("name") + " "
+                    + ((Map<?, ?>) offer.get("business")).get("name"));
+            if (Arrays.stream(words).allMatch(w -> Arrays.stream(tokens).anyMatch(t -> t.contains(w))))
+                matches.add(offer);
+        }
+        var page = matches.subList(Math.min(offset, matches.size()), Math.min(offset + limit, matches.size()));
+        String body = JSON.writeValueAsString(Map.of("key", "offers", "value", Map.of("data", page))) + "\n";
+        return ResponseEntity.ok(body);
+    }
+
+    private static Map<String, Object> offer(String name, String store, double price, double size, String symbol) {
+        Map<String, Object> o = new LinkedHashMap<>();
+        o.put("name", name);
+        o.put("price", price);
+        o.put("unitPrice", Math.round(price / size * 1000 * 100) / 100.0);
+        o.put("baseUnit", "ml".equals(symbol) ? "l" : "kg");
+        o.put("unitSymbol", symbol);
+        o.put("unitSizeFrom", size);
+        o.put("unitSizeTo", size);
+        o.put("pieceCountFrom", 1);
+        o.put("pieceCountTo", 1);
+        o.put("image", "https://img.example/" + Math.abs(name.hashCode()) + ".jpg");
+        o.put("validFrom", "2026-10-01T00:00:00+0000");
+        o.put("validUntil", "2030-12-31T22:59:59+0000");
+        o.put("business", Map.of("name", store, "slugs", List.of(store.toLowerCase().replace(' ', '-'))));
+        return o;
+    }
+}
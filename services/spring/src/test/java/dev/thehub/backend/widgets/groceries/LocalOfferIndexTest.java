@@ -0,0 +1,132 @@
+package dev.thehub.backend.widgets.groceries;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import dev.thehub.backend.widgets.groceries.dto.DealDto;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+class LocalOfferIndexTest {
+
+    private static final DealDto LETTMELK = deal("Tine Lettmelk 1L", "Rema 1000", 22.9);
+    private static final DealDto HELMELK = deal("Tine Helmelk 1L", "Kiwi", 23.9);
+    private static final DealDto SMOR = deal("Tine Smør 500g", "Kiwi", 54.9);
+    private static final DealDto Q_MELK = deal("Q Lettmelk 1L", "Meny", 21.9);
+
+    @Test
+    void tokensAreFoldedAndDistinct() {
+        assertThat(LocalOfferIndex.tokens("Tine Smør, smør & Brød!")).containsExactly("tine", "smor", "brod");
+        assertThat(LocalOfferIndex.tokens("Ærlig Crème brûlée")).containsExactly("aerlig", "creme", "brulee");
+        assertThat(LocalOfferIndex.tokens("  ")).isEmpty();
+        assertThat(LocalOfferIndex.termKey(LocalOfferIndex.tokens("melk Tine")))
+                .isEqualTo(LocalOfferIndex.termKey(LocalOfferIndex.tokens("tine MELK")));
+    }
+
+    @Test
+    void ingestedTermIsAnsweredInAnyWordOrder() {
+        var index = index(LocalOfferIndex.builder().add("tine melk", List.of(LETTMELK, HELMELK), true));
+
+        assertThat(names(index.search("Tine melk"))).containsExactlyInAnyOrder("Tine Lettmelk 1L", "Tine Helmelk 1L");
+        assertThat(names(index.search("melk tine"))).hasSize(2);
+    }
+
+    @Test
+    void extraWordsMatchInsideCompounds() {
+        var index = index(LocalOfferIndex.builder().add("tine", List.of(LETTMELK, HELMELK, SMOR), true));
+
+        assertThat(names(index.search("tine melk"))).containsExactlyInAnyOrder("Tine Lettmelk 1L", "Tine Helmelk 1L");
+        assertThat(names(index.search("tine lett"))).containsExactly("Tine Lettmelk 1L");
+        assertThat(names(index.search("tine kiwi"))).containsExactlyInAnyOrder("Tine Helmelk 1L", "Tine Smør 500g");
+        assertThat(names(index.search("tine smør"))).containsExactly("Tine Smør 500g");
+        assertThat(index.search("tine ost")).contains(List.of());
+    }
+
+    @Test
+    void gramPostingsFindTokensContainingAWord() {
+        var snapshot = LocalOfferIndex.builder().add("tine",
+                List.of(LETTMELK, HELMELK, SMOR, deal("Tine Melkesjokoladepudding", "Kiwi", 29.9)), true).build();
+
+        assertThat(tokensContaining(snapshot, "melk")).containsExactly("helmelk", "lettmelk", "melkesjokoladepudding");
+        assertThat(tokensContaining(snapshot, "me")).containsExactly("helmelk", "lettmelk", "melkesjokoladepudding");
+        assertThat(tokensContaining(snapshot, "kiwi")).containsExactly("kiwi");
+        assertThat(tokensContaining(snapshot, "x")).isEmpty();
+        assertThat(tokensContaining(snapshot, "ladep")).containsExactly("melkesjokoladepudding");
+        // "hel" and "elk" both occur in "helmelk", just not as one run
+        assertThat(tokensContaining(snapshot, "helk")).isEmpty();
+    }
+
+    @Test
+    void uncoveredQueriesAreNotAnswered() {
+        var index = index(LocalOfferIndex.builder().add("tine", List.of(LETTMELK, HELMELK), true).add("melk",
+                List.of(LETTMELK, HELMELK, Q_MELK), true));
+
+        assertThat(index.search("lettmelk")).isEmpty();
+        assertThat(index.search("q")).isEmpty();
+        assertThat(index.search("")).isEmpty();
+        assertThat(names(index.search("q melk"))).containsExactly("Q Lettmelk 1L");
+    }
+
+    @Test
+    void truncatedTermOnlyAnswersItself() {
+        var index = index(LocalOfferIndex.builder().add("melk", List.of(LETTMELK, HELMELK), false));
+
+        assertThat(names(index.search("melk"))).hasSize(2);
+        assertThat(index.search("melk tine")).isEmpty();
+    }
+
+    @Test
+    void mostSpecificFreshTermCovers() {
+        var index = index(LocalOfferIndex.builder().add("tine", List.of(LETTMELK, HELMELK, SMOR), true)
+                .add("tine lettmelk", List.of(LETTMELK), true));
+
+        assertThat(names(index.search("tine lettmelk"))).containsExactly("Tine Lettmelk 1L");
+
+        // a negative max age makes every entry stale
+        var stale = new LocalOfferIndex(-1);
+        stale.replace(index.snapshot());
+        assertThat(stale.search("tine")).isEmpty();
+    }
+
+    @Test
+    void carryOverKeepsOffersAndIngestTime() {
+        var previous = LocalOfferIndex.builder().add("tine", List.of(LETTMELK, SMOR), true).build();
+
+        var next = LocalOfferIndex.builder().carryOver("tine", previous).carryOver("ost", previous).build();
+
+        assertThat(next.entry("tine").ingestedAtMillis()).isEqualTo(previous.entry("tine").ingestedAtMillis());
+        assertThat(next.offersOf(next.entry("tine"))).extracting(LocalOfferIndex.Offer::toDeal)
+                .containsExactlyInAnyOrder(LETTMELK, SMOR);
+        assertThat(next.entry("ost")).isNull();
+    }
+
+    @Test
+    void offersRoundTripToTheSameDeal() {
+        var index = index(LocalOfferIndex.builder().add("tine", List.of(LETTMELK, LETTMELK, SMOR), true));
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.search("tine").orElseThrow()).extracting(LocalOfferIndex.Offer::toDeal)
+                .containsExactlyInAnyOrder(LETTMELK, SMOR);
+    }
+
+    private static LocalOfferIndex index(LocalOfferIndex.Builder builder) {
+        var index = new LocalOfferIndex(120);
+        index.replace(builder.build());
+        return index;
+    }
+
+    private static List<String> tokensContaining(LocalOfferIndex.Snapshot snapshot, String fragment) {
+        return Arrays.stream(snapshot.tokensContaining(fragment)).mapToObj(snapshot::token).toList();
+    }
+
+    private static List<String> names(Optional<List<LocalOfferIndex.Offer>> hits) {
+        return hits.orElseThrow().stream().map(o -> o.toDeal().name()).toList();
+    }
+
+    static DealDto deal(String name, String store, double price) {
+        return new DealDto(name, store, price, null, "2026-10-01T00:00:00+0000", "2030-12-31T22:59:59+0000",
+                "https://img.example/" + name.hashCode() + ".jpg", null, null, 1, 1, null, null, null, null, null,
+                null, null, false, null, null, null, null);
+    }
+}
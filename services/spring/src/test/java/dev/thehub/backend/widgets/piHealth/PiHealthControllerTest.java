@@ -0,0 +1,116 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRow;
+import dev.thehub.backend.widgets.WidgetSettingsService;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
+
+/**
+ * Raw history windows served from the ring buffer: used only while this node
+ * owns the device's ingest, and only from when it took over.
+ */
+@ExtendWith(MockitoExtension.class)
+class PiHealthControllerTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final UUID USER = UUID.randomUUID();
+    private static final UUID INSTANCE = UUID.randomUUID();
+    private static final UUID DEVICE = UUID.randomUUID();
+
+    @Mock
+    JdbcTemplate jdbc;
+    @Mock
+    PiMetricsRepository metrics;
+    @Mock
+    PiMetricsIngestService ingest;
+    @Mock
+    WidgetSettingsService widgets;
+
+    private final PiMetricsRingBuffers rings = new PiMetricsRingBuffers(100, 10, Duration.ofHours(1));
+    private final JwtAuthenticationToken auth = new JwtAuthenticationToken(Jwt.withTokenValue("t")
+            .header("alg", "none").subject(USER.toString()).build());
+    private PiHealthController controller;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        controller = new PiHealthController(jdbc, metrics, ingest, rings, widgets);
+        when(widgets.requireWidget(USER, INSTANCE)).thenReturn(new WidgetRow(UUID.randomUUID(), INSTANCE,
+                WidgetKind.PI_HEALTH.getValue(), JSON.createObjectNode(),
+                JSON.createObjectNode().put("deviceId", DEVICE.toString())));
+        now = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        rings.append(USER, DEVICE, List.of(sample(now.minusSeconds(600)), sample(now.minusSeconds(300)),
+                sample(now.minusSeconds(60))));
+    }
+
+    @Test
+    void ownedIngestIsServedFromMemory() {
+        when(metrics.ingestOwner(DEVICE)).thenReturn(new PiMetricsRepository.IngestOwner(rings.nodeId(),
+                now.minusSeconds(3600)));
+
+        var points = points(now.minusSeconds(900), now);
+
+        assertThat(points).extracting(PiMetricsPoint::ts).containsExactly(now.minusSeconds(600),
+                now.minusSeconds(300), now.minusSeconds(60));
+        verify(metrics, never()).history(DEVICE, PiMetricsResolution.RAW, now.minusSeconds(900), now);
+    }
+
+    @Test
+    void ingestOwnedByAnotherNodeIsReadFromTheDatabase() {
+        var stored = List.of(point(now.minusSeconds(120)));
+        when(metrics.ingestOwner(DEVICE)).thenReturn(new PiMetricsRepository.IngestOwner("other-node",
+                now.minusSeconds(3600)));
+        when(metrics.findWidgetDevice(USER, INSTANCE)).thenReturn(DEVICE);
+        when(metrics.history(DEVICE, PiMetricsResolution.RAW, now.minusSeconds(900), now)).thenReturn(stored);
+
+        assertThat(points(now.minusSeconds(900), now)).isEqualTo(stored);
+    }
+
+    @Test
+    void coverageStartsWhenThisNodeTookOverTheIngest() {
+        Instant tookOver = now.minusSeconds(400);
+        when(metrics.ingestOwner(DEVICE)).thenReturn(new PiMetricsRepository.IngestOwner(rings.nodeId(),
+                tookOver));
+        when(metrics.history(DEVICE, PiMetricsResolution.RAW, now.minusSeconds(900), tookOver))
+                .thenReturn(List.of(point(now.minusSeconds(700)), point(now.minusSeconds(450))));
+
+        var points = points(now.minusSeconds(900), now);
+
+        assertThat(points).extracting(PiMetricsPoint::ts).containsExactly(now.minusSeconds(700),
+                now.minusSeconds(450), now.minusSeconds(300), now.minusSeconds(60));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PiMetricsPoint> points(Instant from, Instant to) {
+        var body = (Map<String, Object>) controller.history(auth, INSTANCE, from, to).getBody();
+        assertThat(body).containsEntry("resolution", "raw");
+        return (List<PiMetricsPoint>) body.get("points");
+    }
+
+    private static PiMetricsSample sample(Instant ts) {
+        return new PiMetricsSample(DEVICE, ts, null, 10.0, null, null, null, null);
+    }
+
+    private static PiMetricsPoint point(Instant ts) {
+        return new PiMetricsPoint(ts, null, 10.0, null, null, null, null);
+    }
+}
@@ -0,0 +1,98 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class PiMetricsIngestServiceTest {
+
+    private static final UUID OWNER = UUID.randomUUID();
+    private static final UUID DEVICE = UUID.randomUUID();
+    private static final Instant NOW = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Mock
+    PiMetricsRepository repo;
+    @Mock
+    PiMetricsRingBuffers rings;
+
+    private PiMetricsIngestService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PiMetricsIngestService(repo, rings, new ObjectMapper(), 100, 10, Duration.ofHours(24),
+                Duration.ofMinutes(5));
+    }
+
+    @Test
+    void timestampsOutsideTheWindowAreRejectedAndSmallSkewIsClamped() {
+        var result = service.accept(OWNER, DEVICE, List.of(sample(NOW.minus(Duration.ofHours(25))),
+                sample(NOW.minus(Duration.ofHours(23))), sample(NOW.plusSeconds(60)), sample(NOW.plusSeconds(600)),
+                sample(null)), NOW);
+
+        assertThat(result).isEqualTo(new PiMetricsIngestService.Accepted(3, 2, false));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PiMetricsSample>> appended = ArgumentCaptor.forClass(List.class);
+        verify(rings).append(eq(OWNER), eq(DEVICE),
+                appended.capture());
+        assertThat(appended.getValue()).extracting(PiMetricsSample::ts)
+                .containsExactly(NOW.minus(Duration.ofHours(23)), NOW, NOW);
+    }
+
+    @Test
+    void failedFlushRequeuesSamplesAndKeepsLatestPending() {
+        when(rings.nodeId()).thenReturn("node-a");
+        service.accept(OWNER, DEVICE, List.of(sample(NOW.minusSeconds(30)), sample(NOW.minusSeconds(10))), NOW);
+        List<List<PiMetricsSample>> written = new ArrayList<>();
+        doThrow(new DataAccessResourceFailureException("down")).doAnswer(inv -> {
+            written.add(List.copyOf(inv.<List<PiMetricsSample>>getArgument(0)));
+            return null;
+        }).when(repo).insertSamples(anyList());
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(repo).upsertLatest(anyMap());
+
+        service.flush();
+
+        assertThat(service.queued()).isEqualTo(2);
+        assertThat(service.takeOldestWritten()).isNull();
+        verify(repo, never()).claimIngest(anyCollection(), anyString());
+
+        service.flush();
+
+        assertThat(service.queued()).isZero();
+        assertThat(written).singleElement().satisfies(batch -> assertThat(batch).hasSize(2));
+        assertThat(service.takeOldestWritten()).isEqualTo(NOW.minusSeconds(30));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<UUID, Map.Entry<String, Instant>>> latest = ArgumentCaptor.forClass(Map.class);
+        verify(repo, times(2)).upsertLatest(latest.capture());
+        assertThat(latest.getAllValues().get(1).get(DEVICE).getValue()).isEqualTo(NOW.minusSeconds(10));
+        verify(repo).claimIngest(Set.of(DEVICE), "node-a");
+    }
+
+    private static PiMetricsIngestRequest.Sample sample(Instant ts) {
+        return new PiMetricsIngestRequest.Sample(ts, Map.of("cpuPct", 12.5));
+    }
+}
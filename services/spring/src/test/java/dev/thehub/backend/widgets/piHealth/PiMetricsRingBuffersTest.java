@@ -0,0 +1,124 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class PiMetricsRingBuffersTest {
+
+    private static final UUID OWNER = UUID.randomUUID();
+    private static final UUID DEVICE = UUID.randomUUID();
+    private static final Instant T0 = Instant.parse("2026-10-19T12:00:00Z");
+
+    @Test
+    void readReturnsTheRangeInOrderAndCoverageFromTheFirstSample() {
+        var rings = new PiMetricsRingBuffers(10, 10, Duration.ofHours(1));
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0), sample(10, 2.0), sample(20, 3.0)));
+
+        var window = rings.read(OWNER, DEVICE, at(5), at(20));
+
+        assertThat(window.points()).extracting(PiMetricsPoint::ts).containsExactly(at(10));
+        assertThat(window.completeSince()).isEqualTo(at(0));
+        assertThat(rings.read(UUID.randomUUID(), DEVICE, at(0), at(30))).isNull();
+    }
+
+    @Test
+    void lateSampleIsInsertedInOrder() {
+        var rings = new PiMetricsRingBuffers(10, 10, Duration.ofHours(1));
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0), sample(20, 3.0)));
+        rings.append(OWNER, DEVICE, List.of(sample(10, 2.0)));
+
+        var window = rings.read(OWNER, DEVICE, at(0), at(30));
+
+        assertThat(window.points()).extracting(PiMetricsPoint::ts).containsExactly(at(0), at(10), at(20));
+        assertThat(window.points()).extracting(PiMetricsPoint::cpuPct).containsExactly(1.0, 2.0, 3.0);
+        assertThat(window.completeSince()).isEqualTo(at(0));
+    }
+
+    @Test
+    void lateSampleIntoAFullRingDropsTheOldestAndMovesCoverage() {
+        var rings = new PiMetricsRingBuffers(3, 10, Duration.ofHours(1));
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0), sample(10, 2.0), sample(30, 4.0)));
+        rings.append(OWNER, DEVICE, List.of(sample(20, 3.0)));
+
+        var window = rings.read(OWNER, DEVICE, at(0), at(40));
+
+        assertThat(window.points()).extracting(PiMetricsPoint::ts).containsExactly(at(10), at(20), at(30));
+        assertThat(window.completeSince()).isEqualTo(at(10));
+    }
+
+    @Test
+    void sampleBeforeCoverageIsSkipped() {
+        var rings = new PiMetricsRingBuffers(3, 10, Duration.ofHours(1));
+        rings.append(OWNER, DEVICE, List.of(sample(10, 2.0), sample(20, 3.0)));
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0)));
+
+        var window = rings.read(OWNER, DEVICE, at(0), at(30));
+
+        assertThat(window.points()).extracting(PiMetricsPoint::ts).containsExactly(at(10), at(20));
+        assertThat(window.completeSince()).isEqualTo(at(10));
+    }
+
+    @Test
+    void wrappedRingKeepsTheNewestSamples() {
+        var rings = new PiMetricsRingBuffers(3, 10, Duration.ofHours(1));
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0), sample(10, 2.0), sample(20, 3.0), sample(30, 4.0),
+                sample(40, 5.0)));
+        rings.append(OWNER, DEVICE, List.of(sample(35, 4.5)));
+
+        var window = rings.read(OWNER, DEVICE, at(0), at(50));
+
+        assertThat(window.points()).extracting(PiMetricsPoint::ts).containsExactly(at(30), at(35), at(40));
+        assertThat(window.completeSince()).isEqualTo(at(30));
+    }
+
+    @Test
+    void stalestDeviceIsEvictedAtTheLimit() {
+        var rings = new PiMetricsRingBuffers(3, 1, Duration.ofHours(1));
+        UUID other = UUID.randomUUID();
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0)));
+        rings.append(OWNER, other, List.of(new PiMetricsSample(other, at(0), null, 1.0, null, null, null, null)));
+
+        assertThat(rings.deviceCount()).isEqualTo(1);
+        assertThat(rings.read(OWNER, DEVICE, at(0), at(10))).isNull();
+    }
+
+    @Test
+    void deviceWithANewOwnerStartsANewRing() {
+        var rings = new PiMetricsRingBuffers(10, 10, Duration.ofHours(1));
+        UUID newOwner = UUID.randomUUID();
+        rings.append(OWNER, DEVICE, List.of(sample(0, 1.0), sample(10, 2.0)));
+        rings.append(newOwner, DEVICE, List.of(sample(20, 3.0)));
+
+        assertThat(rings.read(OWNER, DEVICE, at(0), at(30))).isNull();
+        var window = rings.read(newOwner, DEVICE, at(0), at(30));
+        assertThat(window.points()).extracting(PiMetricsPoint::ts).containsExactly(at(20));
+        assertThat(window.completeSince()).isEqualTo(at(20));
+    }
+
+    @Test
+    void idleRingsAreDropped() {
+        var keeping = new PiMetricsRingBuffers(10, 10, Duration.ofHours(1));
+        keeping.append(OWNER, DEVICE, List.of(sample(0, 1.0)));
+        keeping.dropIdle();
+        assertThat(keeping.deviceCount()).isEqualTo(1);
+
+        // a negative idle limit makes every ring count as idle
+        var dropping = new PiMetricsRingBuffers(10, 10, Duration.ofMillis(-1));
+        dropping.append(OWNER, DEVICE, List.of(sample(0, 1.0)));
+        dropping.dropIdle();
+        assertThat(dropping.deviceCount()).isZero();
+    }
+
+    private static PiMetricsSample sample(int seconds, double cpuPct) {
+        return new PiMetricsSample(DEVICE, at(seconds), null, cpuPct, null, null, null, null);
+    }
+
+    private static Instant at(int seconds) {
+        return T0.plusSeconds(seconds);
+    }
+}
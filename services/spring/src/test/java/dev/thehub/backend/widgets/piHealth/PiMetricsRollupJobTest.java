@@ -0,0 +1,81 @@
+package dev.thehub.backend.widgets.piHealth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+@ExtendWith(MockitoExtension.class)
+class PiMetricsRollupJobTest {
+
+    @Mock
+    PiMetricsRepository repo;
+    @Mock
+    PiMetricsIngestService ingest;
+    @InjectMocks
+    PiMetricsRollupJob job;
+
+    @Test
+    void eachPartitionDayIsEnsuredOnItsOwn() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        doThrow(new DataAccessResourceFailureException("down")).when(repo).ensurePartition(today);
+
+        int failed = job.ensurePartitions();
+
+        assertThat(failed).isEqualTo(1);
+        verify(repo).ensurePartition(today.plusDays(1));
+        verify(repo).ensurePartition(today.plusDays(2));
+    }
+
+    @Test
+    void retentionStepsRunEvenIfOneFails() {
+        when(repo.dropPartitionsBefore(any())).thenThrow(new DataAccessResourceFailureException("down"));
+
+        job.maintain();
+
+        verify(repo).deleteRollupsBefore(eq(PiMetricsResolution.MINUTE), any());
+        verify(repo).deleteRollupsBefore(eq(PiMetricsResolution.HOUR), any());
+    }
+
+    @Test
+    void lateSamplesWidenTheMinuteRollupAndPropagateToHours() {
+        Instant late = Instant.now().minus(3, ChronoUnit.HOURS);
+        when(ingest.takeOldestWritten()).thenReturn(late);
+
+        job.rollupMinutes();
+        job.rollupHours();
+
+        verify(repo).rollup(PiMetricsResolution.MINUTE, late.truncatedTo(ChronoUnit.MINUTES));
+        verify(repo).rollup(PiMetricsResolution.HOUR, late.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    @Test
+    void failedRollupRetriesFromTheSameStart() {
+        Instant late = Instant.now().minus(1, ChronoUnit.HOURS);
+        when(ingest.takeOldestWritten()).thenReturn(late, (Instant) null);
+        when(repo.rollup(eq(PiMetricsResolution.MINUTE), any())).thenThrow(new DataAccessResourceFailureException(
+                "down")).thenReturn(1);
+
+        job.rollupMinutes();
+        job.rollupMinutes();
+
+        ArgumentCaptor<Instant> from = ArgumentCaptor.forClass(Instant.class);
+        verify(repo, times(2)).rollup(eq(PiMetricsResolution.MINUTE), from.capture());
+        assertThat(from.getAllValues()).containsOnly(late.truncatedTo(ChronoUnit.MINUTES));
+    }
+}
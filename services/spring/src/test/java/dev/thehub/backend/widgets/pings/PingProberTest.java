@@ -0,0 +1,105 @@
+package dev.thehub.backend.widgets.pings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class PingProberTest {
+
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private HttpServer server;
+    private PingProber prober;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (prober != null)
+            prober.shutdown();
+        if (server != null)
+            server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void probesBeyondTheConcurrencyLimitWaitForAPermit() throws Exception {
+        String url = startServer();
+        prober = new PingProber(5000, 2, 1);
+
+        List<CompletableFuture<PingsService.PingResult>> probes = IntStream.range(0, 6)
+                .mapToObj(i -> prober.probe(url + "/" + i)).toList();
+        for (int i = 0; i < 100 && inFlight.get() < 2; i++)
+            Thread.sleep(20);
+        Thread.sleep(200);
+
+        assertThat(inFlight).hasValue(2);
+        release.countDown();
+        for (var probe : probes)
+            assertThat(probe.get(5, TimeUnit.SECONDS).status()).isEqualTo(204);
+        assertThat(maxInFlight).hasValue(2);
+    }
+
+    @Test
+    void aHangingTargetFailsAtTheDeadline() throws Exception {
+        String url = startServer();
+        prober = new PingProber(200, 4, 1);
+
+        long t0 = System.nanoTime();
+        var result = prober.probe(url).get(5, TimeUnit.SECONDS);
+
+        assertThat(result.status()).isEqualTo(-1);
+        assertThat((System.nanoTime() - t0) / 1_000_000).isLessThan(prober.maxProbeMillis() + 1000);
+    }
+
+    @Test
+    void tcpTargetsOnlyConnect() throws Exception {
+        prober = new PingProber(1000, 4, 1);
+        int closedPort;
+        try (var listening = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            String target = "tcp://127.0.0.1:" + listening.getLocalPort();
+            assertThat(prober.probe(target).get(5, TimeUnit.SECONDS).status()).isEqualTo(200);
+            closedPort = listening.getLocalPort();
+        }
+
+        assertThat(prober.probe("tcp://127.0.0.1:" + closedPort).get(5, TimeUnit.SECONDS).status()).isEqualTo(-1);
+        assertThat(prober.probe("tcp://127.0.0.1").get(5, TimeUnit.SECONDS).status()).as("no port")
+                .isEqualTo(-1);
+        assertThat(prober.probe("tcp://unresolvable.invalid:80").get(5, TimeUnit.SECONDS).status()).isEqualTo(-1);
+    }
+
+    /** Starts a server whose responses wait for {@link #release}; returns its base URL. */
+    private String startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                release.await();
+                exchange.sendResponseHeaders(204, -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+}
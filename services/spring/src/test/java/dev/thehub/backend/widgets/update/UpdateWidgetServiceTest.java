@@ -0,0 +1,135 @@
+package dev.thehub.backend.widgets.update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.thehub.backend.widgets.WidgetKind;
+import dev.thehub.backend.widgets.WidgetRow;
+import dev.thehub.backend.widgets.WidgetRowCache;
+import dev.thehub.backend.widgets.WidgetSettingsRepository;
+import dev.thehub.backend.widgets.create.CreateWidgetService;
+import io.micrometer.observation.ObservationRegistry;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+/**
+ * Runs the partial-update statement against a mocked JDBC layer: the SQL and
+ * bind parameters it would send, and how its result row is interpreted.
+ */
+@ExtendWith(MockitoExtension.class)
+class UpdateWidgetServiceTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final UUID USER = UUID.randomUUID();
+    private static final UUID INSTANCE = UUID.randomUUID();
+
+    @Mock
+    JdbcTemplate jdbc;
+    @Mock
+    WidgetSettingsRepository readRepo;
+    @Mock
+    CreateWidgetService createChecks;
+    @Mock
+    Connection connection;
+    @Mock
+    PreparedStatement statement;
+    @Mock
+    ResultSet result;
+
+    private UpdateWidgetService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        var row = new WidgetRow(UUID.randomUUID(), INSTANCE, WidgetKind.SERVER_PINGS.getValue(),
+                JSON.createObjectNode().put("x", 0), JSON.createObjectNode().put("target", "https://a.example"));
+        when(readRepo.findWidget(USER, INSTANCE)).thenReturn(Optional.of(row));
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(jdbc.query(any(PreparedStatementCreator.class), any(ResultSetExtractor.class))).thenAnswer(inv -> {
+            inv.<PreparedStatementCreator>getArgument(0).createPreparedStatement(connection);
+            return inv.<ResultSetExtractor<?>>getArgument(1).extractData(result);
+        });
+        service = new UpdateWidgetService(jdbc, JSON, readRepo, createChecks,
+                new WidgetRowCache(10, 60, ObservationRegistry.NOOP));
+    }
+
+    @Test
+    void gridOnlyUpdateSkipsTheTargetGuard() throws Exception {
+        updatedRow(false);
+
+        var out = service.partialUpdate(USER, INSTANCE, new UpdateWidgetRequest(null, Map.of("x", 2)));
+
+        String sql = preparedSql();
+        assertThat(sql).contains("?::jsonb is not null as settings_given")
+                .contains("(cur.settings_given and cur.kind = 'server-pings' and exists (");
+        verify(statement).setString(1, null);
+        verify(statement).setString(7, "{\"x\":2}");
+        verify(createChecks, never()).lockUserWidgets(any());
+        verify(createChecks, never()).validateSettings(any(), any());
+        assertThat(out.grid()).containsEntry("x", 2);
+    }
+
+    @Test
+    void settingsUpdateLocksAndReportsTargetOverlap() throws Exception {
+        when(result.next()).thenReturn(true);
+        when(result.getBoolean("target_taken")).thenReturn(true);
+        Map<String, Object> settings = Map.of("targets", List.of("https://b.example/"));
+
+        assertThatThrownBy(() -> service.partialUpdate(USER, INSTANCE, new UpdateWidgetRequest(settings, null)))
+                .isInstanceOf(UpdateWidgetService.DuplicateException.class).hasMessage("duplicate_target");
+
+        String settingsJson = "{\"targets\":[\"https://b.example/\"]}";
+        verify(statement).setString(1, settingsJson);
+        verify(statement).setString(2, settingsJson);
+        verify(statement).setString(3, settingsJson);
+        verify(statement).setObject(4, USER);
+        verify(statement).setObject(5, INSTANCE);
+        verify(statement).setObject(6, USER);
+        verify(statement).setString(7, null);
+        verify(createChecks).validateSettings(WidgetKind.SERVER_PINGS, settings);
+        verify(createChecks).lockUserWidgets(USER);
+    }
+
+    @Test
+    void missingRowIsReportedAsNotFound() throws Exception {
+        when(result.next()).thenReturn(false);
+
+        assertThatThrownBy(() -> service.partialUpdate(USER, INSTANCE, new UpdateWidgetRequest(null, Map.of())))
+                .isInstanceOf(UpdateWidgetService.NotFoundOrNotOwned.class);
+    }
+
+    private void updatedRow(boolean targetTaken) throws Exception {
+        when(result.next()).thenReturn(true);
+        when(result.getBoolean("target_taken")).thenReturn(targetTaken);
+        when(result.getObject("id", UUID.class)).thenReturn(UUID.randomUUID());
+        when(result.getObject("instance_id", UUID.class)).thenReturn(INSTANCE);
+        when(result.getString("kind")).thenReturn(WidgetKind.SERVER_PINGS.getValue());
+        when(result.getString("grid")).thenReturn("{\"x\":2}");
+        when(result.getString("settings")).thenReturn("{\"target\":\"https://a.example\"}");
+    }
+
+    private String preparedSql() throws Exception {
+        var sql = ArgumentCaptor.forClass(String.class);
+        verify(connection).prepareStatement(sql.capture());
+        return sql.getValue();
+    }
+}
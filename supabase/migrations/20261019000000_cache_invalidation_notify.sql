@@ -0,0 +1,70 @@
+-- Publish changes to tables that backend replicas cache in memory.
+-- Every insert/update/delete (and truncate) sends a NOTIFY on channel
+-- 'cache_invalidation' with a small JSON payload:
+--   {"table": "...", "op": "INSERT|UPDATE|DELETE|TRUNCATE", "at": <epoch ms>, ...keys}
+-- Keys per table: user_widgets -> userId, instanceId. Truncates carry no keys
+-- (drop everything). "at" is the server clock at trigger time; listeners use it
+-- to measure lag.
+-- Only user_widgets is cached in memory (WidgetRowCache). The countdown and
+-- cinemateket cache tables are read from the database on every request, so
+-- they get no trigger; add one here together with a listener if that changes.
+
+create or replace function public.notify_cache_invalidation()
+returns trigger
+language plpgsql
+as $$
+declare
+  r record;
+  payload jsonb := jsonb_build_object(
+    'table', tg_table_name,
+    'op', tg_op,
+    'at', (extract(epoch from clock_timestamp()) * 1000)::bigint
+  );
+begin
+  if tg_level = 'ROW' then
+    if tg_op = 'DELETE' then
+      r := old;
+    else
+      r := new;
+    end if;
+
+    if tg_table_name = 'user_widgets' then
+      payload := payload || jsonb_build_object('userId', r.user_id, 'instanceId', r.instance_id);
+    end if;
+  end if;
+
+  perform pg_notify('cache_invalidation', payload::text);
+  return null;
+end $$;
+
+do $$
+declare
+  t text;
+begin
+  foreach t in array array['user_widgets']
+  loop
+    if not exists (
+      select 1
+      from pg_trigger
+      where tgrelid = ('public.' || t)::regclass
+        and tgname  = t || '_notify_cache_trg'
+    ) then
+      execute format(
+        'create trigger %I after insert or update or delete on public.%I '
+        'for each row execute function public.notify_cache_invalidation()',
+        t || '_notify_cache_trg', t);
+    end if;
+
+    if not exists (
+      select 1
+      from pg_trigger
+      where tgrelid = ('public.' || t)::regclass
+        and tgname  = t || '_notify_cache_truncate_trg'
+    ) then
+      execute format(
+        'create trigger %I after truncate on public.%I '
+        'for each statement execute function public.notify_cache_invalidation()',
+        t || '_notify_cache_truncate_trg', t);
+    end if;
+  end loop;
+end $$;
@@ -0,0 +1,73 @@
+-- Move widget duplicate rules from application-side "select exists" checks
+-- into the table, so create/update can be a single statement without a
+-- check-then-insert race.
+--
+-- Rules (mirroring CreateWidgetService):
+--   grocery-deals: one widget per (query, city), case/whitespace-insensitive
+--   countdown:     one provider-sourced widget per provider
+--   cinemateket:   one widget per user
+--   server-pings:  a target URL may appear in only one widget (checked via
+--                  overlap on target_urls, backed by a GIN index)
+--
+-- Target overlap and the per-kind widget limit cannot be expressed as unique
+-- indexes; writers check them under a per-user advisory lock instead
+-- (CreateWidgetService.lockUserWidgets).
+--
+-- Index creation fails if existing rows already violate a rule; resolve such
+-- duplicates by hand before re-running.
+
+-- Normalized target URLs of a settings document: "target" plus "targets",
+-- trimmed and without one trailing slash (same as CreateWidgetService.targetUrls).
+create or replace function public.widget_target_urls(settings jsonb)
+returns text[]
+language sql
+immutable
+as $$
+  select coalesce(array_agg(distinct u), '{}')
+  from (
+    select regexp_replace(btrim(settings->>'target'), '/$', '') as u
+    where jsonb_typeof(settings->'target') = 'string'
+    union all
+    select regexp_replace(btrim(t.v), '/$', '')
+    from jsonb_array_elements_text(
+      case when jsonb_typeof(settings->'targets') = 'array' then settings->'targets' else '[]'::jsonb end
+    ) t(v)
+  ) s
+  where u <> ''
+$$;
+
+alter table public.user_widgets
+  add column if not exists dedupe_key text generated always as (
+    case kind
+      when 'grocery-deals' then
+        lower(btrim(settings->>'query')) || E'\n' || coalesce(nullif(lower(btrim(settings->>'city')), ''), '')
+      when 'countdown' then
+        case when lower(settings->>'source') = 'provider' then lower(btrim(settings->>'provider')) end
+      when 'cinemateket' then
+        'cinemateket'
+    end
+  ) stored;
+
+alter table public.user_widgets
+  add column if not exists target_urls text[] generated always as (
+    case when kind = 'server-pings' then public.widget_target_urls(settings) end
+  ) stored;
+
+create unique index if not exists user_widgets_grocery_dedupe_uidx
+  on public.user_widgets (user_id, dedupe_key)
+  where kind = 'grocery-deals' and dedupe_key is not null;
+
+create unique index if not exists user_widgets_countdown_provider_uidx
+  on public.user_widgets (user_id, dedupe_key)
+  where kind = 'countdown' and dedupe_key is not null;
+
+create unique index if not exists user_widgets_cinemateket_uidx
+  on public.user_widgets (user_id)
+  where kind = 'cinemateket';
+
+create index if not exists user_widgets_target_urls_gin
+  on public.user_widgets using gin (target_urls)
+  where kind = 'server-pings';
+
+create index if not exists user_widgets_user_kind_idx
+  on public.user_widgets (user_id, kind);
@@ -0,0 +1,24 @@
+-- Typed, indexed grid coordinates for user_widgets.
+-- The grid jsonb stays the source of truth (the API reads and writes it);
+-- these stored generated columns expose x/y/w/h as integers so layout queries
+-- can sort and filter on an index instead of casting jsonb keys per row, and
+-- reflows can skip rows whose position does not change.
+
+-- Integer value of a grid key, or null when missing / not a number.
+create or replace function public.widget_grid_int(grid jsonb, k text)
+returns int
+language sql
+immutable
+as $$
+  select case when jsonb_typeof(grid->k) = 'number' then floor((grid->>k)::numeric)::int end
+$$;
+
+alter table public.user_widgets
+  add column if not exists grid_x int generated always as (public.widget_grid_int(grid, 'x')) stored,
+  add column if not exists grid_y int generated always as (public.widget_grid_int(grid, 'y')) stored,
+  add column if not exists grid_w int generated always as (public.widget_grid_int(grid, 'w')) stored,
+  add column if not exists grid_h int generated always as (public.widget_grid_int(grid, 'h')) stored;
+
+-- Reading order used by reflow and placement.
+create index if not exists user_widgets_user_grid_idx
+  on public.user_widgets (user_id, grid_y nulls first, grid_x nulls first, id);
@@ -0,0 +1,125 @@
+-- Pi health history.
+-- Raw samples are appended by the backend ingest endpoint into a table
+-- partitioned by day (UTC), so old data is dropped by detaching whole
+-- partitions instead of deleting rows. Scheduled rollups downsample into
+-- 1-minute, 1-hour and 1-day tables; history reads pick the finest table
+-- that still retains the requested range without returning more points than
+-- a sparkline needs (PiMetricsResolution.forRange).
+--
+-- Partitions are created ahead of time by the backend
+-- (public.ensure_pi_metrics_partition); rows outside any daily partition
+-- land in the default partition and are moved out when their day's
+-- partition is created.
+
+create table if not exists public.pi_metrics_samples (
+    device_id      uuid             not null,
+    ts             timestamptz      not null,
+    cpu_temp_c     double precision null,
+    cpu_pct        double precision null,
+    mem_used_mb    integer          null,
+    disk_used_pct  double precision null,
+    net_up_kbps    double precision null,
+    net_down_kbps  double precision null
+) partition by range (ts);
+
+create index if not exists pi_metrics_samples_device_ts_idx
+    on public.pi_metrics_samples (device_id, ts);
+
+create table if not exists public.pi_metrics_samples_default
+    partition of public.pi_metrics_samples default;
+
+-- Creates the partition for one UTC day if it does not exist yet.
+-- Rows of that day already in the default partition would make a plain
+-- "partition of" fail, so the partition is created detached, those rows are
+-- moved into it and it is then attached. The default partition is locked
+-- against writes meanwhile so no new row for the day can slip in.
+create or replace function public.ensure_pi_metrics_partition(day date)
+returns void
+language plpgsql
+as $$
+declare
+  part text := 'pi_metrics_samples_' || to_char(day, 'YYYYMMDD');
+  lo timestamptz := day::timestamp at time zone 'UTC';
+  hi timestamptz := (day + 1)::timestamp at time zone 'UTC';
+begin
+  if to_regclass('public.' || part) is not null then
+    return;
+  end if;
+  lock table public.pi_metrics_samples_default in exclusive mode;
+  -- a concurrent call may have created it while we waited for the lock
+  if to_regclass('public.' || part) is not null then
+    return;
+  end if;
+  execute format('create table public.%I (like public.pi_metrics_samples including defaults)', part);
+  execute format(
+    'with moved as (delete from public.pi_metrics_samples_default where ts >= $1 and ts < $2 returning *) '
+      || 'insert into public.%I select * from moved',
+    part) using lo, hi;
+  execute format(
+    'alter table public.pi_metrics_samples attach partition public.%I for values from (%L) to (%L)',
+    part, lo, hi);
+end $$;
+
+-- Drops daily partitions that end on or before the given UTC day.
+-- Returns the number of partitions dropped.
+create or replace function public.drop_pi_metrics_partitions_before(cutoff date)
+returns integer
+language plpgsql
+as $$
+declare
+  p record;
+  dropped integer := 0;
+begin
+  for p in
+    select c.relname
+      from pg_inherits i
+      join pg_class c on c.oid = i.inhrelid
+     where i.inhparent = 'public.pi_metrics_samples'::regclass
+       and c.relname ~ '^pi_metrics_samples_[0-9]{8}$'
+  loop
+    if to_date(right(p.relname, 8), 'YYYYMMDD') < cutoff then
+      execute format('drop table public.%I', p.relname);
+      dropped := dropped + 1;
+    end if;
+  end loop;
+  return dropped;
+end $$;
+
+-- Rollups: averages per bucket, weighted by sample count when rolled up further.
+create table if not exists public.pi_metrics_1m (
+    device_id      uuid             not null,
+    bucket         timestamptz      not null,
+    samples        integer          not null,
+    cpu_temp_c     double precision null,
+    cpu_pct        double precision null,
+    mem_used_mb    double precision null,
+    disk_used_pct  double precision null,
+    net_up_kbps    double precision null,
+    net_down_kbps  double precision null,
+    primary key (device_id, bucket)
+);
+
+create table if not exists public.pi_metrics_1h (like public.pi_metrics_1m including all);
+create table if not exists public.pi_metrics_1d (like public.pi_metrics_1m including all);
+
+-- Backend-only tables: it reads and writes them as service_role.
+alter table public.pi_metrics_samples enable row level security;
+alter table public.pi_metrics_1m enable row level security;
+alter table public.pi_metrics_1h enable row level security;
+alter table public.pi_metrics_1d enable row level security;
+
+do $$
+declare
+  t text;
+begin
+  foreach t in array array['pi_metrics_samples', 'pi_metrics_1m', 'pi_metrics_1h', 'pi_metrics_1d']
+  loop
+    execute format('drop policy if exists %I on public.%I', t || '_write', t);
+    execute format(
+      'create policy %I on public.%I for all to service_role using (true) with check (true)',
+      t || '_write', t);
+  end loop;
+end $$;
+
+-- Today and the next two days, so the first inserts don't hit the default partition.
+select public.ensure_pi_metrics_partition(current_date + n) from generate_series(0, 2) n;
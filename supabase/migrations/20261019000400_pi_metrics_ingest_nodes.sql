@@ -0,0 +1,20 @@
+-- Which backend node ingests each Pi device's samples, and since when.
+-- Every node keeps recent samples of the devices it ingests in memory and
+-- knows since when that buffer is complete. With several replicas, samples
+-- of one device may reach different nodes; a node serves a window from memory
+-- only while it owns the device's ingest, and only from "since" onwards.
+-- The backend claims devices after writing their samples; the row changes
+-- only when ingest moves to another node.
+
+create table if not exists public.pi_metrics_ingest_nodes (
+    device_id  uuid        primary key,
+    node_id    text        not null,
+    since      timestamptz not null
+);
+
+-- Backend-only table: it reads and writes it as service_role.
+alter table public.pi_metrics_ingest_nodes enable row level security;
+
+drop policy if exists pi_metrics_ingest_nodes_write on public.pi_metrics_ingest_nodes;
+create policy pi_metrics_ingest_nodes_write on public.pi_metrics_ingest_nodes
+    for all to service_role using (true) with check (true);